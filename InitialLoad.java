@@ -3,8 +3,12 @@ import java.util.List;
 import controller.account.AccountManager;
 import controller.medication.MedicationManager;
 import controller.user.PatientManager;
+import database.DatabaseLoader;
+import database.medicalRecords.MedicationDatabase;
+import database.user.AdministratorDatabase;
 import database.user.DoctorDatabase;
 import database.user.PatientDatabase;
+import database.user.PharmacistDatabase;
 import display.session.WelcomeDisplay;
 import model.user.Doctor;
 import model.user.Patient;
@@ -15,6 +19,11 @@ public class InitialLoad {
                 || AccountManager.isHospitalStaffsRepositoryEmpty();
     }
 
+    private static void loadDatabases() {
+        DatabaseLoader.loadAll(List.of(MedicationDatabase::getDB, PatientDatabase::getDB,
+                AdministratorDatabase::getDB, DoctorDatabase::getDB, PharmacistDatabase::getDB));
+    }
+
     private static void updateLoadedPatient() {
         try {
             List<Patient> patients = PatientDatabase.getDB().getAllPatients();
@@ -33,6 +42,7 @@ public class InitialLoad {
 
     public static void start() {
         int flag = 0;
+        loadDatabases();
         if (isInitial()) {
             try {
                 MedicationManager.loadMedication();
@@ -18,11 +18,13 @@ import model.user.enums.Gender;
 import model.user.enums.UserType;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 import utils.exceptions.PasswordDoesNotFulfilCriteriaException;
 import utils.exceptions.PasswordIncorrectException;
 import utils.exceptions.UserAlreadyExistsException;
 import utils.exceptions.UserCannotBeFoundException;
 import utils.iocontrol.CSVReader;
+import utils.utils.FormatDateTime;
 
 /**
  * The AccountManager class provides utility methods for managing user accounts.
@@ -138,12 +140,14 @@ public class AccountManager {
      *                                                found.
      * @throws PasswordDoesNotFulfilCriteriaException If the new password does not
      *                                                meet the required criteria.
+     * @throws ModelVersionConflictException          If the user was changed by
+     *                                                someone else in the meantime.
      */
     public static void changePassword(UserType userType, String email, String oldPassword, String newPassword)
-            throws PasswordIncorrectException, ModelNotFoundException, PasswordDoesNotFulfilCriteriaException {
+            throws PasswordIncorrectException, ModelNotFoundException, PasswordDoesNotFulfilCriteriaException,
+            ModelVersionConflictException {
         User user = UserManager.findUser(email, userType);
         PasswordManager.changePassword(user, oldPassword, newPassword);
-        UserManager.updateUser(user);
     }
 
     /**
@@ -205,7 +209,7 @@ public class AccountManager {
                 BloodType bloodType = BloodType.fromString(patientBloodType);
 
                 PersonalInfo personalInfo = new PersonalInfo(patientName, gender, Integer.parseInt(patientAge),
-                        null,
+                        FormatDateTime.NO_DATE,
                         patientEmail, null, dateOfRegistration);
                 Patient newPatient = new Patient(patientID, "password", personalInfo, new ArrayList<>(), bloodType,
                         new ArrayList<>(),
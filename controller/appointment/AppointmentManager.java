@@ -2,15 +2,17 @@ package controller.appointment;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import controller.user.DoctorManager;
+import database.Transaction;
 import database.appointment.AppointmentDatabase;
+import database.appointment.AppointmentOutcomeDatabase;
+import database.user.DoctorDatabase;
 import model.appointment.Appointment;
 import model.appointment.AppointmentOutcome;
 import model.appointment.enums.AppointmentOutcomeStatus;
@@ -18,6 +20,9 @@ import model.appointment.enums.AppointmentStatus;
 import model.user.Doctor;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
+import utils.exceptions.TimeSlotUnavailableException;
+import utils.utils.FormatDateTime;
 /**
  * The AppointmentManager class provides utility methods for scheduling Appointments.
  */
@@ -45,8 +50,8 @@ public class AppointmentManager {
     /**
      * Retrieves an appointment by patient ID and appointment ID.
      * 
-     * This method searches through all available appointments to find a match for the
-     * specified patient ID and appointment ID. If a matching appointment is found, 
+     * This method looks up the appointment by its ID and checks that it belongs to the
+     * specified patient ID. If a matching appointment is found, 
      * it is returned; otherwise, a message is printed and {@code null} is returned.
      * 
      * @param patientID     The ID of the patient associated with the appointment.
@@ -55,12 +60,10 @@ public class AppointmentManager {
      */
     public static Appointment getAppointmentByPatientAndID(String patientID, String appointmentID) {
         try {
-            List<Appointment> appointments = getAllAppointments();
-            for (Appointment appointment : appointments) {
-                if (appointment.getPatientID().equals(patientID)
-                        && appointment.getAppointmentID().equals(appointmentID))
-                    return appointment;
-            }
+            Appointment appointment = AppointmentDatabase.getDB().getByID(appointmentID);
+            if (appointment.getPatientID().equals(patientID)
+                    && appointment.getAppointmentID().equals(appointmentID))
+                return appointment;
         } catch (Exception e) {
             System.out.println("Appointment not found.");
         }
@@ -95,16 +98,25 @@ public class AppointmentManager {
      * returned.
      * 
      * @param patientID The ID of the patient whose appointments are to be retrieved.
-     * @return A list of {@link Appointment} objects associated with the specified patient.
-     *         If no appointments are found, an empty list is returned.
+     * @return A list of {@link Appointment} objects associated with the specified patient,
+     *         in order of date and time slot. If no appointments are found, an empty
+     *         list is returned.
      */
     public static List<Appointment> getPatientAppointment(String patientID) {
-        List<Appointment> patientAppointments = new ArrayList<>();
-        for (Appointment appointment : getAllAppointments()) {
-            if (appointment.getPatientID().equals(patientID))
-                patientAppointments.add(appointment);
-        }
-        return patientAppointments;
+        return AppointmentDatabase.getDB().getAppointmentsByPatientIDBetween(patientID, null, null);
+    }
+
+    /**
+     * Retrieves the appointments of a patient between two dates.
+     * 
+     * @param patientID The ID of the patient whose appointments are to be retrieved.
+     * @param from      The first date to include, or null for no lower bound.
+     * @param to        The last date to include, or null for no upper bound.
+     * @return A list of {@link Appointment} objects of the patient between the dates,
+     *         in order of date and time slot.
+     */
+    public static List<Appointment> getPatientAppointmentsBetween(String patientID, LocalDate from, LocalDate to) {
+        return AppointmentDatabase.getDB().getAppointmentsByPatientIDBetween(patientID, from, to);
     }
 
     /**
@@ -120,15 +132,7 @@ public class AppointmentManager {
      *         If no matching appointments are found, an empty list is returned.
      */
     public static List<Appointment> getPatientAppointmentsByStatus(String patientID, AppointmentStatus status) {
-        List<Appointment> allpatientAppointments = getPatientAppointment(patientID);
-        ArrayList<Appointment> scheduledPatientAppointment = new ArrayList<Appointment>();
-        if (allpatientAppointments == null || allpatientAppointments.isEmpty())
-            return scheduledPatientAppointment;
-        for (Appointment appointment : allpatientAppointments) {
-            if (appointment.getAppointmentStatus().equals(status))
-                scheduledPatientAppointment.add(appointment);
-        }
-        return scheduledPatientAppointment;
+        return AppointmentDatabase.getDB().getAppointmentsByPatientIDAndStatus(patientID, status);
     }
 
     /**
@@ -149,22 +153,34 @@ public class AppointmentManager {
      * 
      * This method generates a new appointment ID and creates a new {@link Appointment}
      * object with the provided patient ID, doctor ID, time slot ID, and appointment date.
-     * The new appointment is added to the appointment database. If an appointment with
-     * the same ID already exists, a {@link ModelAlreadyExistsException} is thrown.
+     * The time slot is first reserved in the calendar of the doctor, so that when several
+     * patients book the same slot at once only one of them gets it. The new appointment
+     * is then added to the appointment database, and the slot is given back if that fails.
+     * If an appointment with the same ID already exists, a {@link ModelAlreadyExistsException}
+     * is thrown.
      * 
      * @param patientID       The ID of the patient for the new appointment.
      * @param doctorID        The ID of the doctor for the new appointment.
      * @param timeSlotID      The time slot ID for the appointment.
      * @param appointmentDate The date of the appointment.
-     * @throws ModelAlreadyExistsException If an appointment with the same ID already exists in the database.
+     * @throws ModelAlreadyExistsException  If an appointment with the same ID already exists in the database.
+     * @throws TimeSlotUnavailableException If the doctor is not available for the time slot, or it is
+     *                                      already booked on that date.
      */
     public static void scheduleNewAppointment(String patientID, String doctorID, int timeSlotID,
-            String appointmentDate) throws ModelAlreadyExistsException {
+            String appointmentDate) throws ModelAlreadyExistsException, TimeSlotUnavailableException {
         String appointmentID = UUID.randomUUID().toString();
+        long dateOfAppointment = FormatDateTime.toEpochDay(FormatDateTime.parseDate(appointmentDate));
         Appointment newAppointment = new Appointment(appointmentID, AppointmentStatus.PENDING, patientID,
-                appointmentDate,
+                dateOfAppointment,
                 timeSlotID, doctorID);
-        createAppointment(newAppointment);
+        DoctorCalendarManager.reserve(doctorID, dateOfAppointment, timeSlotID);
+        try {
+            createAppointment(newAppointment);
+        } catch (ModelAlreadyExistsException | RuntimeException e) {
+            DoctorCalendarManager.release(newAppointment);
+            throw e;
+        }
     }
 
     /**
@@ -191,14 +207,7 @@ public class AppointmentManager {
      *         and have a status of pending. If no such appointments are found, an empty list is returned.
      */
     public static List<Appointment> getDoctorAppointmentsRequests(String doctorID) {
-        ArrayList<Appointment> doctorAppointments = new ArrayList<Appointment>();
-        List<Appointment> appointments = getAllAppointments();
-        for (Appointment appointment : appointments) {
-            if (appointment.getDoctorID().equals(doctorID)
-                    && appointment.getAppointmentStatus().equals(AppointmentStatus.PENDING))
-                doctorAppointments.add(appointment);
-        }
-        return doctorAppointments;
+        return AppointmentDatabase.getDB().getAppointmentsByDoctorIDAndStatus(doctorID, AppointmentStatus.PENDING);
     }
 
     /**
@@ -210,17 +219,36 @@ public class AppointmentManager {
      * 
      * @param doctorID The ID of the doctor whose approved appointments are to be retrieved.
      * @return A list of {@link Appointment} objects that match the specified doctor ID
-     *         and have a status of approved. If no such appointments are found, an empty list is returned.
+     *         and have a status of approved, in order of date and time slot. If no such
+     *         appointments are found, an empty list is returned.
      */
     public static ArrayList<Appointment> getScheduledDoctorAppointments(String doctorID) {
-        ArrayList<Appointment> doctorAppointments = new ArrayList<Appointment>();
-        List<Appointment> appointments = getAllAppointments();
-        for (Appointment appointment : appointments) {
-            if (appointment.getDoctorID().equals(doctorID)
-                    && appointment.getAppointmentStatus().equals(AppointmentStatus.APPROVED))
-                doctorAppointments.add(appointment);
-        }
-        return doctorAppointments;
+        return new ArrayList<>(AppointmentDatabase.getDB().getAppointmentsByDoctorIDAndStatusBetween(doctorID,
+                AppointmentStatus.APPROVED, null, null));
+    }
+
+    /**
+     * Retrieves the approved appointments of a doctor from today onwards.
+     * 
+     * @param doctorID The ID of the doctor whose upcoming appointments are to be retrieved.
+     * @return A list of the approved {@link Appointment} objects of the doctor from today
+     *         onwards, in order of date and time slot.
+     */
+    public static List<Appointment> getUpcomingDoctorAppointments(String doctorID) {
+        return AppointmentDatabase.getDB().getAppointmentsByDoctorIDAndStatusBetween(doctorID,
+                AppointmentStatus.APPROVED, LocalDate.now(), null);
+    }
+
+    /**
+     * Retrieves the appointments of all doctors between two dates.
+     * 
+     * @param from The first date to include, or null for no lower bound.
+     * @param to   The last date to include, or null for no upper bound.
+     * @return A list of the {@link Appointment} objects between the dates, in order of
+     *         date and time slot.
+     */
+    public static List<Appointment> getAppointmentsBetween(LocalDate from, LocalDate to) {
+        return AppointmentDatabase.getDB().getAppointmentsBetween(from, to);
     }
 
     /**
@@ -232,17 +260,32 @@ public class AppointmentManager {
      * 
      * @param newAppointment The {@link Appointment} object containing the updated details.
      * @throws ModelNotFoundException If the appointment to be updated cannot be found in the database.
+     * @throws ModelVersionConflictException If the appointment was changed by someone else since it was read.
      */
-    public static void updateAppointment(Appointment newAppointment) throws ModelNotFoundException {
+    public static void updateAppointment(Appointment newAppointment)
+            throws ModelNotFoundException, ModelVersionConflictException {
         AppointmentDatabase.getDB().update(newAppointment);
     }
 
+    /**
+     * Copies an appointment, so that changes can be made to the copy and saved
+     * with {@link #updateAppointment(Appointment)} while other threads keep
+     * reading the stored appointment unchanged.
+     * 
+     * @param appointment The {@link Appointment} to copy.
+     * @return A new {@link Appointment} with the same details and version.
+     */
+    private static Appointment copyOf(Appointment appointment) {
+        return new Appointment(appointment.convertToMap());
+    }
+
     /**
      * Cancels an existing appointment for a specified patient.
      * 
      * This method attempts to find the appointment associated with the provided
      * patient ID and appointment ID. If found, it updates the appointment's
-     * status to {@link AppointmentStatus#CANCELLED} and saves the changes. 
+     * status to {@link AppointmentStatus#CANCELLED}, saves the changes and releases
+     * its time slot in the calendar of the doctor.
      * If the appointment cannot be found, an error message is displayed.
      * 
      * @param patientID    The ID of the patient whose appointment is to be cancelled.
@@ -251,8 +294,13 @@ public class AppointmentManager {
     public static void cancelAppointment(String patientID, String appointmentID) {
         try {
             Appointment appointment = getAppointmentByPatientAndID(patientID, appointmentID);
-            appointment.setAppointmentStatus(AppointmentStatus.CANCELLED);
-            updateAppointment(appointment);
+            boolean heldSlot = DoctorCalendarManager.holdsSlot(appointment);
+            Appointment cancelledAppointment = copyOf(appointment);
+            cancelledAppointment.setAppointmentStatus(AppointmentStatus.CANCELLED);
+            updateAppointment(cancelledAppointment);
+            if (heldSlot) {
+                DoctorCalendarManager.release(appointment);
+            }
         } catch (Exception e) {
             System.out.println("Appointment not found.");
         }
@@ -264,33 +312,57 @@ public class AppointmentManager {
      * This method attempts to find the appointment associated with the provided
      * patient ID and appointment ID. If found, it updates the appointment's 
      * date and time to the new values, sets its status to {@link AppointmentStatus#PENDING}, 
-     * and saves the changes. If the appointment cannot be found, a {@link ModelNotFoundException} 
-     * is thrown.
+     * and saves the changes. The changes are made on a copy of the appointment, so the stored
+     * appointment is left as it was if they cannot be saved. The new time slot is reserved in the calendar of the doctor
+     * before anything is saved, and the old one is only released once the changes are saved.
+     * If the appointment cannot be found, a {@link ModelNotFoundException} is thrown.
      * 
      * @param patientID      The ID of the patient whose appointment is to be rescheduled.
      * @param appointmentID  The ID of the appointment to be rescheduled.
      * @param timeSlotID     The new time slot ID for the rescheduled appointment.
      * @param newDate        The new date for the rescheduled appointment.
-     * @throws ModelNotFoundException If the appointment to be rescheduled cannot be found.
+     * @throws ModelNotFoundException       If the appointment to be rescheduled cannot be found.
+     * @throws TimeSlotUnavailableException If the doctor is not available for the new time slot, or it
+     *                                      is already booked on the new date.
+     * @throws ModelVersionConflictException If the appointment was changed by someone else since it was read.
      */
     public static void rescheduleAppointment(String patientID, String appointmentID, int timeSlotID, String newDate)
-            throws ModelNotFoundException {
-        try {
-            Appointment appointment = getAppointmentByPatientAndID(patientID, appointmentID);
-            appointment.setDateOfAppointment(newDate);
-            appointment.setTimeOfAppointment(timeSlotID);
-            appointment.setAppointmentStatus(AppointmentStatus.PENDING);
-            updateAppointment(appointment);
-        } catch (Exception e) {
+            throws ModelNotFoundException, TimeSlotUnavailableException, ModelVersionConflictException {
+        Appointment appointment = getAppointmentByPatientAndID(patientID, appointmentID);
+        if (appointment == null) {
             throw new ModelNotFoundException("Appointment not found.");
         }
+        String doctorID = appointment.getDoctorID();
+        long oldDay = appointment.getEpochDayOfAppointment();
+        long newDay = FormatDateTime.toEpochDay(FormatDateTime.parseDate(newDate));
+        int oldTimeSlotID = appointment.getTimeOfAppointment();
+        boolean heldSlot = DoctorCalendarManager.holdsSlot(appointment);
+        boolean sameSlot = heldSlot && oldTimeSlotID == timeSlotID && newDay == oldDay;
+        if (!sameSlot) {
+            DoctorCalendarManager.reserve(doctorID, newDay, timeSlotID);
+        }
+        try {
+            Appointment rescheduledAppointment = copyOf(appointment);
+            rescheduledAppointment.setDateOfAppointment(newDay);
+            rescheduledAppointment.setTimeOfAppointment(timeSlotID);
+            rescheduledAppointment.setAppointmentStatus(AppointmentStatus.PENDING);
+            updateAppointment(rescheduledAppointment);
+        } catch (ModelNotFoundException | ModelVersionConflictException | RuntimeException e) {
+            if (!sameSlot) {
+                DoctorCalendarManager.release(doctorID, newDay, timeSlotID);
+            }
+            throw e;
+        }
+        if (heldSlot && !sameSlot) {
+            DoctorCalendarManager.release(doctorID, oldDay, oldTimeSlotID);
+        }
     }
 
     /**
      * Retrieves an appointment associated with a specific doctor by appointment ID.
      * 
-     * This method searches through all appointments to find one that matches the
-     * provided doctor ID and appointment ID. If a matching appointment is found,
+     * This method looks up the appointment by its ID and checks that it belongs to
+     * the provided doctor ID. If a matching appointment is found,
      * it is returned; otherwise, a {@link ModelNotFoundException} is thrown.
      * 
      * @param doctorID      The ID of the doctor whose appointment is to be retrieved.
@@ -300,14 +372,11 @@ public class AppointmentManager {
      */
     private static Appointment getAppointmentByDoctorAndID(String doctorID, String appointmentID)
             throws ModelNotFoundException {
-        List<Appointment> appointments = getAllAppointments();
-        Appointment appointment = null;
-        for (Appointment apt : appointments) {
-            if (apt.getDoctorID().equals(doctorID)
-                    && apt.getAppointmentID().equals(appointmentID))
-                appointment = apt;
-        }
-        return appointment;
+        Appointment appointment = AppointmentDatabase.getDB().getByID(appointmentID);
+        if (appointment.getDoctorID().equals(doctorID)
+                && appointment.getAppointmentID().equals(appointmentID))
+            return appointment;
+        throw new ModelNotFoundException("Appointment not found.");
     }
 
     /**
@@ -316,21 +385,30 @@ public class AppointmentManager {
      * This method retrieves the appointment associated with the provided doctor and appointment ID. 
      * If the appointment is found, it updates the appointment's status to {@link AppointmentStatus#APPROVED}. 
      * Additionally, a new {@link AppointmentOutcome} is created with a status of {@link AppointmentOutcomeStatus#PENDING} 
-     * and saved. The appointment and its outcome are then updated in the system.
+     * and saved. The appointment and its outcome are then updated in the system
+     * in one {@link Transaction}, so either both are saved or neither is.
      * 
      * @param doctorID      The ID of the doctor approving the appointment.
      * @param appointmentID The ID of the appointment to be approved.
      * @throws ModelNotFoundException If the appointment cannot be found for the given doctor and appointment ID.
      */
     public static void approveAppointment(String doctorID, String appointmentID) throws ModelNotFoundException {
-        Appointment appointment = getAppointmentByDoctorAndID(doctorID, appointmentID);
+        Appointment appointment = copyOf(getAppointmentByDoctorAndID(doctorID, appointmentID));
         appointment.setAppointmentStatus(AppointmentStatus.APPROVED);
         String appointmentOutcomeID = UUID.randomUUID().toString();
         AppointmentOutcome appointmentOutcome = new AppointmentOutcome(appointmentOutcomeID,
                 appointment.getPatientID(), doctorID, appointmentID, AppointmentOutcomeStatus.PENDING);
 
-        updateAppointment(appointment);
-        AppointmentOutcomeManager.createNewAppointmentOutcome(appointmentOutcome);
+        try {
+            new Transaction()
+                    .update(AppointmentDatabase.getDB(), appointment)
+                    .add(AppointmentOutcomeDatabase.getDB(), appointmentOutcome)
+                    .commit();
+        } catch (ModelAlreadyExistsException e) {
+            System.out.println("Appointment Outcome not added.");
+        } catch (ModelVersionConflictException e) {
+            System.out.println("Appointment was changed by someone else, not approved.");
+        }
     }
 
     /**
@@ -338,16 +416,24 @@ public class AppointmentManager {
      * 
      * This method retrieves the appointment associated with the provided doctor and appointment ID. 
      * If the appointment is found, its status is updated to {@link AppointmentStatus#REJECTED}.
-     * The updated appointment is then saved to the system.
+     * The updated appointment is then saved to the system, and its time slot is released
+     * in the calendar of the doctor.
      * 
      * @param doctorID      The ID of the doctor rejecting the appointment.
      * @param appointmentID The ID of the appointment to be rejected.
      * @throws ModelNotFoundException If the appointment cannot be found for the given doctor and appointment ID.
+     * @throws ModelVersionConflictException If the appointment was changed by someone else since it was read.
      */
-    public static void rejectAppointment(String doctorID, String appointmentID) throws ModelNotFoundException {
+    public static void rejectAppointment(String doctorID, String appointmentID)
+            throws ModelNotFoundException, ModelVersionConflictException {
         Appointment appointment = getAppointmentByDoctorAndID(doctorID, appointmentID);
-        appointment.setAppointmentStatus(AppointmentStatus.REJECTED);
-        updateAppointment(appointment);
+        boolean heldSlot = DoctorCalendarManager.holdsSlot(appointment);
+        Appointment rejectedAppointment = copyOf(appointment);
+        rejectedAppointment.setAppointmentStatus(AppointmentStatus.REJECTED);
+        updateAppointment(rejectedAppointment);
+        if (heldSlot) {
+            DoctorCalendarManager.release(appointment);
+        }
     }
 
     /**
@@ -357,52 +443,100 @@ public class AppointmentManager {
      * It searches through all the available appointments and collects those whose `doctorID` matches the provided value.
      * 
      * @param doctorID The ID of the doctor whose appointments are to be retrieved.
-     * @return A list of {@link Appointment} objects for the specified doctor. If no appointments are found, an empty list is returned.
+     * @return A list of {@link Appointment} objects for the specified doctor, in order of date and time slot.
+     *         If no appointments are found, an empty list is returned.
      */
     public static ArrayList<Appointment> getAllDoctorAppointments(String doctorID) {
-        ArrayList<Appointment> doctorAppointments = new ArrayList<>();
-        List<Appointment> appointments = getAllAppointments();
-        for (Appointment appointment : appointments) {
-            if (appointment.getDoctorID().equals(doctorID))
-                doctorAppointments.add(appointment);
-        }
-        return doctorAppointments;
+        return new ArrayList<>(AppointmentDatabase.getDB().getAppointmentsByDoctorIDBetween(doctorID, null, null));
     }
 
     /**
      * Retrieves the booked appointments of a specific doctor grouped by day of the week.
      * 
-     * This method iterates through all the appointments of the specified doctor and filters them based on their 
-     * status (either PENDING or APPROVED). It groups the appointments by their time slots and day of the week 
-     * (from Monday to Sunday), returning a map that associates each day of the week with a list of appointment 
-     * time slots for that day.
+     * This method reads the booked time slots of the specified doctor from the calendar of
+     * the doctor, where the slots of PENDING and APPROVED appointments are kept. It groups
+     * the time slots by the day of the week of their date (from Monday to Sunday), returning
+     * a map that associates each day of the week with the time slots booked on that day.
      * 
      * @param doctorID The ID of the doctor whose booked appointments are to be retrieved.
      * @return A map where the key is the day of the week (1 for Monday, 7 for Sunday), and the value is a 
      *         list of time slots (represented as integers) for the doctor on that day.
      */
     public static Map<Integer, List<String>> getBookedAppointmentsOfDoctor(String doctorID) {
+        Map<Integer, Integer> bookedSlotsByDay = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : DoctorCalendarManager.getCalendar(doctorID).getBookings().entrySet()) {
+            int dayOfWeekValue = LocalDate.ofEpochDay(entry.getKey()).getDayOfWeek().getValue();
+            bookedSlotsByDay.merge(dayOfWeekValue, entry.getValue(), (first, second) -> first | second);
+        }
         Map<Integer, List<String>> doctorAppointments = new HashMap<>();
-        List<Appointment> appointments = getAllDoctorAppointments(doctorID);
-        for (Appointment appointment : appointments) {
-            if (appointment.getAppointmentStatus().equals(AppointmentStatus.PENDING)
-                    || appointment.getAppointmentStatus().equals(AppointmentStatus.APPROVED)) {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                LocalDate date = LocalDate.parse(appointment.getDateOfAppointment(), formatter);
-                int dayOfWeekValue = date.getDayOfWeek().getValue();
-                if (doctorAppointments.containsKey(appointment.getTimeOfAppointment())) {
-                    doctorAppointments.get(appointment.getTimeOfAppointment())
-                            .add(Integer.toString(appointment.getTimeOfAppointment()));
-                } else {
-                    List<String> appointmentsList = new ArrayList<>();
-                    appointmentsList.add(Integer.toString(appointment.getTimeOfAppointment()));
-                    doctorAppointments.put(dayOfWeekValue, appointmentsList);
-                }
+        for (Map.Entry<Integer, Integer> entry : bookedSlotsByDay.entrySet()) {
+            List<String> appointmentsList = new ArrayList<>();
+            for (int slot : DoctorCalendar.toSlots(entry.getValue())) {
+                appointmentsList.add(Integer.toString(slot));
             }
+            doctorAppointments.put(entry.getKey(), appointmentsList);
         }
         return doctorAppointments;
     }
 
+    /**
+     * Retrieves the free time slots of a doctor on a specific date.
+     * 
+     * This method reads the calendar of the doctor, and returns the time slots the
+     * doctor is available for on the day of the week of the date that are not booked
+     * on that date yet.
+     * 
+     * @param doctorID The ID of the doctor.
+     * @param date     The date to check.
+     * @return A list of the free time slots, in order. If there are none, an empty list is returned.
+     */
+    public static List<Integer> getFreeTimeSlots(String doctorID, LocalDate date) {
+        return DoctorCalendar.toSlots(DoctorCalendarManager.getCalendar(doctorID).getFreeSlots(date));
+    }
+
+    /**
+     * Finds the earliest free time slots across all doctors.
+     * 
+     * This method searches the calendars of all doctors from the given date and time, over the
+     * next {@link DoctorCalendarManager#DEFAULT_SEARCH_HORIZON_DAYS} days, and returns the first
+     * free time slots in order of date and time.
+     * 
+     * @param from  The date and time to search from. Time slots of that date which start earlier
+     *              are skipped.
+     * @param count The number of free time slots to find.
+     * @return A list of at most {@code count} {@link FreeSlot} objects, earliest first.
+     */
+    public static List<FreeSlot> findEarliestFreeSlots(LocalDateTime from, int count) {
+        return findEarliestFreeSlots(from, count, null);
+    }
+
+    /**
+     * Finds the earliest free time slots of a doctor, or across all doctors.
+     * 
+     * This method searches the calendars of the doctor, or of all doctors if no doctor ID is
+     * given, from the given date and time over the next
+     * {@link DoctorCalendarManager#DEFAULT_SEARCH_HORIZON_DAYS} days, and returns the first free
+     * time slots in order of date and time.
+     * 
+     * @param from     The date and time to search from. Time slots of that date which start earlier
+     *                 are skipped.
+     * @param count    The number of free time slots to find.
+     * @param doctorID The ID of the doctor to search, or {@code null} to search all doctors.
+     * @return A list of at most {@code count} {@link FreeSlot} objects, earliest first.
+     */
+    public static List<FreeSlot> findEarliestFreeSlots(LocalDateTime from, int count, String doctorID) {
+        List<String> doctorIDs = new ArrayList<>();
+        if (doctorID != null) {
+            doctorIDs.add(doctorID);
+        } else {
+            for (Doctor doctor : DoctorDatabase.getDB().getAllDoctors()) {
+                doctorIDs.add(doctor.getModelID());
+            }
+        }
+        return DoctorCalendarManager.findEarliestFreeSlots(doctorIDs, from, count,
+                DoctorCalendarManager.DEFAULT_SEARCH_HORIZON_DAYS);
+    }
+
     /**
      * Retrieves appointments with incomplete outcomes for a specific doctor.
      * 
@@ -433,20 +567,15 @@ public class AppointmentManager {
     /**
      * Checks if a doctor has available time slots on a specific day.
      * 
-     * This method checks the doctor's appointment availability for a given day of the week. It retrieves the 
-     * doctor's appointment availability and checks if there are any time slots scheduled for the specified 
-     * day. If availability is found, it returns true; otherwise, false.
+     * This method checks the doctor's appointment availability for a given day of the week. It reads the 
+     * weekly availability from the calendar of the doctor and checks if there are any time slots set for the
+     * specified day. If availability is found, it returns true; otherwise, false.
      * 
      * @param doctor The doctor whose availability is being checked.
      * @param day The day of the week to check for availability.
      * @return A boolean value indicating whether the doctor has available time slots on the given day.
      */
     public static Boolean isTimeSlotAvailable(Doctor doctor, DayOfWeek day) {
-        int dayValue = day.getValue();
-        Map<String, List<String>> appointmentAvailability = DoctorManager.getAppointmentAvailability(doctor);
-        if (appointmentAvailability.containsKey(Integer.toString(dayValue))) {
-            return true;
-        }
-        return false;
+        return DoctorCalendarManager.getCalendar(doctor.getModelID()).getAvailableSlots(day) != 0;
     }
 }
@@ -6,7 +6,9 @@ import java.util.List;
 import controller.medication.DiagnosisManager;
 import controller.medication.MedicationManager;
 import controller.medication.PrescriptionManager;
+import database.Transaction;
 import database.appointment.AppointmentOutcomeDatabase;
+import database.medicalRecords.DiagnosisDatabase;
 import display.session.EnterToGoBackDisplay;
 import model.appointment.Appointment;
 import model.appointment.AppointmentOutcome;
@@ -54,7 +56,8 @@ public class AppointmentOutcomeManager {
      * is then updated
      * to "COMPLETED". The updated outcome is stored in the
      * `AppointmentOutcomeDatabase`, and the
-     * provided diagnosis is added to the `DiagnosisManager`.
+     * provided diagnosis is added to the `DiagnosisDatabase`, in one
+     * `Transaction`, so either both are saved or neither is.
      * 
      * If any error occurs during the update process, the exception is caught, and
      * an error message
@@ -72,12 +75,15 @@ public class AppointmentOutcomeManager {
     public static void updateAppointmentOutcome(AppointmentOutcome appointmentOutcome, Diagnosis diagnosis,
             String typeOfService, String diagnosisID, String consultationNotes) {
         try {
-            appointmentOutcome.setTypeOfService(typeOfService);
-            appointmentOutcome.setDiagnosisID(diagnosisID);
-            appointmentOutcome.setConsultationNotes(consultationNotes);
-            appointmentOutcome.setStatus(AppointmentOutcomeStatus.COMPLETED);
-            AppointmentOutcomeDatabase.getDB().update(appointmentOutcome);
-            DiagnosisManager.addDiagnosis(diagnosis);
+            AppointmentOutcome completedOutcome = new AppointmentOutcome(appointmentOutcome.convertToMap());
+            completedOutcome.setTypeOfService(typeOfService);
+            completedOutcome.setDiagnosisID(diagnosisID);
+            completedOutcome.setConsultationNotes(consultationNotes);
+            completedOutcome.setStatus(AppointmentOutcomeStatus.COMPLETED);
+            new Transaction()
+                    .update(AppointmentOutcomeDatabase.getDB(), completedOutcome)
+                    .add(DiagnosisDatabase.getDB(), diagnosis)
+                    .commit();
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("Appointment Outcome not updated.");
@@ -116,12 +122,9 @@ public class AppointmentOutcomeManager {
      */
     public static AppointmentOutcome getAppointmentOutcomeByAppointmentID(String appointmentID) {
         try {
-            AppointmentOutcome outcome = null;
-            List<AppointmentOutcome> appointmentOutcomes = getAllAppointmentOutcome();
-            for (AppointmentOutcome apt : appointmentOutcomes) {
-                outcome = apt.getAppointmentID().equals(appointmentID) ? apt : null;
-            }
-            return outcome;
+            List<AppointmentOutcome> appointmentOutcomes = AppointmentOutcomeDatabase.getDB()
+                    .getAppointmentOutcomesByAppointmentID(appointmentID);
+            return appointmentOutcomes.isEmpty() ? null : appointmentOutcomes.get(0);
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -144,16 +147,8 @@ public class AppointmentOutcomeManager {
      *         or null if an error occurs during the process.
      */
     public static List<AppointmentOutcome> getPatientsAppointmentOutcomeRecords(String patientID) {
-        ArrayList<AppointmentOutcome> recordList = new ArrayList<>();
-
         try {
-            List<AppointmentOutcome> outcomes = getAllAppointmentOutcome();
-            for (AppointmentOutcome outcome : outcomes) {
-                if (outcome.getPatientID().equals(patientID)) {
-                    recordList.add(outcome);
-                }
-            }
-            return recordList;
+            return AppointmentOutcomeDatabase.getDB().getAppointmentOutcomesByPatientID(patientID);
         } catch (Exception e) {
             return null;
         }
@@ -216,14 +211,7 @@ public class AppointmentOutcomeManager {
      *         doctor.
      */
     public static ArrayList<AppointmentOutcome> getAppointmentOutcomeByDoctorID(String doctorID) {
-        ArrayList<AppointmentOutcome> doctorAppointmentOutcome = new ArrayList<>();
-        List<AppointmentOutcome> appointmentOutcomes = getAllAppointmentOutcome();
-        for (AppointmentOutcome outcome : appointmentOutcomes) {
-            if (outcome.getDoctorID().equals(doctorID)) {
-                doctorAppointmentOutcome.add(outcome);
-            }
-        }
-        return doctorAppointmentOutcome;
+        return new ArrayList<>(AppointmentOutcomeDatabase.getDB().getAppointmentOutcomesByDoctorID(doctorID));
     }
 
     /**
@@ -240,14 +228,7 @@ public class AppointmentOutcomeManager {
      *         patient.
      */
     public static int getNumberOfAppointmentOutcomeByPatientID(String patientID) {
-        List<AppointmentOutcome> appointmentOutcomes = getAllAppointmentOutcome();
-        int count = 0;
-        for (AppointmentOutcome outcome : appointmentOutcomes) {
-            if (outcome.getPatientID().equals(patientID)
-                    && outcome.getStatus().equals(AppointmentOutcomeStatus.COMPLETED)) {
-                count++;
-            }
-        }
-        return count;
+        return AppointmentOutcomeDatabase.getDB()
+                .getAppointmentOutcomesByPatientIDAndStatus(patientID, AppointmentOutcomeStatus.COMPLETED).size();
     }
 }
@@ -0,0 +1,255 @@
+package controller.appointment;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The DoctorCalendar class keeps the weekly availability and the bookings of
+ * one doctor as bitmasks over the appointment time slots.
+ * Bit {@code slot - 1} of a mask stands for time slot {@code slot}, so the free
+ * slots of a date are its weekly availability without its bookings, and
+ * checking or booking a slot is a single bitwise operation.
+ * Bookings are kept per date, by epoch day, and are changed atomically without
+ * locking, so a slot is only ever booked once however many patients book it at
+ * the same time.
+ */
+public class DoctorCalendar {
+
+    /**
+     * The number of appointment time slots in a day.
+     */
+    public static final int NUMBER_OF_SLOTS = 16;
+
+    /**
+     * The mask with every time slot set.
+     */
+    public static final int ALL_SLOTS = (1 << NUMBER_OF_SLOTS) - 1;
+
+    /**
+     * The time of day the first time slot starts.
+     */
+    public static final LocalTime FIRST_SLOT_START = LocalTime.of(9, 0);
+
+    /**
+     * The length of a time slot, in minutes.
+     */
+    public static final int SLOT_MINUTES = 30;
+
+    private volatile int[] weeklyAvailability = new int[DayOfWeek.values().length + 1];
+
+    private final Map<Long, AtomicInteger> bookingsByEpochDay = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the bit of a time slot.
+     *
+     * @param slot the time slot, from 1 to {@link #NUMBER_OF_SLOTS}
+     * @return the mask with only the time slot set
+     * @throws IllegalArgumentException if the time slot does not exist
+     */
+    public static int toBit(int slot) {
+        if (slot < 1 || slot > NUMBER_OF_SLOTS) {
+            throw new IllegalArgumentException("Time slot " + slot + " does not exist.");
+        }
+        return 1 << (slot - 1);
+    }
+
+    /**
+     * Gets the time slots that start at or after a time of day, which are the
+     * ones that can still be booked on the same day.
+     *
+     * @param time the time of day
+     * @return the mask of the time slots starting at or after the time
+     */
+    public static int getSlotsStartingFrom(LocalTime time) {
+        long nanosAfterFirstStart = time.toNanoOfDay() - FIRST_SLOT_START.toNanoOfDay();
+        if (nanosAfterFirstStart <= 0) {
+            return ALL_SLOTS;
+        }
+        long firstSlotIndex = Math.ceilDiv(nanosAfterFirstStart, SLOT_MINUTES * 60_000_000_000L);
+        return firstSlotIndex >= NUMBER_OF_SLOTS ? 0 : ALL_SLOTS & ~((1 << firstSlotIndex) - 1);
+    }
+
+    /**
+     * Converts a list of time slots, as stored in the availability of a doctor,
+     * to a mask. Entries that are not time slots are ignored.
+     *
+     * @param slots the time slots
+     * @return the mask of the time slots
+     */
+    public static int toMask(Collection<String> slots) {
+        int mask = 0;
+        if (slots == null) {
+            return mask;
+        }
+        for (String slot : slots) {
+            try {
+                mask |= toBit(Integer.parseInt(slot.trim()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a mask to the time slots it contains.
+     *
+     * @param mask the mask
+     * @return a list of the time slots in the mask, in order
+     */
+    public static List<Integer> toSlots(int mask) {
+        List<Integer> slots = new ArrayList<>(Integer.bitCount(mask));
+        for (int remaining = mask & ALL_SLOTS; remaining != 0; remaining &= remaining - 1) {
+            slots.add(Integer.numberOfTrailingZeros(remaining) + 1);
+        }
+        return slots;
+    }
+
+    /**
+     * Sets the weekly availability of the doctor.
+     *
+     * @param appointmentAvailability the availability of the doctor, mapping the
+     *                                day of the week (1 for Monday) to its time
+     *                                slots
+     */
+    public void setWeeklyAvailability(Map<String, List<String>> appointmentAvailability) {
+        int[] availability = new int[DayOfWeek.values().length + 1];
+        if (appointmentAvailability != null) {
+            for (Map.Entry<String, List<String>> entry : appointmentAvailability.entrySet()) {
+                try {
+                    int day = Integer.parseInt(entry.getKey().trim());
+                    if (day >= 1 && day < availability.length) {
+                        availability[day] |= toMask(entry.getValue());
+                    }
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        }
+        weeklyAvailability = availability;
+    }
+
+    /**
+     * Gets the time slots the doctor is available for on a day of the week.
+     *
+     * @param day the day of the week
+     * @return the mask of the available time slots
+     */
+    public int getAvailableSlots(DayOfWeek day) {
+        return weeklyAvailability[day.getValue()];
+    }
+
+    /**
+     * Checks whether the doctor is available for any time slot of the week.
+     *
+     * @return true if the doctor has set any availability
+     */
+    public boolean hasAvailability() {
+        for (int availableSlots : weeklyAvailability) {
+            if (availableSlots != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the time slots already booked on a date.
+     *
+     * @param date the date
+     * @return the mask of the booked time slots
+     */
+    public int getBookedSlots(LocalDate date) {
+        AtomicInteger bookings = bookingsByEpochDay.get(date.toEpochDay());
+        return bookings == null ? 0 : bookings.get();
+    }
+
+    /**
+     * Gets the time slots that are available and not booked on a date.
+     *
+     * @param date the date
+     * @return the mask of the free time slots
+     */
+    public int getFreeSlots(LocalDate date) {
+        return getAvailableSlots(date.getDayOfWeek()) & ~getBookedSlots(date);
+    }
+
+    /**
+     * Checks whether a time slot is available and not booked on a date.
+     *
+     * @param date the date
+     * @param slot the time slot
+     * @return true if the time slot is free
+     */
+    public boolean isFree(LocalDate date, int slot) {
+        return (getFreeSlots(date) & toBit(slot)) != 0;
+    }
+
+    /**
+     * Books a time slot on a date.
+     *
+     * @param date the date
+     * @param slot the time slot
+     * @return true if the time slot was booked, or false if it already was
+     */
+    public boolean book(LocalDate date, int slot) {
+        int bit = toBit(slot);
+        AtomicInteger bookings = bookingsByEpochDay.computeIfAbsent(date.toEpochDay(), key -> new AtomicInteger());
+        return (bookings.getAndUpdate(booked -> booked | bit) & bit) == 0;
+    }
+
+    /**
+     * Reserves a time slot on a date, if the doctor is available for it and it
+     * is not booked yet.
+     * The slot is claimed with a single atomic update of the bookings of the
+     * date, so when several threads reserve the same slot at once, exactly one
+     * of them gets it.
+     *
+     * @param date the date
+     * @param slot the time slot
+     * @return true if the time slot was reserved, or false if the doctor is not
+     *         available for it or it is already booked
+     */
+    public boolean reserve(LocalDate date, int slot) {
+        return (getAvailableSlots(date.getDayOfWeek()) & toBit(slot)) != 0 && book(date, slot);
+    }
+
+    /**
+     * Releases a booked time slot on a date.
+     *
+     * @param date the date
+     * @param slot the time slot
+     * @return true if the time slot was released, or false if it was not booked
+     */
+    public boolean release(LocalDate date, int slot) {
+        int bit = toBit(slot);
+        AtomicInteger bookings = bookingsByEpochDay.get(date.toEpochDay());
+        return bookings != null && (bookings.getAndUpdate(booked -> booked & ~bit) & bit) != 0;
+    }
+
+    /**
+     * Gets the booked time slots of every date with a booking.
+     *
+     * @return a map of the epoch day of each date to the mask of its booked time
+     *         slots
+     */
+    public Map<Long, Integer> getBookings() {
+        Map<Long, Integer> bookings = new HashMap<>();
+        for (Map.Entry<Long, AtomicInteger> entry : bookingsByEpochDay.entrySet()) {
+            int booked = entry.getValue().get();
+            if (booked != 0) {
+                bookings.put(entry.getKey(), booked);
+            }
+        }
+        return Collections.unmodifiableMap(bookings);
+    }
+}
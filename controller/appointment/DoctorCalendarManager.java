@@ -0,0 +1,388 @@
+package controller.appointment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import database.DatabaseRegistry;
+import database.appointment.AppointmentDatabase;
+import database.user.DoctorDatabase;
+import model.appointment.Appointment;
+import model.appointment.enums.AppointmentStatus;
+import model.user.Doctor;
+import utils.exceptions.TimeSlotUnavailableException;
+import utils.utils.FormatDateTime;
+
+/**
+ * The DoctorCalendarManager class keeps a {@link DoctorCalendar} for every
+ * doctor, so that free slots and bookings are read without going through the
+ * appointments.
+ * The calendar of a doctor is built the first time it is needed, from the
+ * availability of the doctor and the appointments that hold a slot, and is then
+ * kept up to date by {@link AppointmentManager} as appointments are scheduled,
+ * rescheduled, cancelled and rejected.
+ * Scheduling reserves the slot in the calendar before the appointment is
+ * saved, so two patients cannot book the same slot of the same doctor.
+ * The calendars are dropped when the shared Databases are released, and built
+ * again from the next instances.
+ */
+public class DoctorCalendarManager {
+
+    /**
+     * The number of days searched for free time slots by default.
+     */
+    public static final int DEFAULT_SEARCH_HORIZON_DAYS = 90;
+
+    private static final Map<String, DoctorCalendar> calendars = new ConcurrentHashMap<>();
+
+    static {
+        DatabaseRegistry.addReleaseHook(DoctorCalendarManager::reset);
+    }
+
+    /**
+     * Gets the calendar of a doctor, building it on first use.
+     *
+     * @param doctorID the ID of the doctor
+     * @return the calendar of the doctor
+     */
+    public static DoctorCalendar getCalendar(String doctorID) {
+        return calendars.computeIfAbsent(toKey(doctorID), key -> loadCalendar(doctorID));
+    }
+
+    /**
+     * Updates the calendar of a doctor after the availability of the doctor
+     * changed.
+     *
+     * @param doctor the doctor
+     */
+    public static void availabilityChanged(Doctor doctor) {
+        getCalendar(doctor.getModelID()).setWeeklyAvailability(doctor.getAppointmentAvailability());
+    }
+
+    /**
+     * Forgets the calendar of a doctor who was removed.
+     *
+     * @param doctorID the ID of the doctor
+     */
+    public static void remove(String doctorID) {
+        calendars.remove(toKey(doctorID));
+    }
+
+    /**
+     * Forgets the calendar of every doctor, so each is built again from the
+     * Databases the next time it is needed.
+     */
+    public static void reset() {
+        calendars.clear();
+    }
+
+    /**
+     * Checks whether an appointment holds its time slot, which it does while it
+     * is pending or approved.
+     *
+     * @param appointment the appointment
+     * @return true if the appointment holds its time slot
+     */
+    public static boolean holdsSlot(Appointment appointment) {
+        return appointment.getAppointmentStatus() == AppointmentStatus.PENDING
+                || appointment.getAppointmentStatus() == AppointmentStatus.APPROVED;
+    }
+
+    /**
+     * Marks the time slot of an appointment as booked in the calendar of its
+     * doctor.
+     *
+     * @param appointment the appointment
+     * @return true if the time slot was booked, or false if it already was or
+     *         the appointment has no valid date or time slot
+     */
+    public static boolean book(Appointment appointment) {
+        return book(appointment.getDoctorID(), appointment.getEpochDayOfAppointment(),
+                appointment.getTimeOfAppointment());
+    }
+
+    /**
+     * Marks a time slot as booked in the calendar of a doctor.
+     *
+     * @param doctorID          the ID of the doctor
+     * @param dateOfAppointment the date, as an epoch day
+     * @param slot              the time slot
+     * @return true if the time slot was booked, or false if it already was or
+     *         the date or time slot is not valid
+     */
+    public static boolean book(String doctorID, long dateOfAppointment, int slot) {
+        if (dateOfAppointment == FormatDateTime.NO_DATE || !isSlot(slot)) {
+            return false;
+        }
+        return getCalendar(doctorID).book(LocalDate.ofEpochDay(dateOfAppointment), slot);
+    }
+
+    /**
+     * Reserves a time slot in the calendar of a doctor for a new or rescheduled
+     * appointment.
+     * Only the calendar is changed, so the reservation is never held up by
+     * persistence. If the appointment then cannot be saved, the time slot must
+     * be given back with {@link #release(String, long, int)}.
+     *
+     * @param doctorID          the ID of the doctor
+     * @param dateOfAppointment the date, as an epoch day
+     * @param slot              the time slot
+     * @throws TimeSlotUnavailableException if the date or time slot is not
+     *                                      valid, the doctor is not available
+     *                                      for it, or it is already booked
+     */
+    public static void reserve(String doctorID, long dateOfAppointment, int slot)
+            throws TimeSlotUnavailableException {
+        if (dateOfAppointment == FormatDateTime.NO_DATE || !isSlot(slot)) {
+            throw new TimeSlotUnavailableException("Invalid date or time slot.");
+        }
+        if (!getCalendar(doctorID).reserve(LocalDate.ofEpochDay(dateOfAppointment), slot)) {
+            throw new TimeSlotUnavailableException("The time slot " + slot + " on "
+                    + FormatDateTime.formatEpochDay(dateOfAppointment)
+                    + " is not available. Please choose another time slot.");
+        }
+    }
+
+    /**
+     * Releases the time slot of an appointment in the calendar of its doctor.
+     *
+     * @param appointment the appointment
+     * @return true if the time slot was released, or false if it was not booked
+     */
+    public static boolean release(Appointment appointment) {
+        return release(appointment.getDoctorID(), appointment.getEpochDayOfAppointment(),
+                appointment.getTimeOfAppointment());
+    }
+
+    /**
+     * Releases a booked time slot in the calendar of a doctor.
+     *
+     * @param doctorID          the ID of the doctor
+     * @param dateOfAppointment the date, as an epoch day
+     * @param slot              the time slot
+     * @return true if the time slot was released, or false if it was not booked
+     */
+    public static boolean release(String doctorID, long dateOfAppointment, int slot) {
+        if (dateOfAppointment == FormatDateTime.NO_DATE || !isSlot(slot)) {
+            return false;
+        }
+        return getCalendar(doctorID).release(LocalDate.ofEpochDay(dateOfAppointment), slot);
+    }
+
+    /**
+     * Finds the earliest free time slots of the given doctors, from a date and
+     * time onwards.
+     *
+     * @param doctorIDs   the IDs of the doctors to search
+     * @param from        the date and time to search from; slots of the first
+     *                    date that start before this time are skipped
+     * @param count       the number of free slots to find
+     * @param horizonDays the number of days to search, starting with the first
+     *                    date
+     * @return a list of at most count free slots, earliest first, and by doctor
+     *         ID for slots at the same time
+     * @see #findEarliestFreeSlots(Map, LocalDateTime, int, int)
+     */
+    public static List<FreeSlot> findEarliestFreeSlots(Collection<String> doctorIDs, LocalDateTime from, int count,
+            int horizonDays) {
+        Map<String, DoctorCalendar> calendarsByDoctorID = new LinkedHashMap<>();
+        for (String doctorID : doctorIDs) {
+            calendarsByDoctorID.put(doctorID, getCalendar(doctorID));
+        }
+        return findEarliestFreeSlots(calendarsByDoctorID, from, count, horizonDays);
+    }
+
+    /**
+     * Finds the earliest free time slots in the given calendars, from a date
+     * and time onwards.
+     * Each doctor with any availability gets a cursor on its next free slot,
+     * and the cursors are kept in a priority queue ordered by date and time
+     * slot. The earliest cursor is taken, its slot added to the result, and the
+     * cursor moved on to the next free slot of the same doctor. The search
+     * stops as soon as enough slots are found, and looks at each day of a
+     * doctor at most once. On the first date, only the slots that start at or
+     * after the time searched from are taken.
+     *
+     * @param calendarsByDoctorID the calendars to search, by the ID of their
+     *                            doctor
+     * @param from                the date and time to search from; slots of the
+     *                            first date that start before this time are
+     *                            skipped
+     * @param count               the number of free slots to find
+     * @param horizonDays         the number of days to search, starting with the
+     *                            first date
+     * @return a list of at most count free slots, earliest first, and by doctor
+     *         ID for slots at the same time
+     */
+    public static List<FreeSlot> findEarliestFreeSlots(Map<String, DoctorCalendar> calendarsByDoctorID,
+            LocalDateTime from, int count, int horizonDays) {
+        List<FreeSlot> freeSlots = new ArrayList<>();
+        if (count <= 0 || horizonDays <= 0) {
+            return freeSlots;
+        }
+        long firstDay = from.toLocalDate().toEpochDay();
+        long endDay = firstDay + horizonDays;
+        int firstDaySlots = DoctorCalendar.getSlotsStartingFrom(from.toLocalTime());
+        PriorityQueue<SlotCursor> cursors = new PriorityQueue<>();
+        for (Map.Entry<String, DoctorCalendar> entry : calendarsByDoctorID.entrySet()) {
+            DoctorCalendar calendar = entry.getValue();
+            if (!calendar.hasAvailability()) {
+                continue;
+            }
+            SlotCursor cursor = new SlotCursor(entry.getKey(), calendar, firstDay, firstDaySlots);
+            if (cursor.nextDay(endDay)) {
+                cursors.add(cursor);
+            }
+        }
+        while (freeSlots.size() < count && !cursors.isEmpty()) {
+            SlotCursor cursor = cursors.poll();
+            freeSlots.add(new FreeSlot(cursor.doctorID, LocalDate.ofEpochDay(cursor.epochDay), cursor.timeSlot()));
+            if (cursor.next(endDay)) {
+                cursors.add(cursor);
+            }
+        }
+        return freeSlots;
+    }
+
+    /**
+     * The SlotCursor class points at the next free time slot of a doctor while
+     * searching for the earliest free slots.
+     */
+    private static final class SlotCursor implements Comparable<SlotCursor> {
+
+        private final String doctorID;
+
+        private final DoctorCalendar calendar;
+
+        private final long firstDay;
+
+        private final int firstDaySlots;
+
+        private long epochDay;
+
+        private int remainingSlots;
+
+        /**
+         * Constructs a SlotCursor before the first day to search.
+         *
+         * @param doctorID      the ID of the doctor
+         * @param calendar      the calendar of the doctor
+         * @param firstDay      the epoch day of the first day to search
+         * @param firstDaySlots the mask of the time slots that may be taken on
+         *                      the first day
+         */
+        SlotCursor(String doctorID, DoctorCalendar calendar, long firstDay, int firstDaySlots) {
+            this.doctorID = doctorID;
+            this.calendar = calendar;
+            this.firstDay = firstDay;
+            this.firstDaySlots = firstDaySlots;
+            this.epochDay = firstDay - 1;
+        }
+
+        /**
+         * Gets the time slot the cursor points at.
+         *
+         * @return the time slot
+         */
+        int timeSlot() {
+            return Integer.numberOfTrailingZeros(remainingSlots) + 1;
+        }
+
+        /**
+         * Moves the cursor to the next free time slot.
+         *
+         * @param endDay the epoch day after the last day to search
+         * @return true if there is one before the end day
+         */
+        boolean next(long endDay) {
+            remainingSlots &= remainingSlots - 1;
+            return remainingSlots != 0 || nextDay(endDay);
+        }
+
+        /**
+         * Moves the cursor to the first free time slot of the next day that has
+         * one. Days the doctor is never available on are skipped without
+         * looking at their bookings.
+         *
+         * @param endDay the epoch day after the last day to search
+         * @return true if there is one before the end day
+         */
+        boolean nextDay(long endDay) {
+            while (++epochDay < endDay) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                if (calendar.getAvailableSlots(date.getDayOfWeek()) != 0) {
+                    remainingSlots = calendar.getFreeSlots(date);
+                    if (epochDay == firstDay) {
+                        remainingSlots &= firstDaySlots;
+                    }
+                    if (remainingSlots != 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int compareTo(SlotCursor other) {
+            if (epochDay != other.epochDay) {
+                return Long.compare(epochDay, other.epochDay);
+            }
+            if (timeSlot() != other.timeSlot()) {
+                return Integer.compare(timeSlot(), other.timeSlot());
+            }
+            return doctorID.compareTo(other.doctorID);
+        }
+    }
+
+    /**
+     * Builds the calendar of a doctor from the availability of the doctor and
+     * the appointments that hold a slot.
+     *
+     * @param doctorID the ID of the doctor
+     * @return the calendar of the doctor
+     */
+    private static DoctorCalendar loadCalendar(String doctorID) {
+        DoctorCalendar calendar = new DoctorCalendar();
+        try {
+            calendar.setWeeklyAvailability(DoctorDatabase.getDB().getByID(doctorID).getAppointmentAvailability());
+        } catch (Exception e) {
+            // A doctor without a record has no availability.
+        }
+        for (Appointment appointment : AppointmentDatabase.getDB().getAppointmentsByDoctorID(doctorID)) {
+            long day = appointment.getEpochDayOfAppointment();
+            if (holdsSlot(appointment) && day != FormatDateTime.NO_DATE
+                    && isSlot(appointment.getTimeOfAppointment())) {
+                calendar.book(LocalDate.ofEpochDay(day), appointment.getTimeOfAppointment());
+            }
+        }
+        return calendar;
+    }
+
+    /**
+     * Checks whether a number is a time slot.
+     *
+     * @param slot the number
+     * @return true if it is a time slot
+     */
+    private static boolean isSlot(int slot) {
+        return slot >= 1 && slot <= DoctorCalendar.NUMBER_OF_SLOTS;
+    }
+
+    /**
+     * Gets the key of a doctor in the map of calendars.
+     *
+     * @param doctorID the ID of the doctor
+     * @return the key of the doctor
+     */
+    private static String toKey(String doctorID) {
+        return doctorID.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,13 @@
+package controller.appointment;
+
+import java.time.LocalDate;
+
+/**
+ * A time slot of a doctor that is free to book on a date.
+ *
+ * @param doctorID the ID of the doctor
+ * @param date     the date
+ * @param timeSlot the time slot
+ */
+public record FreeSlot(String doctorID, LocalDate date, int timeSlot) {
+}
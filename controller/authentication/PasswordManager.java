@@ -3,6 +3,7 @@ package controller.authentication;
 import controller.user.UserManager;
 import model.user.User;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 import utils.exceptions.PasswordDoesNotFulfilCriteriaException;
 import utils.exceptions.PasswordIncorrectException;
 
@@ -73,9 +74,12 @@ public class PasswordManager {
      * @throws ModelNotFoundException                 if the user model cannot be
      *                                                found while updating the user
      *                                                data.
+     * @throws ModelVersionConflictException          if the user was changed by
+     *                                                someone else in the meantime.
      */
     public static void changePassword(User user, String oldPassword, String newPassword)
-            throws PasswordIncorrectException, PasswordDoesNotFulfilCriteriaException, ModelNotFoundException {
+            throws PasswordIncorrectException, PasswordDoesNotFulfilCriteriaException, ModelNotFoundException,
+            ModelVersionConflictException {
 
         if (!checkPassword(user, oldPassword)) {
             throw new PasswordIncorrectException();
@@ -85,7 +89,6 @@ public class PasswordManager {
             throw new PasswordDoesNotFulfilCriteriaException();
         }
 
-        user.setPassword(newPassword);
-        UserManager.updateUser(user);
+        UserManager.modifyUser(user, u -> u.setPassword(newPassword));
     }
 }
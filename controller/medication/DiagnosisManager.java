@@ -1,12 +1,11 @@
 package controller.medication;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
 import controller.user.PatientManager;
-import controller.user.UserManager;
 import database.medicalRecords.DiagnosisDatabase;
 import model.diagnosis.Diagnosis;
 import model.diagnosis.DiagnosisRecord;
@@ -16,7 +15,7 @@ import model.user.Doctor;
 import model.user.Patient;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
-import utils.utils.FormatDateTime;
+import utils.exceptions.ModelVersionConflictException;
 
 /**
  * The DiagnosisManager class provides utility methods for handing Diagnosis
@@ -63,10 +62,13 @@ public class DiagnosisManager {
      * a {@link ModelNotFoundException} is thrown.
      * 
      * @param diagnosis The diagnosis with updated details.
-     * @throws ModelNotFoundException if the diagnosis to be updated does not exist
-     *                                in the database.
+     * @throws ModelNotFoundException        if the diagnosis to be updated does not
+     *                                       exist in the database.
+     * @throws ModelVersionConflictException if the diagnosis was changed by someone
+     *                                       else since it was read.
      */
-    public static void updateDiagnsosis(Diagnosis diagnosis) throws ModelNotFoundException {
+    public static void updateDiagnsosis(Diagnosis diagnosis)
+            throws ModelNotFoundException, ModelVersionConflictException {
         DiagnosisDatabase.getDB().update(diagnosis);
     }
 
@@ -107,28 +109,17 @@ public class DiagnosisManager {
      *         list if no diagnoses are found.
      */
     public static List<Diagnosis> getDiagnosisByPatientID(String patientID) {
-        ArrayList<Diagnosis> patientDiagnosis = new ArrayList<>();
-        try {
-            List<Diagnosis> diagnoses = getAllDiagnosis();
-            for (Diagnosis d : diagnoses) {
-                if (d.getPatientID().equals(patientID)) {
-                    patientDiagnosis.add(d);
-                }
-            }
-            return patientDiagnosis;
-        } catch (NullPointerException e) {
-            return patientDiagnosis;
-        }
+        return DiagnosisDatabase.getDB().getDiagnosisByPatientID(patientID);
     }
 
     public static List<Diagnosis> getDiagnosisByPatientIDAndDiagnosisDetails(String patientID)
             throws ModelNotFoundException {
         ArrayList<Diagnosis> patientDiagnosis = new ArrayList<>();
         try {
-            List<Diagnosis> diagnoses = getAllDiagnosis();
+            List<Diagnosis> diagnoses = getDiagnosisByPatientID(patientID);
             for (Diagnosis d : diagnoses) {
                 Prescription prescription = PrescriptionManager.getPrescriptionByID(d.getPrescriptionID());
-                if (d.getPatientID().equals(patientID) && !prescription.getMedicationIDs().isEmpty()
+                if (!prescription.getMedicationIDs().isEmpty()
                         && prescription.getPrescriptionStatus() == PrescriptionStatus.PENDING) {
                     patientDiagnosis.add(d);
                 }
@@ -184,10 +175,9 @@ public class DiagnosisManager {
      */
     public static void createNewDiagnosis(String diagnosis, String patientID, String doctorID, String prescriptionID) {
         String diagnosisID = UUID.randomUUID().toString();
-        Date dateOfDiagnosis = new Date();
-        String dateOfDiagnosisStr = FormatDateTime.toDateOnly(dateOfDiagnosis);
+        long dateOfDiagnosis = LocalDate.now().toEpochDay();
         try {
-            Diagnosis newDiagnosis = new Diagnosis(diagnosisID, diagnosis, doctorID, prescriptionID, dateOfDiagnosisStr,
+            Diagnosis newDiagnosis = new Diagnosis(diagnosisID, diagnosis, doctorID, prescriptionID, dateOfDiagnosis,
                     patientID);
             addDiagnosis(newDiagnosis);
         } catch (Exception e) {
@@ -293,25 +283,26 @@ public class DiagnosisManager {
      * This method allows for updating the disease associated with a specific
      * diagnosis of a patient. It searches
      * for the diagnosis by its ID, and if found, updates the disease information.
-     * After the update, the patient record
-     * is saved using the `UserManager.updateUser()` method.
+     * The disease is changed on the latest version of the diagnosis, under the
+     * lock of the `DiagnosisDatabase`.
      * 
      * @param newDisease  The new disease name to be set in the diagnosis.
      * @param patientID   The ID of the patient whose diagnosis needs to be updated.
      * @param diagnosisID The ID of the diagnosis to be updated.
-     * @throws ModelNotFoundException If the patient or diagnosis cannot be found.
+     * @throws ModelNotFoundException        If the patient or diagnosis cannot be
+     *                                       found.
+     * @throws ModelVersionConflictException If the diagnosis kept being changed by
+     *                                       someone else.
      */
     public static void updateDisease(String newDisease, String patientID, String diagnosisID)
-            throws ModelNotFoundException {
-        Patient patient = PatientManager.getPatientById(patientID);
+            throws ModelNotFoundException, ModelVersionConflictException {
+        PatientManager.getPatientById(patientID);
         List<Diagnosis> diagnoses = DiagnosisManager.getDiagnosisByPatientID(patientID);
         for (Diagnosis diagnosis : diagnoses) {
             if (diagnosis.getDiagnosisID().equals(diagnosisID)) {
-                diagnosis.setDisease(newDisease);
+                DiagnosisDatabase.getDB().modify(diagnosisID, storedDiagnosis -> storedDiagnosis.setDisease(newDisease));
                 break;
             }
         }
-        UserManager.updateUser(patient);
-
     }
 }
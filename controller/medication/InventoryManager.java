@@ -0,0 +1,589 @@
+package controller.medication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import database.DatabaseRegistry;
+import database.medicalRecords.MedicationDatabase;
+import database.medicalRecords.StockMovementDatabase;
+import model.medication.Medication;
+import model.medication.StockMovement;
+import model.medication.enums.StockMovementType;
+import utils.exceptions.InsufficientStockException;
+import utils.exceptions.ModelAlreadyExistsException;
+import utils.exceptions.ModelNotFoundException;
+
+/**
+ * The InventoryManager class keeps the stock of every medication in an atomic
+ * counter, so that concurrent dispensing and restocking never lose an update.
+ * <p>
+ * Units are added to a counter without locking. Units are only taken out of a
+ * counter while holding its lock, by a compare-and-set that checks the stock
+ * first, so a dispense that finds too little stock leaves every counter as it
+ * was, and a batch holding the locks of its counters knows their stock can
+ * only go up until it takes its units.
+ * </p>
+ * <p>
+ * Every change to the stock is recorded as a {@link StockMovement} in an
+ * append-only ledger, and the stock stored in a medication is only a snapshot:
+ * the current stock is the snapshot plus every movement recorded after it. A
+ * counter starts from that fold the first time it is used.
+ * </p>
+ * <p>
+ * Movements are appended to the ledger on a single background thread, so
+ * writing them to disk is never on the path of the pharmacist who made them.
+ * A medication's snapshot is written every {@link #SNAPSHOT_INTERVAL}
+ * movements, and before the program exits through
+ * {@link DatabaseRegistry#flushAll()}.
+ * </p>
+ * <p>
+ * Every change also updates a {@link LowStockIndex}, so the medications low on
+ * stock are read without scanning the inventory.
+ * </p>
+ */
+public class InventoryManager {
+
+    /**
+     * The number of movements of a medication after which its stock snapshot is
+     * written.
+     */
+    public static final int SNAPSHOT_INTERVAL = 50;
+
+    private static final Map<String, StockCounter> counters = new ConcurrentHashMap<>();
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Set<StockCounter> unsnapshottedCounters = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private static int lastSequence = -1;
+
+    private static volatile boolean lowStockIndexed;
+
+    static {
+        DatabaseRegistry.addFlushHook(InventoryManager::flush);
+        DatabaseRegistry.addReleaseHook(InventoryManager::reset);
+    }
+
+    /**
+     * The StockCounter class is the live stock of one medication.
+     * It is kept by the ID of the medication for as long as the medication is
+     * tracked, and only follows the latest version of the medication for its
+     * name and low stock level alert, so that movements still waiting for the
+     * background thread are never lost when the medication is replaced. The
+     * counters are started again from the ledger when the Databases are
+     * reloaded or released. Its ledger fields are only used by the background
+     * thread.
+     */
+    private static final class StockCounter {
+
+        private final String key;
+
+        private volatile Medication medication;
+
+        private final AtomicInteger stock;
+
+        private int ledgerStock;
+
+        private int ledgerSequence;
+
+        private int movementsSinceSnapshot;
+
+        /**
+         * Constructs a StockCounter starting from the snapshot of a medication
+         * and the movements recorded after it.
+         *
+         * @param medication the medication to count the stock of
+         */
+        StockCounter(Medication medication) {
+            this.key = toKey(medication.getModelID());
+            this.medication = medication;
+            this.ledgerStock = medication.getStock();
+            this.ledgerSequence = medication.getStockSequence();
+            for (StockMovement stockMovement : StockMovementDatabase.getDB()
+                    .getStockMovementsByMedicationID(medication.getModelID())) {
+                if (stockMovement.getSequence() > medication.getStockSequence()) {
+                    ledgerStock += stockMovement.getQuantity();
+                    ledgerSequence = stockMovement.getSequence();
+                    movementsSinceSnapshot++;
+                }
+            }
+            this.stock = new AtomicInteger(ledgerStock);
+        }
+    }
+
+    /**
+     * Gets the current stock of a medication, including movements not yet in
+     * its snapshot.
+     *
+     * @param medicationID the ID of the medication
+     * @return the current stock of the medication
+     * @throws ModelNotFoundException if the medication does not exist
+     */
+    public static int getStock(String medicationID) throws ModelNotFoundException {
+        return getCounter(medicationID).stock.get();
+    }
+
+    /**
+     * Gets the current stock of a medication, including movements not yet in
+     * its snapshot.
+     *
+     * @param medication the medication
+     * @return the current stock of the medication
+     */
+    public static int getStock(Medication medication) {
+        return getCounter(medication).stock.get();
+    }
+
+    /**
+     * Adds stock to a medication, recorded as a replenishment.
+     *
+     * @param medicationID the ID of the medication
+     * @param quantity     the number of units to add
+     * @return the stock of the medication after the units were added
+     * @throws ModelNotFoundException if the medication does not exist
+     */
+    public static int restock(String medicationID, int quantity) throws ModelNotFoundException {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        StockCounter counter = getCounter(medicationID);
+        int stock = counter.stock.addAndGet(quantity);
+        record(counter, StockMovementType.REPLENISHMENT, quantity);
+        stockChanged(counter);
+        return stock;
+    }
+
+    /**
+     * Adds stock to several medications at once, each recorded as a
+     * replenishment.
+     * Every medication is looked up before any stock is added, so either every
+     * medication is restocked, or none is if any of them does not exist.
+     *
+     * @param quantities the number of units to add, by medication ID
+     * @throws ModelNotFoundException if any of the medications does not exist
+     */
+    public static void restock(Map<String, Integer> quantities) throws ModelNotFoundException {
+        Map<String, StockCounter> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Quantity must not be negative: " + entry.getValue());
+            }
+            batch.put(entry.getKey(), getCounter(entry.getKey()));
+        }
+        for (Map.Entry<String, StockCounter> entry : batch.entrySet()) {
+            int quantity = quantities.get(entry.getKey());
+            entry.getValue().stock.addAndGet(quantity);
+            record(entry.getValue(), StockMovementType.REPLENISHMENT, quantity);
+            stockChanged(entry.getValue());
+        }
+    }
+
+    /**
+     * Corrects the stock of a medication by hand, recorded as an adjustment.
+     *
+     * @param medicationID the ID of the medication
+     * @param quantity     the change in stock, negative to take units away
+     * @return the stock of the medication after the adjustment
+     * @throws ModelNotFoundException     if the medication does not exist
+     * @throws InsufficientStockException if the stock would become negative
+     */
+    public static int adjust(String medicationID, int quantity)
+            throws ModelNotFoundException, InsufficientStockException {
+        StockCounter counter = getCounter(medicationID);
+        int stock;
+        if (quantity < 0) {
+            synchronized (counter) {
+                stock = take(counter, -quantity);
+            }
+        } else {
+            stock = counter.stock.addAndGet(quantity);
+        }
+        record(counter, StockMovementType.ADJUSTMENT, quantity);
+        stockChanged(counter);
+        return stock;
+    }
+
+    /**
+     * Dispenses several medications at once.
+     * Either every medication is dispensed, or none is and the stock is left as
+     * it was, if any of them does not have enough stock. The locks of the
+     * counters are taken in the order of their keys, the stock of every
+     * medication is checked, and only then are the units taken.
+     *
+     * @param quantities the number of units to dispense, by medication ID
+     * @throws ModelNotFoundException     if any of the medications does not exist
+     * @throws InsufficientStockException if any of the medications does not have
+     *                                    enough stock
+     */
+    public static void dispense(Map<String, Integer> quantities)
+            throws ModelNotFoundException, InsufficientStockException {
+        Map<String, StockCounter> batch = new TreeMap<>();
+        Map<String, Integer> quantitiesByKey = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Quantity must not be negative: " + entry.getValue());
+            }
+            String key = toKey(entry.getKey());
+            batch.put(key, getCounter(entry.getKey()));
+            quantitiesByKey.merge(key, entry.getValue(), Integer::sum);
+        }
+        List<StockCounter> batchCounters = new ArrayList<>(batch.values());
+        List<Integer> batchQuantities = new ArrayList<>();
+        for (String key : batch.keySet()) {
+            batchQuantities.add(quantitiesByKey.get(key));
+        }
+        takeAll(batchCounters, batchQuantities, 0);
+        for (int i = 0; i < batchCounters.size(); i++) {
+            record(batchCounters.get(i), StockMovementType.DISPENSE, -batchQuantities.get(i));
+            stockChanged(batchCounters.get(i));
+        }
+    }
+
+    /**
+     * Takes units out of several counters at once, if every one of them has
+     * enough stock. The lock of each counter is taken in turn, in the order of
+     * the list, and held until the units are taken.
+     *
+     * @param batch      the counters, in the order of their keys, so that two
+     *                   batches lock the counters they share in the same order
+     * @param quantities the number of units to take from each counter
+     * @param locked     the number of counters already locked
+     * @throws InsufficientStockException if any of the counters does not have
+     *                                    enough stock, in which case none is
+     *                                    changed
+     */
+    private static void takeAll(List<StockCounter> batch, List<Integer> quantities, int locked)
+            throws InsufficientStockException {
+        if (locked < batch.size()) {
+            synchronized (batch.get(locked)) {
+                takeAll(batch, quantities, locked + 1);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int left = batch.get(i).stock.get();
+            if (left < quantities.get(i)) {
+                throw insufficientStock(batch.get(i), quantities.get(i), left);
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            take(batch.get(i), quantities.get(i));
+        }
+    }
+
+    /**
+     * Takes units out of a counter, if it has enough stock. The stock is
+     * checked and changed in one compare-and-set, so it is left as it was if
+     * there are not enough units. Must be called while holding the lock of the
+     * counter.
+     *
+     * @param counter  the counter
+     * @param quantity the number of units to take
+     * @return the stock left after the units were taken
+     * @throws InsufficientStockException if the counter does not have enough
+     *                                    stock
+     */
+    private static int take(StockCounter counter, int quantity) throws InsufficientStockException {
+        int before = counter.stock.getAndUpdate(current -> current >= quantity ? current - quantity : current);
+        if (before < quantity) {
+            throw insufficientStock(counter, quantity, before);
+        }
+        return before - quantity;
+    }
+
+    /**
+     * Creates the exception thrown when a medication does not have enough
+     * stock.
+     *
+     * @param counter  the counter of the medication
+     * @param quantity the number of units needed
+     * @param left     the number of units left
+     * @return the exception
+     */
+    private static InsufficientStockException insufficientStock(StockCounter counter, int quantity, int left) {
+        return new InsufficientStockException("Not enough stock of " + counter.medication.getName() + ": "
+                + quantity + " needed but " + left + " left.");
+    }
+
+    /**
+     * Takes the remaining stock of a medication out of the inventory before the
+     * medication is deleted, recorded as a deletion.
+     *
+     * @param medicationID the ID of the medication
+     * @throws ModelNotFoundException if the medication does not exist
+     */
+    public static void remove(String medicationID) throws ModelNotFoundException {
+        StockCounter counter = getCounter(medicationID);
+        int remaining;
+        synchronized (counter) {
+            remaining = counter.stock.getAndSet(0);
+        }
+        record(counter, StockMovementType.DELETE, -remaining);
+        counters.remove(toKey(medicationID), counter);
+        synchronized (counter) {
+            LowStockIndex.remove(toKey(medicationID));
+        }
+    }
+
+    /**
+     * Starts tracking the stock of a medication that was added or changed, such
+     * as a new medication or a new low stock level alert.
+     *
+     * @param medication the medication
+     */
+    public static void track(Medication medication) {
+        stockChanged(getCounter(medication));
+    }
+
+    /**
+     * Gets the medications that are at or below their low stock level alert, the
+     * lowest stock relative to the alert first.
+     * The whole inventory is only read the first time; after that, this takes
+     * time in proportion to the number of medications low on stock.
+     *
+     * @return a list of the medications low on stock
+     */
+    public static List<Medication> getLowStockMedications() {
+        if (!lowStockIndexed) {
+            synchronized (InventoryManager.class) {
+                if (!lowStockIndexed) {
+                    lowStockIndexed = true;
+                    for (Medication medication : MedicationDatabase.getDB().getAllMedications()) {
+                        track(medication);
+                    }
+                }
+            }
+        }
+        return LowStockIndex.getLowStock();
+    }
+
+    /**
+     * Adds a listener to be told when the stock of a medication crosses its low
+     * stock level alert.
+     *
+     * @param listener the listener to add
+     */
+    public static void addLowStockListener(LowStockListener listener) {
+        LowStockIndex.addListener(listener);
+    }
+
+    /**
+     * Gets the stock movements of a medication, oldest first, including every
+     * movement made so far.
+     *
+     * @param medicationID the ID of the medication
+     * @return a list of the stock movements of the medication
+     * @throws ModelNotFoundException if the medication does not exist
+     */
+    public static List<StockMovement> getStockHistory(String medicationID) throws ModelNotFoundException {
+        Medication medication = MedicationDatabase.getDB().getByID(medicationID);
+        await(writer.submit(() -> {
+        }));
+        return StockMovementDatabase.getDB().getStockMovementsByMedicationID(medication.getModelID());
+    }
+
+    /**
+     * Waits until every movement made so far is in the ledger, and writes the
+     * snapshot of every medication with movements not yet in its snapshot.
+     *
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    public static void flush() {
+        await(writer.submit(() -> {
+            for (StockCounter counter : new ArrayList<>(unsnapshottedCounters)) {
+                snapshot(counter);
+            }
+        }));
+    }
+
+    /**
+     * Drops every counter and the low stock index, once the movements made so
+     * far are in the ledger, so they are started again from the medications
+     * and the ledger the next time they are used.
+     *
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    public static void reset() {
+        await(writer.submit(() -> {
+            synchronized (InventoryManager.class) {
+                counters.clear();
+                unsnapshottedCounters.clear();
+                lastSequence = -1;
+                lowStockIndexed = false;
+                LowStockIndex.clear();
+            }
+        }));
+    }
+
+    /**
+     * Waits for a task of the background thread to finish.
+     *
+     * @param task the task to wait for
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    private static void await(Future<?> task) {
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing the inventory");
+        }
+    }
+
+    /**
+     * Gets the counter of a medication, starting it if it has not been used yet.
+     *
+     * @param medicationID the ID of the medication
+     * @return the counter of the medication
+     * @throws ModelNotFoundException if the medication does not exist
+     */
+    private static StockCounter getCounter(String medicationID) throws ModelNotFoundException {
+        return getCounter(MedicationDatabase.getDB().getByID(medicationID));
+    }
+
+    /**
+     * Gets the counter of a medication, starting it if it has not been used yet.
+     * A counter that was started from an older version of the medication is
+     * kept, with its stock, and follows the given version from then on.
+     *
+     * @param medication the medication
+     * @return the counter of the medication
+     */
+    private static StockCounter getCounter(Medication medication) {
+        String key = toKey(medication.getModelID());
+        StockCounter counter = counters.get(key);
+        if (counter != null && counter.medication == medication) {
+            return counter;
+        }
+        boolean[] started = new boolean[1];
+        counter = counters.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return new StockCounter(medication);
+        });
+        if (!started[0]) {
+            counter.medication = medication;
+        }
+        if (lowStockIndexed) {
+            stockChanged(counter);
+        }
+        return counter;
+    }
+
+    /**
+     * Updates the low stock index with the current stock of a medication.
+     * Changes to one medication are applied one at a time, each with the latest
+     * stock, so the index always ends up with the stock of the last change.
+     * Counters that were removed or dropped are ignored.
+     *
+     * @param counter the counter of the medication
+     */
+    private static void stockChanged(StockCounter counter) {
+        synchronized (counter) {
+            if (counters.get(counter.key) == counter) {
+                LowStockIndex.update(counter.key, counter.medication, counter.stock.get());
+            }
+        }
+    }
+
+    /**
+     * Queues a movement to be appended to the ledger.
+     *
+     * @param counter  the counter of the medication
+     * @param type     the type of the movement
+     * @param quantity the change in stock
+     */
+    private static void record(StockCounter counter, StockMovementType type, int quantity) {
+        Date dateOfMovement = new Date();
+        writer.execute(() -> append(counter, type, quantity, dateOfMovement));
+    }
+
+    /**
+     * Appends a movement to the ledger, and writes the snapshot of its medication
+     * if enough movements were made since the last one.
+     * The sequence is given here, so the ledger order is the order in which
+     * movements are folded into the snapshots.
+     *
+     * @param counter        the counter of the medication
+     * @param type           the type of the movement
+     * @param quantity       the change in stock
+     * @param dateOfMovement the date of the movement
+     */
+    private static void append(StockCounter counter, StockMovementType type, int quantity, Date dateOfMovement) {
+        StockMovementDatabase stockMovementDatabase = StockMovementDatabase.getDB();
+        if (lastSequence < 0) {
+            lastSequence = stockMovementDatabase.getLastSequence();
+        }
+        StockMovement stockMovement = new StockMovement(UUID.randomUUID().toString(),
+                counter.medication.getModelID(), type, quantity, ++lastSequence, dateOfMovement);
+        try {
+            stockMovementDatabase.add(stockMovement);
+        } catch (ModelAlreadyExistsException e) {
+            throw new IllegalStateException("Stock movement " + stockMovement.getModelID() + " already exists.");
+        }
+        counter.ledgerStock += quantity;
+        counter.ledgerSequence = stockMovement.getSequence();
+        unsnapshottedCounters.add(counter);
+        if (++counter.movementsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            snapshot(counter);
+        }
+    }
+
+    /**
+     * Writes the stock of a medication folded from the ledger as its snapshot.
+     * The ledger is flushed first, so a snapshot never includes movements that
+     * are not on disk. Nothing is written if the counter is no longer the
+     * current counter of the medication, such as when the medication was
+     * deleted.
+     *
+     * @param counter the counter of the medication
+     */
+    private static void snapshot(StockCounter counter) {
+        StockMovementDatabase.getDB().flush();
+        List<Medication> snapshotted = MedicationDatabase.getDB().modifyAll(
+                List.of(counter.medication.getModelID()), medication -> {
+                    if (counters.get(counter.key) != counter) {
+                        return false;
+                    }
+                    medication.setStock(counter.ledgerStock);
+                    medication.setStockSequence(counter.ledgerSequence);
+                    return true;
+                });
+        if (!snapshotted.isEmpty()) {
+            counter.medication = snapshotted.get(0);
+        }
+        counter.movementsSinceSnapshot = 0;
+        unsnapshottedCounters.remove(counter);
+    }
+
+    /**
+     * Gets the key of a medication in the counters.
+     *
+     * @param medicationID the ID of the medication
+     * @return the key of the medication
+     */
+    private static String toKey(String medicationID) {
+        return medicationID.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,130 @@
+package controller.medication;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import model.medication.Medication;
+
+/**
+ * The LowStockIndex class orders medications by their headroom, the stock
+ * left above their low stock level alert, so that the medications low on
+ * stock are read without scanning the whole inventory.
+ * It is kept up to date by {@link InventoryManager} on every stock change,
+ * which also makes sure changes to one medication are applied one at a time.
+ * {@link LowStockListener}s are told when a change makes a medication cross
+ * its alert level.
+ */
+class LowStockIndex {
+
+    private static final Comparator<Entry> BY_HEADROOM = Comparator.comparingInt(Entry::headroom)
+            .thenComparing(Entry::key);
+
+    private static final NavigableSet<Entry> entriesByHeadroom = new ConcurrentSkipListSet<>(BY_HEADROOM);
+
+    private static final Map<String, Entry> entriesByKey = new ConcurrentHashMap<>();
+
+    private static final List<LowStockListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The first entry that is not low on stock, used to cut the index.
+     */
+    private static final Entry FIRST_NOT_LOW = new Entry("", null, 0, 1);
+
+    /**
+     * An entry of the index.
+     *
+     * @param key        the key of the medication
+     * @param medication the medication
+     * @param stock      the stock of the medication
+     * @param headroom   the stock minus the low stock level alert
+     */
+    private record Entry(String key, Medication medication, int stock, int headroom) {
+
+        /**
+         * Checks whether the medication is low on stock.
+         *
+         * @return true if the stock is at or below the low stock level alert
+         */
+        boolean isLow() {
+            return headroom <= 0;
+        }
+    }
+
+    /**
+     * Sets the stock of a medication in the index, and tells the listeners if it
+     * crossed its low stock level alert. A medication added to the index for the
+     * first time is not reported as crossing.
+     *
+     * @param key        the key of the medication
+     * @param medication the medication
+     * @param stock      the current stock of the medication
+     */
+    static void update(String key, Medication medication, int stock) {
+        Entry entry = new Entry(key, medication, stock, stock - medication.getLowStockLevelAlert());
+        Entry previous = entriesByKey.put(key, entry);
+        if (previous != null) {
+            entriesByHeadroom.remove(previous);
+        }
+        entriesByHeadroom.add(entry);
+        if (previous == null || previous.isLow() == entry.isLow()) {
+            return;
+        }
+        for (LowStockListener listener : listeners) {
+            if (entry.isLow()) {
+                listener.onLowStock(medication, stock);
+            } else {
+                listener.onStockRestored(medication, stock);
+            }
+        }
+    }
+
+    /**
+     * Removes a medication from the index.
+     *
+     * @param key the key of the medication
+     */
+    static void remove(String key) {
+        Entry entry = entriesByKey.remove(key);
+        if (entry != null) {
+            entriesByHeadroom.remove(entry);
+        }
+    }
+
+    /**
+     * Removes every medication from the index.
+     */
+    static void clear() {
+        entriesByKey.clear();
+        entriesByHeadroom.clear();
+    }
+
+    /**
+     * Gets the medications that are at or below their low stock level alert, the
+     * lowest headroom first. Takes time in proportion to the number of them.
+     *
+     * @return a list of the medications low on stock
+     */
+    static List<Medication> getLowStock() {
+        List<Medication> medications = new ArrayList<>();
+        for (Entry entry : entriesByHeadroom.headSet(FIRST_NOT_LOW, false)) {
+            medications.add(entry.medication());
+        }
+        return medications;
+    }
+
+    /**
+     * Adds a listener to be told when a medication crosses its low stock level
+     * alert.
+     *
+     * @param listener the listener to add
+     */
+    static void addListener(LowStockListener listener) {
+        listeners.add(listener);
+    }
+}
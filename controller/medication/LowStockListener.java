@@ -0,0 +1,31 @@
+package controller.medication;
+
+import model.medication.Medication;
+
+/**
+ * The LowStockListener interface is notified when the stock of a medication
+ * crosses its low stock level alert.
+ * Listeners are called on the thread that changed the stock, right after the
+ * change, so they must return quickly.
+ */
+public interface LowStockListener {
+
+    /**
+     * Called when the stock of a medication falls to or below its low stock
+     * level alert.
+     *
+     * @param medication the medication
+     * @param stock      the stock of the medication after the change
+     */
+    void onLowStock(Medication medication, int stock);
+
+    /**
+     * Called when the stock of a medication rises above its low stock level alert
+     * again.
+     *
+     * @param medication the medication
+     * @param stock      the stock of the medication after the change
+     */
+    default void onStockRestored(Medication medication, int stock) {
+    }
+}
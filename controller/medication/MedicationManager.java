@@ -1,6 +1,8 @@
 package controller.medication;
 
 import model.medication.Medication;
+import model.medication.StockMovement;
+import utils.exceptions.InsufficientStockException;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
 import utils.iocontrol.CSVReader;
@@ -9,7 +11,9 @@ import java.util.UUID;
 import database.medicalRecords.MedicationDatabase;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The MedicationManager class provides utility methods for managing medications
@@ -47,21 +51,7 @@ public class MedicationManager {
      */
     public static void addMedication(Medication medication) throws ModelAlreadyExistsException {
         MedicationDatabase.getDB().add(medication);
-    }
-
-    /**
-     * Updates an existing medication in the database.
-     * 
-     * This method updates the details of an existing medication in the database. If
-     * the medication to be updated
-     * does not exist, a `ModelNotFoundException` is thrown.
-     * 
-     * @param medication The medication object containing the updated details.
-     * @throws ModelNotFoundException If the medication to update is not found in
-     *                                the database.
-     */
-    public static void updateMedication(Medication medication) throws ModelNotFoundException {
-        MedicationDatabase.getDB().update(medication);
+        InventoryManager.track(medication);
     }
 
     /**
@@ -131,8 +121,9 @@ public class MedicationManager {
      * 
      * This method attempts to retrieve the medication by its ID and increase its
      * stock by 10 units.
-     * If the medication is found, the stock is updated, and the `Medication` object
-     * is saved back to the database.
+     * If the medication is found, its stock counter in the `InventoryManager` is
+     * increased, and the replenishment is recorded in the stock ledger in the
+     * background.
      * If the medication with the given ID is not found in the database, an error
      * message is printed indicating
      * that the medication was not found.
@@ -143,9 +134,46 @@ public class MedicationManager {
      *                                found in the database.
      */
     public static void updateMedicationStock(String medicationID) throws ModelNotFoundException {
-        Medication medication = getMedicationsById(medicationID);
-        medication.setStock(medication.getStock() + 10);
-        updateMedication(medication);
+        updateMedicationStock(medicationID, 1);
+    }
+
+    /**
+     * Updates the stock level of a specific medication by increasing it by 10
+     * units for each of the given number of replenishments.
+     *
+     * This method is used when several replenishment requests for the medication
+     * were merged into one and approved together.
+     *
+     * @param medicationID       The ID of the medication whose stock level is to be
+     *                           updated.
+     * @param replenishmentCount The number of replenishments of 10 units to add.
+     * @throws ModelNotFoundException If the medication with the specified ID is not
+     *                                found in the database.
+     */
+    public static void updateMedicationStock(String medicationID, int replenishmentCount)
+            throws ModelNotFoundException {
+        InventoryManager.restock(medicationID, 10 * replenishmentCount);
+    }
+
+    /**
+     * Updates the stock levels of several medications at once, increasing each
+     * by 10 units for each of its number of replenishments.
+     *
+     * Either every medication is restocked, or none is if any of them is not
+     * found.
+     *
+     * @param replenishmentCounts The number of replenishments of 10 units to add,
+     *                            by medication ID.
+     * @throws ModelNotFoundException If any of the medications is not found in the
+     *                                database.
+     */
+    public static void updateMedicationStocks(Map<String, Integer> replenishmentCounts)
+            throws ModelNotFoundException {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : replenishmentCounts.entrySet()) {
+            quantities.put(entry.getKey(), 10 * entry.getValue());
+        }
+        InventoryManager.restock(quantities);
     }
 
     /**
@@ -153,28 +181,77 @@ public class MedicationManager {
      * 
      * This method attempts to retrieve the medication by its ID and decreases its
      * stock by 1 unit.
-     * If the medication is found, the stock is updated, and the `Medication` object
-     * is saved back to the database.
+     * If the medication is found and has stock left, its stock counter in the
+     * `InventoryManager` is decreased, and the dispense is recorded in the stock
+     * ledger in the background.
      * If the medication with the given ID is not found in the database, an error
      * message is printed indicating
      * that the medication was not found.
      * 
      * @param medicationID The ID of the medication whose stock level is to be
      *                     reduced.
+     * @throws ModelNotFoundException     If the medication with the specified ID
+     *                                    is not found in the database.
+     * @throws InsufficientStockException If the medication has no stock left.
+     */
+    public static void reduceMedicationStock(String medicationID)
+            throws ModelNotFoundException, InsufficientStockException {
+        InventoryManager.dispense(Map.of(medicationID, 1));
+    }
+
+    /**
+     * Corrects the stock level of a specific medication by hand.
+     *
+     * This method changes the stock of the medication by the given quantity, and
+     * records the change as an adjustment in the stock ledger.
+     *
+     * @param medicationID The ID of the medication whose stock level is to be
+     *                     corrected.
+     * @param quantity     The change in stock, negative to take units away.
+     * @throws ModelNotFoundException     If the medication with the specified ID
+     *                                    is not found in the database.
+     * @throws InsufficientStockException If the stock would become negative.
+     */
+    public static void adjustMedicationStock(String medicationID, int quantity)
+            throws ModelNotFoundException, InsufficientStockException {
+        InventoryManager.adjust(medicationID, quantity);
+    }
+
+    /**
+     * Retrieves the current stock level of a medication.
+     *
+     * The stock stored in a `Medication` object is only its last snapshot, so this
+     * method asks the `InventoryManager` for the stock including every change made
+     * since.
+     *
+     * @param medication The medication whose stock level is retrieved.
+     * @return The current stock level of the medication.
+     */
+    public static int getCurrentStock(Medication medication) {
+        return InventoryManager.getStock(medication);
+    }
+
+    /**
+     * Retrieves the stock history of a medication.
+     *
+     * This method returns every change to the stock of the medication recorded in
+     * the stock ledger, oldest first.
+     *
+     * @param medicationID The ID of the medication whose history is retrieved.
+     * @return A list of the stock movements of the medication.
      * @throws ModelNotFoundException If the medication with the specified ID is not
      *                                found in the database.
      */
-    public static void reduceMedicationStock(String medicationID) throws ModelNotFoundException {
-        Medication medication = getMedicationsById(medicationID);
-        medication.setStock(medication.getStock() - 1);
-        updateMedication(medication);
+    public static List<StockMovement> getStockHistory(String medicationID) throws ModelNotFoundException {
+        return InventoryManager.getStockHistory(medicationID);
     }
 
     /**
      * Deletes a medication from the database based on the provided medication ID.
      * 
      * This method attempts to remove a medication from the database using its ID.
-     * If the medication is found in the database, it is removed successfully.
+     * If the medication is found in the database, its remaining stock is recorded
+     * as deleted in the stock ledger, and it is removed successfully.
      * If the medication with the specified ID does not exist, an error message is
      * printed indicating
      * that the medication was not found.
@@ -184,6 +261,7 @@ public class MedicationManager {
      *                                not exist in the database.
      */
     public static void deleteMedication(String medicationID) throws ModelNotFoundException {
+        InventoryManager.remove(medicationID);
         MedicationDatabase.getDB().remove(medicationID);
     }
 
@@ -241,51 +319,27 @@ public class MedicationManager {
     }
 
     /**
-     * Retrieves the IDs of medications that are at or below their low stock level
+     * Retrieves a list of medications that are at or below their low stock level
      * alert.
      * 
-     * This method checks all medications in the database and compares their current
-     * stock levels
-     * with their defined low stock level alert. If a medication's stock is at or
-     * below the alert level,
-     * its ID is added to the list.
+     * This method reads the low stock index kept up to date by the
+     * `InventoryManager` on every stock change, so it takes time in proportion to
+     * the number of medications low on stock rather than the whole inventory.
+     * The medications with the lowest stock relative to their alert come first.
      * 
-     * @return A list of medication IDs for those that are at or below the low stock
-     *         level alert.
+     * @return An ArrayList of `Medication` objects that have low stock.
      */
-    private static ArrayList<String> getLowStockIDs() {
-        ArrayList<String> idList = new ArrayList<String>();
-        for (Medication i : getAllMedications()) {
-            if (i.getStock() <= i.getLowStockLevelAlert()) {
-                idList.add(i.getModelID());
-            }
-        }
-        return idList;
+    public static ArrayList<Medication> getLowStockMedicationInventory() {
+        return new ArrayList<>(InventoryManager.getLowStockMedications());
     }
 
     /**
-     * Retrieves a list of medications that are at or below their low stock level
-     * alert.
-     * 
-     * This method checks for medications whose stock levels are at or below the low
-     * stock level
-     * threshold and returns a list of these medications.
-     * It uses the medication IDs retrieved from `getLowStockIDs` and attempts to
-     * fetch the corresponding
-     * `Medication` objects. If any medication is not found, the exception is caught
-     * and the stack trace is printed.
+     * Adds a listener to be told when a medication falls to or below its low
+     * stock level alert, or rises above it again.
      * 
-     * @return An ArrayList of `Medication` objects that have low stock.
+     * @param listener The listener to add.
      */
-    public static ArrayList<Medication> getLowStockMedicationInventory() {
-        ArrayList<Medication> medList = new ArrayList<Medication>();
-        for (String id : getLowStockIDs()) {
-            try {
-                medList.add(MedicationManager.getMedicationsById(id));
-            } catch (ModelNotFoundException e) {
-                e.printStackTrace();
-            }
-        }
-        return medList;
+    public static void addLowStockListener(LowStockListener listener) {
+        InventoryManager.addLowStockListener(listener);
     }
 }
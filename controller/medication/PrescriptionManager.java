@@ -2,12 +2,16 @@ package controller.medication;
 
 import model.prescription.*;
 import model.prescription.enums.PrescriptionStatus;
+import utils.exceptions.InsufficientStockException;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import database.medicalRecords.PrescriptionDatabase;
 
@@ -41,10 +45,13 @@ public class PrescriptionManager {
      * does not exist, a `ModelNotFoundException` is thrown.
      * 
      * @param newPrescription The updated `Prescription` object.
-     * @throws ModelNotFoundException If the prescription to be updated does not
-     *                                exist in the database.
+     * @throws ModelNotFoundException        If the prescription to be updated does
+     *                                       not exist in the database.
+     * @throws ModelVersionConflictException If the prescription was changed by
+     *                                       someone else since it was read.
      */
-    public static void updatePrescription(Prescription newPrescription) throws ModelNotFoundException {
+    public static void updatePrescription(Prescription newPrescription)
+            throws ModelNotFoundException, ModelVersionConflictException {
         PrescriptionDatabase.getDB().update(newPrescription);
     }
 
@@ -112,27 +119,70 @@ public class PrescriptionManager {
      * 
      * This method updates the status of a prescription identified by its ID. If the
      * new status is
-     * `DISPENSED`, it reduces the stock of each medication associated with the
-     * prescription by one.
-     * After updating the status, the method saves the updated prescription to the
-     * database.
-     * 
+     * `DISPENSED`, the prescription must be pending: it is first marked as
+     * dispensed, only if it was not changed since it was read, so no two
+     * pharmacists can dispense it. The stock of each medication associated with
+     * the prescription is then reduced by one, all at once. If any of them does
+     * not have enough stock, or the stock cannot be reduced for any other reason,
+     * no stock is taken and the prescription is pending again.
+     *
      * @param prescriptionID The unique identifier of the prescription to be
      *                       updated.
      * @param status         The new status to set for the prescription.
-     * @throws ModelNotFoundException If the prescription with the given ID cannot
-     *                                be found in the database.
+     * @throws ModelNotFoundException     If the prescription with the given ID
+     *                                    cannot be found in the database.
+     * @throws InsufficientStockException If a medication of the prescription does
+     *                                    not have enough stock to be dispensed.
+     * @throws ModelVersionConflictException If the prescription was changed by
+     *                                       someone else in the meantime, or is
+     *                                       to be dispensed but is not pending.
      */
     public static void updatePrescriptionStatus(String prescriptionID, PrescriptionStatus status)
-            throws ModelNotFoundException {
+            throws ModelNotFoundException, InsufficientStockException, ModelVersionConflictException {
+        if (!status.equals(PrescriptionStatus.DISPENSED)) {
+            PrescriptionDatabase.getDB().modify(prescriptionID,
+                    storedPrescription -> storedPrescription.setPrescriptionStatus(status));
+            return;
+        }
         Prescription prescription = getPrescriptionByID(prescriptionID);
-        prescription.setPrescriptionStatus(status);
-        if (status.equals(PrescriptionStatus.DISPENSED)) {
-            for (String medicationID : prescription.getMedicationIDs()) {
-                MedicationManager.reduceMedicationStock(medicationID);
+        if (prescription.getPrescriptionStatus() != PrescriptionStatus.PENDING) {
+            throw new ModelVersionConflictException("Prescription " + prescriptionID + " is "
+                    + prescription.getPrescriptionStatus() + ", so it cannot be dispensed.");
+        }
+        Prescription dispensedPrescription = PrescriptionDatabase.getDB().compareAndUpdate(prescriptionID,
+                prescription.getModelVersion(),
+                storedPrescription -> storedPrescription.setPrescriptionStatus(PrescriptionStatus.DISPENSED));
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (String medicationID : prescription.getMedicationIDs()) {
+            quantities.merge(medicationID, 1, Integer::sum);
+        }
+        boolean dispensed = false;
+        try {
+            InventoryManager.dispense(quantities);
+            dispensed = true;
+        } finally {
+            if (!dispensed) {
+                reopenPrescription(dispensedPrescription);
             }
         }
-        updatePrescription(prescription);
+    }
+
+    /**
+     * Sets a prescription that was marked as dispensed back to pending, as its
+     * medications could not be dispensed. The prescription is left as it is if
+     * someone else changed it since it was marked as dispensed.
+     *
+     * @param dispensedPrescription the prescription as it was marked as
+     *                              dispensed.
+     */
+    private static void reopenPrescription(Prescription dispensedPrescription) {
+        try {
+            PrescriptionDatabase.getDB().compareAndUpdate(dispensedPrescription.getModelID(),
+                    dispensedPrescription.getModelVersion(),
+                    storedPrescription -> storedPrescription.setPrescriptionStatus(PrescriptionStatus.PENDING));
+        } catch (ModelNotFoundException | ModelVersionConflictException e) {
+            return;
+        }
     }
 
 }
\ No newline at end of file
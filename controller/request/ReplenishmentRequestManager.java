@@ -1,31 +1,47 @@
 package controller.request;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import controller.medication.MedicationManager;
+import database.medicalRecords.MedicationDatabase;
 import database.request.ReplenishmentRequestDatabase;
 import model.request.ReplenishmentRequest;
 import model.request.enums.RequestStatus;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 
 /**
  * The ReplenishmentRequestManager class provides utility methods for handling
  * Medication replenishment requests
  * between Pharmacists and Administrator.
+ * A medication has at most one pending request: new requests for it are merged
+ * into the pending one, so the queue of the Administrator only grows with the
+ * number of medications. Requests for the same medication are submitted one at
+ * a time, under a lock that is kept only while the medication has a pending
+ * request.
  */
 
 public class ReplenishmentRequestManager {
 
+    private static final Map<String, Object> submitLocks = new ConcurrentHashMap<>();
+
     /**
      * Checks if there are any pending replenishment requests in the database.
      * 
-     * This method retrieves all replenishment requests and checks if any of them
-     * have a status of
-     * `PENDING`. If at least one pending request is found, the method returns
-     * `true`. If no pending
+     * This method counts the replenishment requests with a status of `PENDING`
+     * in the status index, without scanning the requests. If at least one pending
+     * request is found, the method returns `true`. If no pending
      * requests are found or if an error occurs during the process, it returns
      * `false`.
      * 
@@ -34,18 +50,24 @@ public class ReplenishmentRequestManager {
      */
     public static Boolean isThereAnyPendingRequests() {
         try {
-            List<ReplenishmentRequest> replenishmentRequests = ReplenishmentRequestDatabase.getDB()
-                    .getAllReplenishmentRequests();
-            for (ReplenishmentRequest replenishmentRequest : replenishmentRequests) {
-                if (replenishmentRequest.getStatus().equals(RequestStatus.PENDING))
-                    return true;
-            }
-            return false;
+            return countPendingRequests() > 0;
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Counts the pending replenishment requests.
+     * 
+     * This method reads the count from the status index, so it takes constant
+     * time however many requests there are.
+     * 
+     * @return the number of pending replenishment requests.
+     */
+    public static int countPendingRequests() {
+        return ReplenishmentRequestDatabase.getDB().countReplenishmentRequestsByStatus(RequestStatus.PENDING);
+    }
+
     /**
      * Updates an existing replenishment request in the database.
      * 
@@ -55,10 +77,14 @@ public class ReplenishmentRequestManager {
      * database.
      * 
      * @param request the replenishment request to be updated.
-     * @throws ModelNotFoundException if the replenishment request does not exist in
-     *                                the database.
+     * @throws ModelNotFoundException        if the replenishment request does not
+     *                                       exist in the database.
+     * @throws ModelVersionConflictException if the replenishment request was
+     *                                       changed by someone else since it was
+     *                                       read.
      */
-    public static void updateRequst(ReplenishmentRequest request) throws ModelNotFoundException {
+    public static void updateRequst(ReplenishmentRequest request)
+            throws ModelNotFoundException, ModelVersionConflictException {
         ReplenishmentRequestDatabase.getDB().update(request);
     }
 
@@ -68,6 +94,10 @@ public class ReplenishmentRequestManager {
      * This method creates a new replenishment request and adds it to the database.
      * If the request details
      * are valid and not already existing, it will be added to the database.
+     * A pending request for a medication that already has one is merged into the
+     * existing request instead: its request count goes up by one and its date of
+     * modification is updated. The request is stored under the ID of the
+     * medication as it is stored, however the ID was typed.
      * 
      * @param replenishmentRequestID the unique ID of the replenishment request.
      * @param status                 the current status of the replenishment request
@@ -82,33 +112,126 @@ public class ReplenishmentRequestManager {
      */
     public static void addReplenishmentRequest(String replenishmentRequestID, RequestStatus status, Date dateOfRequest,
             Date dateOfModification, String medicationID) throws ModelAlreadyExistsException {
+        String storedMedicationID = getStoredMedicationID(medicationID);
         ReplenishmentRequest request = new ReplenishmentRequest(replenishmentRequestID, status, dateOfRequest,
-                dateOfModification, medicationID);
-        ReplenishmentRequestDatabase.getDB().add(request);
+                dateOfModification, storedMedicationID);
+        if (status != RequestStatus.PENDING) {
+            ReplenishmentRequestDatabase.getDB().add(request);
+            return;
+        }
+        String lockKey = toLockKey(storedMedicationID);
+        while (true) {
+            Object submitLock = submitLocks.computeIfAbsent(lockKey, key -> new Object());
+            synchronized (submitLock) {
+                if (submitLocks.get(lockKey) != submitLock) {
+                    continue;
+                }
+                addOrMergePendingRequest(request, dateOfModification);
+                return;
+            }
+        }
     }
 
     /**
-     * Retrieves a replenishment request by its unique ID.
+     * Adds a pending replenishment request, or merges it into the pending request
+     * of its medication if there is one. Must be called while holding the submit
+     * lock of the medication. If the pending request is closed before the new
+     * request is merged into it, the lookup is done again.
+     *
+     * @param request            the pending replenishment request.
+     * @param dateOfModification the date when the request was made.
+     * @throws ModelAlreadyExistsException if a replenishment request with the same
+     *                                     ID already exists.
+     */
+    private static void addOrMergePendingRequest(ReplenishmentRequest request, Date dateOfModification)
+            throws ModelAlreadyExistsException {
+        while (true) {
+            List<ReplenishmentRequest> pendingRequests = ReplenishmentRequestDatabase.getDB()
+                    .getReplenishmentRequestsByMedicationIDAndStatus(request.getMedicationID(), RequestStatus.PENDING);
+            if (pendingRequests.isEmpty()) {
+                ReplenishmentRequestDatabase.getDB().add(request);
+                return;
+            }
+            if (mergePendingRequest(pendingRequests.get(0).getModelID(), dateOfModification)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Merges one more request into a pending replenishment request: its request
+     * count goes up by one and its date of modification is updated.
+     *
+     * The status is checked and the request changed in one update of the
+     * database, so nothing is merged into a request that was approved or
+     * declined after it was looked up.
+     *
+     * @param requestId          the unique ID of the pending replenishment
+     *                           request.
+     * @param dateOfModification the date when the merged request was made.
+     * @return true if the request was merged;
+     *         false if the replenishment request was not found or is no longer
+     *         pending.
+     */
+    public static boolean mergePendingRequest(String requestId, Date dateOfModification) {
+        return !ReplenishmentRequestDatabase.getDB().modifyAll(List.of(requestId), request -> {
+            if (request.getStatus() != RequestStatus.PENDING) {
+                return false;
+            }
+            request.setRequestCount(request.getRequestCount() + 1);
+            request.setDateOfModification(dateOfModification);
+            return true;
+        }).isEmpty();
+    }
+
+    /**
+     * Gets the ID of a medication as it is stored, as medication IDs are looked
+     * up without regard to case.
+     * 
+     * @param medicationID the ID of the medication, as it was typed.
+     * @return the stored ID of the medication, or the given ID if the medication
+     *         does not exist.
+     */
+    private static String getStoredMedicationID(String medicationID) {
+        try {
+            return MedicationDatabase.getDB().getByID(medicationID).getModelID();
+        } catch (ModelNotFoundException e) {
+            return medicationID;
+        }
+    }
+
+    /**
+     * Gets the key of a medication in the map of submit locks.
      * 
-     * This method fetches a specific replenishment request from the database using
-     * its request ID.
-     * If the request ID does not exist in the database, it will throw a
-     * ModelNotFoundException.
+     * @param medicationID the ID of the medication.
+     * @return the key of the medication.
+     */
+    private static String toLockKey(String medicationID) {
+        return medicationID.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Drops the submit lock of a medication whose pending request was closed.
+     * The lock is dropped while holding it, so no request is being submitted
+     * under it, and a request waiting for it takes a new lock instead.
      * 
-     * @param requestId the unique ID of the replenishment request to retrieve.
-     * @return the ReplenishmentRequest object associated with the given request ID.
-     * @throws ModelNotFoundException if the replenishment request with the given ID
-     *                                is not found.
+     * @param medicationID the ID of the medication.
      */
-    private static ReplenishmentRequest getReplenishmentRequestById(String requestId) throws ModelNotFoundException {
-        return ReplenishmentRequestDatabase.getDB().getByID(requestId);
+    private static void releaseSubmitLock(String medicationID) {
+        String lockKey = toLockKey(medicationID);
+        Object submitLock = submitLocks.get(lockKey);
+        if (submitLock != null) {
+            synchronized (submitLock) {
+                submitLocks.remove(lockKey, submitLock);
+            }
+        }
     }
 
     /**
      * Retrieves a list of all pending medication replenishment requests.
      * 
-     * This method checks the database for all replenishment requests with a status
-     * of PENDING and
+     * This method looks up all replenishment requests with a status of PENDING in
+     * the status index and
      * returns them as a list. If no pending requests are found, it returns an empty
      * list.
      * 
@@ -116,14 +239,8 @@ public class ReplenishmentRequestManager {
      */
     public static ArrayList<ReplenishmentRequest> viewPendingMedicationReplenishmentRequest() {
         try {
-            List<ReplenishmentRequest> replenishmentRequests = ReplenishmentRequestDatabase.getDB()
-                    .getAllReplenishmentRequests();
-            ArrayList<ReplenishmentRequest> pendingReplenishmentRequests = new ArrayList<>();
-            for (ReplenishmentRequest replenishmentRequest : replenishmentRequests) {
-                if (replenishmentRequest.getStatus().equals(RequestStatus.PENDING))
-                    pendingReplenishmentRequests.add(replenishmentRequest);
-            }
-            return pendingReplenishmentRequests;
+            return new ArrayList<>(ReplenishmentRequestDatabase.getDB()
+                    .getReplenishmentRequestsByStatus(RequestStatus.PENDING));
         } catch (Exception e) {
             return new ArrayList<>();
         }
@@ -132,59 +249,165 @@ public class ReplenishmentRequestManager {
     /**
      * Approves a medication replenishment request and updates the medication stock.
      * 
-     * This method retrieves a replenishment request by its ID, updates its status
-     * to APPROVED,
-     * and then increases the stock of the corresponding medication. It also updates
-     * the replenishment
-     * request in the database after the approval process.
+     * This method approves the request through
+     * {@link #approveMedicationReplenishmentRequests(Collection)}, so its status
+     * is checked and changed in one update of the database, and then increases the
+     * stock of the corresponding medication once for every request merged into it.
      * 
      * @param requestId the unique ID of the replenishment request to approve.
      * @return true if the replenishment request was successfully approved and stock
      *         updated;
-     *         false if the request was not found or an error occurred.
+     *         false if the request was not found, was no longer pending, or an
+     *         error occurred.
      */
     public static boolean approveMedicationReplenishmentRequest(String requestId) {
+        return approveMedicationReplenishmentRequests(List.of(requestId)) == 1;
+    }
+
+    /**
+     * Approves several medication replenishment requests in one pass.
+     * 
+     * The pending requests among the given IDs are approved together, with a
+     * single write to the database. The stock they ask for is then added up per
+     * medication, and every medication is restocked in one batch, so each
+     * medication is restocked once however many of its requests were approved.
+     * Requests that are not found, are no longer pending, or are for a
+     * medication that does not exist are skipped. If a medication is deleted
+     * before the batch is restocked, no stock is added and the approved
+     * requests are reopened, so no request is ever approved without its stock.
+     * 
+     * @param requestIds the unique IDs of the replenishment requests to approve.
+     * @return the number of replenishment requests that were approved.
+     */
+    public static int approveMedicationReplenishmentRequests(Collection<String> requestIds) {
+        Set<String> existingMedicationIDs = new HashSet<>();
+        for (String requestId : requestIds) {
+            try {
+                String medicationID = ReplenishmentRequestDatabase.getDB().getByID(requestId).getMedicationID();
+                if (MedicationDatabase.getDB().contains(medicationID)) {
+                    existingMedicationIDs.add(medicationID);
+                }
+            } catch (ModelNotFoundException e) {
+                continue;
+            }
+        }
+        List<ReplenishmentRequest> approvedRequests = closePendingRequests(requestIds, RequestStatus.APPROVED,
+                request -> existingMedicationIDs.contains(request.getMedicationID()));
+        Map<String, Integer> requestCountsByMedicationID = new LinkedHashMap<>();
+        List<String> approvedRequestIds = new ArrayList<>();
+        for (ReplenishmentRequest request : approvedRequests) {
+            requestCountsByMedicationID.merge(request.getMedicationID(), request.getRequestCount(), Integer::sum);
+            approvedRequestIds.add(request.getModelID());
+        }
         try {
-            ReplenishmentRequest replenishmentRequest = getReplenishmentRequestById(requestId);
-            if (replenishmentRequest == null)
-                return false;
-            replenishmentRequest.setStatus(RequestStatus.APPROVED);
-            MedicationManager.updateMedicationStock(replenishmentRequest.getMedicationID());
-            updateRequst(replenishmentRequest);
-            return true;
+            MedicationManager.updateMedicationStocks(requestCountsByMedicationID);
         } catch (ModelNotFoundException e) {
-            System.out.println("Request not found.");
-            return false;
+            ReplenishmentRequestDatabase.getDB().modifyAll(approvedRequestIds, request -> {
+                if (request.getStatus() != RequestStatus.APPROVED) {
+                    return false;
+                }
+                request.setStatus(RequestStatus.PENDING);
+                return true;
+            });
+            System.out.println("A medication was not found, no stock was updated.");
+            return 0;
         }
+        return approvedRequests.size();
+    }
 
+    /**
+     * Approves every pending medication replenishment request in one pass.
+     * 
+     * @return the number of replenishment requests that were approved.
+     */
+    public static int approveAllPendingRequests() {
+        return approveMedicationReplenishmentRequests(getPendingRequestIDs());
     }
 
     /**
      * Declines a medication replenishment request by setting its status to
      * REJECTED.
      * 
-     * This method retrieves a replenishment request by its ID and updates its
-     * status to REJECTED.
-     * The updated request is then stored in the database. If the request cannot be
-     * found,
-     * the method returns false. If the process is successful, it returns true.
+     * This method declines the request through
+     * {@link #declineMedicationReplenishmentRequests(Collection)}. If the request
+     * cannot be found or is no longer pending, the method returns false. If the
+     * process is successful, it returns true.
      * 
      * @param requestId the unique ID of the replenishment request to decline.
      * @return true if the replenishment request was successfully declined;
      *         false if the request was not found or an error occurred.
      */
     public static boolean declineMedicationReplenishmentRequest(String requestId) {
-        try {
-            ReplenishmentRequest replenishmentRequest = getReplenishmentRequestById(requestId);
-            if (replenishmentRequest == null)
-                return false;
-            replenishmentRequest.setStatus(RequestStatus.REJECTED);
-            updateRequst(replenishmentRequest);
-            return true;
-        } catch (ModelNotFoundException e) {
-            System.out.println("Request not found.");
-            return false;
+        return declineMedicationReplenishmentRequests(List.of(requestId)) == 1;
+    }
+
+    /**
+     * Declines several medication replenishment requests in one pass.
+     * 
+     * The pending requests among the given IDs are declined together, with a
+     * single write to the database. Requests that are not found or are no longer
+     * pending are skipped.
+     * 
+     * @param requestIds the unique IDs of the replenishment requests to decline.
+     * @return the number of replenishment requests that were declined.
+     */
+    public static int declineMedicationReplenishmentRequests(Collection<String> requestIds) {
+        return closePendingRequests(requestIds, RequestStatus.REJECTED, request -> true).size();
+    }
+
+    /**
+     * Declines every pending medication replenishment request in one pass.
+     * 
+     * @return the number of replenishment requests that were declined.
+     */
+    public static int declineAllPendingRequests() {
+        return declineMedicationReplenishmentRequests(getPendingRequestIDs());
+    }
+
+    /**
+     * Gets the IDs of the pending replenishment requests from the status index.
+     * 
+     * @return a list of the IDs of the pending replenishment requests.
+     */
+    private static List<String> getPendingRequestIDs() {
+        List<String> requestIds = new ArrayList<>();
+        for (ReplenishmentRequest request : ReplenishmentRequestDatabase.getDB()
+                .getReplenishmentRequestsByStatus(RequestStatus.PENDING)) {
+            requestIds.add(request.getModelID());
+        }
+        return requestIds;
+    }
+
+    /**
+     * Closes the pending replenishment requests among the given IDs with a new
+     * status.
+     * 
+     * The statuses are checked and changed in one update of the database, so a
+     * request is closed only once, and no new request can be merged into it
+     * afterwards. The submit locks of the medications of the closed requests are
+     * then dropped.
+     * 
+     * @param requestIds the unique IDs of the replenishment requests to close.
+     * @param status     the new status of the replenishment requests.
+     * @param closable   whether a pending replenishment request may be closed.
+     * @return a list of the replenishment requests that were closed.
+     */
+    private static List<ReplenishmentRequest> closePendingRequests(Collection<String> requestIds,
+            RequestStatus status, Predicate<ReplenishmentRequest> closable) {
+        Date dateOfModification = new Date();
+        List<ReplenishmentRequest> closedRequests = ReplenishmentRequestDatabase.getDB().modifyAll(requestIds,
+                request -> {
+                    if (request.getStatus() != RequestStatus.PENDING || !closable.test(request)) {
+                        return false;
+                    }
+                    request.setStatus(status);
+                    request.setDateOfModification(dateOfModification);
+                    return true;
+                });
+        for (ReplenishmentRequest request : closedRequests) {
+            releaseSubmitLock(request.getMedicationID());
         }
+        return closedRequests;
     }
 
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package controller.user;
 import java.util.List;
 import java.util.Map;
 
+import controller.appointment.DoctorCalendarManager;
 import database.user.DoctorDatabase;
 import model.user.Doctor;
 import model.user.Patient;
+import utils.exceptions.ModelNotFoundException;
 /**
  * The DoctorManager class provides utility methods for handling the functionalities of a Doctor.
  */
@@ -73,7 +75,8 @@ public class DoctorManager {
      * Sets the appointment availability for a specific doctor.
      * 
      * This method sets the appointment availability for the specified doctor by updating their 
-     * availability using the provided `appointmentAvailability` map.
+     * availability using the provided `appointmentAvailability` map, and updates the
+     * calendar of the doctor to match.
      * 
      * @param doctor the doctor whose availability will be updated.
      * @param appointmentAvailability a map representing the availability schedule.
@@ -81,8 +84,9 @@ public class DoctorManager {
     public static void setAppointmentAvailability(Doctor doctor, Map<String, List<String>> appointmentAvailability) {
         try {
             System.out.println("Set" + appointmentAvailability);
-            doctor.setAppointmentAvailability(appointmentAvailability);
-            UserManager.updateUser(doctor);
+            Doctor updatedDoctor = (Doctor) UserManager.modifyUser(doctor,
+                    user -> ((Doctor) user).setAppointmentAvailability(appointmentAvailability));
+            DoctorCalendarManager.availabilityChanged(updatedDoctor);
         } catch (Exception e) {
             System.out.println("Error updating appointment availability.");
         }
@@ -91,13 +95,18 @@ public class DoctorManager {
     /**
      * Retrieves the appointment availability for a specific doctor.
      * 
-     * This method retrieves the current appointment availability schedule for the specified doctor.
+     * This method retrieves the current appointment availability schedule for the specified doctor,
+     * from the latest version of the doctor in the database.
      * 
      * @param doctor the doctor whose appointment availability is being requested.
      * @return the doctor's appointment availability schedule.
      */
     public static Map<String, List<String>> getAppointmentAvailability(Doctor doctor) {
-        return doctor.getAppointmentAvailability();
+        try {
+            return DoctorDatabase.getDB().getByID(doctor.getModelID()).getAppointmentAvailability();
+        } catch (ModelNotFoundException e) {
+            return doctor.getAppointmentAvailability();
+        }
     }
 
 }
@@ -50,13 +50,7 @@ public class PatientManager {
      * @return a list of patients associated with the specified doctor.
      */
     public static List<Patient> getPatientsOfDoctor(String doctorId) {
-        List<Patient> patients = new ArrayList<>();
-        List<Patient> allPatients = getAllPatients();
-        for (Patient patient : allPatients) {
-            if (patient.getDoctorID().equals(doctorId))
-                patients.add(patient);
-        }
-        return patients;
+        return PatientDatabase.getDB().getPatientsByDoctorID(doctorId);
     }
 
     /**
@@ -87,10 +81,11 @@ public class PatientManager {
      */
     public static void addAllergy(Patient patient, String allergy) {
         try {
-            ArrayList<String> allergies = patient.getAllergies();
-            allergies.add(allergy);
-            patient.setAllergies(allergies);
-            PatientDatabase.getDB().update(patient);
+            PatientDatabase.getDB().modify(patient.getModelID(), storedPatient -> {
+                ArrayList<String> allergies = new ArrayList<>(storedPatient.getAllergies());
+                allergies.add(allergy);
+                storedPatient.setAllergies(allergies);
+            });
         } catch (Exception e) {
             System.out.println("Something went wrong.");
         }
@@ -4,7 +4,10 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import controller.appointment.DoctorCalendarManager;
+import database.Database;
 import database.user.AdministratorDatabase;
 import database.user.DoctorDatabase;
 import database.user.PatientDatabase;
@@ -19,6 +22,7 @@ import model.user.enums.Gender;
 import model.user.enums.UserType;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 import utils.exceptions.UserCannotBeFoundException;
 /**
  * The UserManager class provides utility methods for handling the functionalities of all users of the application.
@@ -174,8 +178,10 @@ public class UserManager {
      * 
      * @param pharmacist the pharmacist to be updated.
      * @throws ModelNotFoundException if the pharmacist is not found in the database.
+     * @throws ModelVersionConflictException if the pharmacist was changed by someone else since it was read.
      */
-    private static void updatePharmacist(Pharmacist pharmacist) throws ModelNotFoundException {
+    private static void updatePharmacist(Pharmacist pharmacist)
+            throws ModelNotFoundException, ModelVersionConflictException {
         PharmacistDatabase.getDB().update(pharmacist);
     }
 
@@ -186,8 +192,9 @@ public class UserManager {
      * 
      * @param doctor the doctor to be updated.
      * @throws ModelNotFoundException if the doctor is not found in the database.
+     * @throws ModelVersionConflictException if the doctor was changed by someone else since it was read.
      */
-    private static void updateDoctor(Doctor doctor) throws ModelNotFoundException {
+    private static void updateDoctor(Doctor doctor) throws ModelNotFoundException, ModelVersionConflictException {
         DoctorDatabase.getDB().update(doctor);
     }
 
@@ -198,8 +205,9 @@ public class UserManager {
      * 
      * @param patient the patient to be updated.
      * @throws ModelNotFoundException if the patient is not found in the database.
+     * @throws ModelVersionConflictException if the patient was changed by someone else since it was read.
      */
-    private static void updatePatient(Patient patient) throws ModelNotFoundException {
+    private static void updatePatient(Patient patient) throws ModelNotFoundException, ModelVersionConflictException {
         PatientDatabase.getDB().update(patient);
     }
 
@@ -210,8 +218,10 @@ public class UserManager {
      * 
      * @param administrator the administrator to be updated.
      * @throws ModelNotFoundException if the administrator is not found in the database.
+     * @throws ModelVersionConflictException if the administrator was changed by someone else since it was read.
      */
-    private static void updateAdministrator(Administrator administrator) throws ModelNotFoundException {
+    private static void updateAdministrator(Administrator administrator)
+            throws ModelNotFoundException, ModelVersionConflictException {
         AdministratorDatabase.getDB().update(administrator);
     }
 
@@ -222,8 +232,9 @@ public class UserManager {
      * 
      * @param user the user whose details need to be updated.
      * @throws ModelNotFoundException if the user is not found in their respective database.
+     * @throws ModelVersionConflictException if the user was changed by someone else since it was read.
      */
-    public static void updateUser(User user) throws ModelNotFoundException {
+    public static void updateUser(User user) throws ModelNotFoundException, ModelVersionConflictException {
         if (user instanceof Doctor doctor) {
             updateDoctor(doctor);
         } else if (user instanceof Patient patient) {
@@ -235,18 +246,98 @@ public class UserManager {
         }
     }
 
+    /**
+     * Apply a change to the latest version of a user.
+     * 
+     * This method applies the change to the stored user under the lock of their database,
+     * instead of changing a user object that other threads may be reading.
+     * 
+     * @param user the user to change.
+     * @param change the change to apply, based only on the user it is given.
+     * @return the changed user.
+     * @throws ModelNotFoundException if the user is not found in their respective database.
+     * @throws ModelVersionConflictException if the user kept being changed by someone else.
+     */
+    public static User modifyUser(User user, Consumer<? super User> change)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        return getUserDatabase(getUserType(user)).modify(user.getModelID(), change);
+    }
+
     /**
      * Update user profile details.
      * 
-     * This method updates the user's profile details based on a map of updated values.
+     * This method updates the user's profile details based on a map of updated values,
+     * applied to the latest version of the user.
      * 
      * @param user the user whose profile details need to be updated.
      * @param userType the type of the user (doctor, patient, pharmacist, or administrator).
      * @param updatedValues a map of profile fields to be updated, with field names as keys and new values as map entries.
      * @throws ModelNotFoundException if the user is not found in their respective database.
+     * @throws ModelVersionConflictException if the user kept being changed by someone else.
      */
     public static void updateUserProfile(User user, UserType userType, Map<String, String> updatedValues)
-            throws ModelNotFoundException {
+            throws ModelNotFoundException, ModelVersionConflictException {
+        getUserDatabase(userType).modify(user.getModelID(), u -> applyProfileChanges(u, updatedValues));
+    }
+
+    /**
+     * Update user profile details, if no one else has changed the user.
+     * 
+     * This method updates the user's profile details based on a map of updated values,
+     * only if the user is still at the version that was shown when the changes were made.
+     * 
+     * @param user the user whose profile details need to be updated.
+     * @param userType the type of the user (doctor, patient, pharmacist, or administrator).
+     * @param updatedValues a map of profile fields to be updated, with field names as keys and new values as map entries.
+     * @param expectedVersion the version of the user the changes were made on.
+     * @throws ModelNotFoundException if the user is not found in their respective database.
+     * @throws ModelVersionConflictException if the user was changed by someone else since that version.
+     */
+    public static void updateUserProfile(User user, UserType userType, Map<String, String> updatedValues,
+            int expectedVersion) throws ModelNotFoundException, ModelVersionConflictException {
+        getUserDatabase(userType).compareAndUpdate(user.getModelID(), expectedVersion,
+                u -> applyProfileChanges(u, updatedValues));
+    }
+
+    /**
+     * Get the database of a type of user.
+     * 
+     * @param userType the type of the user (doctor, patient, pharmacist, or administrator).
+     * @return the database holding users of that type.
+     */
+    private static Database<? extends User> getUserDatabase(UserType userType) {
+        return switch (userType) {
+            case DOCTOR -> DoctorDatabase.getDB();
+            case PATIENT -> PatientDatabase.getDB();
+            case PHARMACIST -> PharmacistDatabase.getDB();
+            case ADMINISTRATOR -> AdministratorDatabase.getDB();
+        };
+    }
+
+    /**
+     * Get the type of a user.
+     * 
+     * @param user the user.
+     * @return the type of the user (doctor, patient, pharmacist, or administrator).
+     */
+    private static UserType getUserType(User user) {
+        if (user instanceof Doctor) {
+            return UserType.DOCTOR;
+        } else if (user instanceof Patient) {
+            return UserType.PATIENT;
+        } else if (user instanceof Pharmacist) {
+            return UserType.PHARMACIST;
+        }
+        return UserType.ADMINISTRATOR;
+    }
+
+    /**
+     * Apply profile changes to a user.
+     * 
+     * @param user the user whose profile details are changed.
+     * @param updatedValues a map of profile fields to be updated, with field names as keys and new values as map entries.
+     */
+    private static void applyProfileChanges(User user, Map<String, String> updatedValues) {
         for (Map.Entry<String, String> entry : updatedValues.entrySet()) {
             switch (entry.getKey()) {
                 case "Name" -> user.setName(entry.getValue());
@@ -258,16 +349,6 @@ public class UserManager {
                 }
             }
         }
-        switch (userType) {
-            case UserType.DOCTOR ->
-                updateDoctor((Doctor) user);
-            case UserType.PATIENT ->
-                updatePatient((Patient) user);
-            case UserType.PHARMACIST ->
-                updatePharmacist((Pharmacist) user);
-            case UserType.ADMINISTRATOR ->
-                updateAdministrator((Administrator) user);
-        }
     }
 
     /**
@@ -460,6 +541,7 @@ public class UserManager {
      */
     private static void removeDoctor(String doctorID) throws ModelNotFoundException {
         DoctorDatabase.getDB().remove(doctorID);
+        DoctorCalendarManager.remove(doctorID);
     }
 
     /**
@@ -2,11 +2,26 @@ package database;
 
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
 import utils.iocontrol.Savable;
+import utils.utils.EmptyID;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import model.Model;
 
@@ -15,14 +30,65 @@ import model.Model;
  * retrieving, and managing a list of model objects.
  * It implements the Savable interface and provides methods for adding,
  * removing, updating, and finding model objects.
+ * Model objects are indexed by their ID and email in case-insensitive hash
+ * maps, so lookups and duplicate checks do not scan the whole list.
+ * Subclasses can also register secondary indexes on other fields, such as
+ * foreign keys and statuses, query them with {@link #findBy} and count the
+ * matches with {@link #countBy}. Sorted indexes keep model objects in order of
+ * a numeric key, such as a date, and are queried by range with
+ * {@link #findRange}.
+ * The position of each model object in the list is kept by ID too, so an
+ * update replaces it in place, and only the changed model object is marked
+ * dirty and persisted again.
+ * <p>
+ * A Database can be used by several threads at once. Lookups first read
+ * optimistically without locking, and only take the read lock if a write
+ * happened meanwhile. Writes are serialized by the write lock, which is
+ * turned into a read lock while the change is persisted, so lookups are not
+ * held up by the disk. The changes of {@link #compareAndUpdate},
+ * {@link #modify} and {@link #modifyAll} are applied to a copy that replaces
+ * the stored model object, so a model object a reader got never changes under
+ * it. Iteration and the lists of all model objects run over
+ * an immutable snapshot, which is shared until the next write.
+ * </p>
+ * <p>
+ * Every model object carries a version that is persisted with it and goes up
+ * by one on every update. {@link #compareAndUpdate} only changes a model object
+ * if its version is still the one the caller read, and {@link #modify} retries
+ * a change on the latest version when another update got there first.
+ * </p>
  *
  * @param <ModelObject> the type of model object stored in the Database
  */
 public abstract class Database<ModelObject extends Model> extends Savable<ModelObject>
         implements Iterable<ModelObject> {
 
+    /**
+     * The number of times {@link #modify(String, Consumer)} tries a change
+     * before giving up.
+     */
+    public static final int DEFAULT_MODIFY_ATTEMPTS = 3;
+
+    private static final String VERSION_KEY = "modelVersion";
+
     List<ModelObject> listOfModelObjects;
 
+    private final Map<String, ModelObject> modelObjectsByID = new ConcurrentHashMap<>();
+
+    private final Map<String, ModelObject> modelObjectsByEmail = new ConcurrentHashMap<>();
+
+    private final Map<String, String> indexedEmailsByID = new HashMap<>();
+
+    private final Map<String, Integer> positionsByID = new HashMap<>();
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile List<ModelObject> snapshot;
+
+    private final Map<String, SecondaryIndex<ModelObject>> secondaryIndexes = new HashMap<>();
+
+    private final Map<String, SortedIndex<ModelObject>> sortedIndexes = new HashMap<>();
+
     public Database() {
         super();
         listOfModelObjects = new ArrayList<>();
@@ -35,11 +101,144 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      */
     public abstract String getFilePath();
 
+    /**
+     * Gets the live list of model objects. It must only be used while holding
+     * the lock of the Database, such as when loading or saving it.
+     *
+     * @return the live list of model objects
+     */
     @Override
     protected List<ModelObject> getAll() {
         return listOfModelObjects;
     }
 
+    /**
+     * Gets an immutable snapshot of the list of model objects.
+     * The snapshot is taken on the first call after a write and then shared, so
+     * reading it never blocks writers or throws a
+     * ConcurrentModificationException.
+     *
+     * @return an immutable snapshot of the list of model objects
+     */
+    protected List<ModelObject> getSnapshot() {
+        List<ModelObject> currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            return currentSnapshot;
+        }
+        long stamp = lock.readLock();
+        try {
+            currentSnapshot = snapshot;
+            if (currentSnapshot == null) {
+                currentSnapshot = List.copyOf(listOfModelObjects);
+                snapshot = currentSnapshot;
+            }
+            return currentSnapshot;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a lookup, first optimistically without locking, and again under the
+     * read lock if a write happened meanwhile.
+     * The lookup may run while a writer changes what it reads, so it must only
+     * read the concurrent maps of model objects by ID and email, which are
+     * safe to read at any time. An exception thrown by the optimistic attempt
+     * is ignored all the same, as it may have been caused by the write.
+     *
+     * @param <T>    the type of the result
+     * @param lookup the lookup to run, which must not change anything
+     * @return the result of the lookup
+     */
+    private <T> T read(Supplier<T> lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = lookup.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // A write was in progress, so the lookup is run again under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a lookup under the read lock, for lookups that traverse structures
+     * which are not safe to read while they are written, such as the indexes.
+     *
+     * @param <T>    the type of the result
+     * @param lookup the lookup to run, which must not change anything
+     * @return the result of the lookup
+     */
+    private <T> T readLocked(Supplier<T> lookup) {
+        long stamp = lock.readLock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the key that identifies a model object in the append log, which is its
+     * ID.
+     *
+     * @param modelObject the model object
+     * @return the ID of the model object
+     */
+    @Override
+    protected String getRecordKey(ModelObject modelObject) {
+        return modelObject.getModelID();
+    }
+
+    /**
+     * Finds a model object by its key in the append log, which is its ID.
+     *
+     * @param key the ID of the model object
+     * @return the model object, or null if there is none
+     */
+    @Override
+    protected ModelObject findByRecordKey(String key) {
+        return findByID(key);
+    }
+
+    /**
+     * Runs a task that reads the model objects from a background thread under
+     * the read lock of the database.
+     *
+     * @param task the task to run
+     */
+    @Override
+    protected void runUnderReadLock(Runnable task) {
+        long stamp = lock.readLock();
+        try {
+            task.run();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Restores the version of a loaded model object from its record. Records
+     * written before versions were kept start at version 0.
+     *
+     * @param modelObject the model object built from the record
+     * @param record      the record the model object was built from
+     */
+    @Override
+    protected void restoreRecord(ModelObject modelObject, Map<String, String> record) {
+        String version = record.get(VERSION_KEY);
+        modelObject.setModelVersion(EmptyID.isEmptyID(version) ? 0 : Integer.parseInt(version));
+    }
+
     /**
      * Gets a model object by email.
      * 
@@ -50,10 +249,9 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      */
     public ModelObject getByEmail(String userEmail) throws ModelNotFoundException {
         // Only users will have email
-        for (ModelObject modelObject : listOfModelObjects) {
-            if (modelObject.getModelEmail().equalsIgnoreCase(userEmail)) {
-                return modelObject;
-            }
+        ModelObject modelObject = userEmail == null ? null : read(() -> modelObjectsByEmail.get(toIndexKey(userEmail)));
+        if (modelObject != null) {
+            return modelObject;
         }
         throw new ModelNotFoundException("No model object with Email" + userEmail + " exists.");
     }
@@ -67,10 +265,9 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      *                                exist
      */
     public ModelObject getByID(String modelObjectID) throws ModelNotFoundException {
-        for (ModelObject modelObject : listOfModelObjects) {
-            if (modelObject.getModelID().equalsIgnoreCase(modelObjectID)) {
-                return modelObject;
-            }
+        ModelObject modelObject = modelObjectID == null ? null : read(() -> findByID(modelObjectID));
+        if (modelObject != null) {
+            return modelObject;
         }
         throw new ModelNotFoundException("No model object with ID " + modelObjectID + " exists.");
     }
@@ -83,12 +280,28 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      *         false otherwise
      */
     public boolean contains(String modelObjectID) {
-        try {
-            getByID(modelObjectID);
-            return true;
-        } catch (ModelNotFoundException e) {
-            return false;
-        }
+        return modelObjectID != null && read(() -> findByID(modelObjectID) != null);
+    }
+
+    /**
+     * Checks whether the Database contains a model object with the given email.
+     *
+     * @param modelObjectEmail the email of the model object to check
+     * @return true if the Database contains a model object with the given email,
+     *         false otherwise
+     */
+    public boolean containsEmail(String modelObjectEmail) {
+        return modelObjectEmail != null && read(() -> modelObjectsByEmail.containsKey(toIndexKey(modelObjectEmail)));
+    }
+
+    /**
+     * Finds a model object by ID without locking.
+     *
+     * @param modelObjectID the ID of the model object to find
+     * @return the model object with the specified ID, or null if there is none
+     */
+    private ModelObject findByID(String modelObjectID) {
+        return modelObjectsByID.get(toIndexKey(modelObjectID));
     }
 
     /**
@@ -99,27 +312,235 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      *                                     already exists in the Database
      */
     public void add(ModelObject modelObject) throws ModelAlreadyExistsException {
-        if (contains(modelObject.getModelID()) || contains(modelObject.getModelEmail())) {
+        long stamp = lock.writeLock();
+        try {
+            insert(modelObject);
+            stamp = lock.tryConvertToReadLock(stamp);
+            savePut(getFilePath(), modelObject);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Adds a model object to the list and the indexes, without persisting it.
+     * Must be called while holding the write lock.
+     *
+     * @param modelObject the model object to add
+     * @throws ModelAlreadyExistsException if a model object with the same ID or
+     *                                     email already exists in the Database
+     */
+    private void insert(ModelObject modelObject) throws ModelAlreadyExistsException {
+        String email = modelObject.getModelEmail();
+        if (findByID(modelObject.getModelID()) != null
+                || (email != null && modelObjectsByEmail.containsKey(toIndexKey(email)))) {
             throw new ModelAlreadyExistsException(
-                    "A model object with ID " + modelObject.getModelID() + " or email " + modelObject.getModelEmail()
+                    "A model object with ID " + modelObject.getModelID() + " or email " + email
                             + " already exists.");
-        } else {
-            listOfModelObjects.add(modelObject);
-            save(getFilePath());
         }
+        listOfModelObjects.add(modelObject);
+        positionsByID.put(toIndexKey(modelObject.getModelID()), listOfModelObjects.size() - 1);
+        index(modelObject);
+        snapshot = null;
     }
 
     /**
      * Updates the specified model object in the Database.
+     * The model object is usually a copy of the stored one with changes made
+     * to it, and it replaces the stored one only if it was copied from the
+     * current version, so a change made by someone else in the meantime is
+     * never overwritten. The version then goes up by one.
      *
      * @param modelObject the model object to update
-     * @throws ModelNotFoundException if the specified model object is not found in
-     *                                the Database
+     * @throws ModelNotFoundException        if the specified model object is not
+     *                                       found in the Database
+     * @throws ModelVersionConflictException if the model object is not at the
+     *                                       version stored in the Database
+     */
+    public void update(ModelObject modelObject) throws ModelNotFoundException, ModelVersionConflictException {
+        long stamp = lock.writeLock();
+        try {
+            replace(checkVersion(modelObject), modelObject);
+            stamp = lock.tryConvertToReadLock(stamp);
+            savePut(getFilePath(), modelObject);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Replaces a model object in the list and the indexes with its new state,
+     * without persisting it. Must be called while holding the write lock.
+     *
+     * @param oldModelObject the stored model object
+     * @param modelObject    the new state of the model object
+     */
+    private void replace(ModelObject oldModelObject, ModelObject modelObject) {
+        if (oldModelObject != modelObject) {
+            listOfModelObjects.set(positionsByID.get(toIndexKey(modelObject.getModelID())), modelObject);
+        }
+        unindex(oldModelObject);
+        index(modelObject);
+        modelObject.setModelVersion(oldModelObject.getModelVersion() + 1);
+        snapshot = null;
+    }
+
+    /**
+     * Copies a model object through its record, so that a change can be applied
+     * to the copy and the copy swapped in, while readers that got the stored
+     * model object keep seeing it unchanged. The record is decoded the way the
+     * Database loads it: into {@link #newMappableObject()} if it creates one,
+     * and through {@link #setAll(List)} otherwise. Must be called while holding
+     * the write lock.
+     *
+     * @param modelObject the model object to copy
+     * @return a new model object with the same fields and version
+     * @throws IllegalStateException if the record does not lead to exactly one
+     *                               model object
+     */
+    private ModelObject copyOf(ModelObject modelObject) {
+        Map<String, String> record = modelObject.convertToMap();
+        ModelObject copy = newMappableObject();
+        if (copy != null) {
+            copy.convertToObject(record);
+        } else {
+            int size = listOfModelObjects.size();
+            setAll(Collections.singletonList(record));
+            if (listOfModelObjects.size() != size + 1) {
+                throw new IllegalStateException("Model object with ID " + modelObject.getModelID()
+                        + " cannot be copied.");
+            }
+            copy = listOfModelObjects.remove(size);
+        }
+        restoreRecord(copy, record);
+        return copy;
+    }
+
+    /**
+     * Updates a model object, but only if it has not been updated since the
+     * caller read the expected version.
+     * The change is applied under the write lock to a copy of the stored model
+     * object, which then replaces it, and the version goes up by one.
+     *
+     * @param modelObjectID   the ID of the model object to update
+     * @param expectedVersion the version of the model object the change is
+     *                        based on
+     * @param change          the change to apply to the model object
+     * @return the updated model object
+     * @throws ModelNotFoundException        if the model object with the given
+     *                                       ID does not exist
+     * @throws ModelVersionConflictException if the model object is no longer at
+     *                                       the expected version
+     */
+    public ModelObject compareAndUpdate(String modelObjectID, int expectedVersion, Consumer<? super ModelObject> change)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        long stamp = lock.writeLock();
+        try {
+            ModelObject modelObject = modelObjectID == null ? null : findByID(modelObjectID);
+            if (modelObject == null) {
+                throw new ModelNotFoundException("No model object with ID " + modelObjectID + " exists.");
+            }
+            if (modelObject.getModelVersion() != expectedVersion) {
+                throw new ModelVersionConflictException("Model object with ID " + modelObjectID
+                        + " was changed by someone else: expected version " + expectedVersion + " but found "
+                        + modelObject.getModelVersion() + ".");
+            }
+            ModelObject changedModelObject = copyOf(modelObject);
+            change.accept(changedModelObject);
+            replace(modelObject, changedModelObject);
+            stamp = lock.tryConvertToReadLock(stamp);
+            savePut(getFilePath(), changedModelObject);
+            return changedModelObject;
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Applies a change to the latest version of a model object, trying up to
+     * {@link #DEFAULT_MODIFY_ATTEMPTS} times.
+     *
+     * @param modelObjectID the ID of the model object to change
+     * @param change        the change to apply, based only on the model object it
+     *                      is given
+     * @return the changed model object
+     * @throws ModelNotFoundException        if the model object with the given
+     *                                       ID does not exist
+     * @throws ModelVersionConflictException if every attempt conflicted with
+     *                                       another update
      */
-    public void update(ModelObject modelObject) throws ModelNotFoundException {
-        ModelObject oldModelObject = getByID(modelObject.getModelID());
-        listOfModelObjects.set(listOfModelObjects.indexOf(oldModelObject), modelObject);
-        save(getFilePath());
+    public ModelObject modify(String modelObjectID, Consumer<? super ModelObject> change)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        return modify(modelObjectID, change, DEFAULT_MODIFY_ATTEMPTS);
+    }
+
+    /**
+     * Applies a change to the latest version of a model object.
+     * The version is read without locking, and the change is applied with
+     * {@link #compareAndUpdate}. If another update got there first, the version
+     * is read again and the change retried.
+     *
+     * @param modelObjectID the ID of the model object to change
+     * @param change        the change to apply, based only on the model object it
+     *                      is given
+     * @param maxAttempts   the number of times to try the change
+     * @return the changed model object
+     * @throws ModelNotFoundException        if the model object with the given
+     *                                       ID does not exist
+     * @throws ModelVersionConflictException if every attempt conflicted with
+     *                                       another update
+     */
+    public ModelObject modify(String modelObjectID, Consumer<? super ModelObject> change, int maxAttempts)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        for (int attempt = 1;; attempt++) {
+            int version = getByID(modelObjectID).getModelVersion();
+            try {
+                return compareAndUpdate(modelObjectID, version, change);
+            } catch (ModelVersionConflictException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a change to several model objects at once.
+     * Every change is applied under one write lock, each to a copy of the
+     * stored model object that replaces it if it was changed, and the model
+     * objects it changed are persisted together in a single write. Model
+     * objects that do not exist are skipped.
+     *
+     * @param modelObjectIDs the IDs of the model objects to change
+     * @param change         the change to apply, which returns true if it changed
+     *                       the model object it was given
+     * @return a list of the model objects that were changed
+     */
+    public List<ModelObject> modifyAll(Collection<String> modelObjectIDs, Predicate<? super ModelObject> change) {
+        List<ModelObject> changedModelObjects = new ArrayList<>();
+        Set<String> seenIDs = new HashSet<>();
+        long stamp = lock.writeLock();
+        try {
+            for (String modelObjectID : modelObjectIDs) {
+                ModelObject modelObject = modelObjectID == null ? null : findByID(modelObjectID);
+                if (modelObject == null || !seenIDs.add(toIndexKey(modelObject.getModelID()))) {
+                    continue;
+                }
+                ModelObject changedModelObject = copyOf(modelObject);
+                if (change.test(changedModelObject)) {
+                    replace(modelObject, changedModelObject);
+                    changedModelObjects.add(changedModelObject);
+                }
+            }
+            if (changedModelObjects.isEmpty()) {
+                return changedModelObjects;
+            }
+            stamp = lock.tryConvertToReadLock(stamp);
+            savePutAll(getFilePath(), changedModelObjects);
+            return changedModelObjects;
+        } finally {
+            lock.unlock(stamp);
+        }
     }
 
     /**
@@ -130,8 +551,172 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      *                                exist
      */
     public void remove(String modelObjectID) throws ModelNotFoundException {
-        listOfModelObjects.remove(getByID(modelObjectID));
-        save(getFilePath());
+        long stamp = lock.writeLock();
+        try {
+            ModelObject modelObject = delete(modelObjectID);
+            stamp = lock.tryConvertToReadLock(stamp);
+            saveDelete(getFilePath(), modelObject.getModelID());
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Removes a model object from the list and the indexes, without persisting
+     * the removal. Must be called while holding the write lock.
+     *
+     * @param modelObjectID the ID of the model object to remove
+     * @return the removed model object
+     * @throws ModelNotFoundException if the model object is not found in the
+     *                                Database
+     */
+    private ModelObject delete(String modelObjectID) throws ModelNotFoundException {
+        ModelObject modelObject = modelObjectID == null ? null : findByID(modelObjectID);
+        if (modelObject == null) {
+            throw new ModelNotFoundException("No model object with ID " + modelObjectID + " exists.");
+        }
+        int position = positionsByID.remove(toIndexKey(modelObject.getModelID()));
+        listOfModelObjects.remove(position);
+        for (int i = position; i < listOfModelObjects.size(); i++) {
+            positionsByID.put(toIndexKey(listOfModelObjects.get(i).getModelID()), i);
+        }
+        unindex(modelObject);
+        snapshot = null;
+        return modelObject;
+    }
+
+    /**
+     * Checks that a model object is at the version stored in the Database,
+     * without locking.
+     *
+     * @param modelObject the new state of the model object
+     * @return the stored model object
+     * @throws ModelNotFoundException        if the model object is not found in
+     *                                       the Database
+     * @throws ModelVersionConflictException if the model object is not at the
+     *                                       version stored in the Database
+     */
+    private ModelObject checkVersion(ModelObject modelObject)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        ModelObject oldModelObject = findByID(modelObject.getModelID());
+        if (oldModelObject == null) {
+            throw new ModelNotFoundException("No model object with ID " + modelObject.getModelID() + " exists.");
+        }
+        if (oldModelObject.getModelVersion() != modelObject.getModelVersion()) {
+            throw new ModelVersionConflictException("Model object with ID " + modelObject.getModelID()
+                    + " was changed by someone else: expected version " + modelObject.getModelVersion()
+                    + " but found " + oldModelObject.getModelVersion() + ".");
+        }
+        return oldModelObject;
+    }
+
+    /**
+     * Takes the write lock of the Database for a {@link Transaction}, which
+     * then checks and applies its changes with the methods below that expect
+     * the lock to be held.
+     *
+     * @return the stamp to release the lock with
+     */
+    long lockForTransaction() {
+        return lock.writeLock();
+    }
+
+    /**
+     * Releases the write lock taken by {@link #lockForTransaction()}.
+     *
+     * @param stamp the stamp returned when the lock was taken
+     */
+    void unlockForTransaction(long stamp) {
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * Checks whether the Database contains a model object with the given ID,
+     * while holding the write lock.
+     *
+     * @param modelObjectID the ID of the model object to check
+     * @return true if the Database contains a model object with the given ID,
+     *         false otherwise
+     */
+    boolean containsWhileLocked(String modelObjectID) {
+        return modelObjectID != null && findByID(modelObjectID) != null;
+    }
+
+    /**
+     * Checks whether the Database contains a model object with the given email,
+     * while holding the write lock.
+     *
+     * @param modelObjectEmail the email of the model object to check
+     * @return true if the Database contains a model object with the given email,
+     *         false otherwise
+     */
+    boolean containsEmailWhileLocked(String modelObjectEmail) {
+        return modelObjectEmail != null && modelObjectsByEmail.containsKey(toIndexKey(modelObjectEmail));
+    }
+
+    /**
+     * Adds a model object to the Database while holding the write lock.
+     *
+     * @param modelObject the model object to add
+     * @throws ModelAlreadyExistsException if a model object with the same ID
+     *                                     already exists in the Database
+     */
+    void addWhileLocked(ModelObject modelObject) throws ModelAlreadyExistsException {
+        insert(modelObject);
+        savePut(getFilePath(), modelObject);
+    }
+
+    /**
+     * Checks that a model object is at the version stored in the Database,
+     * while holding the write lock.
+     *
+     * @param modelObject the new state of the model object
+     * @throws ModelNotFoundException        if the model object is not found in
+     *                                       the Database
+     * @throws ModelVersionConflictException if the model object is not at the
+     *                                       version stored in the Database
+     */
+    void checkVersionWhileLocked(ModelObject modelObject)
+            throws ModelNotFoundException, ModelVersionConflictException {
+        checkVersion(modelObject);
+    }
+
+    /**
+     * Updates a model object in the Database while holding the write lock. Its
+     * version must have been checked with
+     * {@link #checkVersionWhileLocked(Model)} first.
+     *
+     * @param modelObject the model object to update
+     * @throws ModelNotFoundException if the model object is not found in the
+     *                                Database
+     */
+    void updateWhileLocked(ModelObject modelObject) throws ModelNotFoundException {
+        ModelObject oldModelObject = findByID(modelObject.getModelID());
+        if (oldModelObject == null) {
+            throw new ModelNotFoundException("No model object with ID " + modelObject.getModelID() + " exists.");
+        }
+        replace(oldModelObject, modelObject);
+        savePut(getFilePath(), modelObject);
+    }
+
+    /**
+     * Removes a model object from the Database while holding the write lock.
+     *
+     * @param modelObjectID the ID of the model object to remove
+     * @throws ModelNotFoundException if the model object is not found in the
+     *                                Database
+     */
+    void removeWhileLocked(String modelObjectID) throws ModelNotFoundException {
+        ModelObject modelObject = delete(modelObjectID);
+        saveDelete(getFilePath(), modelObject.getModelID());
+    }
+
+    /**
+     * Forces the changes written so far to the Database file, and to its append
+     * log, to the storage device.
+     */
+    void force() {
+        force(getFilePath());
     }
 
     /**
@@ -140,15 +725,22 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      * @return true if the Database is empty, false otherwise
      */
     public boolean isEmpty() {
-        return listOfModelObjects.isEmpty();
+        return read(() -> modelObjectsByID.isEmpty());
     }
 
     /**
      * Removes all model objects from this Database.
      */
     public void clear() {
-        listOfModelObjects.clear();
-        save(getFilePath());
+        long stamp = lock.writeLock();
+        try {
+            listOfModelObjects.clear();
+            rebuildIndexes();
+            stamp = lock.tryConvertToReadLock(stamp);
+            save(getFilePath());
+        } finally {
+            lock.unlock(stamp);
+        }
     }
 
     /**
@@ -158,32 +750,289 @@ public abstract class Database<ModelObject extends Model> extends Savable<ModelO
      * @param modelObjects the list of model objects to update
      */
     public void updateAll(List<ModelObject> modelObjects) {
-        listOfModelObjects = modelObjects;
-        save(getFilePath());
+        long stamp = lock.writeLock();
+        try {
+            listOfModelObjects = new ArrayList<>(modelObjects);
+            rebuildIndexes();
+            stamp = lock.tryConvertToReadLock(stamp);
+            save(getFilePath());
+        } finally {
+            lock.unlock(stamp);
+        }
     }
 
     /**
      * Loads the list of model objects from the Database file.
      */
     public void load() {
-        this.listOfModelObjects = new ArrayList<>();
-        load(getFilePath());
+        long stamp = lock.writeLock();
+        try {
+            this.listOfModelObjects = new ArrayList<>();
+            load(getFilePath());
+            rebuildIndexes();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Saves the list of model objects to the Database file.
+     * Saves the list of model objects to the Database file. In APPEND_LOG mode
+     * this also folds the append log into the file.
      */
     public void save() {
-        save(getFilePath());
+        long stamp = lock.readLock();
+        try {
+            save(getFilePath());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Waits until the changes made so far are written to the Database file.
+     * Only needed when write-behind is on, as changes are otherwise written
+     * before they return.
+     */
+    public void flush() {
+        flush(getFilePath());
+    }
+
+    /**
+     * Registers a secondary index on this Database. The index is built from the
+     * model objects already loaded and kept up to date on every mutation.
+     * Passing more than one key extractor registers a composite index, such as
+     * one on a doctor ID and a status.
+     *
+     * @param indexName     the name used to query the index
+     * @param keyExtractors the functions that extract each part of the key
+     * @throws IllegalArgumentException if an index with the same name already
+     *                                  exists
+     */
+    @SafeVarargs
+    protected final void registerIndex(String indexName, Function<? super ModelObject, ?>... keyExtractors) {
+        if (secondaryIndexes.containsKey(indexName) || sortedIndexes.containsKey(indexName)) {
+            throw new IllegalArgumentException("Index " + indexName + " is already registered.");
+        }
+        List<Function<? super ModelObject, ?>> listOfKeyExtractors = new ArrayList<>(keyExtractors.length);
+        for (Function<? super ModelObject, ?> keyExtractor : keyExtractors) {
+            listOfKeyExtractors.add(keyExtractor);
+        }
+        SecondaryIndex<ModelObject> secondaryIndex = new SecondaryIndex<>(listOfKeyExtractors);
+        long stamp = lock.writeLock();
+        try {
+            for (ModelObject modelObject : listOfModelObjects) {
+                secondaryIndex.add(modelObject);
+            }
+            secondaryIndexes.put(indexName, secondaryIndex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the model objects whose key in the given secondary index matches the
+     * given key parts.
+     *
+     * @param indexName the name of the secondary index
+     * @param keyParts  the parts of the key, in the order the index was
+     *                  registered with
+     * @return a new list of the matching model objects
+     * @throws IllegalArgumentException if no index with the given name exists, or
+     *                                  the number of key parts does not match
+     */
+    public List<ModelObject> findBy(String indexName, Object... keyParts) {
+        SecondaryIndex<ModelObject> secondaryIndex = getSecondaryIndex(indexName, keyParts);
+        Object key = SecondaryIndex.toKey(keyParts);
+        return readLocked(() -> secondaryIndex.find(key));
+    }
+
+    /**
+     * Counts the model objects whose key in the given secondary index matches the
+     * given key parts, in constant time.
+     *
+     * @param indexName the name of the secondary index
+     * @param keyParts  the parts of the key, in the order the index was
+     *                  registered with
+     * @return the number of matching model objects
+     * @throws IllegalArgumentException if no index with the given name exists, or
+     *                                  the number of key parts does not match
+     */
+    public int countBy(String indexName, Object... keyParts) {
+        SecondaryIndex<ModelObject> secondaryIndex = getSecondaryIndex(indexName, keyParts);
+        Object key = SecondaryIndex.toKey(keyParts);
+        return readLocked(() -> secondaryIndex.count(key));
+    }
+
+    /**
+     * Registers a sorted index on this Database. The index keeps the model
+     * objects in order of a numeric sort key, such as a date, and is built from
+     * the model objects already loaded and kept up to date on every mutation.
+     * Passing group key extractors keeps a separate order per group, such as
+     * one per doctor.
+     *
+     * @param indexName          the name used to query the index
+     * @param sortKeyExtractor   the function that extracts the sort key, or
+     *                           returns null to leave the model object out
+     * @param groupKeyExtractors the functions that extract each part of the
+     *                           group key, if any
+     * @throws IllegalArgumentException if an index with the same name already
+     *                                  exists
+     */
+    @SafeVarargs
+    protected final void registerSortedIndex(String indexName, Function<? super ModelObject, Long> sortKeyExtractor,
+            Function<? super ModelObject, ?>... groupKeyExtractors) {
+        if (secondaryIndexes.containsKey(indexName) || sortedIndexes.containsKey(indexName)) {
+            throw new IllegalArgumentException("Index " + indexName + " is already registered.");
+        }
+        List<Function<? super ModelObject, ?>> listOfGroupKeyExtractors = new ArrayList<>(groupKeyExtractors.length);
+        for (Function<? super ModelObject, ?> groupKeyExtractor : groupKeyExtractors) {
+            listOfGroupKeyExtractors.add(groupKeyExtractor);
+        }
+        SortedIndex<ModelObject> sortedIndex = new SortedIndex<>(sortKeyExtractor, listOfGroupKeyExtractors);
+        long stamp = lock.writeLock();
+        try {
+            for (ModelObject modelObject : listOfModelObjects) {
+                sortedIndex.add(modelObject);
+            }
+            sortedIndexes.put(indexName, sortedIndex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the model objects whose sort key in the given sorted index is in a
+     * range, in order of their sort keys.
+     *
+     * @param indexName     the name of the sorted index
+     * @param fromSortKey   the lowest sort key to include
+     * @param toSortKey     the lowest sort key to leave out
+     * @param groupKeyParts the parts of the group key, in the order the index
+     *                      was registered with
+     * @return a list of the model objects in the range, in order
+     * @throws IllegalArgumentException if no sorted index with the given name
+     *                                  exists, or the number of group key parts
+     *                                  does not match it
+     */
+    public List<ModelObject> findRange(String indexName, long fromSortKey, long toSortKey,
+            Object... groupKeyParts) {
+        SortedIndex<ModelObject> sortedIndex = sortedIndexes.get(indexName);
+        if (sortedIndex == null) {
+            throw new IllegalArgumentException("No sorted index named " + indexName + " exists.");
+        }
+        if (sortedIndex.getGroupKeySize() != groupKeyParts.length) {
+            throw new IllegalArgumentException("Index " + indexName + " expects " + sortedIndex.getGroupKeySize()
+                    + " group key parts but got " + groupKeyParts.length + ".");
+        }
+        Object group = SortedIndex.toGroup(groupKeyParts);
+        return readLocked(() -> sortedIndex.findRange(group, fromSortKey, toSortKey));
+    }
+
+    /**
+     * Gets a registered secondary index and checks the key parts against it.
+     *
+     * @param indexName the name of the secondary index
+     * @param keyParts  the parts of the key to look up
+     * @return the secondary index
+     */
+    private SecondaryIndex<ModelObject> getSecondaryIndex(String indexName, Object... keyParts) {
+        SecondaryIndex<ModelObject> secondaryIndex = secondaryIndexes.get(indexName);
+        if (secondaryIndex == null) {
+            throw new IllegalArgumentException("No index named " + indexName + " exists.");
+        }
+        if (secondaryIndex.getKeySize() != keyParts.length) {
+            throw new IllegalArgumentException("Index " + indexName + " expects " + secondaryIndex.getKeySize()
+                    + " key parts but got " + keyParts.length + ".");
+        }
+        return secondaryIndex;
+    }
+
+    /**
+     * Normalises an ID or email into the key used by the hash indexes, so that
+     * lookups stay case-insensitive.
+     *
+     * @param value the ID or email to normalise
+     * @return the index key of the value
+     */
+    private static String toIndexKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds a model object to the ID, email and secondary indexes.
+     *
+     * @param modelObject the model object to index
+     */
+    private void index(ModelObject modelObject) {
+        String idKey = toIndexKey(modelObject.getModelID());
+        modelObjectsByID.put(idKey, modelObject);
+        String email = modelObject.getModelEmail();
+        if (email != null) {
+            String emailKey = toIndexKey(email);
+            modelObjectsByEmail.put(emailKey, modelObject);
+            indexedEmailsByID.put(idKey, emailKey);
+        }
+        for (SecondaryIndex<ModelObject> secondaryIndex : secondaryIndexes.values()) {
+            secondaryIndex.add(modelObject);
+        }
+        for (SortedIndex<ModelObject> sortedIndex : sortedIndexes.values()) {
+            sortedIndex.add(modelObject);
+        }
+    }
+
+    /**
+     * Removes a model object from the ID, email and secondary indexes.
+     * The email is looked up from the key it was indexed under, as the model
+     * object may have changed its email since it was indexed.
+     *
+     * @param modelObject the model object to remove from the indexes
+     */
+    private void unindex(ModelObject modelObject) {
+        String idKey = toIndexKey(modelObject.getModelID());
+        modelObjectsByID.remove(idKey, modelObject);
+        String emailKey = indexedEmailsByID.remove(idKey);
+        if (emailKey != null) {
+            modelObjectsByEmail.remove(emailKey, modelObject);
+        }
+        for (SecondaryIndex<ModelObject> secondaryIndex : secondaryIndexes.values()) {
+            secondaryIndex.remove(modelObject);
+        }
+        for (SortedIndex<ModelObject> sortedIndex : sortedIndexes.values()) {
+            sortedIndex.remove(modelObject);
+        }
+    }
+
+    /**
+     * Rebuilds all the indexes and positions from the list of model objects, and
+     * drops the snapshot.
+     */
+    private void rebuildIndexes() {
+        snapshot = null;
+        modelObjectsByID.clear();
+        modelObjectsByEmail.clear();
+        indexedEmailsByID.clear();
+        positionsByID.clear();
+        for (SecondaryIndex<ModelObject> secondaryIndex : secondaryIndexes.values()) {
+            secondaryIndex.clear();
+        }
+        for (SortedIndex<ModelObject> sortedIndex : sortedIndexes.values()) {
+            sortedIndex.clear();
+        }
+        for (int i = 0; i < listOfModelObjects.size(); i++) {
+            ModelObject modelObject = listOfModelObjects.get(i);
+            positionsByID.put(toIndexKey(modelObject.getModelID()), i);
+            index(modelObject);
+        }
     }
 
     /**
-     * Returns an iterator over the list of model objects of type {@code T}.
+     * Returns an iterator over an immutable snapshot of the list of model
+     * objects of type {@code T}.
      *
      * @return an iterator over the list of model objects
      */
     @Override
     public Iterator<ModelObject> iterator() {
-        return listOfModelObjects.iterator();
+        return getSnapshot().iterator();
     }
 }
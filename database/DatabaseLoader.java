@@ -0,0 +1,92 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The DatabaseLoader class loads several independent Databases at once, each
+ * on its own thread of a bounded pool, so that startup takes about as long
+ * as the slowest file rather than the sum of all of them.
+ * The time taken by each file is recorded, and printed when the
+ * {@code hms.timings} system property is set to true.
+ */
+public class DatabaseLoader {
+
+    /**
+     * The system property used to print the load timings.
+     */
+    public static final String TIMINGS_PROPERTY = "hms.timings";
+
+    /**
+     * Loads the given Databases concurrently and waits for all of them.
+     * The pool has at most one thread per processor.
+     *
+     * @param getters the getters of the shared instances to load, such as
+     *                {@code PatientDatabase::getDB}
+     * @return the time taken to load each file in milliseconds, by file path, in
+     *         the order of the getters
+     * @throws RuntimeException if a Database could not be loaded, after all the
+     *                          others have finished
+     */
+    public static Map<String, Long> loadAll(List<Supplier<? extends Database<?>>> getters) {
+        int threadCount = Math.max(1, Math.min(getters.size(), Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "database-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        List<Future<Map.Entry<String, Long>>> futures = new ArrayList<>();
+        try {
+            for (Supplier<? extends Database<?>> getter : getters) {
+                futures.add(executor.submit(() -> {
+                    long fileStart = System.nanoTime();
+                    Database<?> database = getter.get();
+                    return Map.entry(database.getFilePath(), (System.nanoTime() - fileStart) / 1_000_000);
+                }));
+            }
+            Map<String, Long> timings = new LinkedHashMap<>();
+            RuntimeException failure = null;
+            for (Future<Map.Entry<String, Long>> future : futures) {
+                try {
+                    Map.Entry<String, Long> timing = future.get();
+                    timings.put(timing.getKey(), timing.getValue());
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while loading the databases");
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (Boolean.getBoolean(TIMINGS_PROPERTY)) {
+                for (Map.Entry<String, Long> timing : timings.entrySet()) {
+                    System.out.println("Loaded " + timing.getKey() + " in " + timing.getValue() + " ms");
+                }
+                System.out.println("Loaded " + timings.size() + " files in " + (System.nanoTime() - start) / 1_000_000
+                        + " ms");
+            }
+            return timings;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * The DatabaseRegistry class holds the single shared instance of every
+ * Database used by the application.
+ * Each Database is created and loaded from its file the first time it is
+ * requested, then stays resident and is handed to every manager that asks for
+ * it, instead of re-reading the file on every call.
+ * Different Databases can be loaded concurrently, each under its own lock, as
+ * {@link DatabaseLoader} does at startup.
+ * The registry also provides the reload, flush and shutdown hooks for the
+ * shared instances.
+ */
+public class DatabaseRegistry {
+
+    private static final Map<Class<?>, Database<?>> databases = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Object> loadLocks = new ConcurrentHashMap<>();
+
+    private static final List<Runnable> flushHooks = new CopyOnWriteArrayList<>();
+
+    private static final List<Runnable> releaseHooks = new CopyOnWriteArrayList<>();
+
+    /**
+     * Gets the shared instance of a Database, creating and loading it on first
+     * use.
+     *
+     * @param <DB>          the type of the Database
+     * @param databaseClass the class of the Database
+     * @param factory       creates and loads a new instance of the Database
+     * @return the shared instance of the Database
+     */
+    public static <DB extends Database<?>> DB get(Class<DB> databaseClass, Supplier<DB> factory) {
+        Database<?> database = databases.get(databaseClass);
+        if (database == null) {
+            synchronized (loadLocks.computeIfAbsent(databaseClass, key -> new Object())) {
+                database = databases.get(databaseClass);
+                if (database == null) {
+                    database = factory.get();
+                    databases.put(databaseClass, database);
+                }
+            }
+        }
+        return databaseClass.cast(database);
+    }
+
+    /**
+     * Checks whether the given Database has already been loaded into the
+     * registry.
+     *
+     * @param databaseClass the class of the Database
+     * @return true if the Database is resident, false otherwise
+     */
+    public static boolean isLoaded(Class<? extends Database<?>> databaseClass) {
+        return databases.containsKey(databaseClass);
+    }
+
+    /**
+     * Gets all the Databases that are currently resident in the registry.
+     *
+     * @return a list of the resident Databases
+     */
+    public static List<Database<?>> getLoaded() {
+        return new ArrayList<>(databases.values());
+    }
+
+    /**
+     * Reloads a resident Database from its file, discarding its in-memory
+     * state, and runs the release hooks. Does nothing if the Database has not
+     * been loaded yet.
+     *
+     * @param databaseClass the class of the Database to reload
+     */
+    public static void reload(Class<? extends Database<?>> databaseClass) {
+        Database<?> database = databases.get(databaseClass);
+        if (database != null) {
+            database.load();
+            runReleaseHooks();
+        }
+    }
+
+    /**
+     * Reloads every resident Database from its file, and runs the release
+     * hooks.
+     */
+    public static void reloadAll() {
+        for (Database<?> database : databases.values()) {
+            database.load();
+        }
+        runReleaseHooks();
+    }
+
+    /**
+     * Adds a hook that hands pending changes to the Databases, such as changes
+     * held in memory by a manager. Flush hooks run before the Databases are
+     * flushed or saved by {@link #flushAll()} and {@link #shutdown()}.
+     *
+     * @param hook the hook to add
+     */
+    public static void addFlushHook(Runnable hook) {
+        flushHooks.add(hook);
+    }
+
+    /**
+     * Runs every flush hook, in the order they were added.
+     */
+    private static void runFlushHooks() {
+        for (Runnable hook : flushHooks) {
+            hook.run();
+        }
+    }
+
+    /**
+     * Adds a hook that drops what a manager built from the shared instances,
+     * such as a cache of their records. Release hooks run after the Databases
+     * are released by {@link #shutdown()} or reloaded by {@link #reload(Class)}
+     * and {@link #reloadAll()}, so the manager builds it again from the records
+     * loaded next.
+     *
+     * @param hook the hook to add
+     */
+    public static void addReleaseHook(Runnable hook) {
+        releaseHooks.add(hook);
+    }
+
+    /**
+     * Runs every release hook, in the order they were added.
+     */
+    private static void runReleaseHooks() {
+        for (Runnable hook : releaseHooks) {
+            hook.run();
+        }
+    }
+
+    /**
+     * Waits until the changes made so far to every resident Database are
+     * written to its file. Used before the program exits, as changes may still
+     * be waiting for the write-behind flusher.
+     */
+    public static void flushAll() {
+        runFlushHooks();
+        for (Database<?> database : databases.values()) {
+            database.flush();
+        }
+    }
+
+    /**
+     * Saves every resident Database to its file and releases all the shared
+     * instances. The next request for a Database loads it again from its file.
+     * Changes still waiting for the write-behind flusher are saved with the
+     * rest, and the release hooks run once the instances are released.
+     */
+    public static void shutdown() {
+        runFlushHooks();
+        for (Database<?> database : databases.values()) {
+            database.save();
+        }
+        databases.clear();
+        runReleaseHooks();
+    }
+}
@@ -0,0 +1,137 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import model.Model;
+
+/**
+ * The SecondaryIndex class groups the model objects of a Database by a key
+ * derived from their fields, such as a foreign key or a status.
+ * A key made from more than one extractor is a composite key, compared as the
+ * list of the extracted values.
+ *
+ * @param <ModelObject> the type of model object stored in the index
+ */
+class SecondaryIndex<ModelObject extends Model> {
+
+    private final List<Function<? super ModelObject, ?>> keyExtractors;
+
+    private final Map<Object, Set<ModelObject>> modelObjectsByKey = new HashMap<>();
+
+    private final Map<ModelObject, Object> keysByModelObject = new IdentityHashMap<>();
+
+    /**
+     * Constructs a SecondaryIndex over the given key extractors.
+     *
+     * @param keyExtractors the functions that extract each part of the key
+     */
+    SecondaryIndex(List<Function<? super ModelObject, ?>> keyExtractors) {
+        if (keyExtractors.isEmpty()) {
+            throw new IllegalArgumentException("A secondary index needs at least one key extractor.");
+        }
+        this.keyExtractors = keyExtractors;
+    }
+
+    /**
+     * Gets the number of parts in the key of this index.
+     *
+     * @return the number of key parts
+     */
+    int getKeySize() {
+        return keyExtractors.size();
+    }
+
+    /**
+     * Builds the key used by the index from its parts.
+     *
+     * @param keyParts the parts of the key
+     * @return the key for the given parts
+     */
+    static Object toKey(Object... keyParts) {
+        return keyParts.length == 1 ? keyParts[0] : Arrays.asList(keyParts);
+    }
+
+    /**
+     * Extracts the key of a model object.
+     *
+     * @param modelObject the model object
+     * @return the key of the model object in this index
+     */
+    private Object keyOf(ModelObject modelObject) {
+        Object[] keyParts = new Object[keyExtractors.size()];
+        for (int i = 0; i < keyParts.length; i++) {
+            keyParts[i] = keyExtractors.get(i).apply(modelObject);
+        }
+        return toKey(keyParts);
+    }
+
+    /**
+     * Adds a model object to the index under its current key.
+     *
+     * @param modelObject the model object to add
+     */
+    void add(ModelObject modelObject) {
+        Object key = keyOf(modelObject);
+        keysByModelObject.put(modelObject, key);
+        modelObjectsByKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(modelObject);
+    }
+
+    /**
+     * Removes a model object from the index.
+     * The model object is removed from the key it was added under, as its
+     * fields may have changed since.
+     *
+     * @param modelObject the model object to remove
+     */
+    void remove(ModelObject modelObject) {
+        if (!keysByModelObject.containsKey(modelObject)) {
+            return;
+        }
+        Object key = keysByModelObject.remove(modelObject);
+        Set<ModelObject> modelObjects = modelObjectsByKey.get(key);
+        if (modelObjects != null) {
+            modelObjects.remove(modelObject);
+            if (modelObjects.isEmpty()) {
+                modelObjectsByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all model objects from the index.
+     */
+    void clear() {
+        modelObjectsByKey.clear();
+        keysByModelObject.clear();
+    }
+
+    /**
+     * Finds the model objects stored under a key.
+     *
+     * @param key the key to look up
+     * @return a new list of the model objects stored under the key
+     */
+    List<ModelObject> find(Object key) {
+        Set<ModelObject> modelObjects = modelObjectsByKey.get(key);
+        return modelObjects == null ? new ArrayList<>() : new ArrayList<>(modelObjects);
+    }
+
+    /**
+     * Counts the model objects stored under a key, without copying them.
+     *
+     * @param key the key to look up
+     * @return the number of model objects stored under the key
+     */
+    int count(Object key) {
+        Set<ModelObject> modelObjects = modelObjectsByKey.get(key);
+        return modelObjects == null ? 0 : modelObjects.size();
+    }
+}
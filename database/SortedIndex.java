@@ -0,0 +1,173 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import model.Model;
+
+/**
+ * The SortedIndex class keeps the model objects of a Database in order of a
+ * numeric sort key, such as the date and time of an appointment, so that the
+ * model objects within a range of sort keys are found without scanning.
+ * The model objects can also be grouped by a key derived from their fields, as
+ * in a {@link SecondaryIndex}, in which case each group is kept in order
+ * separately. Model objects without a sort key are left out of the index.
+ *
+ * @param <ModelObject> the type of model object stored in the index
+ */
+class SortedIndex<ModelObject extends Model> {
+
+    /**
+     * The key of the only group of an index without group key extractors.
+     */
+    private static final Object ALL = new Object();
+
+    private static final Comparator<Entry<?>> BY_SORT_KEY = Comparator.<Entry<?>>comparingLong(Entry::sortKey)
+            .thenComparing(Entry::modelID);
+
+    private final Function<? super ModelObject, Long> sortKeyExtractor;
+
+    private final List<Function<? super ModelObject, ?>> groupKeyExtractors;
+
+    private final Map<Object, NavigableSet<Entry<ModelObject>>> entriesByGroup = new HashMap<>();
+
+    private final Map<ModelObject, Entry<ModelObject>> entriesByModelObject = new IdentityHashMap<>();
+
+    /**
+     * An entry of the index.
+     *
+     * @param <ModelObject> the type of model object
+     * @param sortKey       the sort key of the model object
+     * @param modelID       the ID of the model object, to order equal sort keys
+     * @param group         the group of the model object
+     * @param modelObject   the model object
+     */
+    private record Entry<ModelObject>(long sortKey, String modelID, Object group, ModelObject modelObject) {
+    }
+
+    /**
+     * Constructs a SortedIndex over the given sort key and group key extractors.
+     *
+     * @param sortKeyExtractor   the function that extracts the sort key, or
+     *                           returns null if the model object has none
+     * @param groupKeyExtractors the functions that extract each part of the
+     *                           group key, if any
+     */
+    SortedIndex(Function<? super ModelObject, Long> sortKeyExtractor,
+            List<Function<? super ModelObject, ?>> groupKeyExtractors) {
+        this.sortKeyExtractor = sortKeyExtractor;
+        this.groupKeyExtractors = groupKeyExtractors;
+    }
+
+    /**
+     * Gets the number of parts in the group key of this index.
+     *
+     * @return the number of group key parts
+     */
+    int getGroupKeySize() {
+        return groupKeyExtractors.size();
+    }
+
+    /**
+     * Builds the group key used by the index from its parts.
+     *
+     * @param groupKeyParts the parts of the group key
+     * @return the group key for the given parts
+     */
+    static Object toGroup(Object... groupKeyParts) {
+        if (groupKeyParts.length == 0) {
+            return ALL;
+        }
+        return groupKeyParts.length == 1 ? groupKeyParts[0] : Arrays.asList(groupKeyParts);
+    }
+
+    /**
+     * Extracts the group key of a model object.
+     *
+     * @param modelObject the model object
+     * @return the group key of the model object in this index
+     */
+    private Object groupOf(ModelObject modelObject) {
+        Object[] groupKeyParts = new Object[groupKeyExtractors.size()];
+        for (int i = 0; i < groupKeyParts.length; i++) {
+            groupKeyParts[i] = groupKeyExtractors.get(i).apply(modelObject);
+        }
+        return toGroup(groupKeyParts);
+    }
+
+    /**
+     * Adds a model object to the index under its current sort key and group.
+     *
+     * @param modelObject the model object to add
+     */
+    void add(ModelObject modelObject) {
+        Long sortKey = sortKeyExtractor.apply(modelObject);
+        if (sortKey == null) {
+            return;
+        }
+        Entry<ModelObject> entry = new Entry<>(sortKey, modelObject.getModelID(), groupOf(modelObject),
+                modelObject);
+        entriesByModelObject.put(modelObject, entry);
+        entriesByGroup.computeIfAbsent(entry.group(), group -> new TreeSet<>(BY_SORT_KEY)).add(entry);
+    }
+
+    /**
+     * Removes a model object from the index.
+     * The model object is removed from the entry it was added under, as its
+     * fields may have changed since.
+     *
+     * @param modelObject the model object to remove
+     */
+    void remove(ModelObject modelObject) {
+        Entry<ModelObject> entry = entriesByModelObject.remove(modelObject);
+        if (entry == null) {
+            return;
+        }
+        NavigableSet<Entry<ModelObject>> entries = entriesByGroup.get(entry.group());
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                entriesByGroup.remove(entry.group());
+            }
+        }
+    }
+
+    /**
+     * Removes all model objects from the index.
+     */
+    void clear() {
+        entriesByGroup.clear();
+        entriesByModelObject.clear();
+    }
+
+    /**
+     * Finds the model objects of a group whose sort key is in a range, in order
+     * of their sort keys. Takes time in proportion to the logarithm of the size
+     * of the group plus the number of model objects found.
+     *
+     * @param group       the group to look in
+     * @param fromSortKey the lowest sort key to include
+     * @param toSortKey   the lowest sort key to leave out
+     * @return a new list of the model objects in the range
+     */
+    List<ModelObject> findRange(Object group, long fromSortKey, long toSortKey) {
+        List<ModelObject> modelObjects = new ArrayList<>();
+        NavigableSet<Entry<ModelObject>> entries = entriesByGroup.get(group);
+        if (entries == null || fromSortKey >= toSortKey) {
+            return modelObjects;
+        }
+        for (Entry<ModelObject> entry : entries.subSet(new Entry<>(fromSortKey, "", null, null), true,
+                new Entry<>(toSortKey, "", null, null), false)) {
+            modelObjects.add(entry.modelObject());
+        }
+        return modelObjects;
+    }
+}
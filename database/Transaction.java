@@ -0,0 +1,275 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import model.Model;
+import utils.exceptions.ModelAlreadyExistsException;
+import utils.exceptions.ModelNotFoundException;
+import utils.exceptions.ModelVersionConflictException;
+import utils.iocontrol.TransactionJournal;
+
+/**
+ * The Transaction class groups changes to several Databases into one unit of
+ * work that is either applied as a whole or not at all.
+ * Changes are only staged until {@link #commit()}, which checks all of them,
+ * makes them durable with a single append to the {@link TransactionJournal},
+ * and then applies them to the Databases. If the program stops before every
+ * Database has written its changes, the rest are replayed from the journal
+ * when those Databases are next loaded.
+ * <p>
+ * For example, approving an appointment updates the appointment and adds its
+ * outcome in one transaction:
+ * </p>
+ *
+ * <pre>
+ * new Transaction()
+ *         .update(AppointmentDatabase.getDB(), appointment)
+ *         .add(AppointmentOutcomeDatabase.getDB(), appointmentOutcome)
+ *         .commit();
+ * </pre>
+ */
+public class Transaction {
+
+    private final List<Change<?>> changes = new ArrayList<>();
+
+    private boolean committed;
+
+    /**
+     * The kinds of change a transaction can stage.
+     */
+    private enum ChangeType {
+        ADD,
+        UPDATE,
+        REMOVE
+    }
+
+    /**
+     * The Change class is one change staged in a transaction.
+     *
+     * @param <ModelObject> the type of model object the change applies to
+     */
+    private static final class Change<ModelObject extends Model> {
+
+        private final Database<ModelObject> database;
+
+        private final ChangeType changeType;
+
+        private final String modelObjectID;
+
+        private final ModelObject modelObject;
+
+        /**
+         * Constructs a Change.
+         *
+         * @param database      the Database the change applies to
+         * @param changeType    the kind of change
+         * @param modelObjectID the ID of the model object
+         * @param modelObject   the model object, or null if it is removed
+         */
+        Change(Database<ModelObject> database, ChangeType changeType, String modelObjectID,
+                ModelObject modelObject) {
+            this.database = database;
+            this.changeType = changeType;
+            this.modelObjectID = modelObjectID;
+            this.modelObject = modelObject;
+        }
+
+        /**
+         * Builds the journal record of the change.
+         *
+         * @return the journal record
+         */
+        TransactionJournal.Record toRecord() {
+            return new TransactionJournal.Record(database.getFilePath(), modelObjectID,
+                    modelObject == null ? null : modelObject.convertToMap());
+        }
+
+        /**
+         * Checks that the updated model object is at the version stored in its
+         * Database, while holding its write lock.
+         *
+         * @throws ModelNotFoundException        if the model object does not
+         *                                       exist
+         * @throws ModelVersionConflictException if the model object is not at
+         *                                       the stored version
+         */
+        void checkVersion() throws ModelNotFoundException, ModelVersionConflictException {
+            database.checkVersionWhileLocked(modelObject);
+        }
+
+        /**
+         * Applies the change to its Database, while holding its write lock.
+         *
+         * @throws ModelAlreadyExistsException if an added model object already
+         *                                     exists
+         * @throws ModelNotFoundException      if an updated or removed model
+         *                                     object does not exist
+         */
+        void apply() throws ModelAlreadyExistsException, ModelNotFoundException {
+            switch (changeType) {
+                case ADD -> database.addWhileLocked(modelObject);
+                case UPDATE -> database.updateWhileLocked(modelObject);
+                case REMOVE -> database.removeWhileLocked(modelObjectID);
+            }
+        }
+    }
+
+    /**
+     * Stages a model object to be added to a Database.
+     *
+     * @param <ModelObject> the type of model object
+     * @param database      the Database to add to
+     * @param modelObject   the model object to add
+     * @return this transaction
+     */
+    public <ModelObject extends Model> Transaction add(Database<ModelObject> database, ModelObject modelObject) {
+        return stage(new Change<>(database, ChangeType.ADD, modelObject.getModelID(), modelObject));
+    }
+
+    /**
+     * Stages a model object to be updated in a Database.
+     *
+     * @param <ModelObject> the type of model object
+     * @param database      the Database to update
+     * @param modelObject   the model object to update
+     * @return this transaction
+     */
+    public <ModelObject extends Model> Transaction update(Database<ModelObject> database,
+            ModelObject modelObject) {
+        return stage(new Change<>(database, ChangeType.UPDATE, modelObject.getModelID(), modelObject));
+    }
+
+    /**
+     * Stages a model object to be removed from a Database.
+     *
+     * @param <ModelObject>  the type of model object
+     * @param database       the Database to remove from
+     * @param modelObjectID  the ID of the model object to remove
+     * @return this transaction
+     */
+    public <ModelObject extends Model> Transaction remove(Database<ModelObject> database, String modelObjectID) {
+        return stage(new Change<>(database, ChangeType.REMOVE, modelObjectID, null));
+    }
+
+    /**
+     * Stages a change.
+     *
+     * @param change the change to stage
+     * @return this transaction
+     * @throws IllegalStateException if the transaction was already committed
+     */
+    private Transaction stage(Change<?> change) {
+        if (committed) {
+            throw new IllegalStateException("Transaction was already committed.");
+        }
+        changes.add(change);
+        return this;
+    }
+
+    /**
+     * Commits the staged changes.
+     * The write locks of every Database touched are taken first, in the order
+     * of their file paths, and held until every change is applied, so no other
+     * change can slip in between the checks and the changes. Every change is
+     * checked against the Databases and the changes staged before it, so
+     * nothing is written if any of them would fail. The changes are then
+     * forced to the journal together and applied to their Databases. Once the
+     * locks are released, each Database is flushed and forced to disk before
+     * its changes are marked applied, so the journal is never emptied of
+     * changes that could still be lost.
+     *
+     * @throws ModelAlreadyExistsException   if an added model object already
+     *                                       exists
+     * @throws ModelNotFoundException        if an updated or removed model
+     *                                       object does not exist
+     * @throws ModelVersionConflictException if an updated model object was
+     *                                       changed by someone else since it
+     *                                       was read
+     * @throws IllegalStateException         if the transaction was already
+     *                                       committed
+     * @throws RuntimeException              if the changes could not be
+     *                                       written
+     */
+    public void commit() throws ModelAlreadyExistsException, ModelNotFoundException, ModelVersionConflictException {
+        if (committed) {
+            throw new IllegalStateException("Transaction was already committed.");
+        }
+        Set<Database<?>> touchedDatabases = new LinkedHashSet<>();
+        for (Change<?> change : changes) {
+            touchedDatabases.add(change.database);
+        }
+        List<Database<?>> databases = new ArrayList<>(touchedDatabases);
+        databases.sort(Comparator.comparing(Database::getFilePath));
+        TransactionJournal journal = TransactionJournal.getDefault();
+        long[] stamps = new long[databases.size()];
+        int locked = 0;
+        long sequence;
+        try {
+            for (; locked < databases.size(); locked++) {
+                stamps[locked] = databases.get(locked).lockForTransaction();
+            }
+            check();
+            committed = true;
+            if (changes.isEmpty()) {
+                return;
+            }
+            List<TransactionJournal.Record> records = new ArrayList<>();
+            for (Change<?> change : changes) {
+                records.add(change.toRecord());
+            }
+            sequence = journal.commit(records);
+            for (Change<?> change : changes) {
+                change.apply();
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                databases.get(i).unlockForTransaction(stamps[i]);
+            }
+        }
+        for (Database<?> database : databases) {
+            database.flush();
+            database.force();
+            journal.markApplied(sequence, database.getFilePath());
+        }
+    }
+
+    /**
+     * Checks that every staged change can be applied, in order, while holding
+     * the write locks of the Databases. A model object updated for the first
+     * time in the transaction must be at the version stored in its Database.
+     *
+     * @throws ModelAlreadyExistsException   if an added model object already
+     *                                       exists
+     * @throws ModelNotFoundException        if an updated or removed model
+     *                                       object does not exist
+     * @throws ModelVersionConflictException if an updated model object is not
+     *                                       at the stored version
+     */
+    private void check() throws ModelAlreadyExistsException, ModelNotFoundException, ModelVersionConflictException {
+        Map<String, Boolean> stagedExistence = new HashMap<>();
+        for (Change<?> change : changes) {
+            String key = change.database.getFilePath() + "/" + change.modelObjectID.toLowerCase(Locale.ROOT);
+            Boolean staged = stagedExistence.get(key);
+            boolean exists = staged != null ? staged : change.database.containsWhileLocked(change.modelObjectID);
+            if (change.changeType == ChangeType.ADD) {
+                if (exists || (staged == null
+                        && change.database.containsEmailWhileLocked(change.modelObject.getModelEmail()))) {
+                    throw new ModelAlreadyExistsException("A model object with ID " + change.modelObjectID
+                            + " or email " + change.modelObject.getModelEmail() + " already exists.");
+                }
+            } else if (!exists) {
+                throw new ModelNotFoundException("No model object with ID " + change.modelObjectID + " exists.");
+            } else if (change.changeType == ChangeType.UPDATE && staged == null) {
+                change.checkVersion();
+            }
+            stagedExistence.put(key, change.changeType != ChangeType.REMOVE);
+        }
+    }
+}
@@ -1,37 +1,73 @@
 package database.appointment;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.appointment.Appointment;
+import model.appointment.enums.AppointmentStatus;
+import utils.iocontrol.PersistenceMode;
+import utils.utils.FormatDateTime;
 
 /**
  * Manages the storage and retrieval of Appointment entities in the hospital
  * management system.
  * Extends the Database class with a specific type of Appointment, enabling
  * operations such as loading, saving, and retrieving appointment data.
+ * Appointments are also kept in order of their date and time slot, for all
+ * appointments and per patient and doctor, so the appointments within a range
+ * of dates are found without scanning or parsing dates.
  */
 public class AppointmentDatabase extends Database<Appointment> {
 
     private static final String FILE_PATH = "./data/appointment/appointment.txt";
 
+    private static final String PATIENT_ID_INDEX = "patientID";
+
+    private static final String PATIENT_ID_AND_STATUS_INDEX = "patientIDAndStatus";
+
+    private static final String DOCTOR_ID_INDEX = "doctorID";
+
+    private static final String DOCTOR_ID_AND_STATUS_INDEX = "doctorIDAndStatus";
+
+    private static final String DATE_INDEX = "date";
+
+    private static final String PATIENT_ID_DATE_INDEX = "patientIDDate";
+
+    private static final String DOCTOR_ID_DATE_INDEX = "doctorIDDate";
+
+    private static final String DOCTOR_ID_AND_STATUS_DATE_INDEX = "doctorIDAndStatusDate";
+
     /**
      * Initializes a new AppointmentDatabase instance and loads the data from the
-     * specified file.
+     * specified file. Changes are appended to a log unless another persistence
+     * mode is chosen, as the file grows with every appointment.
      */
     AppointmentDatabase() {
         super();
+        setPersistenceMode(PersistenceMode.getDefault(PersistenceMode.APPEND_LOG));
+        registerIndex(PATIENT_ID_INDEX, Appointment::getPatientID);
+        registerIndex(PATIENT_ID_AND_STATUS_INDEX, Appointment::getPatientID, Appointment::getAppointmentStatus);
+        registerIndex(DOCTOR_ID_INDEX, Appointment::getDoctorID);
+        registerIndex(DOCTOR_ID_AND_STATUS_INDEX, Appointment::getDoctorID, Appointment::getAppointmentStatus);
+        registerSortedIndex(DATE_INDEX, AppointmentDatabase::sortKeyOf);
+        registerSortedIndex(PATIENT_ID_DATE_INDEX, AppointmentDatabase::sortKeyOf, Appointment::getPatientID);
+        registerSortedIndex(DOCTOR_ID_DATE_INDEX, AppointmentDatabase::sortKeyOf, Appointment::getDoctorID);
+        registerSortedIndex(DOCTOR_ID_AND_STATUS_DATE_INDEX, AppointmentDatabase::sortKeyOf,
+                Appointment::getDoctorID, Appointment::getAppointmentStatus);
         load();
     }
 
     /**
-     * Gets a new instance of AppointmentDatabase.
+     * Gets the shared instance of AppointmentDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of AppointmentDatabase
+     * @return the shared instance of AppointmentDatabase
      */
     public static AppointmentDatabase getDB() {
-        return new AppointmentDatabase();
+        return DatabaseRegistry.get(AppointmentDatabase.class, AppointmentDatabase::new);
     }
 
     /**
@@ -44,6 +80,17 @@ public class AppointmentDatabase extends Database<Appointment> {
         return FILE_PATH;
     }
 
+    /**
+     * Creates an empty Appointment for a record to be decoded into straight from
+     * its line.
+     *
+     * @return a new empty Appointment
+     */
+    @Override
+    protected Appointment newMappableObject() {
+        return new Appointment();
+    }
+
     /**
      * Sets the list of mappable objects in the Database.
      *
@@ -59,9 +106,142 @@ public class AppointmentDatabase extends Database<Appointment> {
     /**
      * Gets all appointments.
      *
-     * @return a list of all appointments
+     * @return an immutable snapshot of all appointments
      */
     public List<Appointment> getAllAppointments() {
-        return super.getAll();
+        return getSnapshot();
+    }
+
+    /**
+     * Gets all appointments of a patient.
+     *
+     * @param patientID the ID of the patient
+     * @return a list of the appointments of the patient
+     */
+    public List<Appointment> getAppointmentsByPatientID(String patientID) {
+        return findBy(PATIENT_ID_INDEX, patientID);
+    }
+
+    /**
+     * Gets all appointments of a patient with the given status.
+     *
+     * @param patientID the ID of the patient
+     * @param status    the status of the appointments
+     * @return a list of the appointments of the patient with the given status
+     */
+    public List<Appointment> getAppointmentsByPatientIDAndStatus(String patientID, AppointmentStatus status) {
+        return findBy(PATIENT_ID_AND_STATUS_INDEX, patientID, status);
+    }
+
+    /**
+     * Gets all appointments of a doctor.
+     *
+     * @param doctorID the ID of the doctor
+     * @return a list of the appointments of the doctor
+     */
+    public List<Appointment> getAppointmentsByDoctorID(String doctorID) {
+        return findBy(DOCTOR_ID_INDEX, doctorID);
+    }
+
+    /**
+     * Gets all appointments of a doctor with the given status.
+     *
+     * @param doctorID the ID of the doctor
+     * @param status   the status of the appointments
+     * @return a list of the appointments of the doctor with the given status
+     */
+    public List<Appointment> getAppointmentsByDoctorIDAndStatus(String doctorID, AppointmentStatus status) {
+        return findBy(DOCTOR_ID_AND_STATUS_INDEX, doctorID, status);
+    }
+
+    /**
+     * Gets the appointments between two dates, in order of date and time slot.
+     *
+     * @param from the first date to include, or null for no lower bound
+     * @param to   the last date to include, or null for no upper bound
+     * @return a list of the appointments between the dates, in order
+     */
+    public List<Appointment> getAppointmentsBetween(LocalDate from, LocalDate to) {
+        return findRange(DATE_INDEX, fromSortKey(from), toSortKey(to));
+    }
+
+    /**
+     * Gets the appointments of a patient between two dates, in order of date and
+     * time slot.
+     *
+     * @param patientID the ID of the patient
+     * @param from      the first date to include, or null for no lower bound
+     * @param to        the last date to include, or null for no upper bound
+     * @return a list of the appointments of the patient between the dates, in
+     *         order
+     */
+    public List<Appointment> getAppointmentsByPatientIDBetween(String patientID, LocalDate from, LocalDate to) {
+        return findRange(PATIENT_ID_DATE_INDEX, fromSortKey(from), toSortKey(to), patientID);
+    }
+
+    /**
+     * Gets the appointments of a doctor between two dates, in order of date and
+     * time slot.
+     *
+     * @param doctorID the ID of the doctor
+     * @param from     the first date to include, or null for no lower bound
+     * @param to       the last date to include, or null for no upper bound
+     * @return a list of the appointments of the doctor between the dates, in
+     *         order
+     */
+    public List<Appointment> getAppointmentsByDoctorIDBetween(String doctorID, LocalDate from, LocalDate to) {
+        return findRange(DOCTOR_ID_DATE_INDEX, fromSortKey(from), toSortKey(to), doctorID);
+    }
+
+    /**
+     * Gets the appointments of a doctor with the given status between two dates,
+     * in order of date and time slot.
+     *
+     * @param doctorID the ID of the doctor
+     * @param status   the status of the appointments
+     * @param from     the first date to include, or null for no lower bound
+     * @param to       the last date to include, or null for no upper bound
+     * @return a list of the appointments of the doctor with the given status
+     *         between the dates, in order
+     */
+    public List<Appointment> getAppointmentsByDoctorIDAndStatusBetween(String doctorID, AppointmentStatus status,
+            LocalDate from, LocalDate to) {
+        return findRange(DOCTOR_ID_AND_STATUS_DATE_INDEX, fromSortKey(from), toSortKey(to), doctorID, status);
+    }
+
+    /**
+     * Gets the sort key of an appointment in the date indexes: its epoch day in
+     * the high bits and its time slot in the low bits. An appointment without a
+     * date sorts before every date.
+     *
+     * @param appointment the appointment
+     * @return the sort key of the appointment
+     */
+    private static Long sortKeyOf(Appointment appointment) {
+        long day = appointment.getEpochDayOfAppointment();
+        if (day == FormatDateTime.NO_DATE) {
+            return Long.MIN_VALUE;
+        }
+        return (day << 32) + appointment.getTimeOfAppointment();
+    }
+
+    /**
+     * Gets the lowest sort key of a date.
+     *
+     * @param from the date, or null for no lower bound
+     * @return the lowest sort key of the date
+     */
+    private static long fromSortKey(LocalDate from) {
+        return from == null ? Long.MIN_VALUE : from.toEpochDay() << 32;
+    }
+
+    /**
+     * Gets the lowest sort key after a date.
+     *
+     * @param to the date, or null for no upper bound
+     * @return the lowest sort key of the day after the date
+     */
+    private static long toSortKey(LocalDate to) {
+        return to == null ? Long.MAX_VALUE : (to.toEpochDay() + 1) << 32;
     }
 }
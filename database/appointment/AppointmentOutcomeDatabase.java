@@ -4,8 +4,10 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.appointment.AppointmentOutcome;
 import model.appointment.enums.AppointmentOutcomeStatus;
+import utils.iocontrol.PersistenceMode;
 
 /**
  * Manages the storage and retrieval of AppointmentOutcome entities in the
@@ -19,23 +21,37 @@ public class AppointmentOutcomeDatabase extends Database<AppointmentOutcome> {
 
     private static final String FILE_PATH = "./data/appointment/appointmentOutcome.txt";
 
+    private static final String PATIENT_ID_INDEX = "patientID";
+
+    private static final String PATIENT_ID_AND_STATUS_INDEX = "patientIDAndStatus";
+
+    private static final String DOCTOR_ID_INDEX = "doctorID";
+
+    private static final String APPOINTMENT_ID_INDEX = "appointmentID";
+
     /**
      * Initializes a new AppointmentOutcomeDatabase instance and loads the data
-     * from the
-     * specified file.
+     * from the specified file. Changes are appended to a log unless another
+     * persistence mode is chosen, as the file grows with every appointment.
      */
     AppointmentOutcomeDatabase() {
         super();
+        setPersistenceMode(PersistenceMode.getDefault(PersistenceMode.APPEND_LOG));
+        registerIndex(PATIENT_ID_INDEX, AppointmentOutcome::getPatientID);
+        registerIndex(PATIENT_ID_AND_STATUS_INDEX, AppointmentOutcome::getPatientID, AppointmentOutcome::getStatus);
+        registerIndex(DOCTOR_ID_INDEX, AppointmentOutcome::getDoctorID);
+        registerIndex(APPOINTMENT_ID_INDEX, AppointmentOutcome::getAppointmentID);
         load();
     }
 
     /**
-     * Gets a new instance of AppointmentOutcomeDatabase.
+     * Gets the shared instance of AppointmentOutcomeDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of AppointmentOutcomeDatabase
+     * @return the shared instance of AppointmentOutcomeDatabase
      */
     public static AppointmentOutcomeDatabase getDB() {
-        return new AppointmentOutcomeDatabase();
+        return DatabaseRegistry.get(AppointmentOutcomeDatabase.class, AppointmentOutcomeDatabase::new);
     }
 
     /**
@@ -77,10 +93,53 @@ public class AppointmentOutcomeDatabase extends Database<AppointmentOutcome> {
     /**
      * Gets all appointment outcomes.
      *
-     * @return a list of all appointment outcomes
+     * @return an immutable snapshot of all appointment outcomes
      */
     public List<AppointmentOutcome> getAllAppointmentOutcomes() {
-        return super.getAll();
+        return getSnapshot();
+    }
+
+    /**
+     * Gets all appointment outcomes of a patient.
+     *
+     * @param patientID the ID of the patient
+     * @return a list of the appointment outcomes of the patient
+     */
+    public List<AppointmentOutcome> getAppointmentOutcomesByPatientID(String patientID) {
+        return findBy(PATIENT_ID_INDEX, patientID);
+    }
+
+    /**
+     * Gets all appointment outcomes of a patient with the given status.
+     *
+     * @param patientID the ID of the patient
+     * @param status    the status of the appointment outcomes
+     * @return a list of the appointment outcomes of the patient with the given
+     *         status
+     */
+    public List<AppointmentOutcome> getAppointmentOutcomesByPatientIDAndStatus(String patientID,
+            AppointmentOutcomeStatus status) {
+        return findBy(PATIENT_ID_AND_STATUS_INDEX, patientID, status);
+    }
+
+    /**
+     * Gets all appointment outcomes recorded by a doctor.
+     *
+     * @param doctorID the ID of the doctor
+     * @return a list of the appointment outcomes of the doctor
+     */
+    public List<AppointmentOutcome> getAppointmentOutcomesByDoctorID(String doctorID) {
+        return findBy(DOCTOR_ID_INDEX, doctorID);
+    }
+
+    /**
+     * Gets all appointment outcomes of an appointment.
+     *
+     * @param appointmentID the ID of the appointment
+     * @return a list of the appointment outcomes of the appointment
+     */
+    public List<AppointmentOutcome> getAppointmentOutcomesByAppointmentID(String appointmentID) {
+        return findBy(APPOINTMENT_ID_INDEX, appointmentID);
     }
 
 }
@@ -4,7 +4,9 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.diagnosis.Diagnosis;
+import utils.iocontrol.PersistenceMode;
 
 /**
  * Manages the storage and retrieval of Diagnosis entities in the hospital
@@ -15,22 +17,28 @@ import model.diagnosis.Diagnosis;
 public class DiagnosisDatabase extends Database<Diagnosis> {
     private static final String FILE_PATH = "./data/medical/diagnosis.txt";
 
+    private static final String PATIENT_ID_INDEX = "patientID";
+
     /**
      * Initializes a new DiagnosisDatabase instance and loads the data from the
-     * specified file.
+     * specified file. Changes are appended to a log unless another persistence
+     * mode is chosen, as the file grows with every diagnosis.
      */
     DiagnosisDatabase() {
         super();
+        setPersistenceMode(PersistenceMode.getDefault(PersistenceMode.APPEND_LOG));
+        registerIndex(PATIENT_ID_INDEX, Diagnosis::getPatientID);
         load();
     }
 
     /**
-     * Gets a new instance of DiagnosisDatabase.
+     * Gets the shared instance of DiagnosisDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of DiagnosisDatabase
+     * @return the shared instance of DiagnosisDatabase
      */
     public static DiagnosisDatabase getDB() {
-        return new DiagnosisDatabase();
+        return DatabaseRegistry.get(DiagnosisDatabase.class, DiagnosisDatabase::new);
     }
 
     /**
@@ -43,6 +51,17 @@ public class DiagnosisDatabase extends Database<Diagnosis> {
         return FILE_PATH;
     }
 
+    /**
+     * Creates an empty Diagnosis for a record to be decoded into straight from
+     * its line.
+     *
+     * @return a new empty Diagnosis
+     */
+    @Override
+    protected Diagnosis newMappableObject() {
+        return new Diagnosis();
+    }
+
     /**
      * Sets the list of mappable objects in the Database.
      *
@@ -58,9 +77,19 @@ public class DiagnosisDatabase extends Database<Diagnosis> {
     /**
      * Gets all diagnosis.
      *
-     * @return a list of all diagnosis
+     * @return an immutable snapshot of all diagnosis
      */
     public List<Diagnosis> getAllDiagnosis() {
-        return super.getAll();
+        return getSnapshot();
+    }
+
+    /**
+     * Gets all diagnosis of a patient.
+     *
+     * @param patientID the ID of the patient
+     * @return a list of the diagnosis of the patient
+     */
+    public List<Diagnosis> getDiagnosisByPatientID(String patientID) {
+        return findBy(PATIENT_ID_INDEX, patientID);
     }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 
 /**
  * Manages the storage and retrieval of Medication entities in the hospital
@@ -27,12 +28,13 @@ public class MedicationDatabase extends Database<Medication> {
     }
 
     /**
-     * Gets a new instance of MedicationDatabase.
+     * Gets the shared instance of MedicationDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of MedicationDatabase
+     * @return the shared instance of MedicationDatabase
      */
     public static MedicationDatabase getDB() {
-        return new MedicationDatabase();
+        return DatabaseRegistry.get(MedicationDatabase.class, MedicationDatabase::new);
     }
 
     /**
@@ -45,6 +47,17 @@ public class MedicationDatabase extends Database<Medication> {
         return FILE_PATH;
     }
 
+    /**
+     * Creates an empty Medication for a record to be decoded into straight from
+     * its line.
+     *
+     * @return a new empty Medication
+     */
+    @Override
+    protected Medication newMappableObject() {
+        return new Medication();
+    }
+
     /**
      * Sets the list of mappable objects in the Database.
      *
@@ -60,9 +73,9 @@ public class MedicationDatabase extends Database<Medication> {
     /**
      * Gets all medications.
      * 
-     * @return a list of all medications
+     * @return an immutable snapshot of all medications
      */
     public List<Medication> getAllMedications() {
-        return super.getAll();
+        return getSnapshot();
     }
 }
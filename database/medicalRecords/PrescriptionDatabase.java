@@ -5,9 +5,12 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.prescription.Prescription;
 import model.prescription.enums.PrescriptionStatus;
+import utils.iocontrol.PersistenceMode;
 import utils.utils.ConvertToArrayList;
+import utils.utils.FormatDateTime;
 
 /**
  * Manages the storage and retrieval of Prescription entities in the hospital
@@ -20,20 +23,23 @@ public class PrescriptionDatabase extends Database<Prescription> {
 
     /**
      * Initializes a new PrescriptionDatabase instance and loads the data from the
-     * specified file.
+     * specified file. Changes are appended to a log unless another persistence
+     * mode is chosen, as the file grows with every prescription.
      */
     PrescriptionDatabase() {
         super();
+        setPersistenceMode(PersistenceMode.getDefault(PersistenceMode.APPEND_LOG));
         load();
     }
 
     /**
-     * Gets a new instance of PrescriptionDatabase.
+     * Gets the shared instance of PrescriptionDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of PrescriptionDatabase
+     * @return the shared instance of PrescriptionDatabase
      */
     public static PrescriptionDatabase getDB() {
-        return new PrescriptionDatabase();
+        return DatabaseRegistry.get(PrescriptionDatabase.class, PrescriptionDatabase::new);
     }
 
     /**
@@ -58,7 +64,7 @@ public class PrescriptionDatabase extends Database<Prescription> {
             String patientID = map.get("patientID");
             String pharmacistID = map.get("pharmacistID");
             String doctorID = map.get("doctorID");
-            // String dateOfPrescription = map.get("dateOfPrescription");
+            String dateOfPrescription = map.get("dateOfPrescription");
             String drugInstructions = map.get("drugInstructions");
             String prescriptionStatus = map.get("prescriptionStatus");
             String medicationIDsStr = map.get("medicationIDs");
@@ -66,7 +72,8 @@ public class PrescriptionDatabase extends Database<Prescription> {
 
             PrescriptionStatus status = PrescriptionStatus.fromString(prescriptionStatus);
             Prescription prescription = new Prescription(prescriptionID, patientID, pharmacistID, doctorID,
-                    medicationIDs, null, drugInstructions, status);
+                    medicationIDs, FormatDateTime.convertStringToDateTime(dateOfPrescription), drugInstructions,
+                    status);
 
             getAll().add(prescription);
         }
@@ -75,9 +82,9 @@ public class PrescriptionDatabase extends Database<Prescription> {
     /**
      * Gets all prescriptions.
      *
-     * @return a list of all prescriptions
+     * @return an immutable snapshot of all prescriptions
      */
     public List<Prescription> getAllPrescriptions() {
-        return super.getAll();
+        return getSnapshot();
     }
 }
@@ -0,0 +1,108 @@
+package database.medicalRecords;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import database.Database;
+import database.DatabaseRegistry;
+import model.medication.StockMovement;
+import model.medication.enums.StockMovementType;
+import utils.iocontrol.PersistenceMode;
+import utils.utils.FormatDateTime;
+
+/**
+ * Manages the storage and retrieval of StockMovement entities in the hospital
+ * management system.
+ * Extends the Database class with a specific type of StockMovement. The ledger
+ * is only ever appended to, so it is always persisted as an append log,
+ * whatever the default persistence mode is.
+ */
+public class StockMovementDatabase extends Database<StockMovement> {
+
+    private static final String FILE_PATH = "./data/medical/stockMovement.txt";
+
+    private static final String MEDICATION_ID_INDEX = "medicationID";
+
+    /**
+     * Initializes a new StockMovementDatabase instance and loads the data from
+     * the specified file.
+     */
+    StockMovementDatabase() {
+        super();
+        setPersistenceMode(PersistenceMode.APPEND_LOG);
+        registerIndex(MEDICATION_ID_INDEX, StockMovement::getMedicationID);
+        load();
+    }
+
+    /**
+     * Gets the shared instance of StockMovementDatabase, loading it from its file
+     * on first use.
+     *
+     * @return the shared instance of StockMovementDatabase
+     */
+    public static StockMovementDatabase getDB() {
+        return DatabaseRegistry.get(StockMovementDatabase.class, StockMovementDatabase::new);
+    }
+
+    /**
+     * Gets the file path of the Database.
+     *
+     * @return the file path of the Database
+     */
+    @Override
+    public String getFilePath() {
+        return FILE_PATH;
+    }
+
+    /**
+     * Sets the list of mappable objects in the Database.
+     *
+     * @param listOfMappableObjects the list of mappable objects to set
+     */
+    @Override
+    public void setAll(List<Map<String, String>> listOfMappableObjects) {
+        for (Map<String, String> map : listOfMappableObjects) {
+            StockMovement stockMovement = new StockMovement(map.get("stockMovementID"), map.get("medicationID"),
+                    StockMovementType.fromString(map.get("type")), Integer.parseInt(map.get("quantity")),
+                    Integer.parseInt(map.get("sequence")),
+                    FormatDateTime.convertStringToDateTime(map.get("dateOfMovement")));
+            getAll().add(stockMovement);
+        }
+    }
+
+    /**
+     * Gets all stock movements.
+     *
+     * @return an immutable snapshot of all stock movements
+     */
+    public List<StockMovement> getAllStockMovements() {
+        return getSnapshot();
+    }
+
+    /**
+     * Gets the stock movements of a medication, oldest first.
+     *
+     * @param medicationID the ID of the medication
+     * @return a list of the stock movements of the medication, in ledger order
+     */
+    public List<StockMovement> getStockMovementsByMedicationID(String medicationID) {
+        List<StockMovement> stockMovements = new ArrayList<>(findBy(MEDICATION_ID_INDEX, medicationID));
+        stockMovements.sort(Comparator.comparingInt(StockMovement::getSequence));
+        return stockMovements;
+    }
+
+    /**
+     * Gets the sequence of the latest stock movement in the ledger.
+     *
+     * @return the highest sequence, or 0 if the ledger is empty
+     */
+    public int getLastSequence() {
+        int lastSequence = 0;
+        for (StockMovement stockMovement : getSnapshot()) {
+            lastSequence = Math.max(lastSequence, stockMovement.getSequence());
+        }
+        return lastSequence;
+    }
+}
@@ -2,12 +2,14 @@ package database.request;
 
 import model.request.ReplenishmentRequest;
 import model.request.enums.RequestStatus;
+import utils.utils.EmptyID;
 import utils.utils.FormatDateTime;
 
 import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 
 /**
  * Manages the storage and retrieval of ReplenishmentRequest entities in the
@@ -22,6 +24,10 @@ public class ReplenishmentRequestDatabase extends Database<ReplenishmentRequest>
 
     private static final String FILE_PATH = "./data/request/replenishmentRequest.txt";
 
+    private static final String STATUS_INDEX = "status";
+
+    private static final String MEDICATION_ID_AND_STATUS_INDEX = "medicationIDAndStatus";
+
     /**
      * Initializes a new ReplenishmentRequestDatabase instance and loads the data
      * from the
@@ -29,16 +35,20 @@ public class ReplenishmentRequestDatabase extends Database<ReplenishmentRequest>
      */
     ReplenishmentRequestDatabase() {
         super();
+        registerIndex(STATUS_INDEX, ReplenishmentRequest::getStatus);
+        registerIndex(MEDICATION_ID_AND_STATUS_INDEX, ReplenishmentRequest::getMedicationID,
+                ReplenishmentRequest::getStatus);
         load();
     }
 
     /**
-     * Gets a new instance of ReplenishmentRequestDatabase.
+     * Gets the shared instance of ReplenishmentRequestDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of ReplenishmentRequestDatabase
+     * @return the shared instance of ReplenishmentRequestDatabase
      */
     public static ReplenishmentRequestDatabase getDB() {
-        return new ReplenishmentRequestDatabase();
+        return DatabaseRegistry.get(ReplenishmentRequestDatabase.class, ReplenishmentRequestDatabase::new);
     }
 
     /**
@@ -64,6 +74,7 @@ public class ReplenishmentRequestDatabase extends Database<ReplenishmentRequest>
             String medicationID = map.get("medicationID");
             String dateOfRequest = map.get("dateOfRequest");
             String status = map.get("status");
+            String requestCount = map.get("requestCount");
 
             RequestStatus requestStatus = RequestStatus.fromString(status);
 
@@ -71,6 +82,9 @@ public class ReplenishmentRequestDatabase extends Database<ReplenishmentRequest>
                     FormatDateTime.convertStringToDateTime(dateOfRequest),
                     FormatDateTime.convertStringToDateTime(dateOfModification),
                     medicationID);
+            if (requestCount != null && !EmptyID.isEmptyID(requestCount)) {
+                replenishmentRequest.setRequestCount(Integer.parseInt(requestCount));
+            }
 
             getAll().add(replenishmentRequest);
         }
@@ -79,9 +93,42 @@ public class ReplenishmentRequestDatabase extends Database<ReplenishmentRequest>
     /**
      * Gets all replenishment requests.
      * 
-     * @return a list of all replenishment requests
+     * @return an immutable snapshot of all replenishment requests
      */
     public List<ReplenishmentRequest> getAllReplenishmentRequests() {
-        return super.getAll();
+        return getSnapshot();
+    }
+
+    /**
+     * Gets all replenishment requests with a status.
+     *
+     * @param status the status of the replenishment requests
+     * @return a list of the replenishment requests with the status
+     */
+    public List<ReplenishmentRequest> getReplenishmentRequestsByStatus(RequestStatus status) {
+        return findBy(STATUS_INDEX, status);
+    }
+
+    /**
+     * Gets the replenishment requests for a medication with a status.
+     *
+     * @param medicationID the ID of the medication
+     * @param status       the status of the replenishment requests
+     * @return a list of the replenishment requests for the medication with the
+     *         status
+     */
+    public List<ReplenishmentRequest> getReplenishmentRequestsByMedicationIDAndStatus(String medicationID,
+            RequestStatus status) {
+        return findBy(MEDICATION_ID_AND_STATUS_INDEX, medicationID, status);
+    }
+
+    /**
+     * Counts the replenishment requests with a status, in constant time.
+     *
+     * @param status the status of the replenishment requests
+     * @return the number of replenishment requests with the status
+     */
+    public int countReplenishmentRequestsByStatus(RequestStatus status) {
+        return countBy(STATUS_INDEX, status);
     }
 }
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.user.Administrator;
 import model.user.PersonalInfo;
 import model.user.enums.Gender;
@@ -29,12 +30,13 @@ public class AdministratorDatabase extends Database<Administrator> {
     }
 
     /**
-     * Gets a new instance of AdministratorDatabase.
+     * Gets the shared instance of AdministratorDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of AdministratorDatabase
+     * @return the shared instance of AdministratorDatabase
      */
     public static AdministratorDatabase getDB() {
-        return new AdministratorDatabase();
+        return DatabaseRegistry.get(AdministratorDatabase.class, AdministratorDatabase::new);
     }
 
     /**
@@ -60,7 +62,7 @@ public class AdministratorDatabase extends Database<Administrator> {
             String phoneNumber = map.get("personalInfo_phoneNumber");
             String ageStr = map.get("personalInfo_age");
             Integer age = ageStr != null ? Integer.parseInt(ageStr) : null;
-            String dateOfBirth = map.get("personalInfo_dateOfBirth");
+            long dateOfBirth = FormatDateTime.toEpochDay(map.get("personalInfo_dateOfBirth"));
             String dateOfRegistration = map.get("personalInfo_dateOfRegistration");
             String genderStr = map.get("personalInfo_gender");
             Gender gender = genderStr != null ? Gender.valueOf(genderStr.toUpperCase()) : null;
@@ -82,9 +84,9 @@ public class AdministratorDatabase extends Database<Administrator> {
     /**
      * Gets all administrators.
      *
-     * @return a list of all administrators
+     * @return an immutable snapshot of all administrators
      */
     public List<Administrator> getAllAdministrators() {
-        return super.getAll();
+        return getSnapshot();
     }
 }
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 
 /**
  * Manages the storage and retrieval of Doctor entities in the hospital
@@ -32,12 +33,13 @@ public class DoctorDatabase extends Database<Doctor> {
     }
 
     /**
-     * Gets a new instance of DoctorDatabase.
+     * Gets the shared instance of DoctorDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of DoctorDatabase
+     * @return the shared instance of DoctorDatabase
      */
     public static DoctorDatabase getDB() {
-        return new DoctorDatabase();
+        return DatabaseRegistry.get(DoctorDatabase.class, DoctorDatabase::new);
     }
 
     /**
@@ -63,7 +65,7 @@ public class DoctorDatabase extends Database<Doctor> {
             String phoneNumber = map.get("personalInfo_phoneNumber");
             String ageStr = map.get("personalInfo_age");
             Integer age = ageStr != null ? Integer.parseInt(ageStr) : null;
-            String dateOfBirth = map.get("personalInfo_dateOfBirth");
+            long dateOfBirth = FormatDateTime.toEpochDay(map.get("personalInfo_dateOfBirth"));
             String genderStr = map.get("personalInfo_gender");
             String dateOfRegistration = map.get("personalInfo_dateOfRegistration");
             Gender gender = genderStr != null ? Gender.valueOf(genderStr.toUpperCase()) : null;
@@ -89,10 +91,10 @@ public class DoctorDatabase extends Database<Doctor> {
     /**
      * Gets all doctors in the Database.
      *
-     * @return a list of all doctors in the Database
+     * @return an immutable snapshot of all doctors in the Database
      */
     public List<Doctor> getAllDoctors() {
-        return super.getAll();
+        return getSnapshot();
     }
 
 }
@@ -6,10 +6,12 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.user.Patient;
 import model.user.PersonalInfo;
 import model.user.enums.BloodType;
 import model.user.enums.Gender;
+import utils.iocontrol.PersistenceMode;
 import utils.utils.ConvertToArrayList;
 import utils.utils.FormatDateTime;
 
@@ -23,22 +25,28 @@ public class PatientDatabase extends Database<Patient> {
 
     private static final String FILE_PATH = "./data/user/patient.txt";
 
+    private static final String DOCTOR_ID_INDEX = "doctorID";
+
     /**
      * Initializes a new PatientDatabase instance and loads the data from the
-     * specified file.
+     * specified file. Changes are appended to a log unless another persistence
+     * mode is chosen, as the file grows with every patient.
      */
     PatientDatabase() {
         super();
+        setPersistenceMode(PersistenceMode.getDefault(PersistenceMode.APPEND_LOG));
+        registerIndex(DOCTOR_ID_INDEX, Patient::getDoctorID);
         load();
     }
 
     /**
-     * Gets a new instance of PatientDatabase.
+     * Gets the shared instance of PatientDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of PatientDatabase
+     * @return the shared instance of PatientDatabase
      */
     public static PatientDatabase getDB() {
-        return new PatientDatabase();
+        return DatabaseRegistry.get(PatientDatabase.class, PatientDatabase::new);
     }
 
     /**
@@ -65,7 +73,7 @@ public class PatientDatabase extends Database<Patient> {
             String phoneNumber = map.get("personalInfo_phoneNumber");
             String ageStr = map.get("personalInfo_age");
             Integer age = ageStr != null ? Integer.parseInt(ageStr) : null;
-            String dateOfBirth = map.get("personalInfo_dateOfBirth");
+            long dateOfBirth = FormatDateTime.toEpochDay(map.get("personalInfo_dateOfBirth"));
             String dateOfRegistration = map.get("personalInfo_dateOfRegistration");
             String genderStr = map.get("personalInfo_gender");
             Gender gender = genderStr != null ? Gender.valueOf(genderStr.toUpperCase()) : null;
@@ -100,10 +108,20 @@ public class PatientDatabase extends Database<Patient> {
     /**
      * Gets all patients.
      *
-     * @return a list of all patients
+     * @return an immutable snapshot of all patients
      */
     public List<Patient> getAllPatients() {
-        return super.getAll();
+        return getSnapshot();
+    }
+
+    /**
+     * Gets all patients assigned to a doctor.
+     *
+     * @param doctorID the ID of the doctor
+     * @return a list of the patients of the doctor
+     */
+    public List<Patient> getPatientsByDoctorID(String doctorID) {
+        return findBy(DOCTOR_ID_INDEX, doctorID);
     }
 
 }
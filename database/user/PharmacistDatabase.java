@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 
 import database.Database;
+import database.DatabaseRegistry;
 import model.user.PersonalInfo;
 import model.user.Pharmacist;
 import model.user.enums.Gender;
@@ -29,12 +30,13 @@ public class PharmacistDatabase extends Database<Pharmacist> {
     }
 
     /**
-     * Gets a new instance of PharmacistDatabase.
+     * Gets the shared instance of PharmacistDatabase, loading it from its file on
+     * first use.
      *
-     * @return a new instance of PharmacistDatabase
+     * @return the shared instance of PharmacistDatabase
      */
     public static PharmacistDatabase getDB() {
-        return new PharmacistDatabase();
+        return DatabaseRegistry.get(PharmacistDatabase.class, PharmacistDatabase::new);
     }
 
     /**
@@ -61,7 +63,7 @@ public class PharmacistDatabase extends Database<Pharmacist> {
             String phoneNumber = map.get("personalInfo_phoneNumber");
             String ageStr = map.get("personalInfo_age");
             Integer age = ageStr != null ? Integer.parseInt(ageStr) : null;
-            String dateOfBirth = map.get("personalInfo_dateOfBirth");
+            long dateOfBirth = FormatDateTime.toEpochDay(map.get("personalInfo_dateOfBirth"));
             String dateOfRegistration = map.get("personalInfo_dateOfRegistration");
             String genderStr = map.get("personalInfo_gender");
             Gender gender = genderStr != null ? Gender.valueOf(genderStr.toUpperCase()) : null;
@@ -83,9 +85,9 @@ public class PharmacistDatabase extends Database<Pharmacist> {
     /**
      * Gets all pharmacists.
      *
-     * @return a list of all pharmacists
+     * @return an immutable snapshot of all pharmacists
      */
     public List<Pharmacist> getAllPharmacist() {
-        return super.getAll();
+        return getSnapshot();
     }
 }
@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.Map;
 
 import controller.appointment.AppointmentManager;
+import controller.appointment.DoctorCalendar;
+import controller.appointment.DoctorCalendarManager;
 import controller.user.DoctorManager;
 import controller.user.PatientManager;
 import display.session.ClearDisplay;
@@ -22,6 +24,7 @@ import model.user.Patient;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
 import utils.exceptions.PageBackException;
+import utils.exceptions.TimeSlotUnavailableException;
 import utils.iocontrol.CustScanner;
 import utils.utils.FormatDateTime;
 
@@ -408,37 +411,23 @@ public class AppointmentDisplay {
     }
 
     /**
-     * Displays the appointment availability for a doctor on a specific day.
+     * Displays the free appointment slots of a doctor on a specific date.
      *
      * @param doctor the {@code Doctor} object for whom availability is displayed
-     * @param day    the {@code DayOfWeek} representing the day
-     * @throws PageBackException if the user chooses to go back
+     * @param date   the {@code LocalDate} of the appointment
      */
-    public static void displayAppointmentAvailabilityForADay(Doctor doctor, DayOfWeek day)
-            throws PageBackException {
-        Map<String, List<String>> appointmentAvailability = DoctorManager.getAppointmentAvailability(doctor);
-        Map<Integer, List<String>> bookedSlots = AppointmentManager.getBookedAppointmentsOfDoctor(
-                doctor.getModelID());
-        List<String> bookedSlotsForDay = bookedSlots.get(day.getValue());
-        Weekdays dayEnum = Weekdays.valueOf(day.toString());
-
-        try {
-            System.out.printf("Selected Day: %s\n", dayEnum.toCamelCase());
-            System.out.println();
-            System.out.println("Available Appointment Slots:");
-
-            for (String slot : appointmentAvailability.get(Integer.toString(day.getValue()))) {
-                int slotNumber = Integer.parseInt(slot.trim());
-                if (bookedSlotsForDay != null && bookedSlotsForDay.contains(slot)) {
-                    continue;
-                }
-                System.out.printf("\t%s: %s\n", Integer.toString(slotNumber), timeSlotMap.get(slotNumber));
-
-            }
+    public static void displayAppointmentAvailabilityForADay(Doctor doctor, LocalDate date) {
+        Weekdays dayEnum = Weekdays.valueOf(date.getDayOfWeek().toString());
+        System.out.printf("Selected Day: %s\n", dayEnum.toCamelCase());
+        System.out.println();
+        System.out.println("Available Appointment Slots:");
 
-        } catch (Exception e) {
-            System.out.println("No availability set for this day. Press choose another day.");
-            displayAppointmentAvailabilityForADay(doctor, day);
+        List<Integer> freeSlots = AppointmentManager.getFreeTimeSlots(doctor.getModelID(), date);
+        if (freeSlots.isEmpty()) {
+            System.out.println("\tNo free time slots left on this day.");
+        }
+        for (int slotNumber : freeSlots) {
+            System.out.printf("\t%s: %s\n", Integer.toString(slotNumber), timeSlotMap.get(slotNumber));
         }
     }
 
@@ -610,49 +599,28 @@ public class AppointmentDisplay {
     }
 
     /**
-     * Displays the appointment availability for a patient viewing a doctor's
-     * schedule.
+     * Displays the weekly appointment availability for a patient viewing a
+     * doctor's schedule. The slots already booked are left out once the patient
+     * picks a date.
      *
      * @param doctor the {@code Doctor} object whose availability is being viewed
      * @throws PageBackException if the user chooses to go back
      */
     public static void displayAppointmentAvailabilityForPatient(Doctor doctor) throws PageBackException {
-        Map<String, List<String>> currentAvailability = DoctorManager.getAppointmentAvailability(doctor);
-        Map<Integer, List<String>> bookedSlots = AppointmentManager.getBookedAppointmentsOfDoctor(
-                doctor.getModelID());
-
-        for (Map.Entry<String, List<String>> entry : currentAvailability.entrySet()) {
-            try {
-                Weekdays day = null;
-                switch (entry.getKey()) {
-                    case "1" -> day = Weekdays.MONDAY;
-                    case "2" -> day = Weekdays.TUESDAY;
-                    case "3" -> day = Weekdays.WEDNESDAY;
-                    case "4" -> day = Weekdays.THURSDAY;
-                    case "5" -> day = Weekdays.FRIDAY;
-                    default -> {
-                        System.out.println("Something went wrong. Press enter to go back.");
-                        if (CustScanner.getStrChoice().equals("")) {
-                            throw new PageBackException();
-                        }
-                    }
-                }
+        DoctorCalendar calendar = DoctorCalendarManager.getCalendar(doctor.getModelID());
 
-                System.out.printf("Day: %s\n", day.toCamelCase());
-                System.out.println();
-                System.out.println("Available Appointment Slots:");
-                for (String slot : entry.getValue()) {
-                    int slotNumber = Integer.parseInt(slot.trim());
-                    if (bookedSlots.containsKey(Integer.parseInt(entry.getKey()))
-                            && bookedSlots.get(Integer.parseInt(entry.getKey())).contains(slot)) {
-                        continue;
-                    }
-                    System.out.printf("\t%s: %s\n", Integer.toString(slotNumber), timeSlotMap.get(slotNumber));
-                }
-                System.out.println();
-            } catch (Exception e) {
-                EnterToGoBackDisplay.display();
+        for (Weekdays day : Weekdays.values()) {
+            int availableSlots = calendar.getAvailableSlots(DayOfWeek.valueOf(day.name()));
+            if (availableSlots == 0) {
+                continue;
             }
+            System.out.printf("Day: %s\n", day.toCamelCase());
+            System.out.println();
+            System.out.println("Available Appointment Slots:");
+            for (int slotNumber : DoctorCalendar.toSlots(availableSlots)) {
+                System.out.printf("\t%s: %s\n", Integer.toString(slotNumber), timeSlotMap.get(slotNumber));
+            }
+            System.out.println();
         }
     }
 
@@ -714,14 +682,14 @@ public class AppointmentDisplay {
             throw new PageBackException();
         }
 
-        if (!AppointmentManager.isTimeSlotAvailable(doctor, day)) {
+        if (AppointmentManager.getFreeTimeSlots(doctor.getModelID(), fullDate).isEmpty()) {
             System.out.printf("No available time slots for this day. Please try again. ");
             // if (CustScanner.getStrChoice().equals(""))
             // scheduleAppointment(patientID, doctor, month, action, appointmentID);
             throw new PageBackException();
         }
 
-        displayAppointmentAvailabilityForADay(doctor, day);
+        displayAppointmentAvailabilityForADay(doctor, fullDate);
         Date appointmentDate = FormatDateTime.convertDMYToTime(date, month, year);
         String appointmentDateStr = FormatDateTime.formatDate(appointmentDate);
 
@@ -739,6 +707,8 @@ public class AppointmentDisplay {
                         timeSlotID, appointmentDateStr);
             }
             System.out.println("Appointment scheduled.");
+        } catch (TimeSlotUnavailableException e) {
+            System.out.println(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("Something went wrong.");
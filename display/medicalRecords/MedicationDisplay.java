@@ -8,23 +8,27 @@ import display.session.ClearDisplay;
 import display.session.EnterToGoBackDisplay;
 import display.user.AdministratorDisplay;
 import model.medication.Medication;
+import model.medication.StockMovement;
 import model.user.Administrator;
+import utils.exceptions.InsufficientStockException;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
 import utils.exceptions.PageBackException;
 import utils.iocontrol.CustScanner;
+import utils.utils.FormatDateTime;
 
 /**
  * The MedicationDisplay class provides various displays and menus for managing
  * medications in the inventory. It includes functionalities for adding new
  * medications, updating stock levels, removing medications, and viewing the
- * medication inventory.
+ * medication inventory and stock history.
  */
 public class MedicationDisplay {
 
     /**
      * Displays the main menu for managing medications, allowing the administrator
-     * to add new medications, increase stock, remove medications, or go back.
+     * to add new medications, increase stock, remove medications, correct stock by
+     * hand, or go back.
      *
      * @param administrator the administrator accessing the menu
      * @throws PageBackException if an error occurs or the user opts to go back
@@ -36,7 +40,8 @@ public class MedicationDisplay {
         System.out.println("1. Add new medication");
         System.out.println("2. Add medication stock");
         System.out.println("3. Delete medication");
-        System.out.println("4. Go back");
+        System.out.println("4. Adjust medication stock");
+        System.out.println("5. Go back");
         System.out.println("==========================================================");
         System.out.println();
         System.out.print("What would you like to do? ");
@@ -47,7 +52,8 @@ public class MedicationDisplay {
             case 1 -> addNewMedication();
             case 2 -> addMedicationStock();
             case 3 -> removeMedication();
-            case 4 -> AdministratorDisplay.administratorDisplay(administrator);
+            case 4 -> adjustMedicationStock();
+            case 5 -> AdministratorDisplay.administratorDisplay(administrator);
             default -> {
                 System.out.println("Invalid choice. Please try again.");
             }
@@ -120,7 +126,104 @@ public class MedicationDisplay {
         System.out.println();
         System.out.println(
                 "Medication stock updated! The current stock for the medication " + selectedMed.getName() + " is now "
-                        + selectedMed.getStock() + 10);
+                        + MedicationManager.getCurrentStock(selectedMed));
+        System.out.println();
+        EnterToGoBackDisplay.display();
+    }
+
+    /**
+     * Displays a prompt to correct the stock of a medication by hand, such as
+     * after a stock count. The change is recorded as an adjustment in the stock
+     * history.
+     *
+     * @throws PageBackException if the medication is not found or an error occurs
+     */
+    private static void adjustMedicationStock() throws PageBackException {
+        ClearDisplay.ClearConsole();
+        System.out.println("============== ADJUST MEDICATION STOCK ==============");
+        System.out.println();
+
+        displayMedicationInventory();
+
+        System.out.println();
+        System.out.print("Enter Medication ID: ");
+        String medicationID = CustScanner.getStrChoice();
+        Medication selectedMed = null;
+        try {
+            selectedMed = MedicationManager.getMedicationsById(medicationID);
+        } catch (Exception e) {
+            System.out.println("Medication not found.");
+            throw new PageBackException();
+        }
+
+        System.out.print("Enter the change in stock (negative to remove units): ");
+        int quantity = CustScanner.getIntChoice();
+        try {
+            MedicationManager.adjustMedicationStock(medicationID, quantity);
+        } catch (ModelNotFoundException e) {
+            System.out.println("Medication not found.");
+            throw new PageBackException();
+        } catch (InsufficientStockException e) {
+            System.out.println(e.getMessage());
+            EnterToGoBackDisplay.display();
+            return;
+        }
+        System.out.println();
+        System.out.println(
+                "Medication stock adjusted! The current stock for the medication " + selectedMed.getName()
+                        + " is now " + MedicationManager.getCurrentStock(selectedMed));
+        System.out.println();
+        EnterToGoBackDisplay.display();
+    }
+
+    /**
+     * Displays the stock history of a medication: every dispense, replenishment,
+     * adjustment and deletion recorded for it, oldest first, with the stock after
+     * each one.
+     *
+     * @throws PageBackException if the medication is not found or the user opts to
+     *                           go back
+     */
+    public static void viewStockHistory() throws PageBackException {
+        ClearDisplay.ClearConsole();
+        displayMedicationInventory();
+        System.out.println();
+        System.out.print("Enter Medication ID or q to go back: ");
+        String medicationID = CustScanner.getStrChoice();
+        if (medicationID.equalsIgnoreCase("q")) {
+            throw new PageBackException();
+        }
+        Medication selectedMed = null;
+        List<StockMovement> stockMovements;
+        try {
+            selectedMed = MedicationManager.getMedicationsById(medicationID);
+            stockMovements = MedicationManager.getStockHistory(medicationID);
+        } catch (ModelNotFoundException e) {
+            System.out.println("Medication not found.");
+            EnterToGoBackDisplay.display();
+            return;
+        }
+
+        String fourColBorder = "+------------------------------+-----------------+------------+------------+";
+        ClearDisplay.ClearConsole();
+        System.out.println("Stock history of " + selectedMed.getName());
+        System.out.println(fourColBorder);
+        System.out.printf("| %-28s | %-15s | %-10s | %-10s |%n", "Date", "Type", "Change", "Stock");
+        System.out.println(fourColBorder);
+        if (stockMovements.isEmpty()) {
+            System.out.println("| No stock changes recorded for this medication.");
+        }
+        int stock = MedicationManager.getCurrentStock(selectedMed);
+        for (StockMovement stockMovement : stockMovements) {
+            stock -= stockMovement.getQuantity();
+        }
+        for (StockMovement stockMovement : stockMovements) {
+            stock += stockMovement.getQuantity();
+            System.out.printf("| %-28s | %-15s | %-10s | %-10s |%n",
+                    FormatDateTime.formatDateTimeToString(stockMovement.getDateOfMovement()),
+                    stockMovement.getType(), String.format("%+d", stockMovement.getQuantity()), stock);
+        }
+        System.out.println(fourColBorder);
         System.out.println();
         EnterToGoBackDisplay.display();
     }
@@ -184,7 +287,7 @@ public class MedicationDisplay {
         for (Medication medication : medications) {
             System.out.printf("| %-36s | %-20s | %-15s | %-20s |%n",
                     medication.getModelID(), medication.getName(),
-                    medication.getStock(), medication.getLowStockLevelAlert());
+                    MedicationManager.getCurrentStock(medication), medication.getLowStockLevelAlert());
         }
         System.out.println(fourColBorder);
     }
@@ -1,5 +1,7 @@
 package display.session;
 
+import database.DatabaseRegistry;
+
 /**
  * The {@code ExitDisplay} class provides functionality to exit the program
  * gracefully.
@@ -14,6 +16,7 @@ public class ExitDisplay {
     public static void exit() {
         ClearDisplay.ClearConsole();
         System.out.println("Thank you!");
+        DatabaseRegistry.shutdown();
         System.exit(0);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package display.session;
 
 import controller.account.AccountManager;
+import database.DatabaseRegistry;
 import display.user.AdministratorDisplay;
 import display.user.DoctorDisplay;
 import display.user.PatientDisplay;
@@ -56,6 +57,7 @@ public class LoginDisplay {
                     "Email does not exist. Press q to quit, r to retry, or any other key to register.");
             String choice = CustScanner.getStrChoice();
             if (choice.equalsIgnoreCase("q")) {
+                DatabaseRegistry.shutdown();
                 System.exit(0);
             } else if (choice.equalsIgnoreCase("r")) {
                 login(userType);
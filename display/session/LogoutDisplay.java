@@ -1,5 +1,7 @@
 package display.session;
 
+import database.DatabaseRegistry;
+
 /**
  * The {@code LogoutDisplay} class provides a simple interface for logging out a
  * user.
@@ -10,11 +12,12 @@ package display.session;
 public class LogoutDisplay {
 
     /**
-     * Logs out the current user by displaying the welcome screen and exiting the
-     * program.
+     * Logs out the current user by saving and releasing the Databases, then
+     * displaying the welcome screen and exiting the program.
      * This method is typically called when a user decides to end their session.
      */
     public static void logout() {
+        DatabaseRegistry.shutdown();
         WelcomeDisplay.welcome();
         System.exit(0);
     }
@@ -4,7 +4,7 @@ import java.util.concurrent.TimeUnit;
 
 import controller.account.AccountManager;
 import controller.authentication.PasswordManager;
-import controller.user.UserManager;
+import database.DatabaseRegistry;
 import model.user.User;
 import model.user.enums.Gender;
 import model.user.enums.UserType;
@@ -58,6 +58,7 @@ public class RegisterDisplay {
             if (choice == 5) {
                 WelcomeDisplay.welcome();
             } else if (choice == 6) {
+                DatabaseRegistry.shutdown();
                 System.exit(0);
             }
             userType = switch (choice) {
@@ -134,7 +135,6 @@ public class RegisterDisplay {
                     System.out.print("Please enter a new password: ");
                     try {
                         PasswordManager.changePassword(user, "password", CustScanner.getPassword());
-                        UserManager.updateUser(user);
                         System.out.println("Password changed successfully. Redirecting you to login page...");
                         TimeUnit.SECONDS.sleep(1);
                         WelcomeDisplay.welcome();
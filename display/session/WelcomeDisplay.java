@@ -1,5 +1,6 @@
 package display.session;
 
+import database.DatabaseRegistry;
 import model.user.enums.UserType;
 import utils.iocontrol.CustScanner;
 
@@ -31,6 +32,7 @@ public class WelcomeDisplay {
         if (strChoice.equalsIgnoreCase("y")) {
             RegisterDisplay.registerDisplay();
         } else if (strChoice.equalsIgnoreCase("q")) {
+            DatabaseRegistry.shutdown();
             System.exit(0);
         } else if (strChoice.equalsIgnoreCase("n")) {
             System.out.println();
@@ -49,6 +51,7 @@ public class WelcomeDisplay {
                     throw new Exception();
                 }
                 if (choice == 5) {
+                    DatabaseRegistry.shutdown();
                     System.exit(0);
                 }
                 UserType userType = switch (choice) {
@@ -1,6 +1,10 @@
 package display.user;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import controller.appointment.AppointmentManager;
 import controller.appointment.AppointmentOutcomeManager;
@@ -68,14 +72,15 @@ public class AdministratorDisplay {
             System.out.println("\t1. View hospital staffs");
             System.out.println("\t2. Manage hospital staffs");
             System.out.println("\t3. View doctor appointment details");
-            System.out.println("\t4. View medication inventory");
-            System.out.println("\t5. Manage medication inventory");
-            System.out.println("\t6. View pending medication replenisment request");
-            System.out.println("\t7. Manage medication replenishment request");
-            System.out.println("\t8. View my profile");
-            System.out.println("\t9. Update my profile");
-            System.out.println("\t10. Change my password");
-            System.out.println("\t11. Logout");
+            System.out.println("\t4. View appointments by date");
+            System.out.println("\t5. View medication inventory");
+            System.out.println("\t6. Manage medication inventory");
+            System.out.println("\t7. View pending medication replenisment request");
+            System.out.println("\t8. Manage medication replenishment request");
+            System.out.println("\t9. View my profile");
+            System.out.println("\t10. Update my profile");
+            System.out.println("\t11. Change my password");
+            System.out.println("\t12. Logout");
             System.out.println();
             System.out.println("===================================");
 
@@ -89,15 +94,16 @@ public class AdministratorDisplay {
                     case 1 -> viewHospitalStaffs();
                     case 2 -> manageHospitalStaffs(administrator);
                     case 3 -> viewAppointmentDetailsDisplay();
-                    case 4 -> MedicationDisplay.viewMedicationInventory();
-                    case 5 -> MedicationDisplay.medicationDisplay(administrator);
-                    case 6 ->
+                    case 4 -> viewAppointmentsByDateDisplay();
+                    case 5 -> MedicationDisplay.viewMedicationInventory();
+                    case 6 -> MedicationDisplay.medicationDisplay(administrator);
+                    case 7 ->
                         viewPendingMedicationReplenishmentRequest();
-                    case 7 -> manageMedicationReplenishmentRequest(administrator);
-                    case 8 -> UserProfileDisplay.viewUserProfilePage(administrator, userType);
-                    case 9 -> UserProfileDisplay.updateUserProfile(administrator, userType);
-                    case 10 -> ChangePasswordDisplay.changePassword(administrator, userType);
-                    case 11 -> LogoutDisplay.logout();
+                    case 8 -> manageMedicationReplenishmentRequest(administrator);
+                    case 9 -> UserProfileDisplay.viewUserProfilePage(administrator, userType);
+                    case 10 -> UserProfileDisplay.updateUserProfile(administrator, userType);
+                    case 11 -> ChangePasswordDisplay.changePassword(administrator, userType);
+                    case 12 -> LogoutDisplay.logout();
                     default -> {
                         System.out.println("Invalid choice. Please try again.");
                         administratorDisplay(user);
@@ -149,6 +155,66 @@ public class AdministratorDisplay {
         EnterToGoBackDisplay.display();
     }
 
+    /**
+     * Displays the appointments of all doctors between two dates, in order of
+     * date and time slot. Prompts the user for the first and last date, either
+     * of which may be left empty to leave the range open on that side, and then
+     * for an appointment ID to view further details or "b" to go back.
+     * 
+     * @throws PageBackException if the user chooses to go back to the previous
+     *                           page.
+     */
+    private static void viewAppointmentsByDateDisplay() throws PageBackException {
+        ClearDisplay.ClearConsole();
+        System.out.println("============== VIEW APPOINTMENTS BY DATE ==============");
+        System.out.println();
+        System.out.print("Enter the first date (dd/MM/yyyy), leave empty for no limit or [b] to go back: ");
+        String fromInput = CustScanner.getStrChoice();
+        if (fromInput.equalsIgnoreCase("b")) {
+            throw new PageBackException();
+        }
+        System.out.print("Enter the last date (dd/MM/yyyy) or leave empty for no limit: ");
+        String toInput = CustScanner.getStrChoice();
+        LocalDate from = fromInput.isBlank() ? null : FormatDateTime.parseDate(fromInput);
+        LocalDate to = toInput.isBlank() ? null : FormatDateTime.parseDate(toInput);
+        if ((!fromInput.isBlank() && from == null) || (!toInput.isBlank() && to == null)) {
+            System.out.println("Invalid date. Please use the format dd/MM/yyyy.\n");
+            EnterToGoBackDisplay.display();
+        }
+        ClearDisplay.ClearConsole();
+        List<Appointment> appointments = AppointmentManager.getAppointmentsBetween(from, to);
+        if (appointments.isEmpty()) {
+            System.out.println("No appointments found.\n");
+            EnterToGoBackDisplay.display();
+        }
+        String sixColBorder = "+--------------------------------------+------------+-----------------+----------------------+----------------------+-----------+";
+        System.out.println(sixColBorder);
+        System.out.printf("| %-36s | %-10s | %-15s | %-20s | %-20s | %-9s |%n", "ID", "Date", "Time", "Doctor",
+                "Patient", "Status");
+        System.out.println(sixColBorder);
+        for (Appointment appointment : appointments) {
+            System.out.printf("| %-36s | %-10s | %-15s | %-20s | %-20s | %-9s |%n",
+                    appointment.getAppointmentID(),
+                    appointment.getDateOfAppointment(),
+                    AppointmentDisplay.getTimeSlot(appointment.getTimeOfAppointment()),
+                    appointment.getDoctorID(),
+                    appointment.getPatientID(),
+                    appointment.getAppointmentStatus());
+        }
+        System.out.println(sixColBorder);
+        System.out.println();
+        System.out.printf("Enter appointment ID to view appointment details or [b] to go back: ");
+        String appointmentId = CustScanner.getStrChoice();
+        if (appointmentId.equalsIgnoreCase("b") || appointmentId.isEmpty()) {
+            throw new PageBackException();
+        }
+        try {
+            displayAppointmentDetails(appointmentId);
+        } catch (Exception e) {
+            viewAppointmentsByDateDisplay();
+        }
+    }
+
     /**
      * Displays all appointments for a specified doctor. Clears the console and
      * retrieves the doctor by ID,
@@ -539,7 +605,7 @@ public class AdministratorDisplay {
                     System.out.printf("| %-36s | %-25s | %-20s | %-15s | %-20s | %n", request
                             .getRequestID(),
                             medication.getName(),
-                            +medication.getStock(),
+                            +MedicationManager.getCurrentStock(medication),
                             request.getStatus(),
                             FormatDateTime.formatDateTimeToString(request.getDateOfRequest()));
                 }
@@ -586,9 +652,11 @@ public class AdministratorDisplay {
         }
 
         System.out.println();
-        System.out.println("\t1. Approve medication replenishment request");
-        System.out.println("\t2. Decline medication replenishment request");
-        System.out.println("\t3. Back");
+        System.out.println("\t1. Approve medication replenishment requests");
+        System.out.println("\t2. Decline medication replenishment requests");
+        System.out.println("\t3. Approve all pending requests");
+        System.out.println("\t4. Decline all pending requests");
+        System.out.println("\t5. Back");
         System.out.println();
         System.out.println("=========================================================");
 
@@ -598,7 +666,11 @@ public class AdministratorDisplay {
         switch (choice) {
             case 1 -> approveMedicationReplenishmentRequestDisplay();
             case 2 -> declineMedicationReplenishmentRequestDisplay();
-            case 3 -> throw new PageBackException();
+            case 3 -> System.out.println(
+                    ReplenishmentRequestManager.approveAllPendingRequests() + " request(s) approved.");
+            case 4 -> System.out.println(
+                    ReplenishmentRequestManager.declineAllPendingRequests() + " request(s) declined.");
+            case 5 -> throw new PageBackException();
             default -> {
                 System.out.println("Invalid choice. Please try again.");
                 manageMedicationReplenishmentRequest(user);
@@ -608,9 +680,9 @@ public class AdministratorDisplay {
     }
 
     /**
-     * Displays the approval process for a medication replenishment request,
-     * allowing
-     * the administrator to enter the request ID and approve it.
+     * Displays the approval process for medication replenishment requests,
+     * allowing the administrator to enter one or more request IDs, separated by
+     * commas, and approve them together.
      */
     private static void approveMedicationReplenishmentRequestDisplay() {
         ClearDisplay.ClearConsole();
@@ -618,32 +690,53 @@ public class AdministratorDisplay {
         System.out.println();
         viewPendingRequests();
         System.out.println();
-        System.out.print("Enter request ID: ");
-        String requestId = CustScanner.getStrChoice();
-        if (ReplenishmentRequestManager.approveMedicationReplenishmentRequest(requestId)) {
-            System.out.println("Request approved.");
-        } else {
-            System.out.println("Request not found.");
+        System.out.print("Enter request IDs (separated by commas): ");
+        List<String> requestIds = parseRequestIDs(CustScanner.getStrChoice());
+        int approved = ReplenishmentRequestManager.approveMedicationReplenishmentRequests(requestIds);
+        if (approved > 0) {
+            System.out.println(approved + " request(s) approved.");
+        }
+        if (approved < requestIds.size()) {
+            System.out.println((requestIds.size() - approved) + " request(s) not found or no longer pending.");
         }
     }
 
     /**
-     * Displays the decline process for a medication replenishment request, allowing
-     * the administrator to enter the request ID and decline it.
+     * Displays the decline process for medication replenishment requests,
+     * allowing the administrator to enter one or more request IDs, separated by
+     * commas, and decline them together.
      */
     private static void declineMedicationReplenishmentRequestDisplay() {
         ClearDisplay.ClearConsole();
-        System.out.println("============== APPROVE REPLENISHMENT REQUEST ==============");
+        System.out.println("============== DECLINE REPLENISHMENT REQUEST ==============");
         System.out.println();
         viewPendingRequests();
         System.out.println();
-        System.out.print("Enter request ID: ");
-        String requestId = CustScanner.getStrChoice();
-        if (ReplenishmentRequestManager.approveMedicationReplenishmentRequest(requestId)) {
-            System.out.println("Request approved.");
-        } else {
-            System.out.println("Request not found.");
+        System.out.print("Enter request IDs (separated by commas): ");
+        List<String> requestIds = parseRequestIDs(CustScanner.getStrChoice());
+        int declined = ReplenishmentRequestManager.declineMedicationReplenishmentRequests(requestIds);
+        if (declined > 0) {
+            System.out.println(declined + " request(s) declined.");
+        }
+        if (declined < requestIds.size()) {
+            System.out.println((requestIds.size() - declined) + " request(s) not found or no longer pending.");
+        }
+    }
+
+    /**
+     * Splits the request IDs entered by the administrator.
+     *
+     * @param input the request IDs, separated by commas
+     * @return a list of the distinct, non-blank request IDs
+     */
+    private static List<String> parseRequestIDs(String input) {
+        Set<String> requestIds = new LinkedHashSet<>();
+        for (String requestId : input.split(",")) {
+            if (!requestId.isBlank()) {
+                requestIds.add(requestId.trim());
+            }
         }
+        return new ArrayList<>(requestIds);
     }
 
 }
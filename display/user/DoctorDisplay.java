@@ -107,7 +107,7 @@ public class DoctorDisplay {
         System.out.println("Set Availability for Appointments");
         System.out.println("----------------------------------");
 
-        Map<String, List<String>> currentAvailability = doctor.getAppointmentAvailability();
+        Map<String, List<String>> currentAvailability = DoctorManager.getAppointmentAvailability(doctor);
         if (currentAvailability == null || currentAvailability.isEmpty()) {
             System.out.printf(
                     "You have not set your availability for appointments. Would you like to set it now? [Y/N] ");
@@ -232,7 +232,7 @@ public class DoctorDisplay {
      */
     private static void viewUpcomingAppointments(Doctor doctor) throws PageBackException {
         ClearDisplay.ClearConsole();
-        List<Appointment> upcomingAppointments = AppointmentManager.getScheduledDoctorAppointments(doctor.getModelID());
+        List<Appointment> upcomingAppointments = AppointmentManager.getUpcomingDoctorAppointments(doctor.getModelID());
         if (upcomingAppointments == null || upcomingAppointments.isEmpty() || upcomingAppointments.size() == 0) {
             System.out.println("No upcoming appointments found.");
             System.out.println();
@@ -311,7 +311,7 @@ public class DoctorDisplay {
             PrescriptionDisplay.displayAddNewPresciption(patient, doctor, prescriptionID);
             String diagnosisID = UUID.randomUUID().toString();
             Diagnosis diagnosis = new Diagnosis(
-                    diagnosisID, disease, doctor.getModelID(), prescriptionID, appointment.getDateOfAppointment(),
+                    diagnosisID, disease, doctor.getModelID(), prescriptionID, appointment.getEpochDayOfAppointment(),
                     patient.getPatientID());
             AppointmentOutcomeManager.updateAppointmentOutcome(appointmentOutcome, diagnosis, typeOfService,
                     diagnosisID,
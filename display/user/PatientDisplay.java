@@ -1,9 +1,11 @@
 package display.user;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import controller.appointment.AppointmentManager;
 import controller.appointment.AppointmentOutcomeManager;
+import controller.appointment.FreeSlot;
 import controller.user.DoctorManager;
 import controller.user.PatientManager;
 import display.appointment.AppointmentDisplay;
@@ -22,7 +24,9 @@ import model.user.enums.UserType;
 import utils.exceptions.ModelAlreadyExistsException;
 import utils.exceptions.ModelNotFoundException;
 import utils.exceptions.PageBackException;
+import utils.exceptions.TimeSlotUnavailableException;
 import utils.iocontrol.CustScanner;
+import utils.utils.FormatDateTime;
 
 /**
  * The {@code PatientDisplay} class provides an interface for patients in the
@@ -47,16 +51,17 @@ public class PatientDisplay {
             System.out.println();
             System.out.println("\t1. View medical record");
             System.out.println("\t2. View available appointment slots");
-            System.out.println("\t3. Schedule an appointment");
-            System.out.println("\t4. Reschedule an appointment");
-            System.out.println("\t5. Cancel an appointment");
-            System.out.println("\t6. View scheduled appointments");
-            System.out.println("\t7. View pending appointments");
-            System.out.println("\t8. View past appointment outcome records");
-            System.out.println("\t9. View my profile");
-            System.out.println("\t10. Update my profile");
-            System.out.println("\t11. Change my password");
-            System.out.println("\t12. Logout");
+            System.out.println("\t3. Find the earliest available appointment slots");
+            System.out.println("\t4. Schedule an appointment");
+            System.out.println("\t5. Reschedule an appointment");
+            System.out.println("\t6. Cancel an appointment");
+            System.out.println("\t7. View scheduled appointments");
+            System.out.println("\t8. View pending appointments");
+            System.out.println("\t9. View past appointment outcome records");
+            System.out.println("\t10. View my profile");
+            System.out.println("\t11. Update my profile");
+            System.out.println("\t12. Change my password");
+            System.out.println("\t13. Logout");
             System.out.println();
             System.out.println("===================================");
             System.out.println();
@@ -68,16 +73,17 @@ public class PatientDisplay {
                 switch (choice) {
                     case 1 -> displayPatientInfo(patient);
                     case 2 -> displayAvailableAppointmentSlots(patient);
-                    case 3 -> scheduleAppointment(patient, "schedule", null);
-                    case 4 -> rescheduleAppointment(patient);
-                    case 5 -> cancelAppointment(patient);
-                    case 6 -> viewAppointments(patient, AppointmentStatus.APPROVED);
-                    case 7 -> viewAppointments(patient, AppointmentStatus.PENDING);
-                    case 8 -> displayPastAppointmentRecords(patient);
-                    case 9 -> UserProfileDisplay.viewUserProfilePage(patient, userType);
-                    case 10 -> UserProfileDisplay.updateUserProfile(patient, userType);
-                    case 11 -> ChangePasswordDisplay.changePassword(patient, userType);
-                    case 12 -> LogoutDisplay.logout();
+                    case 3 -> findEarliestAppointmentSlots(patient);
+                    case 4 -> scheduleAppointment(patient, "schedule", null);
+                    case 5 -> rescheduleAppointment(patient);
+                    case 6 -> cancelAppointment(patient);
+                    case 7 -> viewAppointments(patient, AppointmentStatus.APPROVED);
+                    case 8 -> viewAppointments(patient, AppointmentStatus.PENDING);
+                    case 9 -> displayPastAppointmentRecords(patient);
+                    case 10 -> UserProfileDisplay.viewUserProfilePage(patient, userType);
+                    case 11 -> UserProfileDisplay.updateUserProfile(patient, userType);
+                    case 12 -> ChangePasswordDisplay.changePassword(patient, userType);
+                    case 13 -> LogoutDisplay.logout();
                     default -> System.out.println("Invalid option, please try again.");
                 }
             } catch (PageBackException e) {
@@ -224,6 +230,69 @@ public class PatientDisplay {
         EnterToGoBackDisplay.display();
     }
 
+    /**
+     * Displays the earliest free appointment slots from today, of the patient's
+     * assigned doctor or of all doctors, and lets the patient book one of them.
+     * 
+     * @param patient the logged-in patient.
+     * @throws PageBackException if the user chooses to go back to the previous
+     *                           page.
+     */
+    private static void findEarliestAppointmentSlots(Patient patient) throws PageBackException {
+        ClearDisplay.ClearConsole();
+        System.out.println("Earliest Available Appointment Slots");
+        System.out.println("--------------------------------------------");
+        System.out.println();
+        String doctorID = patient.getDoctorID();
+        if (doctorID != null) {
+            System.out.printf("Search the slots of all doctors instead of only your doctor? (Y/N) ");
+            if (CustScanner.getStrChoice().equalsIgnoreCase("y")) {
+                doctorID = null;
+            }
+        }
+
+        List<FreeSlot> freeSlots = AppointmentManager.findEarliestFreeSlots(LocalDateTime.now(), 10, doctorID);
+        String fourColBorder = "+-----+-----------------+----------------------+---------------------------+";
+        System.out.println(fourColBorder);
+        System.out.printf("| %-3s | %-15s | %-20s | %-25s |%n", "No.", "Date", "Time", "Doctor Name");
+        System.out.println(fourColBorder);
+        if (freeSlots.isEmpty()) {
+            System.out.printf("| %-72s |%n", "No available appointment slots found.");
+        }
+        for (int i = 0; i < freeSlots.size(); i++) {
+            FreeSlot freeSlot = freeSlots.get(i);
+            Doctor doctor = DoctorManager.getDoctorByID(freeSlot.doctorID());
+            System.out.printf("| %-3d | %-15s | %-20s | %-25s |%n", i + 1,
+                    FormatDateTime.formatDate(freeSlot.date()),
+                    AppointmentDisplay.getTimeSlot(freeSlot.timeSlot()),
+                    doctor == null ? freeSlot.doctorID() : doctor.getName());
+        }
+        System.out.println(fourColBorder);
+        System.out.println();
+        if (freeSlots.isEmpty()) {
+            EnterToGoBackDisplay.display();
+        }
+
+        System.out.printf("Enter the number of the slot you would like to book or press enter to go back. ");
+        String choice = CustScanner.getStrChoice().trim();
+        if (choice.isEmpty()) {
+            throw new PageBackException();
+        }
+        try {
+            FreeSlot freeSlot = freeSlots.get(Integer.parseInt(choice) - 1);
+            AppointmentManager.scheduleNewAppointment(patient.getPatientID(), freeSlot.doctorID(),
+                    freeSlot.timeSlot(), FormatDateTime.formatDate(freeSlot.date()));
+            System.out.println("Appointment scheduled.");
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            System.out.println("Invalid slot number.");
+        } catch (TimeSlotUnavailableException e) {
+            System.out.println(e.getMessage());
+        } catch (ModelAlreadyExistsException e) {
+            System.out.println("Something went wrong.");
+        }
+        EnterToGoBackDisplay.display();
+    }
+
     /**
      * Displays the patient's medical record and personal information.
      * 
@@ -232,6 +301,7 @@ public class PatientDisplay {
      *                           page.
      */
     public static void displayPatientInfo(Patient patient) throws PageBackException {
+        patient = getLatestPatient(patient);
         ClearDisplay.ClearConsole();
         System.out.println("Medical Record of " + patient.getName());
         System.out.println("--------------------------------------------");
@@ -397,6 +467,22 @@ public class PatientDisplay {
         }
     }
 
+    /**
+     * Gets the latest version of a patient, as changes to the patient are saved
+     * as new versions rather than made to the patient the session was given.
+     *
+     * @param patient the patient.
+     * @return the latest version of the patient, or the patient itself if it
+     *         cannot be found.
+     */
+    private static Patient getLatestPatient(Patient patient) {
+        try {
+            return PatientManager.getPatientById(patient.getModelID());
+        } catch (ModelNotFoundException e) {
+            return patient;
+        }
+    }
+
     /**
      * Displays the interface for adding allergies to the patient's medical record.
      * 
@@ -405,6 +491,7 @@ public class PatientDisplay {
      *                           page.
      */
     private static void addAllergyDisplay(Patient patient) throws PageBackException {
+        patient = getLatestPatient(patient);
         ClearDisplay.ClearConsole();
         System.out.println("Add Allergy");
         System.out.println("--------------------------------------------");
@@ -2,17 +2,19 @@ package display.user;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import controller.medication.DiagnosisManager;
 import controller.medication.MedicationManager;
 import controller.medication.PrescriptionManager;
 import controller.user.PatientManager;
 import controller.user.PharmacistManager;
-import controller.user.UserManager;
 import model.user.User;
 import model.user.enums.UserType;
 import display.appointment.AppointmentOutcomeDisplay;
 import display.medicalRecords.DiagnosisDisplay;
+import display.medicalRecords.MedicationDisplay;
 import display.password.ChangePasswordDisplay;
 import display.session.ClearDisplay;
 import display.session.EnterToGoBackDisplay;
@@ -33,9 +35,18 @@ import utils.iocontrol.CustScanner;
  * medication inventory,
  * view appointment outcome records, update prescription statuses, and manage
  * their profiles.
+ * Medications that fall to their low stock level alert are announced on the
+ * main page the next time it is shown.
  */
 public class PharmacistDisplay {
 
+    private static final Queue<String> lowStockAlerts = new ConcurrentLinkedQueue<>();
+
+    static {
+        MedicationManager.addLowStockListener((medication, stock) -> lowStockAlerts
+                .add(medication.getName() + " is low on stock: " + stock + " left."));
+    }
+
     /**
      * Displays the pharmacist main page, with options to manage inventory,
      * view records, and update profile settings.
@@ -49,15 +60,23 @@ public class PharmacistDisplay {
             System.out.println("Welcome to Pharmacist Main Page");
             System.out.println("Hello, " + pharmacist.getName() + "!");
             System.out.println();
+            if (!lowStockAlerts.isEmpty()) {
+                for (String alert = lowStockAlerts.poll(); alert != null; alert = lowStockAlerts.poll()) {
+                    System.out.println("! " + alert);
+                }
+                System.out.println();
+            }
             System.out.println("\t1. View appointment outcome record");
             System.out.println("\t2. Update prescription status");
             System.out.println("\t3. View medication inventory");
-            System.out.println("\t4. View low stock medication inventory");
-            System.out.println("\t5. Submit medication replenishment request");
-            System.out.println("\t6. View my profile");
-            System.out.println("\t7. Update my profile");
-            System.out.println("\t8. Change my password");
-            System.out.println("\t9. Logout");
+            System.out.println("\t4. View low stock medication inventory ("
+                    + MedicationManager.getLowStockMedicationInventory().size() + ")");
+            System.out.println("\t5. View medication stock history");
+            System.out.println("\t6. Submit medication replenishment request");
+            System.out.println("\t7. View my profile");
+            System.out.println("\t8. Update my profile");
+            System.out.println("\t9. Change my password");
+            System.out.println("\t10. Logout");
             System.out.println("===================================");
             System.out.println();
             System.out.print("What would you like to do? ");
@@ -70,11 +89,12 @@ public class PharmacistDisplay {
                     case 2 -> updatePrescriptionStatusDisplay(user);
                     case 3 -> viewMedInv();
                     case 4 -> viewLowMedicationInventory();
-                    case 5 -> submitRequest(user);
-                    case 6 -> UserProfileDisplay.viewUserProfilePage(pharmacist, userType);
-                    case 7 -> UserProfileDisplay.updateUserProfile(pharmacist, userType);
-                    case 8 -> ChangePasswordDisplay.changePassword(pharmacist, userType);
-                    case 9 -> LogoutDisplay.logout();
+                    case 5 -> MedicationDisplay.viewStockHistory();
+                    case 6 -> submitRequest(user);
+                    case 7 -> UserProfileDisplay.viewUserProfilePage(pharmacist, userType);
+                    case 8 -> UserProfileDisplay.updateUserProfile(pharmacist, userType);
+                    case 9 -> ChangePasswordDisplay.changePassword(pharmacist, userType);
+                    case 10 -> LogoutDisplay.logout();
                     default -> {
                         System.out.println("Invalid choice. Please try again.");
                         pharmacistDisplay(user);
@@ -209,9 +229,8 @@ public class PharmacistDisplay {
         try {
             String prescriptionID = patientDiagnosis.getPrescriptionID();
             PrescriptionManager.updatePrescriptionStatus(prescriptionID, newStatus);
-            UserManager.updateUser(patient);
         } catch (Exception e) {
-            System.out.println("Error updating prescription status");
+            System.out.println("Error updating prescription status: " + e.getMessage());
         }
 
         EnterToGoBackDisplay.display();
@@ -265,7 +284,7 @@ public class PharmacistDisplay {
         }
         for (Medication medication : medications) {
             System.out.printf("| %-36s | %-20s | %-10s | %n", medication.getModelID(), medication.getName(),
-                    medication.getStock());
+                    MedicationManager.getCurrentStock(medication));
         }
         System.out.println(threeColBorder);
         System.out.println();
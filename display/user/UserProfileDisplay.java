@@ -8,6 +8,7 @@ import display.session.ClearDisplay;
 import display.session.EnterToGoBackDisplay;
 import model.user.User;
 import model.user.enums.UserType;
+import utils.exceptions.ModelNotFoundException;
 import utils.exceptions.PageBackException;
 import utils.iocontrol.CustScanner;
 import utils.utils.FormatDateTime;
@@ -64,11 +65,28 @@ public class UserProfileDisplay {
          */
         public static void viewUserProfilePage(User user, UserType userType) throws PageBackException {
                 ClearDisplay.ClearConsole();
-                viewUserProfile(user, userType);
+                viewUserProfile(getLatestUser(user, userType), userType);
                 System.out.println();
                 EnterToGoBackDisplay.display();
         }
 
+        /**
+         * Gets the latest version of a user, as profile changes are saved as new
+         * versions rather than made to the user the session was given.
+         *
+         * @param user     the user.
+         * @param userType the type of the user.
+         * @return the latest version of the user, or the user itself if it cannot
+         *         be found.
+         */
+        private static User getLatestUser(User user, UserType userType) {
+                try {
+                        return UserManager.findUserById(user.getModelID(), userType);
+                } catch (ModelNotFoundException e) {
+                        return user;
+                }
+        }
+
         /**
          * Displays the menu for updating the user's profile information. Allows the
          * user
@@ -83,10 +101,12 @@ public class UserProfileDisplay {
          *                           page.
          */
         public static void updateUserProfile(User user, UserType userType) throws PageBackException {
+                user = getLatestUser(user, userType);
                 ClearDisplay.ClearConsole();
                 System.out.println("Your profile");
                 System.out.println("--------------------------------");
                 profileFields(user);
+                int shownVersion = user.getModelVersion();
                 System.out.println();
                 System.out.println("\t1. Name");
                 System.out.println("\t2. Email");
@@ -122,6 +142,11 @@ public class UserProfileDisplay {
                                 System.out.printf("Enter new %s: ", inputField);
                         }
                         String newValue = CustScanner.getStrChoice();
+                        if (choice == 5 && FormatDateTime.parseDate(newValue) == null) {
+                                System.out.println("Invalid date. Please use the format DD/MM/YYYY.");
+                                System.out.println();
+                                continue;
+                        }
 
                         updatedFields.put(inputField, newValue);
 
@@ -138,7 +163,7 @@ public class UserProfileDisplay {
                 System.out.printf("Do you want to save these changes? (y/n) ");
                 if (CustScanner.getStrChoice().equalsIgnoreCase("y")) {
                         try {
-                                UserManager.updateUserProfile(user, userType, updatedFields);
+                                UserManager.updateUserProfile(user, userType, updatedFields, shownVersion);
                         } catch (Exception e) {
                                 System.out.println("Error updating profile: " + e.getMessage());
                         }
@@ -29,4 +29,20 @@ public interface Model extends Mappable {
     default String getModelEmail() {
         return null;
     }
+
+    /**
+     * Retrieves the version of the model entity, which is persisted with it and
+     * goes up by one on every update, so that concurrent updates can be
+     * detected.
+     *
+     * @return the version of the model.
+     */
+    int getModelVersion();
+
+    /**
+     * Sets the version of the model entity.
+     *
+     * @param modelVersion the version to set.
+     */
+    void setModelVersion(int modelVersion);
 }
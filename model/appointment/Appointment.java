@@ -4,19 +4,31 @@ import java.util.Map;
 
 import model.Model;
 import model.appointment.enums.AppointmentStatus;
+import utils.iocontrol.EpochDay;
+import utils.utils.FormatDateTime;
 
 /**
  * Represents an appointment in the hospital management system.
  * Each appointment is identified by a unique ID and has an associated status,
  * patient ID, doctor ID, date, and time.
+ * The date is held as an epoch day, and only formatted when it is displayed.
  */
 public class Appointment implements Model {
     private String appointmentID;
     private AppointmentStatus appointmentStatus;
-    private String dateOfAppointment;
+    @EpochDay
+    private long dateOfAppointment = FormatDateTime.NO_DATE;
     private int timeOfAppointment;
     private String patientID;
     private String doctorID;
+    private int modelVersion;
+
+    /**
+     * Constructs a new empty Appointment, whose fields are set when it is
+     * loaded.
+     */
+    public Appointment() {
+    }
 
     /**
      * Constructs a new Appointment with the specified details.
@@ -25,13 +37,13 @@ public class Appointment implements Model {
      * @param appointmentStatus the current status of the appointment
      * @param patientID         the ID of the patient associated with this
      *                          appointment
-     * @param dateOfAppointment the date of the appointment
+     * @param dateOfAppointment the date of the appointment, as an epoch day
      * @param appointmentTime   the time of the appointment in 24-hour format
      * @param doctorID          the ID of the doctor associated with this
      *                          appointment
      */
     public Appointment(String appointmentID, AppointmentStatus appointmentStatus, String patientID,
-            String dateOfAppointment, int appointmentTime, String doctorID) {
+            long dateOfAppointment, int appointmentTime, String doctorID) {
         this.appointmentID = appointmentID;
         this.appointmentStatus = appointmentStatus;
         this.patientID = patientID;
@@ -102,18 +114,29 @@ public class Appointment implements Model {
     /**
      * Sets the date of the appointment.
      *
-     * @param date the date to set for the appointment
+     * @param date the date to set for the appointment, as an epoch day
      */
-    public void setDateOfAppointment(String date) {
+    public void setDateOfAppointment(long date) {
         this.dateOfAppointment = date;
     }
 
     /**
-     * Retrieves the date of the appointment.
+     * Retrieves the date of the appointment, formatted for display.
      *
-     * @return the date of the appointment
+     * @return the date of the appointment in "dd/MM/yyyy" format, or null if it
+     *         is not set
      */
     public String getDateOfAppointment() {
+        return FormatDateTime.formatEpochDay(dateOfAppointment);
+    }
+
+    /**
+     * Retrieves the date of the appointment as an epoch day.
+     *
+     * @return the epoch day of the appointment, or
+     *         {@link FormatDateTime#NO_DATE} if it is not set
+     */
+    public long getEpochDayOfAppointment() {
         return dateOfAppointment;
     }
 
@@ -161,4 +184,23 @@ public class Appointment implements Model {
     public void setDoctorID(String doctorID) {
         this.doctorID = doctorID;
     }
+
+    /**
+     * Retrieves the version of the appointment, which goes up by one every time
+     * the appointment is updated.
+     *
+     * @return the version of the appointment.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the appointment.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
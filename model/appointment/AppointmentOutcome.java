@@ -21,6 +21,7 @@ public class AppointmentOutcome implements Model {
     private String diagnosisID;
     private String appointmentID;
     private AppointmentOutcomeStatus status;
+    private int modelVersion;
 
     /**
      * Constructs an AppointmentOutcome with all specified fields.
@@ -226,4 +227,23 @@ public class AppointmentOutcome implements Model {
     public void setStatus(AppointmentOutcomeStatus status) {
         this.status = status;
     }
+
+    /**
+     * Retrieves the version of the appointment outcome, which goes up by one every time
+     * the appointment outcome is updated.
+     *
+     * @return the version of the appointment outcome.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the appointment outcome.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -3,11 +3,14 @@ package model.diagnosis;
 import java.util.Map;
 
 import model.Model;
+import utils.iocontrol.EpochDay;
+import utils.utils.FormatDateTime;
 
 /**
  * This class represents a diagnosis made by a doctor for a patient.
  * It contains information about the patient's diagnosis, including the
  * disease, doctor, prescription, and date of diagnosis.
+ * The date is held as an epoch day, and only formatted when it is displayed.
  */
 public class Diagnosis implements Model {
     private String patientID;
@@ -15,7 +18,9 @@ public class Diagnosis implements Model {
     private String disease;
     private String doctorID;
     private String prescriptionID;
-    private String dateOfDiagnosis;
+    @EpochDay
+    private long dateOfDiagnosis = FormatDateTime.NO_DATE;
+    private int modelVersion;
 
     /**
      * Default constructor for Diagnosis.
@@ -32,11 +37,11 @@ public class Diagnosis implements Model {
      *                        diagnosis.
      * @param prescriptionID  the unique identifier for the prescription associated
      *                        with the diagnosis.
-     * @param dateOfDiagnosis the date the diagnosis was made.
+     * @param dateOfDiagnosis the date the diagnosis was made, as an epoch day.
      * @param patientID       the unique identifier for the patient.
      */
     public Diagnosis(String diagnosisID, String disease, String doctorID, String prescriptionID,
-            String dateOfDiagnosis, String patientID) {
+            long dateOfDiagnosis, String patientID) {
         this.diagnosisID = diagnosisID;
         this.disease = disease;
         this.doctorID = doctorID;
@@ -91,20 +96,31 @@ public class Diagnosis implements Model {
     }
 
     /**
-     * Retrieves the date of the diagnosis.
+     * Retrieves the date of the diagnosis, formatted for display.
      *
-     * @return the date the diagnosis was made.
+     * @return the date the diagnosis was made in "dd/MM/yyyy" format, or null
+     *         if it is not set.
      */
     public String getDateOfDiagnosis() {
+        return FormatDateTime.formatEpochDay(dateOfDiagnosis);
+    }
+
+    /**
+     * Retrieves the date of the diagnosis as an epoch day.
+     *
+     * @return the epoch day the diagnosis was made, or
+     *         {@link FormatDateTime#NO_DATE} if it is not set.
+     */
+    public long getEpochDayOfDiagnosis() {
         return dateOfDiagnosis;
     }
 
     /**
      * Sets the date of the diagnosis.
      *
-     * @param dateOfDiagnosis the date to set for the diagnosis.
+     * @param dateOfDiagnosis the date to set for the diagnosis, as an epoch day.
      */
-    public void setDateOfDiagnosis(String dateOfDiagnosis) {
+    public void setDateOfDiagnosis(long dateOfDiagnosis) {
         this.dateOfDiagnosis = dateOfDiagnosis;
     }
 
@@ -171,4 +187,22 @@ public class Diagnosis implements Model {
         this.patientID = patientID;
     }
 
+    /**
+     * Retrieves the version of the diagnosis, which goes up by one every time
+     * the diagnosis is updated.
+     *
+     * @return the version of the diagnosis.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the diagnosis.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -16,6 +16,14 @@ public class Medication implements Model {
     private String name;
     private int stock;
     private int lowStockLevelAlert;
+    private int stockSequence;
+    private int modelVersion;
+
+    /**
+     * Constructs an empty Medication, whose fields are set when it is loaded.
+     */
+    public Medication() {
+    }
 
     /**
      * Constructs a Medication with all specified fields.
@@ -105,4 +113,43 @@ public class Medication implements Model {
         this.lowStockLevelAlert = lowStockLevelAlert;
     }
 
+    /**
+     * Retrieves the sequence of the last stock movement included in the stock of
+     * the medication. Stock movements with a higher sequence in the stock ledger
+     * are not yet included.
+     *
+     * @return the sequence of the last stock movement in the stock.
+     */
+    public int getStockSequence() {
+        return stockSequence;
+    }
+
+    /**
+     * Sets the sequence of the last stock movement included in the stock of the
+     * medication.
+     *
+     * @param stockSequence the sequence to set.
+     */
+    public void setStockSequence(int stockSequence) {
+        this.stockSequence = stockSequence;
+    }
+
+    /**
+     * Retrieves the version of the medication, which goes up by one every time
+     * the medication is updated.
+     *
+     * @return the version of the medication.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the medication.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -0,0 +1,128 @@
+package model.medication;
+
+import java.util.Date;
+import java.util.Map;
+
+import model.Model;
+import model.medication.enums.StockMovementType;
+
+/**
+ * Represents one change to the stock of a medication in the stock ledger.
+ * This class contains information about the movement's unique ID, the
+ * medication it applies to, its type, the signed change in stock, its position
+ * in the ledger, and when it happened.
+ * The stock of a medication is its last snapshot plus every movement recorded
+ * after it.
+ */
+public class StockMovement implements Model {
+    private String stockMovementID;
+    private String medicationID;
+    private StockMovementType type;
+    private int quantity;
+    private int sequence;
+    private Date dateOfMovement;
+    private int modelVersion;
+
+    /**
+     * Constructs a StockMovement with all specified fields.
+     *
+     * @param stockMovementID the unique identifier for the movement.
+     * @param medicationID    the unique identifier of the medication.
+     * @param type            the type of the movement.
+     * @param quantity        the change in stock, negative if units were taken.
+     * @param sequence        the position of the movement in the ledger.
+     * @param dateOfMovement  the date the movement happened.
+     */
+    public StockMovement(String stockMovementID, String medicationID, StockMovementType type, int quantity,
+            int sequence, Date dateOfMovement) {
+        this.stockMovementID = stockMovementID;
+        this.medicationID = medicationID;
+        this.type = type;
+        this.quantity = quantity;
+        this.sequence = sequence;
+        this.dateOfMovement = dateOfMovement;
+    }
+
+    /**
+     * Constructs a StockMovement by converting a map of attributes.
+     *
+     * @param map a map of stock movement attributes.
+     */
+    public StockMovement(Map<String, String> map) {
+        this.convertToObject(map);
+    }
+
+    /**
+     * Retrieves the unique identifier for the movement.
+     *
+     * @return the ID of the movement.
+     */
+    public String getModelID() {
+        return this.stockMovementID;
+    }
+
+    /**
+     * Retrieves the unique identifier of the medication the movement applies to.
+     *
+     * @return the ID of the medication.
+     */
+    public String getMedicationID() {
+        return medicationID;
+    }
+
+    /**
+     * Retrieves the type of the movement.
+     *
+     * @return the type of the movement.
+     */
+    public StockMovementType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the change in stock, which is negative if units were taken.
+     *
+     * @return the change in stock.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Retrieves the position of the movement in the ledger. Later movements have
+     * higher sequences.
+     *
+     * @return the sequence of the movement.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Retrieves the date the movement happened.
+     *
+     * @return the date of the movement.
+     */
+    public Date getDateOfMovement() {
+        return dateOfMovement;
+    }
+
+    /**
+     * Retrieves the version of the movement, which goes up by one every time the
+     * movement is updated.
+     *
+     * @return the version of the movement.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the movement.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+}
@@ -0,0 +1,58 @@
+package model.medication.enums;
+
+/**
+ * Enum representing the kind of a change to the stock of a medication.
+ * Possible types include:
+ * <ul>
+ * <li>DISPENSE: Units were dispensed for a prescription.</li>
+ * <li>REPLENISHMENT: Units were added, such as for an approved replenishment
+ * request.</li>
+ * <li>ADJUSTMENT: The stock was corrected by hand.</li>
+ * <li>DELETE: The medication was removed, along with its remaining stock.</li>
+ * </ul>
+ */
+public enum StockMovementType {
+    /**
+     * Units were dispensed for a prescription.
+     */
+    DISPENSE,
+
+    /**
+     * Units were added, such as for an approved replenishment request.
+     */
+    REPLENISHMENT,
+
+    /**
+     * The stock was corrected by hand.
+     */
+    ADJUSTMENT,
+
+    /**
+     * The medication was removed, along with its remaining stock.
+     */
+    DELETE;
+
+    /**
+     * Converts a string representation of a stock movement type to a
+     * StockMovementType enum.
+     *
+     * @param type the string representation of the type
+     * @return the corresponding StockMovementType
+     * @throws IllegalArgumentException if the type does not match any known
+     *                                  values
+     */
+    public static StockMovementType fromString(String type) {
+        switch (type) {
+            case "DISPENSE":
+                return DISPENSE;
+            case "REPLENISHMENT":
+                return REPLENISHMENT;
+            case "ADJUSTMENT":
+                return ADJUSTMENT;
+            case "DELETE":
+                return DELETE;
+            default:
+                throw new IllegalArgumentException("Unknown stock movement type: " + type);
+        }
+    }
+}
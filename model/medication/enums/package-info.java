@@ -0,0 +1,4 @@
+/**
+ * This package contains the enums used in the medication model.
+ */
+package model.medication.enums;
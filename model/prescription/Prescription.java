@@ -21,6 +21,7 @@ public class Prescription implements Model {
     private Date dateOfPrescription;
     private String drugInstructions;
     private PrescriptionStatus prescriptionStatus;
+    private int modelVersion;
 
     /**
      * Default constructor for Prescription.
@@ -241,4 +242,23 @@ public class Prescription implements Model {
     public void setPrescriptionStatus(PrescriptionStatus prescriptionStatus) {
         this.prescriptionStatus = prescriptionStatus;
     }
+
+    /**
+     * Retrieves the version of the prescription, which goes up by one every time
+     * the prescription is updated.
+     *
+     * @return the version of the prescription.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the prescription.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -9,7 +9,8 @@ import model.request.enums.RequestStatus;
 /**
  * Represents a replenishment request for medication inventory in the system.
  * This class provides information about the request ID, status, request date,
- * modification date, and associated medication ID.
+ * modification date, associated medication ID, and the number of requests for
+ * the medication merged into it while it was pending.
  */
 public class ReplenishmentRequest implements Model {
     private String replenishmentRequestID;
@@ -17,6 +18,8 @@ public class ReplenishmentRequest implements Model {
     private Date dateOfRequest;
     private Date dateOfModification;
     private String medicationID;
+    private int requestCount;
+    private int modelVersion;
 
     /**
      * Constructs a ReplenishmentRequest with all specified fields.
@@ -37,6 +40,7 @@ public class ReplenishmentRequest implements Model {
         this.dateOfRequest = dateOfRequest;
         this.dateOfModification = dateOfModification;
         this.medicationID = medicationID;
+        this.requestCount = 1;
     }
 
     /**
@@ -139,4 +143,43 @@ public class ReplenishmentRequest implements Model {
     public void setMedicationID(String medicationID) {
         this.medicationID = medicationID;
     }
+
+    /**
+     * Retrieves the number of requests for the medication merged into this
+     * replenishment request, counting the first one.
+     *
+     * @return the number of merged requests.
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Sets the number of requests for the medication merged into this
+     * replenishment request.
+     *
+     * @param requestCount the number of merged requests to set.
+     */
+    public void setRequestCount(int requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    /**
+     * Retrieves the version of the replenishment request, which goes up by one every time
+     * the replenishment request is updated.
+     *
+     * @return the version of the replenishment request.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the replenishment request.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
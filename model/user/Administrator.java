@@ -17,6 +17,8 @@ public class Administrator implements User {
 
     private String password;
 
+    private int modelVersion;
+
     /**
      * Constructs an Administrator with specified ID, personal information, and
      * password.
@@ -199,4 +201,23 @@ public class Administrator implements User {
     public void setDateOfBirth(String dateOfBirth) {
         personalInfo.setDateOfBirth(dateOfBirth);
     }
+
+    /**
+     * Retrieves the version of the administrator, which goes up by one every time
+     * the administrator is updated.
+     *
+     * @return the version of the administrator.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the administrator.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -25,6 +25,8 @@ public class Doctor implements User {
 
     private Map<String, List<String>> appointmentAvailability;
 
+    private int modelVersion;
+
     /**
      * Constructs a Doctor with specified ID, password, personal information,
      * appointments,
@@ -265,4 +267,22 @@ public class Doctor implements User {
         personalInfo.setDateOfBirth(dateOfBirth);
     }
 
+    /**
+     * Retrieves the version of the doctor, which goes up by one every time
+     * the doctor is updated.
+     *
+     * @return the version of the doctor.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the doctor.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -20,6 +20,7 @@ public class Patient implements User {
     private PersonalInfo personalInfo;
     private ArrayList<String> allergies;
     private BloodType bloodType;
+    private int modelVersion;
     private ArrayList<String> diagnosisIDs = new ArrayList<>();
 
     /**
@@ -334,4 +335,23 @@ public class Patient implements User {
     public void addAllergy(String allergy) {
         this.allergies.add(allergy);
     }
+
+    /**
+     * Retrieves the version of the patient, which goes up by one every time
+     * the patient is updated.
+     *
+     * @return the version of the patient.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the patient.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
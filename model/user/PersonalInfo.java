@@ -3,7 +3,9 @@ package model.user;
 import java.util.Date;
 
 import model.user.enums.Gender;
+import utils.iocontrol.EpochDay;
 import utils.iocontrol.Mappable;
+import utils.utils.FormatDateTime;
 
 /**
  * Represents the personal information of a user in the hospital management
@@ -16,7 +18,8 @@ public class PersonalInfo implements Mappable {
     private String name;
     private Gender gender;
     private int age;
-    private String dateOfBirth;
+    @EpochDay
+    private long dateOfBirth = FormatDateTime.NO_DATE;
     private String emailAddress;
     private String phoneNumber;
     private Date dateOfRegistration;
@@ -27,12 +30,12 @@ public class PersonalInfo implements Mappable {
      * @param name               the name of the person.
      * @param gender             the gender of the person.
      * @param age                the age of the person.
-     * @param dateOfBirth        the date of birth of the person.
+     * @param dateOfBirth        the date of birth of the person, as an epoch day.
      * @param emailAddress       the email address of the person.
      * @param phoneNumber        the phone number of the person.
      * @param dateOfRegistration the date when the person registered.
      */
-    public PersonalInfo(String name, Gender gender, int age, String dateOfBirth, String emailAddress,
+    public PersonalInfo(String name, Gender gender, int age, long dateOfBirth, String emailAddress,
             String phoneNumber, Date dateOfRegistration) {
         this.name = name;
         this.gender = gender;
@@ -88,12 +91,13 @@ public class PersonalInfo implements Mappable {
     }
 
     /**
-     * Retrieves the date of birth of the person.
+     * Retrieves the date of birth of the person, formatted for display.
      *
-     * @return the date of birth.
+     * @return the date of birth in "dd/MM/yyyy" format, or null if it is not
+     *         set.
      */
     public String getDateOfBirth() {
-        return dateOfBirth;
+        return FormatDateTime.formatEpochDay(dateOfBirth);
     }
 
     /**
@@ -130,7 +134,7 @@ public class PersonalInfo implements Mappable {
         System.out.println("Name: " + name);
         System.out.println("Gender: " + gender);
         System.out.println("Age: " + age);
-        System.out.println("Date of Birth: " + dateOfBirth);
+        System.out.println("Date of Birth: " + getDateOfBirth());
         System.out.println("Email Address: " + emailAddress);
         System.out.println("Phone Number: " + phoneNumber);
     }
@@ -165,10 +169,10 @@ public class PersonalInfo implements Mappable {
     /**
      * Sets the date of birth of the person.
      *
-     * @param dateOfBirth the date of birth to set.
+     * @param dateOfBirth the date of birth to set, in "dd/MM/yyyy" format.
      */
     public void setDateOfBirth(String dateOfBirth) {
-        this.dateOfBirth = dateOfBirth;
+        this.dateOfBirth = FormatDateTime.toEpochDay(dateOfBirth);
     }
 
     /**
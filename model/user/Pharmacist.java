@@ -14,6 +14,7 @@ public class Pharmacist implements User {
     private String pharmacistID;
     private PersonalInfo personalInfo;
     private String password;
+    private int modelVersion;
 
     /**
      * Constructs a Pharmacist with specified ID, personal information, and
@@ -199,4 +200,23 @@ public class Pharmacist implements User {
     public void setDateOfBirth(String dateOfBirth) {
         personalInfo.setDateOfBirth(dateOfBirth);
     }
+
+    /**
+     * Retrieves the version of the pharmacist, which goes up by one every time
+     * the pharmacist is updated.
+     *
+     * @return the version of the pharmacist.
+     */
+    public int getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Sets the version of the pharmacist.
+     *
+     * @param modelVersion the version to set.
+     */
+    public void setModelVersion(int modelVersion) {
+        this.modelVersion = modelVersion;
+    }
 }
@@ -0,0 +1,119 @@
+package tests.Database;
+
+import database.Database;
+import model.medication.Medication;
+import utils.exceptions.ModelAlreadyExistsException;
+import utils.iocontrol.AppendLog;
+import utils.iocontrol.LogCompactor;
+import utils.iocontrol.PersistenceMode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class tests that compacting the append log of a {@link Database} keeps
+ * every change made since the data file was last saved.
+ */
+public class AppendLogCompactionTest {
+
+    private static final int MEDICATIONS = 50;
+
+    /**
+     * A Database of medications stored in a file of its own.
+     */
+    private static class TestDatabase extends Database<Medication> {
+
+        private final String filePath;
+
+        TestDatabase(String filePath) {
+            super();
+            this.filePath = filePath;
+            setPersistenceMode(PersistenceMode.APPEND_LOG);
+            setWriteBehind(false);
+            load();
+        }
+
+        @Override
+        public String getFilePath() {
+            return filePath;
+        }
+
+        @Override
+        public void setAll(List<Map<String, String>> listOfMappableObjects) {
+            for (Map<String, String> map : listOfMappableObjects) {
+                getAll().add(new Medication(map));
+            }
+        }
+    }
+
+    /**
+     * This method tests that the medications modified after a save, and then
+     * compacted, still have their new stock once the Database is loaded again.
+     * To run locally:
+     * javac -d bin $(git ls-files '*.java')
+     * java -cp bin tests.Database.AppendLogCompactionTest
+     *
+     * @param args the command line arguments
+     * @throws Exception if the test could not be run
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty(AppendLog.SEGMENT_SIZE_PROPERTY, "512");
+        Path directory = Files.createTempDirectory("compaction");
+        String filePath = directory.resolve("medication.txt").toString();
+
+        TestDatabase database = new TestDatabase(filePath);
+        addMedications(database);
+        database.save();
+        for (int round = 1; round <= 3; round++) {
+            final int stock = round;
+            for (int i = 0; i < MEDICATIONS; i++) {
+                database.modify("M" + i, medication -> medication.setStock(stock * 100));
+            }
+        }
+        awaitCompactions();
+
+        TestDatabase reloaded = new TestDatabase(filePath);
+        int wrong = 0;
+        for (int i = 0; i < MEDICATIONS; i++) {
+            int stock = reloaded.getByID("M" + i).getStock();
+            if (stock != 300) {
+                System.out.println("M" + i + " has stock " + stock + " instead of 300");
+                wrong++;
+            }
+        }
+        deleteDirectory(directory);
+        if (wrong > 0) {
+            throw new AssertionError(wrong + " of " + MEDICATIONS + " medications lost their changes");
+        }
+        System.out.println("All " + MEDICATIONS + " medications kept their changes");
+    }
+
+    private static void addMedications(TestDatabase database) throws ModelAlreadyExistsException {
+        for (int i = 0; i < MEDICATIONS; i++) {
+            database.add(new Medication("M" + i, "Medication " + i, 10, 5));
+        }
+    }
+
+    /**
+     * Waits for the compactions queued so far, as the compactor runs them one
+     * at a time in order.
+     */
+    private static void awaitCompactions() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        LogCompactor.submit(done::countDown);
+        done.await();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,135 @@
+package tests.Database;
+
+import database.Database;
+import model.medication.Medication;
+import utils.exceptions.ModelNotFoundException;
+import utils.iocontrol.MappedRecordReader;
+import utils.iocontrol.PersistenceMode;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class tests that loading a {@link Database} skips a record with a value
+ * that cannot be decoded, and still loads every other record.
+ */
+public class CorruptRecordLoadTest {
+
+    private static final String CORRUPT_ID = "M1";
+
+    /**
+     * A Database of medications stored in a file of its own, loaded either from
+     * maps or straight into medications.
+     */
+    private static class TestDatabase extends Database<Medication> {
+
+        private final String filePath;
+
+        private final boolean decodeLines;
+
+        TestDatabase(String filePath, boolean decodeLines) {
+            super();
+            this.filePath = filePath;
+            this.decodeLines = decodeLines;
+            setPersistenceMode(PersistenceMode.SNAPSHOT);
+            setWriteBehind(false);
+            load();
+        }
+
+        @Override
+        public String getFilePath() {
+            return filePath;
+        }
+
+        @Override
+        protected Medication newMappableObject() {
+            return decodeLines ? new Medication() : null;
+        }
+
+        @Override
+        public void setAll(List<Map<String, String>> listOfMappableObjects) {
+            for (Map<String, String> map : listOfMappableObjects) {
+                getAll().add(new Medication(map));
+            }
+        }
+    }
+
+    /**
+     * This method tests that a medication whose stock is not a number is skipped
+     * when its file is loaded from maps, decoded line by line, and read through
+     * a memory mapping, and that the medications around it are loaded.
+     * To run locally:
+     * javac -d bin $(git ls-files '*.java')
+     * java -cp bin tests.Database.CorruptRecordLoadTest
+     *
+     * @param args the command line arguments
+     * @throws Exception if the test could not be run
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("corrupt");
+        String filePath = directory.resolve("medication.txt").toString();
+
+        TestDatabase database = new TestDatabase(filePath, false);
+        for (int i = 0; i < 3; i++) {
+            database.add(new Medication("M" + i, "Medication " + i, 100 + i, 10));
+        }
+        database.save();
+        corruptStock(Path.of(filePath));
+
+        check("loaded from maps", new TestDatabase(filePath, false));
+        check("decoded line by line", new TestDatabase(filePath, true));
+        System.setProperty(MappedRecordReader.THRESHOLD_PROPERTY, "0");
+        try {
+            check("read through a memory mapping", new TestDatabase(filePath, true));
+        } finally {
+            System.clearProperty(MappedRecordReader.THRESHOLD_PROPERTY);
+        }
+        System.out.println("Every load skipped the corrupt record and kept the others");
+    }
+
+    /**
+     * Replaces the stock of the corrupt medication in its file with a value that
+     * is not a number.
+     *
+     * @param file the file of the Database
+     * @throws Exception if the file could not be rewritten
+     */
+    private static void corruptStock(Path file) throws Exception {
+        StringBuilder corrupted = new StringBuilder();
+        boolean found = false;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.contains(CORRUPT_ID + "\u001a")) {
+                String corruptLine = line.replaceFirst("stock(\u001b+)101", "stock$1one hundred and one");
+                found = !corruptLine.equals(line);
+                line = corruptLine;
+            }
+            corrupted.append(line).append('\n');
+        }
+        if (!found) {
+            throw new AssertionError("stock of " + CORRUPT_ID + " not found in " + file);
+        }
+        Files.writeString(file, corrupted, StandardCharsets.UTF_8);
+    }
+
+    private static void check(String name, TestDatabase database) throws ModelNotFoundException {
+        if (database.contains(CORRUPT_ID)) {
+            throw new AssertionError(name + ": the corrupt record was loaded");
+        }
+        for (int i : new int[] { 0, 2 }) {
+            int stock = database.getByID("M" + i).getStock();
+            if (stock != 100 + i) {
+                throw new AssertionError(name + ": M" + i + " has stock " + stock);
+            }
+        }
+        int loaded = 0;
+        for (Medication medication : database) {
+            loaded++;
+        }
+        if (loaded != 2) {
+            throw new AssertionError(name + ": loaded " + loaded + " records");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tests.controller;
+
+import controller.appointment.DoctorCalendar;
+import controller.appointment.DoctorCalendarManager;
+import controller.appointment.FreeSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class tests the search for the earliest free time slots across the
+ * calendars of several doctors.
+ */
+public class FindEarliestFreeSlotsTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2030, 1, 7);
+
+    /**
+     * This method tests that the free slots are found in order of date and time
+     * slot, that ties between doctors are broken by doctor ID, and that booked
+     * slots and slots that already started are skipped.
+     * To run locally:
+     * javac -d bin $(git ls-files '*.java')
+     * java -cp bin tests.controller.FindEarliestFreeSlotsTest
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (MONDAY.getDayOfWeek() != DayOfWeek.MONDAY) {
+            throw new AssertionError(MONDAY + " is not a Monday");
+        }
+        LocalDateTime mondayMorning = MONDAY.atTime(8, 0);
+
+        check("ordered by date and time slot, ties by doctor ID",
+                DoctorCalendarManager.findEarliestFreeSlots(newCalendars(), mondayMorning, 5, 14),
+                new FreeSlot("D1", MONDAY, 1), new FreeSlot("D2", MONDAY, 1), new FreeSlot("D1", MONDAY, 2),
+                new FreeSlot("D2", MONDAY, 3), new FreeSlot("D1", MONDAY.plusDays(7), 1));
+
+        Map<String, DoctorCalendar> calendars = newCalendars();
+        calendars.get("D1").book(MONDAY, 1);
+        calendars.get("D2").book(MONDAY, 3);
+        check("booked slots skipped",
+                DoctorCalendarManager.findEarliestFreeSlots(calendars, mondayMorning, 3, 14),
+                new FreeSlot("D2", MONDAY, 1), new FreeSlot("D1", MONDAY, 2), new FreeSlot("D1", MONDAY.plusDays(7), 1));
+
+        check("slots that already started skipped",
+                DoctorCalendarManager.findEarliestFreeSlots(newCalendars(), MONDAY.atTime(9, 10), 3, 14),
+                new FreeSlot("D1", MONDAY, 2), new FreeSlot("D2", MONDAY, 3), new FreeSlot("D1", MONDAY.plusDays(7), 1));
+
+        check("slot starting now kept",
+                DoctorCalendarManager.findEarliestFreeSlots(newCalendars(), MONDAY.atTime(9, 30), 1, 14),
+                new FreeSlot("D1", MONDAY, 2));
+
+        check("search limited to the horizon",
+                DoctorCalendarManager.findEarliestFreeSlots(newCalendars(), MONDAY.atTime(LocalTime.NOON), 10, 7));
+
+        System.out.println("All searches found the expected slots");
+    }
+
+    /**
+     * Creates the calendars of two doctors who are both available on Mondays,
+     * D1 for time slots 1 and 2 and D2 for time slots 1 and 3. D2 is added
+     * first, so ties are not broken by the order of the calendars.
+     *
+     * @return the calendars, by the ID of their doctor
+     */
+    private static Map<String, DoctorCalendar> newCalendars() {
+        Map<String, DoctorCalendar> calendars = new LinkedHashMap<>();
+        calendars.put("D2", newCalendar("1", "3"));
+        calendars.put("D1", newCalendar("1", "2"));
+        return calendars;
+    }
+
+    private static DoctorCalendar newCalendar(String... mondaySlots) {
+        DoctorCalendar calendar = new DoctorCalendar();
+        calendar.setWeeklyAvailability(Map.of("1", List.of(mondaySlots)));
+        return calendar;
+    }
+
+    private static void check(String name, List<FreeSlot> actual, FreeSlot... expected) {
+        if (!actual.equals(List.of(expected))) {
+            throw new AssertionError(name + ": expected " + List.of(expected) + " but found " + actual);
+        }
+    }
+}
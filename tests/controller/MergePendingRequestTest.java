@@ -0,0 +1,82 @@
+package tests.controller;
+
+import controller.request.ReplenishmentRequestManager;
+import database.DatabaseRegistry;
+import database.request.ReplenishmentRequestDatabase;
+import model.request.ReplenishmentRequest;
+import model.request.enums.RequestStatus;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class tests that a replenishment request is never merged into a pending
+ * request that was closed after it was looked up.
+ */
+public class MergePendingRequestTest {
+
+    /**
+     * This method tests that a request that is declined between the lookup of the
+     * pending request and the merge is left as it was, and that the next request
+     * for the medication is added as a new pending request.
+     * The requests are made for a medication of its own, and are removed again
+     * once the test is done.
+     * To run locally:
+     * javac -d bin $(git ls-files '*.java')
+     * java -cp bin tests.controller.MergePendingRequestTest
+     *
+     * @param args the command line arguments
+     * @throws Exception if the test could not be run
+     */
+    public static void main(String[] args) throws Exception {
+        String medicationID = "TEST-" + UUID.randomUUID();
+        String firstRequestID = UUID.randomUUID().toString();
+        String secondRequestID = UUID.randomUUID().toString();
+        try {
+            Date now = new Date();
+            ReplenishmentRequestManager.addReplenishmentRequest(firstRequestID, RequestStatus.PENDING, now, now,
+                    medicationID);
+
+            ReplenishmentRequest lookedUp = getPendingRequest(medicationID);
+            check("first request pending", lookedUp.getModelID().equals(firstRequestID));
+            check("declined", ReplenishmentRequestManager.declineMedicationReplenishmentRequest(firstRequestID));
+            check("nothing merged into the declined request",
+                    !ReplenishmentRequestManager.mergePendingRequest(lookedUp.getModelID(), new Date()));
+            ReplenishmentRequest declined = ReplenishmentRequestDatabase.getDB().getByID(firstRequestID);
+            check("declined request kept its status", declined.getStatus() == RequestStatus.REJECTED);
+            check("declined request kept its count", declined.getRequestCount() == 1);
+
+            ReplenishmentRequestManager.addReplenishmentRequest(secondRequestID, RequestStatus.PENDING, now, now,
+                    medicationID);
+            ReplenishmentRequest pending = getPendingRequest(medicationID);
+            check("next request added as a new pending request", pending.getModelID().equals(secondRequestID));
+            check("merged into the pending request",
+                    ReplenishmentRequestManager.mergePendingRequest(secondRequestID, new Date()));
+            check("pending request counted the merge", getPendingRequest(medicationID).getRequestCount() == 2);
+        } finally {
+            for (String requestID : List.of(firstRequestID, secondRequestID)) {
+                if (ReplenishmentRequestDatabase.getDB().contains(requestID)) {
+                    ReplenishmentRequestDatabase.getDB().remove(requestID);
+                }
+            }
+            DatabaseRegistry.shutdown();
+        }
+        System.out.println("No request was merged into a closed request");
+    }
+
+    private static ReplenishmentRequest getPendingRequest(String medicationID) {
+        List<ReplenishmentRequest> pendingRequests = ReplenishmentRequestDatabase.getDB()
+                .getReplenishmentRequestsByMedicationIDAndStatus(medicationID, RequestStatus.PENDING);
+        if (pendingRequests.size() != 1) {
+            throw new AssertionError("expected one pending request but found " + pendingRequests.size());
+        }
+        return pendingRequests.get(0);
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            throw new AssertionError(name);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package utils.exceptions;
+
+/**
+ * The {@link InsufficientStockException} class is a custom exception that is
+ * thrown when medications are dispensed but there is not enough stock left of
+ * at least one of them.
+ * It extends the {@link Exception} class.
+ */
+public class InsufficientStockException extends Exception {
+
+    /**
+     * Creates a new instance of the {@link InsufficientStockException} class
+     * with a default error message.
+     * The default message is "Not enough stock".
+     */
+    public InsufficientStockException() {
+        super("Not enough stock");
+    }
+
+    /**
+     * Creates a new instance of the {@link InsufficientStockException} class
+     * with a custom error message.
+     *
+     * @param message The custom error message to be used.
+     */
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
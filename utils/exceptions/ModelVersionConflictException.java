@@ -0,0 +1,29 @@
+package utils.exceptions;
+
+/**
+ * The {@link ModelVersionConflictException} class is a custom exception that is
+ * thrown when a model is updated from an older version than the one in the
+ * Database, because it was updated by someone else in the meantime.
+ * It extends the {@link Exception} class.
+ */
+public class ModelVersionConflictException extends Exception {
+
+    /**
+     * Creates a new instance of the {@link ModelVersionConflictException} class
+     * with a default error message.
+     * The default message is "Model was changed by someone else".
+     */
+    public ModelVersionConflictException() {
+        super("Model was changed by someone else");
+    }
+
+    /**
+     * Creates a new instance of the {@link ModelVersionConflictException} class
+     * with a custom error message.
+     *
+     * @param message The custom error message to be used.
+     */
+    public ModelVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package utils.exceptions;
+
+/**
+ * The {@link TimeSlotUnavailableException} class is a custom exception that is
+ * thrown when an appointment is booked in a time slot that the doctor is not
+ * available for, or that is already booked on that date.
+ * It extends the {@link Exception} class.
+ */
+public class TimeSlotUnavailableException extends Exception {
+
+    /**
+     * Creates a new instance of the {@link TimeSlotUnavailableException} class
+     * with a default error message.
+     * The default message is "Time slot unavailable".
+     */
+    public TimeSlotUnavailableException() {
+        super("Time slot unavailable");
+    }
+
+    /**
+     * Creates a new instance of the {@link TimeSlotUnavailableException} class
+     * with a custom error message.
+     *
+     * @param message The custom error message to be used.
+     */
+    public TimeSlotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,386 @@
+package utils.iocontrol;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AppendLog class stores the changes made to a data file as an
+ * append-only log of records, one per line.
+ * A record either puts the full contents of an object under its key, or
+ * deletes the object with that key. Replaying the log in order gives the
+ * latest contents of every object that was changed since the data file was
+ * last written. Every record ends with a field separator, so a record cut
+ * short by a crash can be told apart from a complete one.
+ * <p>
+ * The log is split into numbered segments stored next to the data file, such
+ * as {@code patient.txt.log.3}. Records are appended to the active segment,
+ * which is sealed once it grows past the segment size and a new one is
+ * started. A checkpoint marker, {@code patient.txt.checkpoint}, records the
+ * last segment whose records are already contained in the data file; those
+ * segments are deleted and never replayed again.
+ * </p>
+ */
+public class AppendLog {
+
+    /**
+     * The character to be used to separate the fields of a log record.
+     */
+    public static final String FIELD_SEPARATOR = "\u001C\u001C\u001C";
+
+    /**
+     * The default size in bytes after which a segment is sealed.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 256 * 1024;
+
+    /**
+     * The system property used to override the default segment size.
+     */
+    public static final String SEGMENT_SIZE_PROPERTY = "hms.log.segmentSize";
+
+    private static final String PUT = "P";
+
+    private static final String DELETE = "D";
+
+    private final String dataFilePath;
+
+    private final long segmentSize;
+
+    private long checkpoint;
+
+    private long activeSegment;
+
+    private long activeSegmentLength;
+
+    private Writer writer;
+
+    /**
+     * Constructs an AppendLog for the given data file with the segment size set
+     * by the {@code hms.log.segmentSize} system property, or the default
+     * segment size if the property is not set.
+     *
+     * @param dataFilePath the path of the data file the log belongs to
+     */
+    public AppendLog(String dataFilePath) {
+        this(dataFilePath, Long.getLong(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_SIZE));
+    }
+
+    /**
+     * Constructs an AppendLog for the given data file.
+     * Records are always appended to a new segment, so a record cut short by an
+     * earlier crash can only ever be the last record of its segment.
+     *
+     * @param dataFilePath the path of the data file the log belongs to
+     * @param segmentSize  the size in bytes after which a segment is sealed
+     */
+    public AppendLog(String dataFilePath, long segmentSize) {
+        this.dataFilePath = dataFilePath;
+        this.segmentSize = segmentSize;
+        this.checkpoint = readCheckpoint();
+        List<Long> segments = listSegments();
+        long lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        this.activeSegment = Math.max(checkpoint, lastSegment) + 1;
+    }
+
+    /**
+     * Gets the path of a segment of the log.
+     *
+     * @param segment the number of the segment
+     * @return the path of the segment
+     */
+    private String getSegmentFilePath(long segment) {
+        return dataFilePath + ".log." + segment;
+    }
+
+    /**
+     * Gets the path of the checkpoint marker of the log.
+     *
+     * @return the path of the checkpoint marker
+     */
+    private String getCheckpointFilePath() {
+        return dataFilePath + ".checkpoint";
+    }
+
+    /**
+     * Appends a record that puts the contents of an object under its key.
+     *
+     * @param key    the key of the object
+     * @param record the contents of the object
+     * @return true if this record filled up the active segment and sealed it,
+     *         false otherwise
+     * @throws RuntimeException if the record could not be appended to the log
+     */
+    public synchronized boolean appendPut(String key, Map<String, String> record) {
+        return append(PUT + FIELD_SEPARATOR + key + FIELD_SEPARATOR + StringAndMapConvertor.mapToString(record)
+                + FIELD_SEPARATOR);
+    }
+
+    /**
+     * Appends a record that deletes the object with the given key.
+     *
+     * @param key the key of the object
+     * @return true if this record filled up the active segment and sealed it,
+     *         false otherwise
+     * @throws RuntimeException if the record could not be appended to the log
+     */
+    public synchronized boolean appendDelete(String key) {
+        return append(DELETE + FIELD_SEPARATOR + key + FIELD_SEPARATOR + FIELD_SEPARATOR);
+    }
+
+    /**
+     * Writes one line to the end of the active segment and flushes it, sealing
+     * the segment if it has grown past the segment size.
+     *
+     * @param line the line to write
+     * @return true if the active segment was sealed, false otherwise
+     */
+    private boolean append(String line) {
+        try {
+            if (writer == null) {
+                File file = new File(getSegmentFilePath(activeSegment));
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
+                writer = new BufferedWriter(new FileWriter(file, true));
+            }
+            String record = line + System.lineSeparator();
+            writer.write(record);
+            writer.flush();
+            activeSegmentLength += record.length();
+        } catch (IOException e) {
+            throw new RuntimeException("Data could not be appended to log: " + getSegmentFilePath(activeSegment));
+        }
+        if (activeSegmentLength >= segmentSize) {
+            seal();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Seals the active segment if it has any records, so that later records go
+     * to a new segment.
+     *
+     * @return the number of the last segment that may hold records
+     */
+    public synchronized long seal() {
+        if (activeSegmentLength > 0) {
+            close();
+            activeSegment++;
+            activeSegmentLength = 0;
+        }
+        return activeSegment - 1;
+    }
+
+    /**
+     * Gets the number of the last segment whose records are contained in the
+     * data file.
+     *
+     * @return the checkpointed segment, or 0 if nothing was checkpointed yet
+     */
+    public synchronized long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Records that the data file now contains every record up to and including
+     * the given segment, and deletes those segments.
+     * Does nothing if a later segment was already checkpointed.
+     *
+     * @param segment the last segment contained in the data file
+     * @throws RuntimeException if the checkpoint marker could not be written
+     */
+    public synchronized void checkpoint(long segment) {
+        if (segment <= checkpoint) {
+            return;
+        }
+        final String TEMP_FILE_PATH = getCheckpointFilePath() + ".tmp";
+        try {
+            Files.writeString(Path.of(TEMP_FILE_PATH), Long.toString(segment));
+            Files.move(Path.of(TEMP_FILE_PATH), Path.of(getCheckpointFilePath()),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Checkpoint could not be written: " + getCheckpointFilePath());
+        }
+        checkpoint = segment;
+        for (long oldSegment : listSegments()) {
+            if (oldSegment <= checkpoint) {
+                new File(getSegmentFilePath(oldSegment)).delete();
+            }
+        }
+    }
+
+    /**
+     * Replays the segments after the checkpoint and returns the latest contents
+     * of every object they mention, in the order each object was last changed.
+     * A key mapped to {@code null} means the object was deleted.
+     * A partially written record at the end of a segment, left behind by a
+     * crash, is ignored.
+     *
+     * @return the latest contents of every object in the log, by key
+     * @throws RuntimeException if the log could not be read
+     */
+    public synchronized Map<String, Map<String, String>> replay() {
+        Map<String, Map<String, String>> records = new LinkedHashMap<>();
+        for (long segment : listSegments()) {
+            if (segment > checkpoint) {
+                replaySegment(segment, records);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replays the records of one segment into the given map.
+     *
+     * @param segment the number of the segment
+     * @param records the latest contents of every object, by key
+     */
+    private void replaySegment(long segment, Map<String, Map<String, String>> records) {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(getSegmentFilePath(segment)))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                if (fields.length != 4 || !fields[3].isEmpty()) {
+                    break;
+                }
+                try {
+                    if (fields[0].equals(PUT)) {
+                        records.remove(fields[1]);
+                        records.put(fields[1], StringAndMapConvertor.stringToMap(fields[2]));
+                    } else if (fields[0].equals(DELETE)) {
+                        records.remove(fields[1]);
+                        records.put(fields[1], null);
+                    } else {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Data could not be loaded from log: " + getSegmentFilePath(segment));
+        }
+    }
+
+    /**
+     * Forces the segments after the checkpoint to the storage device, so the
+     * records appended so far survive a crash of the machine.
+     *
+     * @throws RuntimeException if a segment could not be forced
+     */
+    public synchronized void force() {
+        for (long segment : listSegments()) {
+            if (segment > checkpoint) {
+                forceFile(Path.of(getSegmentFilePath(segment)));
+            }
+        }
+    }
+
+    /**
+     * Forces a file to the storage device. Does nothing if the file does not
+     * exist.
+     *
+     * @param path the path of the file
+     * @throws RuntimeException if the file could not be forced
+     */
+    static void forceFile(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            fileChannel.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Data could not be forced to disk: " + path);
+        }
+    }
+
+    /**
+     * Forces a directory to the storage device, so that files renamed into it
+     * keep their new names after a crash of the machine.
+     *
+     * @param path the path of the directory
+     */
+    static void forceDirectory(Path path) {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileChannel.force(true);
+        } catch (IOException e) {
+            // Not every platform can force a directory
+        }
+    }
+
+    /**
+     * Reads the checkpoint marker of the log.
+     *
+     * @return the checkpointed segment, or 0 if there is no marker
+     */
+    private long readCheckpoint() {
+        Path path = Path.of(getCheckpointFilePath());
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(path).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Checkpoint could not be read: " + getCheckpointFilePath());
+        }
+    }
+
+    /**
+     * Lists the numbers of the segments of the log that exist on disk.
+     *
+     * @return the numbers of the segments, in ascending order
+     */
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        File dataFile = new File(dataFilePath);
+        File parent = dataFile.getAbsoluteFile().getParentFile();
+        String prefix = dataFile.getName() + ".log.";
+        String[] fileNames = parent == null ? null : parent.list();
+        if (fileNames == null) {
+            return segments;
+        }
+        for (String fileName : fileNames) {
+            if (fileName.startsWith(prefix)) {
+                try {
+                    segments.add(Long.parseLong(fileName.substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // Not a segment of this log
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Closes the active segment if it is open.
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // Nothing more can be written to the segment either way
+        } finally {
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package utils.iocontrol;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import utils.utils.EmptyID;
+import utils.utils.FormatDateTime;
+
+/**
+ * The BinaryRecordFormat class reads and writes data files in a compact
+ * binary encoding, as an alternative to the text lines of
+ * {@link StringAndMapConvertor}.
+ * <p>
+ * A file starts with a header describing the columns of its records: the
+ * name and kind of every field, the constant names of every enum field, and
+ * the columns of every nested {@link Mappable}. Records follow the header
+ * with their fields in column order and no field names. Ints are stored as
+ * zig-zag varints, enums as their position in the header's constant table,
+ * dates as epoch milliseconds, {@link EpochDay} fields as zig-zag varints of
+ * the epoch day, and strings as UTF-8 bytes prefixed with their length.
+ * </p>
+ * <p>
+ * Records are read back as the same maps of strings the text encoding
+ * gives, so a {@link Savable} loads either encoding the same way.
+ * </p>
+ */
+public class BinaryRecordFormat {
+
+    private static final byte[] MAGIC = { 0, 'H', 'M', 'S' };
+
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+
+    private static final int PRESENT = 1;
+
+    private static final int DATE_AS_STRING = 2;
+
+    /**
+     * The kinds of column a record can have.
+     */
+    private enum ColumnKind {
+        STRING, INT, ENUM, DATE, NESTED, EPOCH_DAY
+    }
+
+    /**
+     * The Column class describes one field of a record, as written in the
+     * header.
+     */
+    private static final class Column {
+
+        private final String name;
+
+        private final String key;
+
+        private final ColumnKind kind;
+
+        private final Class<?> type;
+
+        private final int fieldIndex;
+
+        private final List<String> constants;
+
+        private final List<Column> children;
+
+        /**
+         * Constructs a Column.
+         *
+         * @param name       the name of the field
+         * @param prefix     the prefix of the field name in a map
+         * @param kind       the kind of the column
+         * @param type       the declared type of the field, or null if the
+         *                   column was read from a header
+         * @param fieldIndex the position of the field in its codec
+         * @param constants  the constant names of an enum column
+         * @param children   the columns of a nested column
+         */
+        Column(String name, String prefix, ColumnKind kind, Class<?> type, int fieldIndex, List<String> constants,
+                List<Column> children) {
+            this.name = name;
+            this.key = prefix + name;
+            this.kind = kind;
+            this.type = type;
+            this.fieldIndex = fieldIndex;
+            this.constants = constants;
+            this.children = children;
+        }
+    }
+
+    private static final ClassValue<List<Column>> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected List<Column> computeValue(Class<?> type) {
+            return buildSchema(type, "", new HashSet<>());
+        }
+    };
+
+    /**
+     * Builds the columns of a class from the declared types of its fields.
+     *
+     * @param type   the class
+     * @param prefix the prefix of the field names in a map
+     * @param path   the classes being built, to reject recursive nesting
+     * @return the columns of the class
+     */
+    private static List<Column> buildSchema(Class<?> type, String prefix, Set<Class<?>> path) {
+        if (!path.add(type)) {
+            throw new IllegalArgumentException("Recursive Mappable cannot be encoded: " + type.getName());
+        }
+        MappableCodec codec = MappableCodec.of(type);
+        List<Column> columns = new ArrayList<>();
+        for (int i = 0; i < codec.getFieldCount(); i++) {
+            String name = codec.getFieldName(i);
+            Class<?> fieldType = codec.getFieldType(i);
+            if (Mappable.class.isAssignableFrom(fieldType) && !fieldType.isInterface()) {
+                columns.add(new Column(name, prefix, ColumnKind.NESTED, fieldType, i, null,
+                        buildSchema(fieldType, prefix + name + "_", path)));
+            } else if (fieldType == int.class) {
+                columns.add(new Column(name, prefix, ColumnKind.INT, fieldType, i, null, null));
+            } else if (codec.isEpochDayField(i)) {
+                columns.add(new Column(name, prefix, ColumnKind.EPOCH_DAY, fieldType, i, null, null));
+            } else if (fieldType.isEnum()) {
+                List<String> constants = new ArrayList<>();
+                for (Object constant : fieldType.getEnumConstants()) {
+                    constants.add(((Enum<?>) constant).name());
+                }
+                columns.add(new Column(name, prefix, ColumnKind.ENUM, fieldType, i, constants, null));
+            } else if (Date.class.isAssignableFrom(fieldType)) {
+                columns.add(new Column(name, prefix, ColumnKind.DATE, fieldType, i, null, null));
+            } else {
+                columns.add(new Column(name, prefix, ColumnKind.STRING, fieldType, i, null, null));
+            }
+        }
+        path.remove(type);
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Checks whether a data file is in the binary encoding.
+     *
+     * @param filePath the path of the data file
+     * @return true if the file starts with the binary header, false otherwise
+     * @throws IOException if the file could not be read
+     */
+    public static boolean isBinary(String filePath) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(Path.of(filePath))) {
+            byte[] magic = inputStream.readNBytes(MAGIC.length);
+            return Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    /**
+     * Writes mappable objects of one class in the binary encoding.
+     *
+     * @param listOfMappableObjects the mappable objects to write
+     * @param outputStream          the stream to write to
+     * @throws IOException              if the stream could not be written to
+     * @throws IllegalArgumentException if the objects are not all of the same
+     *                                  class
+     */
+    public static void write(List<? extends Mappable> listOfMappableObjects, OutputStream outputStream)
+            throws IOException {
+        Class<?> type = listOfMappableObjects.isEmpty() ? null : listOfMappableObjects.get(0).getClass();
+        List<Column> columns = type == null ? Collections.emptyList() : SCHEMAS.get(type);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        writeHeader(columns, listOfMappableObjects.size(), out);
+        for (Mappable mappable : listOfMappableObjects) {
+            if (mappable.getClass() != type) {
+                throw new IllegalArgumentException("Cannot encode " + mappable.getClass().getName()
+                        + " in a file of " + type.getName());
+            }
+            writeFields(mappable, MappableCodec.of(type), columns, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes maps of a class in the binary encoding, as read from the text
+     * encoding.
+     *
+     * @param listOfMaps the maps to write
+     * @param type       the class the maps were converted from
+     * @param outputStream the stream to write to
+     * @throws IOException              if the stream could not be written to
+     * @throws IllegalArgumentException if a value does not match its column
+     */
+    public static void writeMaps(List<Map<String, String>> listOfMaps, Class<? extends Mappable> type,
+            OutputStream outputStream) throws IOException {
+        List<Column> columns = SCHEMAS.get(type);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        writeHeader(columns, listOfMaps.size(), out);
+        for (Map<String, String> map : listOfMaps) {
+            writeMapFields(map, columns, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the header of a file.
+     *
+     * @param columns     the columns of the records
+     * @param recordCount the number of records that follow
+     * @param out         the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeHeader(List<Column> columns, int recordCount, DataOutputStream out)
+            throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeColumns(columns, out);
+        writeVarLong(recordCount, out);
+    }
+
+    /**
+     * Writes the description of columns to the header.
+     *
+     * @param columns the columns
+     * @param out     the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeColumns(List<Column> columns, DataOutputStream out) throws IOException {
+        writeVarLong(columns.size(), out);
+        for (Column column : columns) {
+            writeString(column.name, out);
+            out.writeByte(column.kind.ordinal());
+            if (column.kind == ColumnKind.ENUM) {
+                writeVarLong(column.constants.size(), out);
+                for (String constant : column.constants) {
+                    writeString(constant, out);
+                }
+            } else if (column.kind == ColumnKind.NESTED) {
+                writeColumns(column.children, out);
+            }
+        }
+    }
+
+    /**
+     * Writes the fields of an object in column order.
+     *
+     * @param mappable the object
+     * @param codec    the codec of the class of the object
+     * @param columns  the columns of the class of the object
+     * @param out      the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeFields(Mappable mappable, MappableCodec codec, List<Column> columns,
+            DataOutputStream out) throws IOException {
+        for (Column column : columns) {
+            Object value = codec.getFieldValue(mappable, column.fieldIndex);
+            switch (column.kind) {
+                case NESTED:
+                    if (value == null) {
+                        out.writeByte(NULL);
+                    } else if (value.getClass() != column.type) {
+                        throw new IllegalArgumentException("Cannot encode " + value.getClass().getName()
+                                + " in a column of " + column.type.getName());
+                    } else {
+                        out.writeByte(PRESENT);
+                        writeFields((Mappable) value, MappableCodec.of(column.type), column.children, out);
+                    }
+                    break;
+                case INT:
+                    writeVarLong(zigZag((Integer) value), out);
+                    break;
+                case EPOCH_DAY:
+                    writeEpochDay((Long) value, out);
+                    break;
+                case ENUM:
+                    writeVarLong(value == null ? NULL : ((Enum<?>) value).ordinal() + 1, out);
+                    break;
+                case DATE:
+                    if (value == null) {
+                        out.writeByte(NULL);
+                    } else if (value.getClass() != Date.class) {
+                        out.writeByte(DATE_AS_STRING);
+                        writeString(value.toString(), out);
+                    } else {
+                        out.writeByte(PRESENT);
+                        writeVarLong(zigZag(((Date) value).getTime()), out);
+                    }
+                    break;
+                default:
+                    writeString(value == null ? null : value.toString(), out);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Writes the values of a map in column order.
+     *
+     * @param map     the map
+     * @param columns the columns of the class the map was converted from
+     * @param out     the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeMapFields(Map<String, String> map, List<Column> columns, DataOutputStream out)
+            throws IOException {
+        for (Column column : columns) {
+            String value = map.get(column.key);
+            switch (column.kind) {
+                case NESTED:
+                    if (EmptyID.EMPTY_ID.equals(value)) {
+                        out.writeByte(NULL);
+                    } else {
+                        out.writeByte(PRESENT);
+                        writeMapFields(map, column.children, out);
+                    }
+                    break;
+                case INT:
+                    try {
+                        writeVarLong(zigZag(EmptyID.isEmptyID(value) ? 0 : Integer.parseInt(value)), out);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid int for " + column.key + ": " + value);
+                    }
+                    break;
+                case EPOCH_DAY:
+                    writeEpochDay(FormatDateTime.toEpochDay(value), out);
+                    break;
+                case ENUM:
+                    if (value == null || EmptyID.EMPTY_ID.equals(value)) {
+                        writeVarLong(NULL, out);
+                    } else {
+                        int ordinal = column.constants.indexOf(value);
+                        if (ordinal < 0) {
+                            throw new IllegalArgumentException("Invalid constant for " + column.key + ": " + value);
+                        }
+                        writeVarLong(ordinal + 1, out);
+                    }
+                    break;
+                case DATE:
+                    Date date = value == null ? null : FormatDateTime.convertStringToDateTime(value);
+                    if (value == null || EmptyID.EMPTY_ID.equals(value)) {
+                        out.writeByte(NULL);
+                    } else if (date == null || !date.toString().equals(value)) {
+                        out.writeByte(DATE_AS_STRING);
+                        writeString(value, out);
+                    } else {
+                        out.writeByte(PRESENT);
+                        writeVarLong(zigZag(date.getTime()), out);
+                    }
+                    break;
+                default:
+                    writeString(EmptyID.EMPTY_ID.equals(value) ? null : value, out);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads a data file in the binary encoding.
+     *
+     * @param filePath the path of the data file
+     * @return a map of strings for every record, keyed as in the text encoding
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if the file is not in the binary
+     *                                  encoding or is cut short
+     */
+    public static List<Map<String, String>> read(String filePath) throws IOException {
+        return read(Files.readAllBytes(Path.of(filePath)));
+    }
+
+    /**
+     * Reads records in the binary encoding.
+     *
+     * @param data the encoded records, starting with the header
+     * @return a map of strings for every record, keyed as in the text encoding
+     * @throws IllegalArgumentException if the data is not in the binary encoding
+     *                                  or is cut short
+     */
+    public static List<Map<String, String>> read(byte[] data) {
+        if (data.length < MAGIC.length + 1 || !Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)) {
+            throw new IllegalArgumentException("Not a binary data file");
+        }
+        Input in = new Input(data, MAGIC.length);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary data file version: " + version);
+        }
+        try {
+            List<Column> columns = readColumns(in, "");
+            int recordCount = (int) in.readVarLong();
+            List<Map<String, String>> records = new ArrayList<>(recordCount);
+            for (int i = 0; i < recordCount; i++) {
+                Map<String, String> map = new HashMap<>();
+                readFields(in, columns, map);
+                records.add(map);
+            }
+            return records;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Binary data file is cut short");
+        }
+    }
+
+    /**
+     * Reads the description of columns from the header.
+     *
+     * @param in     the input
+     * @param prefix the prefix of the field names in a map
+     * @return the columns
+     */
+    private static List<Column> readColumns(Input in, String prefix) {
+        int columnCount = (int) in.readVarLong();
+        List<Column> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            String name = in.readString();
+            int kindOrdinal = in.readByte();
+            if (kindOrdinal >= ColumnKind.values().length) {
+                throw new IllegalArgumentException("Unknown column kind: " + kindOrdinal);
+            }
+            ColumnKind kind = ColumnKind.values()[kindOrdinal];
+            List<String> constants = null;
+            List<Column> children = null;
+            if (kind == ColumnKind.ENUM) {
+                int constantCount = (int) in.readVarLong();
+                constants = new ArrayList<>(constantCount);
+                for (int j = 0; j < constantCount; j++) {
+                    constants.add(in.readString());
+                }
+            } else if (kind == ColumnKind.NESTED) {
+                children = readColumns(in, prefix + name + "_");
+            }
+            columns.add(new Column(name, prefix, kind, null, i, constants, children));
+        }
+        return columns;
+    }
+
+    /**
+     * Reads the fields of a record into a map.
+     *
+     * @param in      the input
+     * @param columns the columns of the record
+     * @param map     the map to put the fields into
+     */
+    private static void readFields(Input in, List<Column> columns, Map<String, String> map) {
+        for (Column column : columns) {
+            switch (column.kind) {
+                case NESTED:
+                    if (in.readByte() == NULL) {
+                        map.put(column.key, EmptyID.EMPTY_ID);
+                    } else {
+                        readFields(in, column.children, map);
+                    }
+                    break;
+                case INT:
+                    map.put(column.key, Long.toString(unZigZag(in.readVarLong())));
+                    break;
+                case EPOCH_DAY:
+                    map.put(column.key,
+                            in.readByte() == NULL ? EmptyID.EMPTY_ID : Long.toString(unZigZag(in.readVarLong())));
+                    break;
+                case ENUM:
+                    int ordinal = (int) in.readVarLong();
+                    map.put(column.key, ordinal == NULL ? EmptyID.EMPTY_ID : column.constants.get(ordinal - 1));
+                    break;
+                case DATE:
+                    int tag = in.readByte();
+                    if (tag == NULL) {
+                        map.put(column.key, EmptyID.EMPTY_ID);
+                    } else if (tag == DATE_AS_STRING) {
+                        map.put(column.key, in.readString());
+                    } else {
+                        map.put(column.key, new Date(unZigZag(in.readVarLong())).toString());
+                    }
+                    break;
+                default:
+                    String value = in.readString();
+                    map.put(column.key, value == null ? EmptyID.EMPTY_ID : value);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Writes an epoch day, or a null marker for a date that is not set.
+     *
+     * @param epochDay the epoch day, or {@link FormatDateTime#NO_DATE}
+     * @param out      the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeEpochDay(long epochDay, DataOutputStream out) throws IOException {
+        if (epochDay == FormatDateTime.NO_DATE) {
+            out.writeByte(NULL);
+        } else {
+            out.writeByte(PRESENT);
+            writeVarLong(zigZag(epochDay), out);
+        }
+    }
+
+    /**
+     * Encodes a signed number so that small negative numbers stay short as a
+     * varint.
+     *
+     * @param value the number
+     * @return the zig-zag encoded number
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decodes a zig-zag encoded number.
+     *
+     * @param value the zig-zag encoded number
+     * @return the number
+     */
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes a non-negative number as a varint, seven bits per byte.
+     *
+     * @param value the number
+     * @param out   the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeVarLong(long value, DataOutputStream out) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Writes a string as its UTF-8 bytes, prefixed with their length plus one
+     * so that a length of zero stands for null.
+     *
+     * @param value the string, or null
+     * @param out   the stream to write to
+     * @throws IOException if the stream could not be written to
+     */
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            writeVarLong(NULL, out);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L, out);
+        out.write(bytes);
+    }
+
+    /**
+     * The Input class reads the binary encoding from a byte array.
+     */
+    private static final class Input {
+
+        private final byte[] data;
+
+        private int position;
+
+        /**
+         * Constructs an Input over a byte array.
+         *
+         * @param data     the bytes to read
+         * @param position the position of the first byte to read
+         */
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        /**
+         * Reads one unsigned byte.
+         *
+         * @return the byte
+         */
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        /**
+         * Reads a varint.
+         *
+         * @return the number
+         */
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at byte " + position);
+        }
+
+        /**
+         * Reads a length-prefixed string.
+         *
+         * @return the string, or null
+         */
+        String readString() {
+            long length = readVarLong();
+            if (length == NULL) {
+                return null;
+            }
+            int byteCount = (int) (length - 1);
+            if (byteCount < 0 || byteCount > data.length - position) {
+                throw new ArrayIndexOutOfBoundsException(position + byteCount);
+            }
+            String value = new String(data, position, byteCount, StandardCharsets.UTF_8);
+            position += byteCount;
+            return value;
+        }
+    }
+}
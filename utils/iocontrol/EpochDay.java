@@ -0,0 +1,24 @@
+package utils.iocontrol;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import utils.utils.FormatDateTime;
+
+/**
+ * Marks a {@code long} field of a {@link Mappable} that holds a date as an
+ * epoch day, with {@link FormatDateTime#NO_DATE} for a date that is not set.
+ * <p>
+ * {@link MappableCodec} stores the field as the number of the epoch day, and
+ * still reads the "dd/MM/yyyy" and "yyyy-MM-dd" text dates were stored in
+ * before. {@link BinaryRecordFormat} stores it as a varint.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface EpochDay {
+}
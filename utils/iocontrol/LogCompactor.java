@@ -0,0 +1,38 @@
+package utils.iocontrol;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The LogCompactor class runs log compactions in the background, off the
+ * thread that changed the data.
+ * A compaction writes a snapshot of the live objects of a {@link Savable} to
+ * its data file and checkpoints the {@link AppendLog} segments the snapshot
+ * covers, so that they no longer need to be kept or replayed.
+ * Compactions run one at a time on a single daemon thread.
+ */
+public class LogCompactor {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queues a compaction to run in the background.
+     * A failed compaction is reported and leaves the log untouched, so no data
+     * is lost and the segments are compacted again later.
+     *
+     * @param compaction the compaction to run
+     */
+    public static void submit(Runnable compaction) {
+        executor.execute(() -> {
+            try {
+                compaction.run();
+            } catch (RuntimeException e) {
+                System.out.println("Log compaction failed: " + e.getMessage());
+            }
+        });
+    }
+}
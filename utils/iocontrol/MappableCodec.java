@@ -0,0 +1,537 @@
+package utils.iocontrol;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import utils.utils.EmptyID;
+import utils.utils.FormatDateTime;
+
+/**
+ * The MappableCodec class converts {@link Mappable} objects of one class to
+ * and from key-value pairs.
+ * The fields of the class are looked up once, when the codec of the class is
+ * first used, and read and written through cached method handles afterwards,
+ * so converting an object does no reflective lookups.
+ * <p>
+ * Each field is stored under its name. A field holding another Mappable is
+ * stored as the fields of that object, each prefixed with the field name and
+ * an underscore, and a field holding {@code null} is stored as
+ * {@link EmptyID#EMPTY_ID}. A field marked {@link EpochDay} is stored as the
+ * number of its epoch day. Any other value is stored as its
+ * {@code toString()}.
+ * </p>
+ * <p>
+ * Objects are read either from a map, or through a {@link RecordSink} that
+ * sets each field as its pair is split from a line of a data file, so no map
+ * is built for the record.
+ * </p>
+ */
+public final class MappableCodec {
+
+    private static final ClassValue<MappableCodec> CODECS = new ClassValue<>() {
+        @Override
+        protected MappableCodec computeValue(Class<?> type) {
+            return new MappableCodec(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final FieldCodec[] fieldCodecs;
+
+    private final String[] epochDayKeys;
+
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+
+    /**
+     * Constructs a MappableCodec for the declared fields of a class.
+     *
+     * @param type the class of the objects to convert
+     */
+    private MappableCodec(Class<?> type) {
+        List<FieldCodec> fieldCodecList = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                fieldCodecList.add(new FieldCodec(field, lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                        lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalArgumentException("Fields of " + type.getName() + " cannot be accessed", e);
+            }
+        }
+        this.fieldCodecs = fieldCodecList.toArray(new FieldCodec[0]);
+        for (int i = 0; i < fieldCodecs.length; i++) {
+            fieldIndexes.put(fieldCodecs[i].name, i);
+        }
+        List<String> epochDayKeyList = new ArrayList<>();
+        for (FieldCodec fieldCodec : fieldCodecs) {
+            if (fieldCodec.kind == FieldKind.EPOCH_DAY) {
+                epochDayKeyList.add(fieldCodec.name);
+            } else if (Mappable.class.isAssignableFrom(fieldCodec.type) && !fieldCodec.type.isInterface()
+                    && fieldCodec.type != type) {
+                for (String key : of(fieldCodec.type).epochDayKeys) {
+                    epochDayKeyList.add(fieldCodec.prefix + key);
+                }
+            }
+        }
+        this.epochDayKeys = epochDayKeyList.toArray(new String[0]);
+    }
+
+    /**
+     * Gets the codec of a class, creating it on first use.
+     *
+     * @param type the class of the objects to convert
+     * @return the codec of the class
+     * @throws IllegalArgumentException if the fields of the class cannot be
+     *                                  accessed
+     */
+    public static MappableCodec of(Class<?> type) {
+        return CODECS.get(type);
+    }
+
+    /**
+     * Gets the number of fields converted by this codec.
+     *
+     * @return the number of fields
+     */
+    int getFieldCount() {
+        return fieldCodecs.length;
+    }
+
+    /**
+     * Gets the name of a field.
+     *
+     * @param index the position of the field
+     * @return the name of the field
+     */
+    String getFieldName(int index) {
+        return fieldCodecs[index].name;
+    }
+
+    /**
+     * Gets the declared type of a field.
+     *
+     * @param index the position of the field
+     * @return the declared type of the field
+     */
+    Class<?> getFieldType(int index) {
+        return fieldCodecs[index].type;
+    }
+
+    /**
+     * Checks whether a field is marked {@link EpochDay}.
+     *
+     * @param index the position of the field
+     * @return true if the field holds an epoch day
+     */
+    boolean isEpochDayField(int index) {
+        return fieldCodecs[index].kind == FieldKind.EPOCH_DAY;
+    }
+
+    /**
+     * Rewrites the dates of a map that are held in a text format older than the
+     * epoch day, in a field marked {@link EpochDay} of this class or of a
+     * Mappable nested in it, as the number of their epoch day. Such a map is
+     * read correctly either way, so this only brings a data file up to date.
+     *
+     * @param map the map, as read from a data file
+     * @return true if any date was rewritten
+     */
+    public boolean migrateDates(Map<String, String> map) {
+        boolean migrated = false;
+        for (String key : epochDayKeys) {
+            String value = map.get(key);
+            if (!EmptyID.isEmptyID(value) && !FormatDateTime.isEpochDay(value.trim())) {
+                long epochDay = FormatDateTime.toEpochDay(value);
+                map.put(key, epochDay == FormatDateTime.NO_DATE ? EmptyID.EMPTY_ID : Long.toString(epochDay));
+                migrated = true;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Reads a field of an object.
+     *
+     * @param mappable the object
+     * @param index    the position of the field
+     * @return the value of the field
+     */
+    Object getFieldValue(Mappable mappable, int index) {
+        return fieldCodecs[index].get(mappable);
+    }
+
+    /**
+     * Converts an object to a map.
+     *
+     * @param mappable the object to convert
+     * @return the map
+     */
+    public Map<String, String> toMap(Mappable mappable) {
+        Map<String, String> map = new HashMap<>();
+        putFields(mappable, "", map);
+        return map;
+    }
+
+    /**
+     * Puts the fields of an object into a map, prefixing every key.
+     *
+     * @param mappable the object to convert
+     * @param prefix   the prefix of every key
+     * @param map      the map to put the fields into
+     */
+    private void putFields(Mappable mappable, String prefix, Map<String, String> map) {
+        for (FieldCodec fieldCodec : fieldCodecs) {
+            Object value = fieldCodec.get(mappable);
+            if (value instanceof Mappable) {
+                of(value.getClass()).putFields((Mappable) value, fieldCodec.nestedPrefix(prefix), map);
+            } else {
+                map.put(prefix + fieldCodec.name, fieldCodec.format(value));
+            }
+        }
+    }
+
+    /**
+     * Writes an object to an appendable, such as a Writer, in the line format
+     * of {@link StringAndMapConvertor}, without building a map first.
+     *
+     * @param mappable the object to convert
+     * @param out      the appendable to write to
+     * @throws IOException if the appendable could not be written to
+     */
+    public void appendTo(Mappable mappable, Appendable out) throws IOException {
+        appendFields(mappable, "", out, true);
+    }
+
+    /**
+     * Writes the fields of an object to an appendable, prefixing every key.
+     *
+     * @param mappable the object to convert
+     * @param prefix   the prefix of every key
+     * @param out      the appendable to write to
+     * @param first    whether no field has been written to the line yet
+     * @return whether no field has been written to the line yet
+     * @throws IOException if the appendable could not be written to
+     */
+    private boolean appendFields(Mappable mappable, String prefix, Appendable out, boolean first)
+            throws IOException {
+        for (FieldCodec fieldCodec : fieldCodecs) {
+            Object value = fieldCodec.get(mappable);
+            if (value instanceof Mappable) {
+                first = of(value.getClass()).appendFields((Mappable) value, fieldCodec.nestedPrefix(prefix), out,
+                        first);
+                continue;
+            }
+            if (!first) {
+                out.append(StringAndMapConvertor.SEPARATOR_STRING);
+            }
+            out.append(prefix).append(fieldCodec.name).append(StringAndMapConvertor.DELIMITER_STRING)
+                    .append(fieldCodec.format(value));
+            first = false;
+        }
+        return first;
+    }
+
+    /**
+     * Sets the fields of an object from a map.
+     * Enum fields are set to the constant with the mapped name, int fields are
+     * parsed and set to 0 when empty, epoch day fields are parsed from a number
+     * or an older date format and set to {@link FormatDateTime#NO_DATE} when
+     * empty, and List fields are split on commas.
+     * Any other field is set to the mapped string itself.
+     *
+     * @param mappable the object to set the fields of
+     * @param map      the map
+     * @throws IllegalArgumentException if an enum constant does not exist, a
+     *                                  number cannot be parsed, or a field
+     *                                  cannot hold the mapped string
+     * @throws NullPointerException     if the map has no value for an enum field
+     */
+    public void fromMap(Mappable mappable, Map<String, String> map) {
+        for (FieldCodec fieldCodec : fieldCodecs) {
+            fieldCodec.set(mappable, fieldCodec.parseField(map.get(fieldCodec.name)));
+        }
+    }
+
+    /**
+     * Creates a sink that decodes every record straight into a new object, one
+     * field at a time as its pair is split from the line, following the rules
+     * of {@link #fromMap(Mappable, Map)}. Keys that are not fields are
+     * ignored, and fields without a key are set as if their key was missing
+     * from a map.
+     *
+     * @param <T>     the type of the objects
+     * @param factory creates the empty object of each record
+     * @return the sink
+     */
+    <T extends Mappable> RecordSink<T> decoder(Supplier<T> factory) {
+        return new Decoder<>(factory);
+    }
+
+    /**
+     * The Decoder class sets the fields of a new object from the pairs of each
+     * record. The position of a pair on its line is tried first, as records
+     * are written in field order, before the field is looked up by name.
+     * The decoder is ready for the next record once a record ends, even if
+     * the record was rejected.
+     *
+     * @param <T> the type of the objects
+     */
+    private final class Decoder<T extends Mappable> implements RecordSink<T> {
+
+        private final Supplier<T> factory;
+
+        private final boolean[] setFields = new boolean[fieldCodecs.length];
+
+        private T mappable;
+
+        private int pairIndex;
+
+        /**
+         * Constructs a Decoder.
+         *
+         * @param factory creates the empty object of each record
+         */
+        Decoder(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public void put(String key, String value) {
+            if (mappable == null) {
+                mappable = factory.get();
+            }
+            int index = pairIndex < fieldCodecs.length && fieldCodecs[pairIndex].name.equals(key) ? pairIndex
+                    : fieldIndexes.getOrDefault(key, -1);
+            pairIndex++;
+            if (index >= 0) {
+                fieldCodecs[index].set(mappable, fieldCodecs[index].parseField(value));
+                setFields[index] = true;
+            }
+        }
+
+        @Override
+        public T endRecord() {
+            T record = mappable == null ? factory.get() : mappable;
+            mappable = null;
+            pairIndex = 0;
+            RuntimeException error = null;
+            for (int i = 0; i < fieldCodecs.length; i++) {
+                if (setFields[i]) {
+                    setFields[i] = false;
+                } else if (error == null) {
+                    try {
+                        fieldCodecs[i].set(record, fieldCodecs[i].parseField(null));
+                    } catch (IllegalArgumentException | NullPointerException e) {
+                        error = e;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return record;
+        }
+    }
+
+    /**
+     * The kinds of field a codec knows how to parse.
+     */
+    private enum FieldKind {
+        ENUM, INT, EPOCH_DAY, LIST, OTHER
+    }
+
+    /**
+     * The FieldCodec class reads, writes and parses one field of a class.
+     */
+    private static final class FieldCodec {
+
+        private final String name;
+
+        private final String prefix;
+
+        private final Class<?> type;
+
+        private final FieldKind kind;
+
+        private final Class<?> elementType;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        /**
+         * Constructs a FieldCodec for a field.
+         *
+         * @param field  the field
+         * @param getter the getter of the field, of type (Object)Object
+         * @param setter the setter of the field, of type (Object,Object)void
+         */
+        FieldCodec(Field field, MethodHandle getter, MethodHandle setter) {
+            this.name = field.getName();
+            this.prefix = name + "_";
+            this.type = field.getType();
+            this.getter = getter;
+            this.setter = setter;
+            if (type.isEnum()) {
+                kind = FieldKind.ENUM;
+            } else if (type == int.class || type == Integer.class) {
+                kind = FieldKind.INT;
+            } else if (type == long.class && field.isAnnotationPresent(EpochDay.class)) {
+                kind = FieldKind.EPOCH_DAY;
+            } else if (type == List.class) {
+                kind = FieldKind.LIST;
+            } else {
+                kind = FieldKind.OTHER;
+            }
+            this.elementType = kind == FieldKind.LIST ? getElementType(field) : null;
+        }
+
+        /**
+         * Gets the prefix of the keys of a Mappable stored in this field.
+         *
+         * @param outerPrefix the prefix of the keys of the object holding this
+         *                    field
+         * @return the prefix of the keys of the nested Mappable
+         */
+        String nestedPrefix(String outerPrefix) {
+            return outerPrefix.isEmpty() ? prefix : outerPrefix + prefix;
+        }
+
+        /**
+         * Gets the element type of a List field.
+         *
+         * @param field the field
+         * @return the element type, or Object if it is not known
+         */
+        private static Class<?> getElementType(Field field) {
+            Type genericType = field.getGenericType();
+            if (genericType instanceof ParameterizedType) {
+                Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (elementType instanceof Class) {
+                    return (Class<?>) elementType;
+                }
+            }
+            return Object.class;
+        }
+
+        /**
+         * Formats a value of this field as its mapped string.
+         *
+         * @param value the value of the field
+         * @return the mapped string
+         */
+        String format(Object value) {
+            if (value == null || (kind == FieldKind.EPOCH_DAY && (Long) value == FormatDateTime.NO_DATE)) {
+                return EmptyID.EMPTY_ID;
+            }
+            return value.toString();
+        }
+
+        /**
+         * Parses the mapped string of this field into the value to set.
+         *
+         * @param string the mapped string
+         * @return the value of the field
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Object parse(String string) {
+            switch (kind) {
+                case ENUM:
+                    return Enum.valueOf((Class<Enum>) type, string);
+                case INT:
+                    return EmptyID.isEmptyID(string) ? 0 : Integer.parseInt(string);
+                case EPOCH_DAY:
+                    return FormatDateTime.toEpochDay(string);
+                case LIST:
+                    List<Object> list = new ArrayList<>();
+                    if (string != null) {
+                        for (String item : string.split(",")) {
+                            if (elementType == String.class) {
+                                list.add(item);
+                            } else if (elementType == Integer.class) {
+                                list.add(Integer.parseInt(item.trim()));
+                            }
+                        }
+                    }
+                    return list;
+                default:
+                    if (string != null && !type.isInstance(string)) {
+                        throw new IllegalArgumentException(
+                                "Cannot set " + type.getName() + " field " + name + " to a String");
+                    }
+                    if (string == null && type.isPrimitive()) {
+                        throw new IllegalArgumentException("Cannot set " + type.getName() + " field " + name
+                                + " to null");
+                    }
+                    return string;
+            }
+        }
+
+        /**
+         * Parses the mapped string of this field into the value to set,
+         * reporting a number that cannot be parsed with the name of the field.
+         *
+         * @param string the mapped string
+         * @return the value of the field
+         * @throws IllegalArgumentException if the string is not a valid value
+         *                                  of the field
+         */
+        Object parseField(String string) {
+            try {
+                return parse(string);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number for " + name + ": " + string, e);
+            }
+        }
+
+        /**
+         * Reads this field of an object.
+         *
+         * @param mappable the object
+         * @return the value of the field
+         */
+        Object get(Object mappable) {
+            try {
+                return (Object) getter.invokeExact(mappable);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Writes this field of an object.
+         *
+         * @param mappable the object
+         * @param value    the value of the field
+         */
+        void set(Object mappable, Object value) {
+            try {
+                setter.invokeExact(mappable, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
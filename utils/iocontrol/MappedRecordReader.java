@@ -0,0 +1,435 @@
+package utils.iocontrol;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * The MappedRecordReader class reads large text data files through a memory
+ * mapping of the file instead of a Reader.
+ * <p>
+ * The file is mapped read-only and scanned once for line breaks. Every line
+ * is then decoded straight from the mapped bytes, as UTF-8, the first time the
+ * returned list is asked for it. The delimiter, separator and line break
+ * characters are all single bytes in UTF-8, so lines and pairs are split
+ * without decoding the bytes in between, and no String is made for a whole
+ * line.
+ * </p>
+ * <p>
+ * {@link #read} decodes records one at a time while the list is iterated, so
+ * only the map of the current record is held. {@link #readAll} decodes every
+ * record up front, splitting the lines into chunks that are decoded in
+ * parallel on the common fork-join pool, each chunk handing its pairs to its
+ * own {@link RecordSink}, so records can be decoded straight into objects.
+ * </p>
+ */
+public class MappedRecordReader {
+
+    /**
+     * The default size in bytes from which data files are read through a
+     * memory mapping.
+     */
+    public static final long DEFAULT_THRESHOLD = 16L * 1024 * 1024;
+
+    /**
+     * The system property used to override the default threshold.
+     */
+    public static final String THRESHOLD_PROPERTY = "hms.mmap.threshold";
+
+    private static final int MAX_WINDOW_SIZE = 1 << 30;
+
+    private static final byte DELIMITER_BYTE = 0x1B;
+
+    private static final byte SEPARATOR_BYTE = 0x1A;
+
+    private static final int RUN_LENGTH = 3;
+
+    private static final int MIN_LINES_PER_CHUNK = 10_000;
+
+    /**
+     * Gets the size from which data files are read through a memory mapping, as
+     * set by the {@code hms.mmap.threshold} system property.
+     *
+     * @return the threshold in bytes
+     */
+    public static long getThreshold() {
+        return Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Maps a text data file and indexes its lines.
+     * Blank lines are skipped.
+     *
+     * @param filePath the path of the data file
+     * @return a list with the map of every line, decoded each time it is
+     *         accessed
+     * @throws IOException              if the file could not be mapped
+     * @throws IllegalArgumentException if a line is longer than a mapping window
+     */
+    public static List<Map<String, String>> read(String filePath) throws IOException {
+        return map(filePath);
+    }
+
+    /**
+     * Maps a text data file and indexes its lines.
+     *
+     * @param filePath the path of the data file
+     * @return the list of records of the file
+     * @throws IOException              if the file could not be mapped
+     * @throws IllegalArgumentException if a line is longer than a mapping window
+     */
+    private static RecordList map(String filePath) throws IOException {
+        List<MappedByteBuffer> windows = new ArrayList<>();
+        List<Long> lineBounds = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long windowStart = 0;
+            while (windowStart < fileSize) {
+                long windowSize = Math.min(MAX_WINDOW_SIZE, fileSize - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+                int length = (int) windowSize;
+                if (windowStart + windowSize < fileSize) {
+                    length = lastLineBreak(window) + 1;
+                    if (length == 0) {
+                        throw new IllegalArgumentException("Line too long to map in " + filePath);
+                    }
+                }
+                indexLines(window, length, windows.size(), lineBounds);
+                windows.add(window);
+                windowStart += length;
+            }
+        }
+        long[] bounds = new long[lineBounds.size()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = lineBounds.get(i);
+        }
+        return new RecordList(windows.toArray(new MappedByteBuffer[0]), bounds);
+    }
+
+    /**
+     * Maps a text data file and decodes all of its lines, in parallel chunks
+     * split at line boundaries.
+     * Blank lines are skipped.
+     *
+     * @param filePath the path of the data file
+     * @return a list with the map of every line
+     * @throws IOException              if the file could not be mapped
+     * @throws IllegalArgumentException if a line is longer than a mapping window,
+     *                                  or contains invalid key-value pairs
+     */
+    public static List<Map<String, String>> readAll(String filePath) throws IOException {
+        return readAll(filePath, RecordSink::maps);
+    }
+
+    /**
+     * Maps a text data file and decodes all of its lines, in parallel chunks
+     * split at line boundaries, each chunk handing the pairs of its lines to a
+     * sink of its own.
+     * Blank lines are skipped.
+     *
+     * @param <T>      the type of the records
+     * @param filePath the path of the data file
+     * @param sinks    creates a sink for each chunk
+     * @return a list with the record of every line
+     * @throws IOException              if the file could not be mapped
+     * @throws IllegalArgumentException if a line is longer than a mapping window,
+     *                                  or contains invalid key-value pairs
+     */
+    static <T> List<T> readAll(String filePath, Supplier<? extends RecordSink<T>> sinks) throws IOException {
+        return map(filePath).decodeAll(sinks);
+    }
+
+    /**
+     * Finds the last line break in a window.
+     *
+     * @param window the window
+     * @return the index of the last line break, or -1 if there is none
+     */
+    private static int lastLineBreak(MappedByteBuffer window) {
+        for (int i = window.limit() - 1; i >= 0; i--) {
+            byte b = window.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records the bounds of the non-blank lines of a window.
+     * Each line is packed into one long per bound, holding the window in the
+     * upper bits and the index in the window in the lower 32 bits.
+     *
+     * @param window      the window
+     * @param length      the number of bytes of the window that hold whole lines
+     * @param windowIndex the position of the window
+     * @param lineBounds  the list to add the start and end of every line to
+     */
+    private static void indexLines(MappedByteBuffer window, int length, int windowIndex, List<Long> lineBounds) {
+        long base = (long) windowIndex << 32;
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = window.get(i);
+            if (b == '\n' || b == '\r') {
+                if (i > lineStart) {
+                    lineBounds.add(base | lineStart);
+                    lineBounds.add(base | i);
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (length > lineStart) {
+            lineBounds.add(base | lineStart);
+            lineBounds.add(base | length);
+        }
+    }
+
+    /**
+     * The RecordList class is the list of records of a mapped file.
+     * It decodes a record every time it is accessed.
+     */
+    private static final class RecordList extends AbstractList<Map<String, String>> implements RandomAccess {
+
+        private final MappedByteBuffer[] windows;
+
+        private final long[] bounds;
+
+        private final LineDecoder lineDecoder = new LineDecoder();
+
+        private final RecordSink<Map<String, String>> mapSink = RecordSink.maps();
+
+        /**
+         * Constructs a RecordList.
+         *
+         * @param windows the mapped windows of the file
+         * @param bounds  the start and end of every line
+         */
+        RecordList(MappedByteBuffer[] windows, long[] bounds) {
+            this.windows = windows;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public int size() {
+            return bounds.length / 2;
+        }
+
+        /**
+         * Decodes the record on a line.
+         *
+         * @param index the position of the line
+         * @return the map of the record
+         * @throws IllegalArgumentException if the line contains invalid key-value
+         *                                  pairs
+         */
+        @Override
+        public synchronized Map<String, String> get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return decode(lineDecoder, mapSink, index);
+        }
+
+        /**
+         * Decodes the record on a line with the given decoder and sink.
+         *
+         * @param <T>     the type of the record
+         * @param decoder the decoder
+         * @param sink    the sink that builds the record
+         * @param index   the position of the line
+         * @return the record
+         */
+        private <T> T decode(LineDecoder decoder, RecordSink<T> sink, int index) {
+            long start = bounds[2 * index];
+            MappedByteBuffer window = windows[(int) (start >>> 32)];
+            return decoder.decodeLine(window, (int) start, (int) bounds[2 * index + 1], sink);
+        }
+
+        /**
+         * Decodes every record, splitting the lines into chunks that are decoded
+         * in parallel, each by its own decoder and sink.
+         *
+         * @param <T>   the type of the records
+         * @param sinks creates a sink for each chunk
+         * @return a list with every record
+         * @throws IllegalArgumentException if a line contains invalid key-value
+         *                                  pairs
+         */
+        <T> List<T> decodeAll(Supplier<? extends RecordSink<T>> sinks) {
+            int size = size();
+            int chunkCount = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                    (long) size / MIN_LINES_PER_CHUNK));
+            List<T> records = new ArrayList<>(Collections.nCopies(size, null));
+            CompletableFuture<?>[] chunks = new CompletableFuture<?>[chunkCount];
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int from = (int) ((long) size * chunk / chunkCount);
+                int to = (int) ((long) size * (chunk + 1) / chunkCount);
+                chunks[chunk] = CompletableFuture.runAsync(() -> {
+                    LineDecoder decoder = new LineDecoder();
+                    RecordSink<T> sink = sinks.get();
+                    for (int i = from; i < to; i++) {
+                        records.set(i, decode(decoder, sink, i));
+                    }
+                });
+            }
+            try {
+                CompletableFuture.allOf(chunks).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * The LineDecoder class splits lines of a mapped file into key-value pairs,
+     * and hands them to a {@link RecordSink}.
+     * It keeps the keys of the last decoded line, so equal keys share one
+     * String. A decoder is used by one thread at a time.
+     */
+    private static final class LineDecoder {
+
+        private byte[] scratch = new byte[256];
+
+        private final List<byte[]> previousKeyBytes = new ArrayList<>();
+
+        private final List<String> previousKeys = new ArrayList<>();
+
+        /**
+         * Decodes one line of a window, handing its pairs to a sink.
+         * An empty pair is only allowed if no pair follows it on the line.
+         *
+         * @param <T>    the type of the record
+         * @param window the window
+         * @param start  the index of the first byte of the line
+         * @param end    the index after the last byte of the line
+         * @param sink   the sink that builds the record
+         * @return the record of the line
+         */
+        <T> T decodeLine(MappedByteBuffer window, int start, int end, RecordSink<T> sink) {
+            int pairIndex = 0;
+            boolean emptyPair = false;
+            int pairStart = start;
+            while (pairStart <= end) {
+                int pairEnd = find(window, SEPARATOR_BYTE, pairStart, end);
+                if (pairEnd < 0) {
+                    pairEnd = end;
+                }
+                if (pairEnd == pairStart) {
+                    emptyPair = true;
+                } else {
+                    if (emptyPair) {
+                        throw new IllegalArgumentException("Invalid key-value pair: empty pair before "
+                                + decode(window, pairStart, pairEnd));
+                    }
+                    int delimiter = find(window, DELIMITER_BYTE, pairStart, pairEnd);
+                    if (delimiter < 0 || find(window, DELIMITER_BYTE, delimiter + RUN_LENGTH, pairEnd) >= 0) {
+                        throw new IllegalArgumentException(
+                                "Invalid key-value pair: " + decode(window, pairStart, pairEnd));
+                    }
+                    sink.put(decodeKey(window, pairStart, delimiter, pairIndex++),
+                            decode(window, delimiter + RUN_LENGTH, pairEnd));
+                }
+                pairStart = pairEnd + RUN_LENGTH;
+            }
+            return sink.endRecord();
+        }
+
+        /**
+         * Finds the first run of three equal control bytes in a range.
+         *
+         * @param window the window
+         * @param b      the control byte
+         * @param from   the index to search from
+         * @param to     the index to search up to
+         * @return the index of the first byte of the run, or -1 if there is none
+         */
+        private static int find(MappedByteBuffer window, byte b, int from, int to) {
+            int run = 0;
+            for (int i = from; i < to; i++) {
+                if (window.get(i) != b) {
+                    run = 0;
+                } else if (++run == RUN_LENGTH) {
+                    return i - RUN_LENGTH + 1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Copies a range of a window into the scratch buffer.
+         *
+         * @param window the window
+         * @param from   the index of the first byte
+         * @param to     the index after the last byte
+         * @return the number of bytes copied
+         */
+        private int copy(MappedByteBuffer window, int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            window.get(from, scratch, 0, length);
+            return length;
+        }
+
+        /**
+         * Decodes a range of a window as UTF-8.
+         *
+         * @param window the window
+         * @param from   the index of the first byte
+         * @param to     the index after the last byte
+         * @return the decoded string
+         */
+        private String decode(MappedByteBuffer window, int from, int to) {
+            int length = copy(window, from, to);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Decodes a key, reusing the key in the same position of the previously
+         * decoded record if its bytes are equal.
+         *
+         * @param window    the window
+         * @param from      the index of the first byte
+         * @param to        the index after the last byte
+         * @param pairIndex the position of the pair on its line
+         * @return the decoded key
+         */
+        private String decodeKey(MappedByteBuffer window, int from, int to, int pairIndex) {
+            int length = copy(window, from, to);
+            if (pairIndex < previousKeys.size()) {
+                byte[] previous = previousKeyBytes.get(pairIndex);
+                if (Arrays.equals(scratch, 0, length, previous, 0, previous.length)) {
+                    return previousKeys.get(pairIndex);
+                }
+            }
+            String key = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            byte[] keyBytes = Arrays.copyOf(scratch, length);
+            if (pairIndex < previousKeys.size()) {
+                previousKeys.set(pairIndex, key);
+                previousKeyBytes.set(pairIndex, keyBytes);
+            } else {
+                previousKeys.add(key);
+                previousKeyBytes.add(keyBytes);
+            }
+            return key;
+        }
+    }
+}
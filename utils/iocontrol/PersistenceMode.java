@@ -0,0 +1,84 @@
+package utils.iocontrol;
+
+/**
+ * Enum representing how a {@link Savable} persists its changes to disk.
+ * Possible modes include:
+ * <ul>
+ * <li>SNAPSHOT: Every change rewrites the whole data file. Only the changed
+ * records are serialized again, but the write still grows with the size of
+ * the file.</li>
+ * <li>APPEND_LOG: Every change appends one record to a segmented log next to
+ * the data file, and the data file is only rewritten on an explicit save or
+ * when a full segment is compacted in the background. This is the only
+ * incremental mode.</li>
+ * </ul>
+ * Databases that grow with the number of patients and appointments default to
+ * APPEND_LOG, and the others to SNAPSHOT. The default mode of every database
+ * can be chosen with the {@code hms.persistence} system property, for example
+ * {@code -Dhms.persistence=snapshot}.
+ */
+public enum PersistenceMode {
+    /**
+     * Every change rewrites the whole data file.
+     */
+    SNAPSHOT,
+
+    /**
+     * Every change appends one record to the segmented log of the data file.
+     */
+    APPEND_LOG;
+
+    /**
+     * The system property used to choose the default persistence mode.
+     */
+    public static final String PROPERTY = "hms.persistence";
+
+    /**
+     * Gets the default persistence mode, as set by the {@code hms.persistence}
+     * system property.
+     *
+     * @return the default persistence mode, or SNAPSHOT if the property is not set
+     * @throws IllegalArgumentException if the property does not match any known
+     *                                  mode
+     */
+    public static PersistenceMode getDefault() {
+        return getDefault(SNAPSHOT);
+    }
+
+    /**
+     * Gets the default persistence mode, as set by the {@code hms.persistence}
+     * system property, or the given mode if the property is not set.
+     *
+     * @param fallback the mode to use if the property is not set
+     * @return the default persistence mode
+     * @throws IllegalArgumentException if the property does not match any known
+     *                                  mode
+     */
+    public static PersistenceMode getDefault(PersistenceMode fallback) {
+        String mode = System.getProperty(PROPERTY);
+        if (mode == null || mode.isBlank()) {
+            return fallback;
+        }
+        return fromString(mode);
+    }
+
+    /**
+     * Converts a string representation of a persistence mode to a
+     * PersistenceMode enum.
+     *
+     * @param mode the string representation of the mode
+     * @return the corresponding PersistenceMode
+     * @throws IllegalArgumentException if the mode does not match any known
+     *                                  values
+     */
+    public static PersistenceMode fromString(String mode) {
+        switch (mode.trim().toUpperCase()) {
+            case "SNAPSHOT":
+                return SNAPSHOT;
+            case "APPEND_LOG":
+                return APPEND_LOG;
+            default:
+                throw new IllegalArgumentException("Unknown persistence mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package utils.iocontrol;
+
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RecordFileConverter class converts data files between the text and the
+ * binary {@link StorageEncoding}, and migrates the dates of data files written
+ * before dates were held as {@link EpochDay}s.
+ * A file is replaced by its converted copy only once the copy has been fully
+ * written. It can also be run from the command line:
+ *
+ * <pre>
+ * java utils.iocontrol.RecordFileConverter text &lt;data file&gt;
+ * java utils.iocontrol.RecordFileConverter binary &lt;data file&gt; &lt;model class&gt;
+ * java utils.iocontrol.RecordFileConverter migrate &lt;data file&gt; &lt;model class&gt;
+ * </pre>
+ */
+public class RecordFileConverter {
+
+    /**
+     * Converts a text data file to the binary encoding.
+     * Does nothing if the file is already binary.
+     *
+     * @param filePath the path of the data file
+     * @param type     the class of the objects stored in the file
+     * @throws IOException              if the file could not be converted
+     * @throws IllegalArgumentException if a record does not match the fields of
+     *                                  the class
+     */
+    public static void toBinary(String filePath, Class<? extends Mappable> type) throws IOException {
+        if (BinaryRecordFormat.isBinary(filePath)) {
+            return;
+        }
+        writeBinary(filePath, readText(filePath), type);
+    }
+
+    /**
+     * Converts a binary data file to the text encoding.
+     * Does nothing if the file is already text.
+     *
+     * @param filePath the path of the data file
+     * @throws IOException              if the file could not be converted
+     * @throws IllegalArgumentException if the file is cut short
+     */
+    public static void toText(String filePath) throws IOException {
+        if (!BinaryRecordFormat.isBinary(filePath)) {
+            return;
+        }
+        writeText(filePath, BinaryRecordFormat.read(filePath));
+    }
+
+    /**
+     * Migrates the dates of a data file, in whichever encoding it is in, that
+     * are held in a text format older than the {@link EpochDay}.
+     * Files written before dates were held as epoch days are still read
+     * correctly, so this only needs to be run once per file, while the program
+     * is not running. Does nothing if no date needs to be migrated.
+     *
+     * @param filePath the path of the data file
+     * @param type     the class of the objects stored in the file
+     * @return true if the file was migrated
+     * @throws IOException              if the file could not be migrated
+     * @throws IllegalArgumentException if a record does not match the fields of
+     *                                  the class
+     */
+    public static boolean migrateDates(String filePath, Class<? extends Mappable> type) throws IOException {
+        boolean binary = BinaryRecordFormat.isBinary(filePath);
+        List<Map<String, String>> listOfMaps = binary ? BinaryRecordFormat.read(filePath) : readText(filePath);
+        MappableCodec codec = MappableCodec.of(type);
+        boolean migrated = false;
+        for (Map<String, String> map : listOfMaps) {
+            migrated |= codec.migrateDates(map);
+        }
+        if (!migrated) {
+            return false;
+        }
+        if (binary) {
+            writeBinary(filePath, listOfMaps, type);
+        } else {
+            writeText(filePath, listOfMaps);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the maps of a text data file.
+     *
+     * @param filePath the path of the data file
+     * @return the map of every line
+     * @throws IOException if the file could not be read
+     */
+    private static List<Map<String, String>> readText(String filePath) throws IOException {
+        try (Reader reader = new FileReader(filePath)) {
+            return StringAndMapConvertor.readMaps(reader);
+        }
+    }
+
+    /**
+     * Replaces a data file with maps written in the binary encoding.
+     *
+     * @param filePath   the path of the data file
+     * @param listOfMaps the maps to write
+     * @param type       the class the maps were converted from
+     * @throws IOException if the file could not be written
+     */
+    private static void writeBinary(String filePath, List<Map<String, String>> listOfMaps,
+            Class<? extends Mappable> type) throws IOException {
+        Path tempPath = Path.of(filePath + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+            BinaryRecordFormat.writeMaps(listOfMaps, type, outputStream);
+        }
+        Files.move(tempPath, Path.of(filePath), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces a data file with maps written in the text encoding.
+     *
+     * @param filePath   the path of the data file
+     * @param listOfMaps the maps to write
+     * @throws IOException if the file could not be written
+     */
+    private static void writeText(String filePath, List<Map<String, String>> listOfMaps) throws IOException {
+        Path tempPath = Path.of(filePath + ".tmp");
+        try (Writer writer = new BufferedWriter(new FileWriter(tempPath.toFile()))) {
+            for (Map<String, String> map : listOfMaps) {
+                StringAndMapConvertor.writeMap(map, writer);
+                writer.write(System.lineSeparator());
+            }
+        }
+        Files.move(tempPath, Path.of(filePath), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts a data file given on the command line.
+     *
+     * @param args the target encoding or "migrate", the path of the data file,
+     *             and for the binary encoding and "migrate" the fully qualified
+     *             name of the model class
+     * @throws Exception if the file could not be converted
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equalsIgnoreCase("migrate")) {
+            boolean migrated = migrateDates(args[1], Class.forName(args[2]).asSubclass(Mappable.class));
+            System.out.println(migrated ? "Migrated the dates of " + args[1] : "No dates to migrate in " + args[1]);
+        } else if (args.length >= 2 && StorageEncoding.fromString(args[0]) == StorageEncoding.TEXT) {
+            toText(args[1]);
+        } else if (args.length >= 3 && StorageEncoding.fromString(args[0]) == StorageEncoding.BINARY) {
+            toBinary(args[1], Class.forName(args[2]).asSubclass(Mappable.class));
+        } else {
+            System.out.println("Usage: RecordFileConverter text <data file>");
+            System.out.println("       RecordFileConverter binary <data file> <model class>");
+            System.out.println("       RecordFileConverter migrate <data file> <model class>");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package utils.iocontrol;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The RecordSink interface receives the key-value pairs of the records of a
+ * text data file as they are split from each line, one record at a time.
+ * {@link StringAndMapConvertor} and {@link MappedRecordReader} split the
+ * lines, and the sink decides what each record becomes: a map, or an object
+ * decoded straight from its pairs by a {@link MappableCodec}.
+ * A sink is used by one thread at a time.
+ *
+ * @param <T> the type of the records built by the sink
+ */
+interface RecordSink<T> {
+
+    /**
+     * Receives a key-value pair of the current record.
+     *
+     * @param key   the key
+     * @param value the value
+     * @throws IllegalArgumentException if the value is not valid for the key
+     */
+    void put(String key, String value);
+
+    /**
+     * Ends the current record and returns it.
+     *
+     * @return the record built from the pairs received since the last one
+     * @throws IllegalArgumentException if the record is not valid
+     */
+    T endRecord();
+
+    /**
+     * Creates a sink that puts the pairs of every record into a new map.
+     *
+     * @return the sink
+     */
+    static RecordSink<Map<String, String>> maps() {
+        return new MapSink();
+    }
+
+    /**
+     * Creates a sink that skips the records another sink rejects. A record
+     * with a value the other sink rejects, or that the other sink cannot end,
+     * is reported and ended as null, so the records after it are still read.
+     *
+     * @param <T>     the type of the records
+     * @param sink    the sink that builds the records
+     * @param skipped receives the error of every record that is skipped
+     * @return the sink
+     */
+    static <T> RecordSink<T> skippingInvalidRecords(RecordSink<T> sink, Consumer<RuntimeException> skipped) {
+        return new SkippingSink<>(sink, skipped);
+    }
+
+    /**
+     * The MapSink class puts the pairs of every record into a new map.
+     */
+    final class MapSink implements RecordSink<Map<String, String>> {
+
+        private Map<String, String> map = new HashMap<>();
+
+        @Override
+        public void put(String key, String value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public Map<String, String> endRecord() {
+            Map<String, String> record = map;
+            map = new HashMap<>();
+            return record;
+        }
+    }
+
+    /**
+     * The SkippingSink class ends the records another sink rejects as null.
+     * The rest of a rejected record is still handed to the other sink, so it
+     * is ready for the next record once the rejected one ends.
+     *
+     * @param <T> the type of the records
+     */
+    final class SkippingSink<T> implements RecordSink<T> {
+
+        private final RecordSink<T> sink;
+
+        private final Consumer<RuntimeException> skipped;
+
+        private RuntimeException error;
+
+        /**
+         * Constructs a SkippingSink.
+         *
+         * @param sink    the sink that builds the records
+         * @param skipped receives the error of every record that is skipped
+         */
+        SkippingSink(RecordSink<T> sink, Consumer<RuntimeException> skipped) {
+            this.sink = sink;
+            this.skipped = skipped;
+        }
+
+        @Override
+        public void put(String key, String value) {
+            try {
+                sink.put(key, value);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+
+        @Override
+        public T endRecord() {
+            T record = null;
+            try {
+                record = sink.endRecord();
+            } catch (IllegalArgumentException | NullPointerException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error == null) {
+                return record;
+            }
+            skipped.accept(error);
+            error = null;
+            return null;
+        }
+    }
+}
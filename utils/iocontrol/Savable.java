@@ -1,19 +1,70 @@
 package utils.iocontrol;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
 
 /**
  * An abstract class for managing objects that can be mapped to and from
  * key-value pairs.
+ * Changes are persisted according to the {@link PersistenceMode} of the
+ * Savable: either by rewriting the whole file, or by appending a record per
+ * change to a segmented {@link AppendLog} that is replayed on load.
+ * Whenever a log segment fills up, the {@link LogCompactor} writes a snapshot
+ * of the live objects to the file in the background, under the read lock of
+ * the Savable, and drops the segments the snapshot covers, so a load only
+ * replays the tail of the log.
+ * The file itself is written in the {@link StorageEncoding} of the Savable,
+ * and read in whichever encoding it was last written in.
+ * <p>
+ * Every change marks its object dirty, and only dirty objects are serialized
+ * again: in APPEND_LOG mode only they are appended to the log, and in
+ * SNAPSHOT mode the text lines of clean objects are reused from the previous
+ * snapshot. Only APPEND_LOG mode is incremental, as a SNAPSHOT change still
+ * writes the whole file. An explicit {@link #save(String)} serializes every object.
+ * </p>
+ * <p>
+ * With write-behind on, changes return as soon as they are made in memory,
+ * and only the keys of the dirty objects are recorded. The
+ * {@link WriteBehindFlusher} later looks them up and writes them under the
+ * read lock of the Savable, so it never serializes an object while it is
+ * being changed; {@link #flush(String)} waits until they are on disk.
+ * </p>
  *
  * @param <MappableObject> a class that can be mapped to and from key-value
  *                         pairs
  */
 public abstract class Savable<MappableObject extends Mappable> {
 
+    private PersistenceMode persistenceMode = PersistenceMode.getDefault();
+
+    private StorageEncoding storageEncoding = StorageEncoding.getDefault();
+
+    private AppendLog appendLog;
+
+    private final Object snapshotLock = new Object();
+
+    private boolean writeBehind = WriteBehindFlusher.isEnabledByDefault();
+
+    private final Set<String> dirtyKeys = new LinkedHashSet<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private Map<MappableObject, String> serializedLines = new IdentityHashMap<>();
+
     /**
      * Gets the list of mappable objects.
      *
@@ -28,55 +79,605 @@ public abstract class Savable<MappableObject extends Mappable> {
      */
     protected abstract void setAll(List<Map<String, String>> listOfMappableObjects);
 
+    /**
+     * Creates an empty mappable object for a record of a text file to be
+     * decoded into, straight from its line and without building a map first.
+     * Returns null by default, in which case the records are read into maps
+     * and handed to {@link #setAll(List)}. A Savable that overrides this must
+     * build its mappable objects from every field of their records, as
+     * {@link MappableCodec#fromMap(Mappable, Map)} does.
+     *
+     * @return a new empty mappable object, or null to load from maps
+     */
+    protected MappableObject newMappableObject() {
+        return null;
+    }
+
+    /**
+     * Restores the parts of a loaded mappable object that {@link #setAll(List)}
+     * does not set from its record. Does nothing by default.
+     *
+     * @param mappableObject the mappable object built from the record
+     * @param record         the record the mappable object was built from
+     */
+    protected void restoreRecord(MappableObject mappableObject, Map<String, String> record) {
+    }
+
+    /**
+     * Gets the key that identifies a mappable object in the append log.
+     *
+     * @param mappableObject the mappable object
+     * @return the key of the mappable object
+     */
+    protected abstract String getRecordKey(MappableObject mappableObject);
+
+    /**
+     * Finds a mappable object by the key that identifies it in the append log.
+     * Only called while holding the read lock taken by
+     * {@link #runUnderReadLock(Runnable)}.
+     *
+     * @param key the key of the mappable object
+     * @return the mappable object, or null if there is none
+     */
+    protected abstract MappableObject findByRecordKey(String key);
+
+    /**
+     * Runs a task that reads the mappable objects from a background thread,
+     * while no change can be made to them. Runs it straight away by default.
+     *
+     * @param task the task to run
+     */
+    protected void runUnderReadLock(Runnable task) {
+        task.run();
+    }
+
+    /**
+     * Gets the persistence mode of this Savable.
+     *
+     * @return the persistence mode
+     */
+    public PersistenceMode getPersistenceMode() {
+        return persistenceMode;
+    }
+
+    /**
+     * Sets the persistence mode of this Savable.
+     *
+     * @param persistenceMode the persistence mode to set
+     */
+    public void setPersistenceMode(PersistenceMode persistenceMode) {
+        this.persistenceMode = persistenceMode;
+    }
+
+    /**
+     * Gets the storage encoding of this Savable.
+     *
+     * @return the storage encoding
+     */
+    public StorageEncoding getStorageEncoding() {
+        return storageEncoding;
+    }
+
+    /**
+     * Sets the storage encoding of this Savable.
+     * The file is converted the next time it is saved.
+     *
+     * @param storageEncoding the storage encoding to set
+     */
+    public void setStorageEncoding(StorageEncoding storageEncoding) {
+        this.storageEncoding = storageEncoding;
+    }
+
+    /**
+     * Checks whether changes are written behind, by the
+     * {@link WriteBehindFlusher}, instead of before the change returns.
+     *
+     * @return true if write-behind is on, false otherwise
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Sets whether changes are written behind, by the {@link WriteBehindFlusher},
+     * instead of before the change returns.
+     *
+     * @param writeBehind true to turn write-behind on, false to turn it off
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        synchronized (dirtyKeys) {
+            this.writeBehind = writeBehind;
+        }
+    }
+
+    /**
+     * Gets the append log of a file, creating it on first use.
+     *
+     * @param FILE_PATH the path of the file the log belongs to
+     * @return the append log of the file
+     */
+    private synchronized AppendLog getAppendLog(final String FILE_PATH) {
+        if (appendLog == null) {
+            appendLog = new AppendLog(FILE_PATH);
+        }
+        return appendLog;
+    }
+
     /**
      * Saves the list of mappable objects to a file.
+     * Every object is serialized again, so any changes still waiting for the
+     * write-behind flusher are written with them and no longer flushed.
      *
      * @param FILE_PATH the path of the file to save to
      * @throws RuntimeException if the data could not be saved to the file
      */
     protected void save(final String FILE_PATH) {
-        try (PrintWriter printWriter = new PrintWriter(new FileWriter(FILE_PATH))) {
-            final List<MappableObject> listOfMappableObjects = getAll();
-            for (MappableObject mappableObject : listOfMappableObjects) {
-                printWriter.println(StringAndMapConvertor.mapToString(mappableObject.convertToMap()));
+        discardPendingFlush();
+        snapshot(FILE_PATH, getAll(), false);
+    }
+
+    /**
+     * Writes a snapshot of mappable objects to a file.
+     * The log segments written so far are sealed first, and checkpointed once
+     * the file has been written, as the file now contains all their records.
+     *
+     * @param FILE_PATH             the path of the file to save to
+     * @param listOfMappableObjects the mappable objects to write
+     * @param reuseCleanObjects     whether the lines of objects that are not
+     *                              dirty are reused from the previous snapshot
+     * @throws RuntimeException if the data could not be saved to the file
+     */
+    private void snapshot(final String FILE_PATH, final List<MappableObject> listOfMappableObjects,
+            boolean reuseCleanObjects) {
+        synchronized (snapshotLock) {
+            AppendLog log = getAppendLog(FILE_PATH);
+            long lastSegment = log.seal();
+            writeSnapshot(FILE_PATH, listOfMappableObjects, reuseCleanObjects);
+            log.checkpoint(lastSegment);
+        }
+    }
+
+    /**
+     * Compacts the log of a file in the background once a segment has been
+     * sealed.
+     * The snapshot is written under the read lock, from the live mappable
+     * objects, which already contain every record of the sealed segment.
+     * Records appended to later segments are replayed on top of the snapshot
+     * on load.
+     *
+     * @param FILE_PATH the path of the file to compact
+     */
+    private void compactInBackground(final String FILE_PATH) {
+        final AppendLog log = getAppendLog(FILE_PATH);
+        final long sealedSegment = log.seal();
+        LogCompactor.submit(() -> runUnderReadLock(() -> {
+            synchronized (snapshotLock) {
+                if (log.getCheckpoint() >= sealedSegment) {
+                    return;
+                }
+                writeSnapshot(FILE_PATH, getAll(), true);
+                log.checkpoint(sealedSegment);
+            }
+        }));
+    }
+
+    /**
+     * Writes a snapshot of mappable objects to a file.
+     * The snapshot is written to a temporary file first and then moved over the
+     * old file, so a crash never leaves a partially written file behind.
+     * In the TEXT encoding each line is built by the {@link MappableCodec} of
+     * the object and kept, so the next snapshot can reuse it if the object is
+     * still clean. Must be called while holding the snapshot lock.
+     *
+     * @param FILE_PATH             the path of the file to write to
+     * @param listOfMappableObjects the mappable objects to write
+     * @param reuseCleanObjects     whether the lines of objects that are not
+     *                              dirty are reused from the previous snapshot
+     * @throws RuntimeException if the data could not be saved to the file
+     */
+    private void writeSnapshot(final String FILE_PATH, final List<MappableObject> listOfMappableObjects,
+            boolean reuseCleanObjects) {
+        final String TEMP_FILE_PATH = FILE_PATH + ".tmp";
+        if (storageEncoding == StorageEncoding.BINARY) {
+            try (OutputStream outputStream = new FileOutputStream(TEMP_FILE_PATH)) {
+                BinaryRecordFormat.write(listOfMappableObjects, outputStream);
+            } catch (IOException e) {
+                throw new RuntimeException("Data could not be saved to file: " + FILE_PATH);
+            }
+            serializedLines = new IdentityHashMap<>();
+        } else {
+            Map<MappableObject, String> lines = new IdentityHashMap<>(listOfMappableObjects.size());
+            StringBuilder builder = new StringBuilder();
+            try (Writer writer = new BufferedWriter(new FileWriter(TEMP_FILE_PATH))) {
+                for (MappableObject mappableObject : listOfMappableObjects) {
+                    String line = reuseCleanObjects ? serializedLines.get(mappableObject) : null;
+                    if (line == null) {
+                        builder.setLength(0);
+                        MappableCodec.of(mappableObject.getClass()).appendTo(mappableObject, builder);
+                        line = builder.toString();
+                    }
+                    lines.put(mappableObject, line);
+                    writer.write(line);
+                    writer.write(System.lineSeparator());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Data could not be saved to file: " + FILE_PATH);
             }
+            serializedLines = lines;
+        }
+        try {
+            Files.move(Path.of(TEMP_FILE_PATH), Path.of(FILE_PATH), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new RuntimeException("Data could not be saved to file: " + FILE_PATH);
         }
     }
 
     /**
-     * Loads the list of mappable objects from a file.
+     * Persists a mappable object that was added or updated, by marking it dirty
+     * and persisting the dirty objects, either straight away or through the
+     * write-behind flusher.
+     *
+     * @param FILE_PATH      the path of the file to save to
+     * @param mappableObject the mappable object that was added or updated
+     * @throws RuntimeException if the data could not be saved
+     */
+    protected void savePut(final String FILE_PATH, MappableObject mappableObject) {
+        markDirty(FILE_PATH, Collections.singletonMap(getRecordKey(mappableObject), mappableObject));
+    }
+
+    /**
+     * Persists several mappable objects that were added or updated together, by
+     * marking them all dirty and persisting them in a single write, either
+     * straight away or through the write-behind flusher.
+     *
+     * @param FILE_PATH             the path of the file to save to
+     * @param listOfMappableObjects the mappable objects that were added or updated
+     * @throws RuntimeException if the data could not be saved
+     */
+    protected void savePutAll(final String FILE_PATH, Collection<MappableObject> listOfMappableObjects) {
+        Map<String, MappableObject> changedObjects = new LinkedHashMap<>();
+        for (MappableObject mappableObject : listOfMappableObjects) {
+            changedObjects.put(getRecordKey(mappableObject), mappableObject);
+        }
+        markDirty(FILE_PATH, changedObjects);
+    }
+
+    /**
+     * Persists the removal of a mappable object, by marking it dirty and
+     * persisting the dirty objects, either straight away or through the
+     * write-behind flusher.
+     *
+     * @param FILE_PATH the path of the file to save to
+     * @param key       the key of the mappable object that was removed
+     * @throws RuntimeException if the data could not be saved
+     */
+    protected void saveDelete(final String FILE_PATH, String key) {
+        markDirty(FILE_PATH, Collections.singletonMap(key, null));
+    }
+
+    /**
+     * Marks mappable objects as dirty, so that they are serialized again the next
+     * time they are persisted, and persists them. Must be called while no other
+     * change can be made to the mappable objects.
+     * With write-behind only their keys are recorded, and a flush is queued
+     * unless one is already waiting: after the longest delay, or straight away
+     * once there are as many dirty objects as the largest batch. A later change
+     * to the same object is written with the earlier one, so it is only written
+     * once.
+     *
+     * @param FILE_PATH      the path of the file to save to
+     * @param changedObjects the changed mappable objects by key, with null for
+     *                       removed objects
+     * @throws RuntimeException if the data could not be saved
+     */
+    private void markDirty(final String FILE_PATH, Map<String, MappableObject> changedObjects) {
+        if (changedObjects.isEmpty()) {
+            return;
+        }
+        synchronized (dirtyKeys) {
+            if (!writeBehind) {
+                Map<String, MappableObject> drainedObjects = drainDirtyObjects();
+                drainedObjects.putAll(changedObjects);
+                persistDirty(FILE_PATH, drainedObjects);
+                return;
+            }
+            dirtyKeys.addAll(changedObjects.keySet());
+            if (dirtyKeys.size() >= WriteBehindFlusher.getMaxBatch()) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                }
+                scheduledFlush = WriteBehindFlusher.schedule(() -> flushPending(FILE_PATH), 0);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = WriteBehindFlusher.schedule(() -> flushPending(FILE_PATH),
+                        WriteBehindFlusher.getMaxDelay());
+            }
+        }
+    }
+
+    /**
+     * Takes the dirty mappable objects, leaving none behind, by looking up the
+     * current mappable object of every dirty key.
+     * Must be called while holding the lock on the dirty keys, and while no
+     * change can be made to the mappable objects.
+     *
+     * @return the dirty mappable objects by key, with null for removed objects
+     */
+    private Map<String, MappableObject> drainDirtyObjects() {
+        Map<String, MappableObject> drainedObjects = new LinkedHashMap<>();
+        for (String key : dirtyKeys) {
+            drainedObjects.put(key, findByRecordKey(key));
+        }
+        dirtyKeys.clear();
+        return drainedObjects;
+    }
+
+    /**
+     * Persists the changes waiting for the write-behind flusher. Runs on the
+     * flusher thread, under the read lock, so the dirty mappable objects are
+     * looked up and serialized while no change can be made to them.
+     *
+     * @param FILE_PATH the path of the file to save to
+     * @throws RuntimeException if the data could not be saved
+     */
+    private void flushPending(final String FILE_PATH) {
+        synchronized (dirtyKeys) {
+            scheduledFlush = null;
+        }
+        runUnderReadLock(() -> {
+            Map<String, MappableObject> drainedObjects;
+            synchronized (dirtyKeys) {
+                drainedObjects = drainDirtyObjects();
+            }
+            persistDirty(FILE_PATH, drainedObjects);
+        });
+    }
+
+    /**
+     * Waits until the changes made so far are written to a file.
+     * Does nothing unless write-behind is on or changes are still waiting to be
+     * flushed.
+     *
+     * @param FILE_PATH the path of the file to save to
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    protected void flush(final String FILE_PATH) {
+        synchronized (dirtyKeys) {
+            if (!writeBehind && scheduledFlush == null) {
+                return;
+            }
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = WriteBehindFlusher.schedule(() -> flushPending(FILE_PATH), 0);
+            }
+        }
+        WriteBehindFlusher.awaitQueued();
+    }
+
+    /**
+     * Forces the file, and the segments of its append log that are not yet
+     * checkpointed, to the storage device, so the changes written so far
+     * survive a crash of the machine. Changes still waiting for the
+     * write-behind flusher are not included; {@link #flush(String)} them first.
+     *
+     * @param FILE_PATH the path of the file to force
+     * @throws RuntimeException if the file could not be forced
+     */
+    protected void force(final String FILE_PATH) {
+        synchronized (snapshotLock) {
+            Path path = Path.of(FILE_PATH).toAbsolutePath();
+            AppendLog.forceFile(path);
+            AppendLog.forceDirectory(path.getParent());
+            if (persistenceMode == PersistenceMode.APPEND_LOG) {
+                getAppendLog(FILE_PATH).force();
+            }
+        }
+    }
+
+    /**
+     * Drops the changes waiting for the write-behind flusher, before the whole
+     * list of mappable objects is saved or loaded.
+     * A flush that is already running holds the read lock, so it either
+     * finishes before a load takes the write lock, or writes the same objects
+     * as the save; it is not waited for, as the caller may hold the lock the
+     * flush is waiting on.
+     */
+    private void discardPendingFlush() {
+        synchronized (dirtyKeys) {
+            dirtyKeys.clear();
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+    }
+
+    /**
+     * Persists dirty mappable objects. Must be called while no change can be
+     * made to the mappable objects.
+     * The lines of the dirty objects kept from the previous snapshot are
+     * dropped first, in either mode, so no later snapshot reuses them. In
+     * APPEND_LOG mode only the dirty objects are then appended to the log of
+     * the file. Otherwise a snapshot of the file is written in which only the
+     * dirty objects are serialized again.
+     *
+     * @param FILE_PATH      the path of the file to save to
+     * @param drainedObjects the dirty mappable objects by key, with null for
+     *                       removed objects
+     * @throws RuntimeException if the data could not be saved
+     */
+    private void persistDirty(final String FILE_PATH, Map<String, MappableObject> drainedObjects) {
+        if (drainedObjects.isEmpty()) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            for (MappableObject mappableObject : drainedObjects.values()) {
+                if (mappableObject != null) {
+                    serializedLines.remove(mappableObject);
+                }
+            }
+            if (persistenceMode != PersistenceMode.APPEND_LOG) {
+                snapshot(FILE_PATH, getAll(), true);
+                return;
+            }
+        }
+        AppendLog log = getAppendLog(FILE_PATH);
+        boolean sealed = false;
+        for (Map.Entry<String, MappableObject> dirtyObject : drainedObjects.entrySet()) {
+            if (dirtyObject.getValue() == null) {
+                sealed |= log.appendDelete(dirtyObject.getKey());
+            } else {
+                sealed |= log.appendPut(dirtyObject.getKey(), dirtyObject.getValue().convertToMap());
+            }
+        }
+        if (sealed) {
+            compactInBackground(FILE_PATH);
+        }
+    }
+
+    /**
+     * Loads the list of mappable objects from a file, in the encoding the file
+     * was written in.
+     * Text files from {@link MappedRecordReader#getThreshold()} bytes up are
+     * read through a memory mapping and decoded in parallel chunks. The lines
+     * of text files are decoded straight into mappable objects if
+     * {@link #newMappableObject()} creates them, and into maps otherwise.
+     * A record with a value that cannot be decoded, such as a number that does
+     * not parse, is reported and skipped, so the other records are still
+     * loaded.
+     * Any records left in the append log of the file are replayed on top of the
+     * file, whatever the current persistence mode is. Then the records of
+     * transactions in the {@link TransactionJournal} that were not applied to
+     * the file are replayed too, and the file is saved. Loading never writes
+     * the file otherwise; dates in a format older than the {@link EpochDay} are
+     * read as they are, and migrated with
+     * {@link RecordFileConverter#migrateDates(String, Class)}.
      *
      * @param FILE_PATH the path of the file to load from
      * @throws RuntimeException if the data could not be loaded from the file
      */
     protected void load(final String FILE_PATH) {
-        List<Map<String, String>> listOfMappableObjects = new ArrayList<>();
-        BufferedReader bufferedReader;
+        discardPendingFlush();
+        List<Map<String, String>> listOfMappableObjects = null;
+        List<MappableObject> decodedMappableObjects = null;
+        MappableObject emptyMappableObject = newMappableObject();
+        File file = new File(FILE_PATH);
         try {
-            bufferedReader = new BufferedReader(new FileReader(FILE_PATH));
-        } catch (FileNotFoundException e) {
-            File file = new File(FILE_PATH);
-            File parent = file.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
-            }
-            try {
+            if (!file.exists()) {
+                File parent = file.getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
                 file.createNewFile();
-                bufferedReader = new BufferedReader(new FileReader(file));
-            } catch (IOException ex) {
-                throw new RuntimeException("Data could not be loaded from file: " + FILE_PATH);
             }
-        }
-        String line;
-        try {
-            while ((line = bufferedReader.readLine()) != null) {
-                listOfMappableObjects.add(StringAndMapConvertor.stringToMap(line));
+            if (BinaryRecordFormat.isBinary(FILE_PATH)) {
+                listOfMappableObjects = BinaryRecordFormat.read(FILE_PATH);
+            } else if (emptyMappableObject != null) {
+                MappableCodec codec = MappableCodec.of(emptyMappableObject.getClass());
+                decodedMappableObjects = readText(file, () -> RecordSink.skippingInvalidRecords(
+                        codec.decoder(this::newMappableObject), e -> reportSkippedRecord(FILE_PATH, e)));
+                decodedMappableObjects.removeIf(Objects::isNull);
+            } else {
+                listOfMappableObjects = readText(file, RecordSink::maps);
             }
         } catch (IOException e) {
             throw new RuntimeException("Data could not be loaded from file: " + FILE_PATH);
         }
-        setAll(listOfMappableObjects);
+        synchronized (snapshotLock) {
+            serializedLines = new IdentityHashMap<>();
+        }
+        if (decodedMappableObjects != null) {
+            getAll().addAll(decodedMappableObjects);
+        } else {
+            setAllAndRestore(FILE_PATH, listOfMappableObjects);
+        }
+        replay(FILE_PATH, getAppendLog(FILE_PATH).replay());
+
+        TransactionJournal journal = TransactionJournal.getDefault();
+        Map<String, Map<String, String>> journaledMappableObjects = journal.getRecoveredRecords(FILE_PATH);
+        if (!journaledMappableObjects.isEmpty()) {
+            replay(FILE_PATH, journaledMappableObjects);
+            save(FILE_PATH);
+            journal.markRecovered(FILE_PATH);
+        }
+    }
+
+    /**
+     * Reads the records of a text file, through a memory mapping if it is
+     * large enough.
+     *
+     * @param <T>   the type of the records
+     * @param file  the file to read
+     * @param sinks creates the sinks that build the records
+     * @return the records of the file
+     * @throws IOException if the file could not be read
+     */
+    private static <T> List<T> readText(File file, Supplier<? extends RecordSink<T>> sinks) throws IOException {
+        if (file.length() >= MappedRecordReader.getThreshold()) {
+            return MappedRecordReader.readAll(file.getPath(), sinks);
+        }
+        try (Reader reader = new FileReader(file)) {
+            return StringAndMapConvertor.readRecords(reader, sinks.get());
+        }
+    }
+
+    /**
+     * Replays records on top of the list of mappable objects, replacing the
+     * mappable objects with the same keys.
+     *
+     * @param FILE_PATH the path of the file the records belong to
+     * @param records   the latest contents of every changed mappable object, by
+     *                  key, with null for removed objects
+     */
+    private void replay(final String FILE_PATH, Map<String, Map<String, String>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        getAll().removeIf(mappableObject -> records.containsKey(getRecordKey(mappableObject)));
+        List<Map<String, String>> listOfRecords = new ArrayList<>();
+        for (Map<String, String> record : records.values()) {
+            if (record != null) {
+                listOfRecords.add(record);
+            }
+        }
+        setAllAndRestore(FILE_PATH, listOfRecords);
+    }
+
+    /**
+     * Adds the mappable objects built from records to the list of mappable
+     * objects, and restores each of them from its record, such as its version.
+     * The records are handed to {@link #setAll(List)} one at a time, so every
+     * mappable object is restored from its own record even if a record does
+     * not lead to exactly one mappable object. A record that cannot be added
+     * or restored is reported and skipped.
+     *
+     * @param FILE_PATH the path of the file the records belong to
+     * @param records   the records to add
+     */
+    private void setAllAndRestore(final String FILE_PATH, List<Map<String, String>> records) {
+        List<MappableObject> listOfMappableObjects = getAll();
+        for (Map<String, String> record : records) {
+            int firstIndex = listOfMappableObjects.size();
+            try {
+                setAll(Collections.singletonList(record));
+                for (int i = firstIndex; i < listOfMappableObjects.size(); i++) {
+                    restoreRecord(listOfMappableObjects.get(i), record);
+                }
+            } catch (IllegalArgumentException | NullPointerException e) {
+                listOfMappableObjects.subList(firstIndex, listOfMappableObjects.size()).clear();
+                reportSkippedRecord(FILE_PATH, e);
+            }
+        }
+    }
+
+    /**
+     * Reports a record that was skipped while loading, as its values are not
+     * valid.
+     *
+     * @param FILE_PATH the path of the file the record belongs to
+     * @param e         the error the record was rejected with
+     */
+    private static void reportSkippedRecord(final String FILE_PATH, RuntimeException e) {
+        System.out.println("Skipped an invalid record of " + FILE_PATH + ": " + e.getMessage());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package utils.iocontrol;
+
+/**
+ * Enum representing how a {@link Savable} encodes the records of its data
+ * file.
+ * Possible encodings include:
+ * <ul>
+ * <li>TEXT: One line of key-value pairs per record, as written by
+ * {@link StringAndMapConvertor}.</li>
+ * <li>BINARY: A schema header followed by positional binary records, as
+ * written by {@link BinaryRecordFormat}.</li>
+ * </ul>
+ * A data file is always read in the encoding it was written in, so changing
+ * the encoding converts each file the next time it is saved.
+ * The default encoding can be chosen with the {@code hms.encoding} system
+ * property, for example {@code -Dhms.encoding=binary}.
+ */
+public enum StorageEncoding {
+    /**
+     * One line of key-value pairs per record.
+     */
+    TEXT,
+
+    /**
+     * A schema header followed by positional binary records.
+     */
+    BINARY;
+
+    /**
+     * The system property used to choose the default encoding.
+     */
+    public static final String PROPERTY = "hms.encoding";
+
+    /**
+     * Gets the default encoding, as set by the {@code hms.encoding} system
+     * property.
+     *
+     * @return the default encoding, or TEXT if the property is not set
+     * @throws IllegalArgumentException if the property does not match any known
+     *                                  encoding
+     */
+    public static StorageEncoding getDefault() {
+        String encoding = System.getProperty(PROPERTY);
+        if (encoding == null || encoding.isBlank()) {
+            return TEXT;
+        }
+        return fromString(encoding);
+    }
+
+    /**
+     * Converts a string representation of an encoding to a StorageEncoding
+     * enum.
+     *
+     * @param encoding the string representation of the encoding
+     * @return the corresponding StorageEncoding
+     * @throws IllegalArgumentException if the encoding does not match any known
+     *                                  values
+     */
+    public static StorageEncoding fromString(String encoding) {
+        switch (encoding.trim().toUpperCase()) {
+            case "TEXT":
+                return TEXT;
+            case "BINARY":
+                return BINARY;
+            default:
+                throw new IllegalArgumentException("Unknown storage encoding: " + encoding);
+        }
+    }
+}
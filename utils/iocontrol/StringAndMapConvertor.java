@@ -1,11 +1,16 @@
 package utils.iocontrol;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
 
 /**
  * The StringAndMapConvertor class provides methods to convert a String
  * representation of a map to a Map object,
  * and vice versa.
+ * Lines are scanned once, without regular expressions, and
+ * whole files can be read from a {@link Reader} or written to any
+ * {@link Appendable}, such as a Writer, without building a String per line.
  */
 public class StringAndMapConvertor {
 
@@ -19,6 +24,14 @@ public class StringAndMapConvertor {
      */
     public static final String SEPARATOR_STRING = "\u001A\u001A\u001A";
 
+    private static final char DELIMITER_CHAR = '\u001B';
+
+    private static final char SEPARATOR_CHAR = '\u001A';
+
+    private static final int RUN_LENGTH = 3;
+
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * Converts a String representation of a map to a Map object.
      *
@@ -29,17 +42,75 @@ public class StringAndMapConvertor {
      *                                  key-value pairs.
      */
     public static Map<String, String> stringToMap(String string) {
-        Map<String, String> map = new HashMap<>();
-        String[] pairs = string.split(SEPARATOR_STRING);
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(DELIMITER_STRING);
-            if (keyValue.length != 2) {
-                throw new IllegalArgumentException(
-                        "Invalid key-value pair: " + pair + " in string: " + Arrays.toString(keyValue));
+        LineParser<Map<String, String>> lineParser = new LineParser<>(RecordSink.maps());
+        char[] chars = string.toCharArray();
+        lineParser.accept(chars, 0, chars.length);
+        return lineParser.endLine();
+    }
+
+    /**
+     * Reads every line of a reader as a String representation of a map.
+     * The reader is scanned through one reusable buffer, and blank lines are
+     * skipped.
+     *
+     * @param reader The reader to read the lines from.
+     * @return A list of Map objects, one for each line.
+     * @throws IOException              if the reader could not be read.
+     * @throws IllegalArgumentException if a line contains invalid key-value
+     *                                  pairs.
+     */
+    public static List<Map<String, String>> readMaps(Reader reader) throws IOException {
+        return readRecords(reader, RecordSink.maps());
+    }
+
+    /**
+     * Reads every line of a reader as a record, handing the key-value pairs of
+     * each line to a sink as they are split, without building a map unless the
+     * sink does.
+     * The reader is scanned through one reusable buffer, and blank lines are
+     * skipped.
+     *
+     * @param <T>    the type of the records
+     * @param reader The reader to read the lines from.
+     * @param sink   The sink that builds a record from the pairs of a line.
+     * @return A list of the records, one for each line.
+     * @throws IOException              if the reader could not be read.
+     * @throws IllegalArgumentException if a line contains invalid key-value
+     *                                  pairs.
+     */
+    static <T> List<T> readRecords(Reader reader, RecordSink<T> sink) throws IOException {
+        List<T> records = new ArrayList<>();
+        LineParser<T> lineParser = new LineParser<>(sink);
+        char[] buffer = new char[BUFFER_SIZE];
+        boolean skipLineFeed = false;
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                if (c != '\n' && c != '\r') {
+                    continue;
+                }
+                lineParser.accept(buffer, lineStart, i);
+                lineStart = i + 1;
+                if (c == '\n' && skipLineFeed) {
+                    skipLineFeed = false;
+                    continue;
+                }
+                skipLineFeed = c == '\r';
+                if (!lineParser.isLineEmpty()) {
+                    records.add(lineParser.endLine());
+                }
             }
-            map.put(keyValue[0], keyValue[1]);
+            if (lineStart < length) {
+                lineParser.accept(buffer, lineStart, length);
+                skipLineFeed = false;
+            }
+        }
+        if (!lineParser.isLineEmpty()) {
+            records.add(lineParser.endLine());
         }
-        return map;
+        return records;
     }
 
     /**
@@ -49,10 +120,258 @@ public class StringAndMapConvertor {
      * @return A String representation of the map.
      */
     public static String mapToString(Map<String, String> map) {
-        List<String> pairs = new ArrayList<>();
+        StringBuilder builder = new StringBuilder(map.size() * 32);
+        try {
+            writeMap(map, builder);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the String representation of a map to an appendable, such as a
+     * Writer or a StringBuilder, without building the String first.
+     *
+     * @param map The Map object to write.
+     * @param out The appendable to write to.
+     * @throws IOException if the appendable could not be written to.
+     */
+    public static void writeMap(Map<String, String> map, Appendable out) throws IOException {
+        boolean first = true;
         for (Map.Entry<String, String> entry : map.entrySet()) {
-            pairs.add(entry.getKey() + DELIMITER_STRING + entry.getValue());
+            if (!first) {
+                out.append(SEPARATOR_STRING);
+            }
+            out.append(entry.getKey()).append(DELIMITER_STRING).append(entry.getValue());
+            first = false;
+        }
+    }
+
+    /**
+     * The LineParser class splits the characters of one line at a time into
+     * key-value pairs, and hands them to a {@link RecordSink}.
+     * Keys and values are collected in builders that are reused for every
+     * pair, and a key equal to the key in the same position of the previous
+     * line reuses that String instead of allocating a new one.
+     *
+     * @param <T> the type of the records built by the sink
+     */
+    private static final class LineParser<T> {
+
+        private final RecordSink<T> sink;
+
+        private final StringBuilder key = new StringBuilder();
+
+        private final StringBuilder value = new StringBuilder();
+
+        private final List<String> previousKeys = new ArrayList<>();
+
+        private boolean inValue;
+
+        private int delimiterRun;
+
+        private int separatorRun;
+
+        private int pairIndex;
+
+        private int emptyPairs;
+
+        private boolean lineEmpty = true;
+
+        /**
+         * Constructs a LineParser that hands the pairs of every line to a sink.
+         *
+         * @param sink the sink
+         */
+        LineParser(RecordSink<T> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Checks whether no character has been read since the last line ended.
+         *
+         * @return true if the current line is empty, false otherwise
+         */
+        boolean isLineEmpty() {
+            return lineEmpty;
+        }
+
+        /**
+         * Reads the next characters of the current line.
+         * Characters between separators are appended to the current key or
+         * value in bulk.
+         *
+         * @param chars  the characters
+         * @param offset the index of the first character to read
+         * @param end    the index after the last character to read
+         */
+        void accept(char[] chars, int offset, int end) {
+            int textStart = offset;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (c == DELIMITER_CHAR || c == SEPARATOR_CHAR) {
+                    appendText(chars, textStart, i);
+                    acceptSeparatorChar(c);
+                    textStart = i + 1;
+                }
+            }
+            appendText(chars, textStart, end);
+        }
+
+        /**
+         * Appends characters that are not part of a delimiter or separator to
+         * the current key or value.
+         *
+         * @param chars the characters
+         * @param start the index of the first character to append
+         * @param end   the index after the last character to append
+         */
+        private void appendText(char[] chars, int start, int end) {
+            if (start >= end) {
+                return;
+            }
+            lineEmpty = false;
+            flushDelimiterRun();
+            flushSeparatorRun();
+            (inValue ? value : key).append(chars, start, end - start);
+        }
+
+        /**
+         * Reads one delimiter or separator character of the current line.
+         *
+         * @param c the character
+         */
+        private void acceptSeparatorChar(char c) {
+            lineEmpty = false;
+            if (c == DELIMITER_CHAR) {
+                flushSeparatorRun();
+                if (++delimiterRun == RUN_LENGTH) {
+                    delimiterRun = 0;
+                    endKey();
+                }
+            } else if (c == SEPARATOR_CHAR) {
+                flushDelimiterRun();
+                if (++separatorRun == RUN_LENGTH) {
+                    separatorRun = 0;
+                    endPair();
+                }
+            }
+        }
+
+        /**
+         * Ends the current line and returns the record the sink built from it.
+         * Empty pairs at the end of the line are ignored.
+         *
+         * @return the record of the line
+         * @throws IllegalArgumentException if the last pair is invalid
+         */
+        T endLine() {
+            flushDelimiterRun();
+            flushSeparatorRun();
+            if (inValue || key.length() > 0) {
+                endPair();
+            }
+            pairIndex = 0;
+            emptyPairs = 0;
+            lineEmpty = true;
+            return sink.endRecord();
+        }
+
+        /**
+         * Ends the key of the current pair.
+         *
+         * @throws IllegalArgumentException if the pair already has a value
+         */
+        private void endKey() {
+            if (inValue) {
+                throw invalidPair();
+            }
+            inValue = true;
+        }
+
+        /**
+         * Ends the current pair and hands it to the sink.
+         * An empty pair is only allowed if no pair follows it on the line.
+         *
+         * @throws IllegalArgumentException if the pair has no value, or follows
+         *                                  an empty pair
+         */
+        private void endPair() {
+            if (!inValue) {
+                if (key.length() > 0) {
+                    throw invalidPair();
+                }
+                emptyPairs++;
+                return;
+            }
+            if (emptyPairs > 0) {
+                throw new IllegalArgumentException("Invalid key-value pair: empty pair before " + key);
+            }
+            sink.put(toKey(), value.toString());
+            key.setLength(0);
+            value.setLength(0);
+            inValue = false;
+            pairIndex++;
+        }
+
+        /**
+         * Gets the key of the current pair as a String, reusing the key in the
+         * same position of the previous line if it is equal.
+         *
+         * @return the key of the current pair
+         */
+        private String toKey() {
+            if (pairIndex < previousKeys.size()) {
+                String previousKey = previousKeys.get(pairIndex);
+                if (previousKey.contentEquals(key)) {
+                    return previousKey;
+                }
+                String newKey = key.toString();
+                previousKeys.set(pairIndex, newKey);
+                return newKey;
+            }
+            String newKey = key.toString();
+            previousKeys.add(newKey);
+            return newKey;
+        }
+
+        /**
+         * Adds delimiter characters that did not make up a whole delimiter to
+         * the current key or value.
+         */
+        private void flushDelimiterRun() {
+            for (; delimiterRun > 0; delimiterRun--) {
+                (inValue ? value : key).append(DELIMITER_CHAR);
+            }
+        }
+
+        /**
+         * Adds separator characters that did not make up a whole separator to
+         * the current key or value.
+         */
+        private void flushSeparatorRun() {
+            for (; separatorRun > 0; separatorRun--) {
+                (inValue ? value : key).append(SEPARATOR_CHAR);
+            }
+        }
+
+        /**
+         * Builds the exception for an invalid pair and resets the parser for
+         * the next line.
+         *
+         * @return the exception to throw
+         */
+        private IllegalArgumentException invalidPair() {
+            String pair = inValue ? key + DELIMITER_STRING + value : key.toString();
+            key.setLength(0);
+            value.setLength(0);
+            inValue = false;
+            pairIndex = 0;
+            emptyPairs = 0;
+            lineEmpty = true;
+            return new IllegalArgumentException("Invalid key-value pair: " + pair);
         }
-        return String.join(SEPARATOR_STRING, pairs);
     }
 }
@@ -0,0 +1,450 @@
+package utils.iocontrol;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The TransactionJournal class makes the changes of a transaction that spans
+ * several data files durable with a single append to one journal file.
+ * <p>
+ * A committed transaction is one line holding every record it puts or
+ * deletes, each with the data file it belongs to. The line is forced to disk
+ * before the commit returns, and the changes are then applied to the data
+ * files as usual. Once a data file holds the changes of a transaction, an
+ * applied marker is appended for that file. A transaction without an applied
+ * marker for one of its files is replayed onto that file the next time it is
+ * loaded, so a crash between the writes of two files never leaves only one of
+ * them changed.
+ * </p>
+ * <p>
+ * Transactions committed at the same time are written and forced together:
+ * the first of them writes every transaction waiting at that point, and the
+ * others only wait for it. The journal is emptied whenever no transaction is
+ * left to apply.
+ * </p>
+ */
+public class TransactionJournal {
+
+    /**
+     * The path of the journal shared by all the data files.
+     */
+    public static final String DEFAULT_FILE_PATH = "./data/transaction.journal";
+
+    /**
+     * The system property used to change the path of the shared journal.
+     */
+    public static final String PROPERTY = "hms.journal";
+
+    private static final String FIELD_SEPARATOR = AppendLog.FIELD_SEPARATOR;
+
+    private static final String COMMIT = "C";
+
+    private static final String APPLIED = "A";
+
+    private static final String PUT = "P";
+
+    private static final String DELETE = "D";
+
+    private static TransactionJournal defaultJournal;
+
+    private final String filePath;
+
+    private FileChannel channel;
+
+    private final Map<Long, List<Record>> recoveredRecords = new TreeMap<>();
+
+    private final Map<Long, Set<String>> unappliedFiles = new LinkedHashMap<>();
+
+    private final List<String> queuedEntries = new ArrayList<>();
+
+    private final Set<Long> failedSequences = new HashSet<>();
+
+    private long lastSequence;
+
+    private long durableSequence;
+
+    private boolean writing;
+
+    /**
+     * The Record class is one put or delete of a transaction.
+     *
+     * @param filePath the path of the data file the record belongs to
+     * @param key      the key of the object
+     * @param contents the contents of the object, or null if it is deleted
+     */
+    public record Record(String filePath, String key, Map<String, String> contents) {
+    }
+
+    /**
+     * Constructs a TransactionJournal stored in the given file, and reads the
+     * transactions in it that were not applied to every one of their files.
+     *
+     * @param filePath the path of the journal file
+     * @throws RuntimeException if the journal could not be read
+     */
+    public TransactionJournal(String filePath) {
+        this.filePath = filePath;
+        readJournal();
+    }
+
+    /**
+     * Gets the journal shared by all the data files, opening it on first use.
+     * Its path is set by the {@code hms.journal} system property, or
+     * {@link #DEFAULT_FILE_PATH} if the property is not set.
+     *
+     * @return the shared journal
+     */
+    public static synchronized TransactionJournal getDefault() {
+        if (defaultJournal == null) {
+            defaultJournal = new TransactionJournal(System.getProperty(PROPERTY, DEFAULT_FILE_PATH));
+        }
+        return defaultJournal;
+    }
+
+    /**
+     * Commits the records of a transaction, and returns once they are forced to
+     * disk.
+     * If another commit is already writing, this one is queued and written with
+     * every other commit queued meanwhile, by a single write and force.
+     *
+     * @param records the records of the transaction
+     * @return the sequence number of the transaction
+     * @throws RuntimeException if the journal could not be written
+     */
+    public long commit(List<Record> records) {
+        long sequence;
+        synchronized (this) {
+            sequence = ++lastSequence;
+            queuedEntries.add(encodeCommit(sequence, records));
+            Set<String> files = new HashSet<>();
+            for (Record record : records) {
+                files.add(record.filePath());
+            }
+            unappliedFiles.put(sequence, files);
+        }
+        while (true) {
+            List<String> batch;
+            long batchSequence;
+            synchronized (this) {
+                while (writing && durableSequence < sequence && !failedSequences.contains(sequence)) {
+                    waitForWriter();
+                }
+                if (failedSequences.remove(sequence)) {
+                    unappliedFiles.remove(sequence);
+                    throw new RuntimeException("Transaction could not be written to journal: " + filePath);
+                }
+                if (durableSequence >= sequence) {
+                    return sequence;
+                }
+                writing = true;
+                batch = new ArrayList<>(queuedEntries);
+                queuedEntries.clear();
+                batchSequence = lastSequence;
+            }
+            boolean written = writeAndForce(batch);
+            synchronized (this) {
+                writing = false;
+                if (written) {
+                    durableSequence = batchSequence;
+                } else {
+                    for (long failedSequence = durableSequence + 1; failedSequence <= batchSequence; failedSequence++) {
+                        failedSequences.add(failedSequence);
+                    }
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Records that a data file holds the changes of a transaction.
+     * The journal is emptied once every transaction in it is applied.
+     *
+     * @param sequence the sequence number of the transaction
+     * @param filePath the path of the data file
+     * @throws RuntimeException if the marker could not be written
+     */
+    public synchronized void markApplied(long sequence, String filePath) {
+        Set<String> files = unappliedFiles.get(sequence);
+        if (files == null || !files.remove(filePath)) {
+            return;
+        }
+        if (files.isEmpty()) {
+            unappliedFiles.remove(sequence);
+        }
+        if (unappliedFiles.isEmpty() && queuedEntries.isEmpty() && !writing) {
+            truncate();
+        } else {
+            writeMarker(sequence, filePath);
+        }
+    }
+
+    /**
+     * Takes the records of a data file from the transactions that were
+     * committed before the last shutdown but not applied to that file.
+     * The records of each object are folded together in the order of the
+     * transactions, so only the latest contents of each object are returned.
+     * The caller should apply the records, save the data file, and then call
+     * {@link #markRecovered(String)}.
+     *
+     * @param filePath the path of the data file
+     * @return the latest contents of every object, by key, with null for
+     *         deleted objects
+     */
+    public synchronized Map<String, Map<String, String>> getRecoveredRecords(String filePath) {
+        Map<String, Map<String, String>> records = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Record>> transaction : recoveredRecords.entrySet()) {
+            Set<String> files = unappliedFiles.get(transaction.getKey());
+            if (files == null || !files.contains(filePath)) {
+                continue;
+            }
+            for (Record record : transaction.getValue()) {
+                if (record.filePath().equals(filePath)) {
+                    records.remove(record.key());
+                    records.put(record.key(), record.contents());
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Records that a data file holds the changes of every transaction recovered
+     * for it.
+     *
+     * @param filePath the path of the data file
+     * @throws RuntimeException if the markers could not be written
+     */
+    public synchronized void markRecovered(String filePath) {
+        for (Long sequence : new ArrayList<>(recoveredRecords.keySet())) {
+            Set<String> files = unappliedFiles.get(sequence);
+            if (files != null && files.contains(filePath)) {
+                markApplied(sequence, filePath);
+            }
+            if (!unappliedFiles.containsKey(sequence)) {
+                recoveredRecords.remove(sequence);
+            }
+        }
+    }
+
+    /**
+     * Waits for the commit that is writing to finish.
+     *
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    private void waitForWriter() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the journal: " + filePath);
+        }
+    }
+
+    /**
+     * Writes a batch of commit lines to the end of the journal with one write,
+     * and forces them to disk.
+     *
+     * @param batch the commit lines to write
+     * @return true if the batch was written and forced, false otherwise
+     */
+    private boolean writeAndForce(List<String> batch) {
+        StringBuilder builder = new StringBuilder();
+        for (String entry : batch) {
+            builder.append(entry).append(System.lineSeparator());
+        }
+        try {
+            FileChannel fileChannel = getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+            fileChannel.force(false);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends an applied marker to the journal. The marker is not forced, as
+     * replaying a transaction whose marker was lost puts the same contents
+     * again.
+     *
+     * @param sequence the sequence number of the transaction
+     * @param filePath the path of the data file
+     * @throws RuntimeException if the marker could not be written
+     */
+    private void writeMarker(long sequence, String filePath) {
+        String line = APPLIED + FIELD_SEPARATOR + sequence + FIELD_SEPARATOR + filePath + FIELD_SEPARATOR
+                + System.lineSeparator();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                getChannel().write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Data could not be written to journal: " + this.filePath);
+        }
+    }
+
+    /**
+     * Empties the journal, as every transaction in it is applied.
+     *
+     * @throws RuntimeException if the journal could not be emptied
+     */
+    private void truncate() {
+        try {
+            getChannel().truncate(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Journal could not be emptied: " + filePath);
+        }
+    }
+
+    /**
+     * Gets the channel of the journal file, opening it on first use.
+     *
+     * @return the channel of the journal file
+     * @throws IOException if the journal file could not be opened
+     */
+    private synchronized FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            File file = new File(filePath);
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * Encodes the commit line of a transaction.
+     *
+     * @param sequence the sequence number of the transaction
+     * @param records  the records of the transaction
+     * @return the commit line
+     */
+    private static String encodeCommit(long sequence, List<Record> records) {
+        StringBuilder builder = new StringBuilder(COMMIT).append(FIELD_SEPARATOR).append(sequence);
+        for (Record record : records) {
+            builder.append(FIELD_SEPARATOR).append(record.contents() == null ? DELETE : PUT)
+                    .append(FIELD_SEPARATOR).append(record.filePath())
+                    .append(FIELD_SEPARATOR).append(record.key())
+                    .append(FIELD_SEPARATOR)
+                    .append(record.contents() == null ? "" : StringAndMapConvertor.mapToString(record.contents()));
+        }
+        return builder.append(FIELD_SEPARATOR).toString();
+    }
+
+    /**
+     * Reads the journal file, keeping the records of every transaction that is
+     * not applied to all of its files. A partially written line at the end of
+     * the journal, left behind by a crash, is ignored.
+     *
+     * @throws RuntimeException if the journal could not be read
+     */
+    private void readJournal() {
+        if (!new File(filePath).exists()) {
+            return;
+        }
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                if (fields.length < 3 || !fields[fields.length - 1].isEmpty()) {
+                    break;
+                }
+                try {
+                    long sequence = Long.parseLong(fields[1]);
+                    lastSequence = Math.max(lastSequence, sequence);
+                    if (fields[0].equals(COMMIT) && (fields.length - 3) % 4 == 0) {
+                        List<Record> records = new ArrayList<>();
+                        Set<String> files = new HashSet<>();
+                        for (int i = 2; i + 4 < fields.length; i += 4) {
+                            Map<String, String> contents = fields[i].equals(PUT)
+                                    ? StringAndMapConvertor.stringToMap(fields[i + 3])
+                                    : null;
+                            records.add(new Record(fields[i + 1], fields[i + 2], contents));
+                            files.add(fields[i + 1]);
+                        }
+                        recoveredRecords.put(sequence, records);
+                        unappliedFiles.put(sequence, files);
+                    } else if (fields[0].equals(APPLIED) && fields.length == 4) {
+                        Set<String> files = unappliedFiles.get(sequence);
+                        if (files != null && files.remove(fields[2]) && files.isEmpty()) {
+                            unappliedFiles.remove(sequence);
+                            recoveredRecords.remove(sequence);
+                        }
+                    } else {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Data could not be loaded from journal: " + filePath);
+        }
+        durableSequence = lastSequence;
+        rewriteJournal();
+    }
+
+    /**
+     * Rewrites the journal file with only the transactions read from it that
+     * are still to be applied, so that new commits never follow a partially
+     * written line. The journal file is deleted if there are none.
+     *
+     * @throws RuntimeException if the journal could not be rewritten
+     */
+    private void rewriteJournal() {
+        final Path path = Path.of(filePath);
+        final Path tempPath = Path.of(filePath + ".tmp");
+        try {
+            if (recoveredRecords.isEmpty()) {
+                Files.deleteIfExists(path);
+                return;
+            }
+            StringBuilder builder = new StringBuilder();
+            for (Map.Entry<Long, List<Record>> transaction : recoveredRecords.entrySet()) {
+                Set<String> files = unappliedFiles.get(transaction.getKey());
+                List<Record> records = new ArrayList<>();
+                for (Record record : transaction.getValue()) {
+                    if (files.contains(record.filePath())) {
+                        records.add(record);
+                    }
+                }
+                builder.append(encodeCommit(transaction.getKey(), records)).append(System.lineSeparator());
+            }
+            try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    tempChannel.write(buffer);
+                }
+                tempChannel.force(false);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Journal could not be rewritten: " + filePath);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package utils.iocontrol;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WriteBehindFlusher class writes the changes of {@link Savable} objects
+ * to disk in the background, off the thread that made them.
+ * A change is written at most {@link #getMaxDelay()} milliseconds after it was
+ * made, or as soon as a Savable has {@link #getMaxBatch()} dirty objects,
+ * whichever comes first. Flushes run one at a time on a single daemon thread,
+ * in the order they were queued.
+ * Write-behind is off by default, and is turned on with the
+ * {@code hms.writeBehind} system property. The policy can be tuned with the
+ * {@code hms.writeBehind.maxDelay} and {@code hms.writeBehind.maxBatch}
+ * system properties.
+ */
+public class WriteBehindFlusher {
+
+    /**
+     * The system property used to turn write-behind on by default.
+     */
+    public static final String PROPERTY = "hms.writeBehind";
+
+    /**
+     * The system property used to change the longest time a change waits to be
+     * written, in milliseconds.
+     */
+    public static final String MAX_DELAY_PROPERTY = "hms.writeBehind.maxDelay";
+
+    /**
+     * The system property used to change the number of dirty objects that
+     * triggers a flush straight away.
+     */
+    public static final String MAX_BATCH_PROPERTY = "hms.writeBehind.maxBatch";
+
+    /**
+     * The default longest time a change waits to be written, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY = 200;
+
+    /**
+     * The default number of dirty objects that triggers a flush straight away.
+     */
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Checks whether write-behind is on by default, as set by the
+     * {@code hms.writeBehind} system property.
+     *
+     * @return true if write-behind is on by default, false otherwise
+     */
+    public static boolean isEnabledByDefault() {
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    /**
+     * Gets the longest time a change waits to be written.
+     *
+     * @return the longest delay in milliseconds
+     */
+    public static long getMaxDelay() {
+        return Math.max(0, Long.getLong(MAX_DELAY_PROPERTY, DEFAULT_MAX_DELAY));
+    }
+
+    /**
+     * Gets the number of dirty objects that triggers a flush straight away.
+     *
+     * @return the largest batch of dirty objects
+     */
+    public static int getMaxBatch() {
+        return Math.max(1, Integer.getInteger(MAX_BATCH_PROPERTY, DEFAULT_MAX_BATCH));
+    }
+
+    /**
+     * Queues a flush to run after the given delay.
+     * A failed flush is reported, and its objects are written again by the next
+     * explicit save.
+     *
+     * @param flush the flush to run
+     * @param delay the delay in milliseconds, or 0 to run it as soon as possible
+     * @return the queued flush, which can be cancelled before it starts
+     */
+    static ScheduledFuture<?> schedule(Runnable flush, long delay) {
+        return executor.schedule(() -> {
+            try {
+                flush.run();
+            } catch (RuntimeException e) {
+                System.out.println("Write-behind flush failed: " + e.getMessage());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits until every flush queued before this call has finished.
+     * Flushes still waiting for their delay are not waited for.
+     *
+     * @throws RuntimeException if the thread is interrupted while waiting
+     */
+    static void awaitQueued() {
+        try {
+            executor.submit(() -> {
+            }).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the write-behind flusher");
+        }
+    }
+}
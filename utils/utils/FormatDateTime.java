@@ -1,15 +1,87 @@
 package utils.utils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.TextStyle;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Utility class for handling date and time formatting and conversions.
+ * <p>
+ * Dates without a time, such as the date of an appointment, are held as epoch
+ * days, the number of days since 1970-01-01, and only turned into text when
+ * they are displayed. {@link #NO_DATE} stands for a date that is not set.
+ * All formatters are immutable {@link DateTimeFormatter}s that are built once
+ * and shared, so the methods of this class can be called from any thread.
+ * </p>
  */
 public class FormatDateTime {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+
+    /**
+     * The epoch day that stands for a date that is not set.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter DAY_MONTH_YEAR_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy hh:mm a");
+
+    /**
+     * The format of {@link Date#toString()}, in which dates with a time are
+     * stored, for the default time zone it was last built for.
+     */
+    private static volatile DateToStringFormat dateToStringFormat;
+
+    /**
+     * The format of {@link Date#toString()} for one default time zone.
+     * Time zone abbreviations such as IST are ambiguous, and Date writes them
+     * for the default time zone, so that zone is preferred when parsing.
+     *
+     * @param zone      the default time zone
+     * @param formatter the formatter
+     */
+    private record DateToStringFormat(ZoneId zone, DateTimeFormatter formatter) {
+    }
+
+    /**
+     * Gets the formatter of {@link Date#toString()} for the default time zone,
+     * building it again only if the default time zone changed.
+     *
+     * @return the formatter
+     */
+    private static DateTimeFormatter getDateToStringFormatter() {
+        ZoneId zone = ZoneId.systemDefault();
+        DateToStringFormat format = dateToStringFormat;
+        if (format == null || !format.zone().equals(zone)) {
+            format = new DateToStringFormat(zone, new DateTimeFormatterBuilder()
+                    .appendPattern("EEE MMM dd HH:mm:ss ")
+                    .appendZoneText(TextStyle.SHORT, Set.of(zone))
+                    .appendPattern(" uuuu")
+                    .toFormatter(Locale.US)
+                    .withResolverStyle(ResolverStyle.STRICT));
+            dateToStringFormat = format;
+        }
+        return format.formatter();
+    }
+
+    /**
+     * Converts a Date object to a date and time in the default time zone.
+     *
+     * @param date the Date to convert
+     * @return the date and time in the default time zone
+     */
+    private static ZonedDateTime toZonedDateTime(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault());
+    }
 
     /**
      * Formats a Date object to a string in "dd/MM/yyyy" format.
@@ -18,8 +90,108 @@ public class FormatDateTime {
      * @return a string representation of the date in "dd/MM/yyyy" format
      */
     public static String formatDate(Date date) {
-        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy");
-        return formatter.format(date);
+        return DAY_MONTH_YEAR_FORMATTER.format(toZonedDateTime(date));
+    }
+
+    /**
+     * Formats a LocalDate object to a string in "dd/MM/yyyy" format.
+     *
+     * @param date the LocalDate to format
+     * @return a string representation of the date in "dd/MM/yyyy" format
+     */
+    public static String formatDate(LocalDate date) {
+        return date.format(DAY_MONTH_YEAR_FORMATTER);
+    }
+
+    /**
+     * Parses a date string in "dd/MM/yyyy" format to a LocalDate object.
+     *
+     * @param dateString the date string in "dd/MM/yyyy" format
+     * @return a LocalDate object representing the date, or null if parsing fails
+     */
+    public static LocalDate parseDate(String dateString) {
+        if (dateString == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(dateString.trim(), DAY_MONTH_YEAR_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Formats an epoch day to a string in "dd/MM/yyyy" format.
+     *
+     * @param epochDay the epoch day to format
+     * @return a string representation of the date in "dd/MM/yyyy" format, or
+     *         null if the epoch day is {@link #NO_DATE}
+     */
+    public static String formatEpochDay(long epochDay) {
+        return epochDay == NO_DATE ? null : formatDate(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /**
+     * Converts a date to an epoch day.
+     *
+     * @param date the date, or null
+     * @return the epoch day of the date, or {@link #NO_DATE} if it is null
+     */
+    public static long toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : date.toEpochDay();
+    }
+
+    /**
+     * Converts a stored or entered date to an epoch day.
+     * Accepts an epoch day written as a number, as well as the "dd/MM/yyyy"
+     * and "yyyy-MM-dd" formats dates were stored in before they were held as
+     * epoch days.
+     *
+     * @param dateString the date string
+     * @return the epoch day of the date, or {@link #NO_DATE} if the string is
+     *         empty or not a date
+     */
+    public static long toEpochDay(String dateString) {
+        if (EmptyID.isEmptyID(dateString)) {
+            return NO_DATE;
+        }
+        String trimmed = dateString.trim();
+        if (isEpochDay(trimmed)) {
+            try {
+                return Long.parseLong(trimmed);
+            } catch (NumberFormatException e) {
+                return NO_DATE;
+            }
+        }
+        LocalDate date = parseDate(trimmed);
+        if (date == null) {
+            try {
+                date = LocalDate.parse(trimmed, DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (DateTimeParseException e) {
+                return NO_DATE;
+            }
+        }
+        return date.toEpochDay();
+    }
+
+    /**
+     * Checks whether a stored date is an epoch day written as a number, rather
+     * than a date in an older text format.
+     *
+     * @param dateString the stored date
+     * @return true if the string is an optionally negative whole number
+     */
+    public static boolean isEpochDay(String dateString) {
+        int start = dateString.startsWith("-") ? 1 : 0;
+        if (dateString.length() == start) {
+            return false;
+        }
+        for (int i = start; i < dateString.length(); i++) {
+            if (!Character.isDigit(dateString.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -30,8 +202,7 @@ public class FormatDateTime {
      *         format
      */
     public static String formatDateTimeToString(Date date) {
-        SimpleDateFormat outputFormatter = new SimpleDateFormat("dd/MM/yyyy hh:mm a");
-        return outputFormatter.format(date);
+        return DATE_TIME_FORMATTER.format(toZonedDateTime(date));
     }
 
     /**
@@ -46,12 +217,12 @@ public class FormatDateTime {
      * @return a Date object representing the date, or null if parsing fails
      */
     public static Date convertStringToDateTime(String dateString) {
-        SimpleDateFormat formatter = new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy");
-        formatter.setLenient(false);
-
+        if (dateString == null) {
+            return null;
+        }
         try {
-            return formatter.parse(dateString);
-        } catch (ParseException e) {
+            return Date.from(ZonedDateTime.parse(dateString, getDateToStringFormatter()).toInstant());
+        } catch (DateTimeParseException e) {
             return null;
         }
     }
@@ -76,6 +247,6 @@ public class FormatDateTime {
      * @return a string representation of the date in "yyyy-MM-dd" format
      */
     public static String toDateOnly(Date date) {
-        return DATE_FORMAT.format(date);
+        return DateTimeFormatter.ISO_LOCAL_DATE.format(toZonedDateTime(date));
     }
 }
@@ -1,15 +1,15 @@
 package utils.utils;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility class for converting a formatted string representation of a map
  * into a Map object with String keys and List of String values.
+ * The string is scanned once, without regular expressions, as it is parsed for
+ * every doctor loaded.
  */
 public class StringToMap {
     /**
@@ -26,25 +26,55 @@ public class StringToMap {
      */
     public static Map<String, List<String>> ToMap(String input) {
         Map<String, List<String>> map = new HashMap<>();
+        if (input == null) {
+            return map;
+        }
 
-        input = input.substring(1, input.length() - 1);
-
-        String[] pairs = input.split(", (?=\\d+=)");
-
-        Pattern pattern = Pattern.compile("(\\d+)=\\[(.*?)]");
-
-        for (String pair : pairs) {
-            Matcher matcher = pattern.matcher(pair);
-
-            if (matcher.matches()) {
-                String key = matcher.group(1);
-                String[] values = matcher.group(2).split(", ");
-                List<String> valueList = Arrays.asList(values);
-
+        int end = input.length() - 1;
+        int position = input.indexOf('{') + 1;
+        while (position > 0 && position < end) {
+            int equals = input.indexOf("=[", position);
+            int close = equals < 0 ? -1 : input.indexOf(']', equals);
+            if (close < 0) {
+                break;
+            }
+            String key = input.substring(position, equals).trim();
+            List<String> valueList = new ArrayList<>();
+            int start = equals + 2;
+            int comma = input.indexOf(',', start);
+            while (comma >= 0 && comma < close) {
+                valueList.add(input.substring(start, comma).trim());
+                start = comma + 1;
+                comma = input.indexOf(',', start);
+            }
+            valueList.add(input.substring(start, close).trim());
+            if (isNumber(key)) {
                 map.put(key, valueList);
             }
+            position = close + 1;
+            while (position < end && (input.charAt(position) == ',' || input.charAt(position) == ' ')) {
+                position++;
+            }
         }
 
         return map;
     }
+
+    /**
+     * Checks whether a string is a non-empty sequence of digits.
+     *
+     * @param string the string to check
+     * @return true if the string only contains digits
+     */
+    private static boolean isNumber(String string) {
+        if (string.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (!Character.isDigit(string.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }